@@ -33,13 +33,25 @@
  */
 package fr.paris.lutece.util.signrequest;
 
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import fr.paris.lutece.util.signrequest.security.HashEngine;
 import fr.paris.lutece.util.signrequest.security.HashService;
+import fr.paris.lutece.util.signrequest.security.KeyRing;
+import fr.paris.lutece.util.signrequest.security.KeyedHashService;
+import fr.paris.lutece.util.signrequest.security.ReplayGuard;
+import fr.paris.lutece.util.signrequest.security.SignatureDecoder;
+import fr.paris.lutece.util.signrequest.security.SignatureHashService;
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * AbstractAuthenticator
@@ -47,19 +59,40 @@ import fr.paris.lutece.util.signrequest.security.HashService;
 public abstract class AbstractAuthenticator implements RequestAuthenticator
 {
     protected static final Logger LOGGER = LogManager.getLogger( "lutece.security.signrequest" );
-    private static HashService _serviceHash;
+    /** Signature element standing for the SHA-256 digest of the request body, given by a DigestingRequestWrapper */
+    public static final String ELEMENT_BODY = "@body";
+    /** Request attribute holding the hexadecimal digest of the body */
+    public static final String ATTRIBUTE_BODY_DIGEST = "signrequest.bodyDigest";
+    private static final String [ ] NO_ELEMENTS = new String [ 0];
+    private SignatureHashService _serviceHash;
     private List<String> _listSignatureElements;
+    private String [ ] _signatureElements = NO_ELEMENTS;
+    private Map<String, SignatureElement> _mapElements = new HashMap<>( );
     protected long _lValidityTimePeriod;
+    private ReplayGuard _replayGuard;
+    private final LongAdder _unhintedKeyRequests = new LongAdder( );
+    private final LongAdder _keyFallbacks = new LongAdder( );
 
     /**
-     * Sets the list of signature elements
+     * Sets the list of signature elements. An element is a request parameter, or a value from another source declared with a prefix such as header: or
+     * query:, which does not parse a form body (see {@link SignatureElement}).
      * 
      * @param list
      *            The list
      */
     public void setSignatureElements( List<String> list )
     {
+        String [ ] signatureElements = ( list != null ) ? list.toArray( new String [ list.size( )] ) : NO_ELEMENTS;
+        Map<String, SignatureElement> mapElements = new HashMap<>( );
+
+        for ( String strElement : signatureElements )
+        {
+            mapElements.put( strElement, SignatureElement.parse( strElement ) );
+        }
+
         _listSignatureElements = list;
+        _mapElements = mapElements;
+        _signatureElements = signatureElements;
     }
 
     /**
@@ -76,13 +109,61 @@ public abstract class AbstractAuthenticator implements RequestAuthenticator
      * Sets the Hash service
      * 
      * @param service
-     *            The Hash service
+     *            The Hash service, a HashService or a KeyedHashService
+     * @throws IllegalArgumentException
+     *             If the service is neither a HashService nor a KeyedHashService
      */
-    public void setHashService( HashService service )
+    public void setHashService( SignatureHashService service )
     {
+        if ( !( service instanceof HashService ) && !( service instanceof KeyedHashService ) )
+        {
+            throw new IllegalArgumentException( "SignRequest - Unsupported hash service : " + service );
+        }
+
         _serviceHash = service;
     }
 
+    /**
+     * Sets the replay guard. Once set, a signature is only accepted once : the window of the guard should match the validity time period.
+     * 
+     * @param guard
+     *            The replay guard or null to accept replays
+     */
+    public void setReplayGuard( ReplayGuard guard )
+    {
+        _replayGuard = guard;
+    }
+
+    /**
+     * Gets the replay guard
+     * 
+     * @return The replay guard or null
+     */
+    public ReplayGuard getReplayGuard( )
+    {
+        return _replayGuard;
+    }
+
+    /**
+     * Gets the number of requests signed with a versioned key that did not give the key version
+     * 
+     * @return The count
+     */
+    public long getUnhintedKeyRequestCount( )
+    {
+        return _unhintedKeyRequests.sum( );
+    }
+
+    /**
+     * Gets the number of signatures checked with an older key because the request did not give the key version
+     * 
+     * @return The count of extra hashes
+     */
+    public long getKeyFallbackCount( )
+    {
+        return _keyFallbacks.sum( );
+    }
+
     /**
      * Sets validity time period (in seconds) between the timestamp in the request and the server timestamp
      * 
@@ -114,22 +195,277 @@ public abstract class AbstractAuthenticator implements RequestAuthenticator
      * @param strSecret
      *            The secret
      * @return A signature as an Hexadecimal Hash
+     * @throws IllegalStateException
+     *             If the hash service is keyed and there is no secret
      */
     public String buildSignature( List<String> listElements, String strTimestamp, String strSecret )
     {
-        StringBuilder sbSignature = new StringBuilder( );
+        if ( !hasSecret( strSecret ) )
+        {
+            throw new IllegalStateException( "No secret to sign the request" );
+        }
+
+        HashEngine engine = getHashEngine( strSecret );
+
+        if ( engine == null )
+        {
+            return buildStringSignature( listElements, strTimestamp, strSecret );
+        }
+
+        SignatureBuffer buffer = SignatureBuffer.get( );
+        engine.reset( );
 
         if ( listElements != null )
         {
             for ( String strElement : listElements )
             {
-                sbSignature.append( strElement );
+                buffer.update( engine, strElement );
             }
         }
 
-        sbSignature.append( strSecret ).append( strTimestamp );
+        byte [ ] computed = buffer.getComputed( engine.getLength( ) );
+        finish( engine, buffer, strTimestamp, strSecret, null, computed );
+
+        return SignatureBuffer.hex( computed );
+    }
+
+    /**
+     * Check the signature of a request. The signature elements, the secret and the timestamp are fed straight into a reusable hash engine and the result
+     * is compared in constant time to the decoded signature, so no intermediate string is built.
+     * 
+     * @param request
+     *            The request
+     * @param strTimestamp
+     *            The timestamp
+     * @param strSecret
+     *            The secret
+     * @param strSignature
+     *            The signature provided by the request
+     * @return true if the signature is valid, otherwise false
+     */
+    protected boolean isValidSignature( HttpServletRequest request, String strTimestamp, String strSecret, String strSignature )
+    {
+        return isValidSignature( request, strTimestamp, strSecret, null, strSignature );
+    }
+
+    /**
+     * Check the signature of a request
+     * 
+     * @param request
+     *            The request
+     * @param strTimestamp
+     *            The timestamp
+     * @param strSecret
+     *            The secret
+     * @param secret
+     *            The secret already encoded in UTF-8, or null to encode it on the fly
+     * @param strSignature
+     *            The signature provided by the request
+     * @return true if the signature is valid, otherwise false
+     */
+    protected boolean isValidSignature( HttpServletRequest request, String strTimestamp, String strSecret, byte [ ] secret, String strSignature )
+    {
+        if ( ( strSecret == null ) || !hasSecret( strSecret ) )
+        {
+            LOGGER.info( "SignRequest - No secret available to check the signature" );
+
+            return false;
+        }
+
+        HashEngine engine = getHashEngine( strSecret );
+
+        if ( engine == null )
+        {
+            String strExpected = buildStringSignature( getSignatureElementValues( request ), strTimestamp, strSecret );
+
+            return MessageDigest.isEqual( strSignature.getBytes( StandardCharsets.UTF_8 ), strExpected.getBytes( StandardCharsets.UTF_8 ) )
+                    && isFirstUse( strTimestamp, strExpected, null );
+        }
+
+        SignatureBuffer buffer = SignatureBuffer.get( );
+        int nLength = engine.getLength( );
+        byte [ ] expected = buffer.getExpected( nLength );
+
+        // Malformed signatures are rejected before hashing
+        if ( !SignatureDecoder.decode( strSignature, expected ) )
+        {
+            LOGGER.info( "SignRequest - Malformed signature" );
+
+            return false;
+        }
+
+        engine.reset( );
+
+        for ( String strElement : _signatureElements )
+        {
+            String strValue = getSignatureElementValue( request, strElement );
+
+            if ( strValue != null )
+            {
+                buffer.update( engine, strValue );
+            }
+        }
+
+        byte [ ] computed = buffer.getComputed( nLength );
+        finish( engine, buffer, strTimestamp, strSecret, secret, computed );
+
+        return MessageDigest.isEqual( computed, expected ) && isFirstUse( strTimestamp, null, computed );
+    }
+
+    /**
+     * Check the signature of a request with versioned keys. A request giving its key version is checked with this key only ; a request without key
+     * version is checked with each key, newest first.
+     * 
+     * @param request
+     *            The request
+     * @param strTimestamp
+     *            The timestamp
+     * @param keyRing
+     *            The keys
+     * @param strKeyVersion
+     *            The key version provided by the request, or null
+     * @param strSignature
+     *            The signature provided by the request
+     * @return true if the signature is valid, otherwise false
+     */
+    protected boolean isValidSignature( HttpServletRequest request, String strTimestamp, KeyRing keyRing, String strKeyVersion, String strSignature )
+    {
+        if ( strKeyVersion != null )
+        {
+            int nIndex = keyRing.indexOf( strKeyVersion );
+
+            if ( nIndex < 0 )
+            {
+                LOGGER.info( "SignRequest - Unknown key version : " + strKeyVersion );
+
+                return false;
+            }
+
+            return isValidSignature( request, strTimestamp, keyRing.getKey( nIndex ), keyRing.getEncodedKey( nIndex ), strSignature );
+        }
+
+        _unhintedKeyRequests.increment( );
+
+        for ( int i = 0; i < keyRing.size( ); i++ )
+        {
+            if ( i > 0 )
+            {
+                _keyFallbacks.increment( );
+            }
+
+            if ( isValidSignature( request, strTimestamp, keyRing.getKey( i ), keyRing.getEncodedKey( i ), strSignature ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks with the replay guard that a valid signature is used for the first time
+     * 
+     * @param strTimestamp
+     *            The timestamp
+     * @param strSignature
+     *            The signature, if it is not available as bytes
+     * @param signature
+     *            The signature bytes or null
+     * @return true if there is no replay guard or if the signature has not been used before
+     */
+    private boolean isFirstUse( String strTimestamp, String strSignature, byte [ ] signature )
+    {
+        ReplayGuard guard = _replayGuard;
+
+        if ( guard == null )
+        {
+            return true;
+        }
+
+        long lTimestamp;
+
+        try
+        {
+            lTimestamp = Long.parseLong( strTimestamp );
+        }
+        catch( NumberFormatException e )
+        {
+            LOGGER.info( "SignRequest - Invalid timestamp : " + strTimestamp );
+
+            return false;
+        }
+
+        boolean bFirstUse = ( signature != null ) ? guard.register( lTimestamp, signature ) : guard.register( lTimestamp, strSignature );
+
+        if ( !bFirstUse )
+        {
+            LOGGER.info( "SignRequest - Signature already used or out of the replay window" );
+        }
+
+        return bFirstUse;
+    }
+
+    /**
+     * Gets the value of a signature element from the request
+     * 
+     * @param request
+     *            The request
+     * @param strElement
+     *            The signature element
+     * @return The value or null if the request does not provide the element
+     */
+    protected String getSignatureElementValue( HttpServletRequest request, String strElement )
+    {
+        SignatureElement element = _mapElements.get( strElement );
+
+        if ( element == null )
+        {
+            element = SignatureElement.parse( strElement );
+        }
+
+        return element.getValue( request );
+    }
+
+    /**
+     * Checks, without reading the body nor hashing, that the request carries a signature with a valid timestamp. Run before a body is read for the
+     * signature, so that unsigned or expired requests are rejected first.
+     * 
+     * @param request
+     *            The request
+     * @return true if the request may be authenticated, false if it is rejected
+     */
+    public boolean isSignedRequest( HttpServletRequest request )
+    {
+        return true;
+    }
+
+    /**
+     * Checks that a signature and a valid timestamp are given
+     * 
+     * @param strSignature
+     *            The signature
+     * @param strTimestamp
+     *            The timestamp
+     * @return true if both are given and the timestamp is valid
+     */
+    protected boolean isSignedRequest( String strSignature, String strTimestamp )
+    {
+        // no signature or timestamp
+        if ( ( strSignature == null ) || ( strTimestamp == null ) )
+        {
+            LOGGER.info( "SignRequest - Invalid signature" );
+
+            return false;
+        }
+
+        if ( !isValidTimestamp( strTimestamp ) )
+        {
+            LOGGER.info( "SignRequest - Invalid timestamp : " + strTimestamp );
+
+            return false;
+        }
 
-        return _serviceHash.getHash( sbSignature.toString( ) );
+        return true;
     }
 
     /**
@@ -146,7 +482,7 @@ public abstract class AbstractAuthenticator implements RequestAuthenticator
             try
             {
                 long lTimeRequest = Long.parseLong( strTimestamp );
-                long lTimeCurrent = new Date( ).getTime( );
+                long lTimeCurrent = System.currentTimeMillis( );
                 boolean bValid = ( ( ( lTimeCurrent - lTimeRequest ) / 1000L ) < _lValidityTimePeriod );
 
                 if ( !bValid )
@@ -168,4 +504,121 @@ public abstract class AbstractAuthenticator implements RequestAuthenticator
         // Period = 0 no check
         return true;
     }
+
+    /**
+     * Tells if a secret can be used with the hash service. A keyed hash service needs a non empty key, the other ones hash the secret with the
+     * signature elements.
+     * 
+     * @param strSecret
+     *            The secret
+     * @return true if the secret can be used
+     */
+    private boolean hasSecret( String strSecret )
+    {
+        return !( _serviceHash instanceof KeyedHashService ) || ( ( strSecret != null ) && !strSecret.isEmpty( ) );
+    }
+
+    /**
+     * Gets the hash engine to use with a given secret
+     * 
+     * @param strSecret
+     *            The secret
+     * @return The engine or null if the hash service only provides string hashes
+     */
+    private HashEngine getHashEngine( String strSecret )
+    {
+        if ( _serviceHash instanceof KeyedHashService )
+        {
+            return ( (KeyedHashService) _serviceHash ).getHashEngine( strSecret );
+        }
+
+        return ( (HashService) _serviceHash ).getHashEngine( );
+    }
+
+    /**
+     * Feeds the secret and the timestamp and completes the hash
+     * 
+     * @param engine
+     *            The engine
+     * @param buffer
+     *            The buffer
+     * @param strTimestamp
+     *            The timestamp
+     * @param strSecret
+     *            The secret
+     * @param secret
+     *            The secret encoded in UTF-8 or null
+     * @param out
+     *            The buffer that receives the hash
+     */
+    private void finish( HashEngine engine, SignatureBuffer buffer, String strTimestamp, String strSecret, byte [ ] secret, byte [ ] out )
+    {
+        // With a keyed hash, the secret is the key of the MAC and is not part of the hashed source
+        if ( !( _serviceHash instanceof KeyedHashService ) )
+        {
+            if ( secret != null )
+            {
+                engine.update( secret, 0, secret.length );
+            }
+            else
+            {
+                buffer.update( engine, String.valueOf( strSecret ) );
+            }
+        }
+
+        buffer.update( engine, String.valueOf( strTimestamp ) );
+        engine.doFinal( out, 0 );
+    }
+
+    /**
+     * Gets the values of the signature elements provided by the request
+     * 
+     * @param request
+     *            The request
+     * @return The values
+     */
+    private List<String> getSignatureElementValues( HttpServletRequest request )
+    {
+        List<String> listValues = new ArrayList<>( _signatureElements.length );
+
+        for ( String strElement : _signatureElements )
+        {
+            String strValue = getSignatureElementValue( request, strElement );
+
+            if ( strValue != null )
+            {
+                listValues.add( strValue );
+            }
+        }
+
+        return listValues;
+    }
+
+    /**
+     * Create a signature with a hash service that only provides string hashes
+     * 
+     * @param listElements
+     *            The list of elements that part of the hash
+     * @param strTimestamp
+     *            The timestamp
+     * @param strSecret
+     *            The secret
+     * @return A signature as an Hexadecimal Hash
+     */
+    private String buildStringSignature( List<String> listElements, String strTimestamp, String strSecret )
+    {
+        StringBuilder sbSignature = new StringBuilder( );
+
+        if ( listElements != null )
+        {
+            for ( String strElement : listElements )
+            {
+                sbSignature.append( strElement );
+            }
+        }
+
+        sbSignature.append( strSecret ).append( strTimestamp );
+
+        return ( (HashService) _serviceHash ).getHash( sbSignature.toString( ) );
+    }
 }
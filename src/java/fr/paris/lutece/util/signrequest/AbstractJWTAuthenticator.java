@@ -44,6 +44,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import fr.paris.lutece.util.jwt.service.JWTUtil;
+import fr.paris.lutece.util.signrequest.jwt.JWTTokenCache;
+import fr.paris.lutece.util.signrequest.jwt.JWTVerificationCache;
+import fr.paris.lutece.util.signrequest.jwt.JWTVerificationResult;
 
 /**
  * AbstractAuthenticator
@@ -53,6 +56,8 @@ public abstract class AbstractJWTAuthenticator extends AbstractAuthenticator
     protected static final Logger LOGGER = LogManager.getLogger( "lutece.security.signrequest" );
     protected Map<String, String> _mapClaimsToCheck;
     protected String _strJWTHttpHeader;
+    private JWTVerificationCache _verificationCache;
+    private JWTTokenCache _tokenCache;
 
     /**
      * Constructor
@@ -74,13 +79,162 @@ public abstract class AbstractJWTAuthenticator extends AbstractAuthenticator
     /**
      * {@inheritDoc }
      */
-    public abstract boolean isRequestAuthenticated( HttpServletRequest request );
-    
+    @Override
+    public boolean isRequestAuthenticated( HttpServletRequest request )
+    {
+        JWTVerificationResult result = verify( request );
+
+        if ( !result.isValid( ) && LOGGER.isDebugEnabled( ) )
+        {
+            LOGGER.debug( "SignRequest - JWT rejected : " + result );
+        }
+
+        return result.isValid( );
+    }
+
+    /**
+     * Verifies the JWT of a request, using the verification cache if it is enabled
+     * 
+     * @param request
+     *            The request
+     * @return The verification result
+     */
+    public JWTVerificationResult verify( HttpServletRequest request )
+    {
+        String strToken = request.getHeader( _strJWTHttpHeader );
+
+        if ( ( strToken == null ) || strToken.isEmpty( ) )
+        {
+            return JWTVerificationResult.failure( JWTVerificationResult.Status.MISSING_TOKEN );
+        }
+
+        JWTVerificationCache cache = _verificationCache;
+
+        if ( cache == null )
+        {
+            return verifyToken( request, strToken );
+        }
+
+        // Read before the verification : a result is never recorded against a key newer than the one that produced it
+        Object verificationKey = getVerificationKey( );
+        Boolean bCached = cache.get( strToken, verificationKey );
+
+        if ( bCached != null )
+        {
+            return JWTVerificationResult.cached( bCached );
+        }
+
+        JWTVerificationResult result = verifyToken( request, strToken );
+        cache.put( strToken, result.isValid( ), result.getExpiration( ), verificationKey );
+
+        return result;
+    }
+
+    /**
+     * Verifies a JWT, without using the verification cache
+     * 
+     * @param request
+     *            The request
+     * @param strToken
+     *            The JWT read from the request header
+     * @return The verification result
+     */
+    protected abstract JWTVerificationResult verifyToken( HttpServletRequest request, String strToken );
+
+    /**
+     * Gets the key currently used to verify the tokens. Cached results obtained with another key are not served, so an authenticator whose keys can be
+     * reloaded must return a new object once they change.
+     * 
+     * @return The verification key, or null if it never changes
+     */
+    protected Object getVerificationKey( )
+    {
+        return null;
+    }
+
+    /**
+     * Checks the claims of the JWT of a request
+     * 
+     * @param request
+     *            The request
+     * @param key
+     *            The key used to check the signature
+     * @return true if the claims match the expected values
+     */
     protected boolean isRequestAuthenticated( HttpServletRequest request, Key key )
     {
         return JWTUtil.checkPayloadValues( request, key, _strJWTHttpHeader, _mapClaimsToCheck );
     }
 
+    /**
+     * Enables the cache of verification results. Each authenticator owns its cache since a result only holds for its keys and claims.
+     * 
+     * @param nMaxSize
+     *            The maximum number of cached tokens
+     * @param lMaxTtl
+     *            The maximum time a result is kept, in milliseconds
+     */
+    public void enableVerificationCache( int nMaxSize, long lMaxTtl )
+    {
+        _verificationCache = new JWTVerificationCache( nMaxSize, lMaxTtl );
+    }
+
+    /**
+     * Gets the cache of verification results
+     * 
+     * @return The cache or null if it is not enabled
+     */
+    public JWTVerificationCache getVerificationCache( )
+    {
+        return _verificationCache;
+    }
+
+    /**
+     * Enables the cache of the tokens sent by this authenticator. A token is reused until the given fraction of its validity time period has passed,
+     * then refreshed in the background.
+     * 
+     * @param dRefreshFraction
+     *            The fraction of the validity time period after which a token is refreshed, in ]0, 1]
+     */
+    public void enableTokenCache( double dRefreshFraction )
+    {
+        _tokenCache = new JWTTokenCache( this::buildToken, getValidityTimePeriod( ), dRefreshFraction );
+    }
+
+    /**
+     * Stops the background refresh of the token cache, if it is enabled
+     */
+    public void close( )
+    {
+        JWTTokenCache cache = _tokenCache;
+
+        if ( cache != null )
+        {
+            cache.close( );
+        }
+    }
+
+    /**
+     * Gets a token to sign a request, from the token cache if it is enabled
+     * 
+     * @return The token
+     */
+    protected String getToken( )
+    {
+        JWTTokenCache cache = _tokenCache;
+
+        return ( cache != null ) ? cache.getToken( ) : buildToken( getExpirationDate( ) );
+    }
+
+    /**
+     * Builds and signs a new token
+     * 
+     * @param expirationDate
+     *            The expiration date of the token
+     * @return The token
+     */
+    protected abstract String buildToken( Date expirationDate );
+
     /**
      * Get expiration date
      * 
@@ -33,19 +33,23 @@
  */
 package fr.paris.lutece.util.signrequest;
 
-import java.security.Key;
 import java.security.KeyPair;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import jakarta.servlet.http.HttpServletRequest;
 
 import fr.paris.lutece.util.jwt.service.JWTUtil;
+import fr.paris.lutece.util.signrequest.jwt.JWTVerificationResult;
+import fr.paris.lutece.util.signrequest.jwt.JWTVerifier;
 
 public abstract class AbstractJWTRSAAuthenticator extends AbstractJWTAuthenticator
 {
-    private String _strEncryptionAlgorythmName;
-    private final String DEFAULT_ENC_ALGO_NAME = "RS256";
+    private static final String DEFAULT_ENC_ALGO_NAME = "RS256";
+
+    private final String _strEncryptionAlgorythmName;
+    private volatile JWTVerifier _verifier;
 
     /**
      * Constructor
@@ -62,38 +66,73 @@ public abstract class AbstractJWTRSAAuthenticator extends AbstractJWTAuthenticat
     public AbstractJWTRSAAuthenticator( Map<String, String> mapClaimsToCheck, String strJWTHttpHeader, long lValidityPeriod, String strEncryptionAlgorythmName )
     {
         super( mapClaimsToCheck, strJWTHttpHeader, lValidityPeriod );
-        _strEncryptionAlgorythmName = strEncryptionAlgorythmName;
+        _strEncryptionAlgorythmName = ( strEncryptionAlgorythmName != null ) ? strEncryptionAlgorythmName : DEFAULT_ENC_ALGO_NAME;
+    }
 
-        if ( _strEncryptionAlgorythmName == null )
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected JWTVerificationResult verifyToken( HttpServletRequest request, String strToken )
+    {
+        KeyPair keyPair = getKeyPair( );
+
+        if ( ( keyPair == null ) || ( keyPair.getPublic( ) == null ) )
         {
-            _strEncryptionAlgorythmName = DEFAULT_ENC_ALGO_NAME;
+            return JWTVerificationResult.failure( JWTVerificationResult.Status.NO_KEY );
         }
+
+        JWTVerifier verifier = _verifier;
+
+        if ( ( verifier == null ) || ( verifier.getKey( ) != keyPair.getPublic( ) ) )
+        {
+            // First use or keys reloaded : results obtained with the previous key no longer hold
+            verifier = new JWTVerifier( keyPair.getPublic( ), _mapClaimsToCheck );
+            _verifier = verifier;
+
+            if ( getVerificationCache( ) != null )
+            {
+                getVerificationCache( ).clear( );
+            }
+        }
+
+        return verifier.verify( strToken );
     }
 
     /**
      * {@inheritDoc }
      */
     @Override
-    public boolean isRequestAuthenticated( HttpServletRequest request )
+    protected Object getVerificationKey( )
     {
-        Key key = getKeyPair( ).getPublic( );
-        boolean validSignature = JWTUtil.checkSignature( request, _strJWTHttpHeader, key );
+        KeyPair keyPair = getKeyPair( );
 
-        if ( validSignature )
-        {
-            return super.isRequestAuthenticated( request, key );
-        }
-        return false;
+        return ( keyPair != null ) ? keyPair.getPublic( ) : null;
     }
 
     /**
      * {@inheritDoc }
      */
     @Override
-    public AuthenticateRequestInformations getSecurityInformations(  List<String> elements )
+    public AuthenticateRequestInformations getSecurityInformations( List<String> elements )
     {
-    	 return new AuthenticateRequestInformations().addSecurityHeader(_strJWTHttpHeader,JWTUtil.buildBase64JWT( _mapClaimsToCheck, getExpirationDate( ), _strEncryptionAlgorythmName, getKeyPair( ).getPublic( )));
- 
+        return new AuthenticateRequestInformations( ).addSecurityHeader( _strJWTHttpHeader, getToken( ) );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected String buildToken( Date expirationDate )
+    {
+        KeyPair keyPair = getKeyPair( );
+
+        if ( ( keyPair == null ) || ( keyPair.getPrivate( ) == null ) )
+        {
+            throw new IllegalStateException( "No RSA private key to sign the JWT" );
+        }
+
+        return JWTUtil.buildBase64JWT( _mapClaimsToCheck, expirationDate, _strEncryptionAlgorythmName, keyPair.getPrivate( ) );
     }
 
     /**
@@ -103,4 +142,12 @@ public abstract class AbstractJWTRSAAuthenticator extends AbstractJWTAuthenticat
      */
     protected abstract KeyPair getKeyPair( );
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getCostHint( )
+    {
+        return 100;
+    }
 }
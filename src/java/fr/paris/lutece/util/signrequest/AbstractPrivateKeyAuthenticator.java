@@ -33,14 +33,22 @@
  */
 package fr.paris.lutece.util.signrequest;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import jakarta.servlet.http.HttpServletRequest;
+
+import fr.paris.lutece.util.signrequest.security.KeyRing;
+
 /**
- * Abstract Private Key Authenticator
+ * Abstract Private Key Authenticator. The private key is either a single key or a ring of versioned keys : the newest key signs, and the key version is
+ * sent along with the signature so that the server checks it with the right key.
  */
 public abstract class AbstractPrivateKeyAuthenticator extends AbstractAuthenticator
 {
     private String _strPrivateKey;
+    private byte [ ] _privateKey;
+    private KeyRing _keyRing;
 
     /**
      * Sets the private key
@@ -51,6 +59,43 @@ public abstract class AbstractPrivateKeyAuthenticator extends AbstractAuthentica
     public void setPrivateKey( String strKey )
     {
         _strPrivateKey = strKey;
+        _privateKey = ( strKey != null ) ? strKey.getBytes( StandardCharsets.UTF_8 ) : null;
+        _keyRing = null;
+    }
+
+    /**
+     * Sets versioned private keys
+     * 
+     * @param keyRing
+     *            The keys, newest first
+     */
+    public void setPrivateKeys( KeyRing keyRing )
+    {
+        _strPrivateKey = keyRing.getCurrentKey( );
+        _privateKey = keyRing.getEncodedKey( 0 );
+        _keyRing = keyRing;
+    }
+
+    /**
+     * Gets the versioned private keys
+     * 
+     * @return The keys, or null for a single key
+     */
+    public KeyRing getPrivateKeys( )
+    {
+        return _keyRing;
+    }
+
+    /**
+     * Gets the version of the private key used to sign
+     * 
+     * @return The version, or null for a single key
+     */
+    protected String getPrivateKeyVersion( )
+    {
+        KeyRing keyRing = _keyRing;
+
+        return ( keyRing != null ) ? keyRing.getCurrentVersion( ) : null;
     }
 
     /**
@@ -76,4 +121,45 @@ public abstract class AbstractPrivateKeyAuthenticator extends AbstractAuthentica
     {
         return buildSignature( listElements, strTimestamp, getPrivateKey( ) );
     }
+
+    /**
+     * Check the signature of a request with the private key
+     * 
+     * @param request
+     *            The request
+     * @param strTimestamp
+     *            The timestamp
+     * @param strSignature
+     *            The signature provided by the request
+     * @return true if the signature is valid, otherwise false
+     */
+    protected boolean isValidSignature( HttpServletRequest request, String strTimestamp, String strSignature )
+    {
+        return isValidSignatureWithKeyVersion( request, strTimestamp, null, strSignature );
+    }
+
+    /**
+     * Check the signature of a request with the private key of the given version
+     * 
+     * @param request
+     *            The request
+     * @param strTimestamp
+     *            The timestamp
+     * @param strKeyVersion
+     *            The key version provided by the request, or null to try each key newest first
+     * @param strSignature
+     *            The signature provided by the request
+     * @return true if the signature is valid, otherwise false
+     */
+    protected boolean isValidSignatureWithKeyVersion( HttpServletRequest request, String strTimestamp, String strKeyVersion, String strSignature )
+    {
+        KeyRing keyRing = _keyRing;
+
+        if ( keyRing != null )
+        {
+            return isValidSignature( request, strTimestamp, keyRing, strKeyVersion, strSignature );
+        }
+
+        return isValidSignature( request, strTimestamp, _strPrivateKey, _privateKey, strSignature );
+    }
 }
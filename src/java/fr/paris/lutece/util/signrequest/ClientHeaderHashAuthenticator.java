@@ -33,22 +33,25 @@
  */
 package fr.paris.lutece.util.signrequest;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import fr.paris.lutece.util.signrequest.security.KeyRing;
 import fr.paris.lutece.util.signrequest.service.ClientKeyService;
+import fr.paris.lutece.util.signrequest.service.VersionedClientKeyService;
 
 /**
- * Client Header Hash Authenticator
+ * Client Header Hash Authenticator. With a VersionedClientKeyService, the client signs with its newest key and sends the key version, and the server
+ * accepts all the versions of the key of the client.
  */
 public class ClientHeaderHashAuthenticator extends AbstractAuthenticator implements RequestAuthenticator
 {
     private static final String HEADER_SIGNATURE = "Lutece-Request-Signature";
     private static final String HEADER_TIMESTAMP = "Lutece-Request-Timestamp";
     private static final String HEADER_CLIENT_ID = "Lutece-Request-ClientID";
+    private static final String HEADER_KEY_VERSION = "Lutece-Request-Key-Version";
 
     private String _strClientId;
     private ClientKeyService _clientKeyService;
@@ -76,6 +79,16 @@ public class ClientHeaderHashAuthenticator extends AbstractAuthenticator impleme
         _clientKeyService = clientKeyService;
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isSignedRequest( HttpServletRequest request )
+    {
+        return ( request.getHeader( HEADER_CLIENT_ID ) != null )
+                && isSignedRequest( request.getHeader( HEADER_SIGNATURE ), request.getHeader( HEADER_TIMESTAMP ) );
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -86,37 +99,44 @@ public class ClientHeaderHashAuthenticator extends AbstractAuthenticator impleme
         String strTimestamp = request.getHeader( HEADER_TIMESTAMP );
         String strClientId = request.getHeader( HEADER_CLIENT_ID );
 
-        // no signature or timestamp
-        if ( ( strHash1 == null ) || ( strTimestamp == null ) || ( strClientId == null ) )
+        if ( !isSignedRequest( strHash1, strTimestamp ) )
         {
-            LOGGER.info( "SignRequest - Invalid signature" );
-
             return false;
         }
 
-        if ( !isValidTimestamp( strTimestamp ) )
+        if ( strClientId == null )
         {
-            LOGGER.info( "SignRequest - Invalid timestamp : " + strTimestamp );
+            LOGGER.info( "SignRequest - No client ID" );
 
             return false;
         }
 
-        List<String> listElements = new ArrayList<String>( );
+        VersionedClientKeyService versionedService = getVersionedClientKeyService( );
 
-        for ( String strParameter : getSignatureElements( ) )
+        if ( versionedService != null )
         {
-            String strValue = request.getParameter( strParameter );
+            KeyRing keyRing = versionedService.getKeyRing( strClientId );
 
-            if ( strValue != null )
+            if ( keyRing == null )
             {
-                listElements.add( strValue );
+                LOGGER.info( "SignRequest - Unknown client : " + strClientId );
+
+                return false;
             }
+
+            return isValidSignature( request, strTimestamp, keyRing, request.getHeader( HEADER_KEY_VERSION ), strHash1 );
         }
 
         String strClientKey = _clientKeyService.getKey( strClientId );
-        String strHash2 = buildSignature( listElements, strTimestamp, strClientKey );
 
-        return strHash1.equals( strHash2 );
+        if ( strClientKey == null )
+        {
+            LOGGER.info( "SignRequest - Unknown client : " + strClientId );
+
+            return false;
+        }
+
+        return isValidSignature( request, strTimestamp, strClientKey, strHash1 );
     }
 
     /**
@@ -126,11 +146,35 @@ public class ClientHeaderHashAuthenticator extends AbstractAuthenticator impleme
     public AuthenticateRequestInformations  getSecurityInformations( List<String> elements )
     {
         String strTimestamp = String.valueOf( new Date( ).getTime( ) );
-        String strClientKey = _clientKeyService.getKey( _strClientId );
+        VersionedClientKeyService versionedService = getVersionedClientKeyService( );
+        KeyRing keyRing = ( versionedService != null ) ? versionedService.getKeyRing( _strClientId ) : null;
+        String strClientKey = ( keyRing != null ) ? keyRing.getCurrentKey( ) : _clientKeyService.getKey( _strClientId );
+
+        if ( strClientKey == null )
+        {
+            throw new IllegalStateException( "No key to sign the requests of the client " + _strClientId );
+        }
+
         String strSignature = buildSignature( elements, strTimestamp, strClientKey );
         
-        return new AuthenticateRequestInformations().addSecurityHeader(HEADER_TIMESTAMP, strTimestamp ).addSecurityHeader(HEADER_CLIENT_ID, _strClientId).addSecurityHeader(HEADER_SIGNATURE, strSignature);
-        
+        AuthenticateRequestInformations infos = new AuthenticateRequestInformations().addSecurityHeader(HEADER_TIMESTAMP, strTimestamp ).addSecurityHeader(HEADER_CLIENT_ID, _strClientId).addSecurityHeader(HEADER_SIGNATURE, strSignature);
+
+        return ( keyRing != null ) ? infos.addSecurityHeader( HEADER_KEY_VERSION, keyRing.getCurrentVersion( ) ) : infos;
+
+    }
+
+    /**
+     * Gets the client key service as a versioned one, when it versions its keys, possibly behind a cache or a filter
+     * 
+     * @return The versioned client key service, or null
+     */
+    private VersionedClientKeyService getVersionedClientKeyService( )
+    {
+        if ( ( _clientKeyService instanceof VersionedClientKeyService ) && ( (VersionedClientKeyService) _clientKeyService ).isVersioned( ) )
+        {
+            return (VersionedClientKeyService) _clientKeyService;
+        }
 
+        return null;
     }
 }
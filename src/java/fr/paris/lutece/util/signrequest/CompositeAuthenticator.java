@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Composite authenticator combining several authenticators, for example an IP allow list AND a rate limit AND a JWT check. The authenticators are run
+ * cheapest first, according to their cost hint, and the evaluation stops as soon as the result is known.
+ * <p>
+ * In adaptive mode, the order is recomputed periodically from the observed results : for AND, the authenticators rejecting the most requests per unit
+ * of cost run first ; for OR, those accepting the most. The order changes which authenticators run, not the result, except for authenticators with
+ * side effects (rate limit, replay guard) which only count the requests reaching them.
+ * </p>
+ */
+public class CompositeAuthenticator implements RequestAuthenticator
+{
+    /**
+     * How the results of the authenticators are combined
+     */
+    public enum MODE
+    {
+        AND,
+        OR
+    }
+
+    private static final int REORDER_INTERVAL = 1024;
+
+    private final MODE _mode;
+    private final boolean _bAdaptive;
+    private final List<Child> _listChildren = new ArrayList<>( );
+    private volatile Child [ ] _order = new Child [ 0];
+    private final AtomicLong _lRequests = new AtomicLong( );
+    private final AtomicBoolean _bReordering = new AtomicBoolean( );
+
+    /**
+     * Constructor
+     * 
+     * @param mode
+     *            How the results are combined
+     * @param bAdaptive
+     *            true to reorder the authenticators from the observed results
+     */
+    public CompositeAuthenticator( MODE mode, boolean bAdaptive )
+    {
+        _mode = mode;
+        _bAdaptive = bAdaptive;
+    }
+
+    /**
+     * Adds an authenticator with its own cost hint
+     * 
+     * @param authenticator
+     *            The authenticator
+     * @return This composite
+     */
+    public CompositeAuthenticator add( RequestAuthenticator authenticator )
+    {
+        return add( authenticator, authenticator.getCostHint( ) );
+    }
+
+    /**
+     * Adds an authenticator
+     * 
+     * @param authenticator
+     *            The authenticator
+     * @param nCost
+     *            The cost hint, overriding the one of the authenticator
+     * @return This composite
+     */
+    public synchronized CompositeAuthenticator add( RequestAuthenticator authenticator, int nCost )
+    {
+        _listChildren.add( new Child( authenticator, nCost ) );
+
+        Child [ ] order = _listChildren.toArray( new Child [ _listChildren.size( )] );
+        Arrays.sort( order, Comparator.comparingInt( child -> child._nCost ) );
+        _order = order;
+
+        return this;
+    }
+
+    /**
+     * Gets the authenticators in their current order of evaluation
+     * 
+     * @return The authenticators
+     */
+    public List<RequestAuthenticator> getEvaluationOrder( )
+    {
+        List<RequestAuthenticator> list = new ArrayList<>( );
+
+        for ( Child child : _order )
+        {
+            list.add( child._authenticator );
+        }
+
+        return list;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isRequestAuthenticated( HttpServletRequest request )
+    {
+        Child [ ] order = _order;
+
+        if ( order.length == 0 )
+        {
+            // Nothing checked, nothing authenticated
+            return false;
+        }
+
+        boolean bAnd = ( _mode == MODE.AND );
+        boolean bResult = bAnd;
+
+        for ( Child child : order )
+        {
+            boolean bAuthenticated = child._authenticator.isRequestAuthenticated( request );
+
+            if ( _bAdaptive )
+            {
+                child._evaluations.increment( );
+
+                // Counts the results that stop the evaluation
+                if ( bAuthenticated != bAnd )
+                {
+                    child._decisions.increment( );
+                }
+            }
+
+            if ( bAuthenticated != bAnd )
+            {
+                bResult = bAuthenticated;
+
+                break;
+            }
+        }
+
+        if ( _bAdaptive && ( ( _lRequests.incrementAndGet( ) % REORDER_INTERVAL ) == 0 ) )
+        {
+            reorder( );
+        }
+
+        return bResult;
+    }
+
+    /**
+     * Orders the authenticators by decisions per unit of cost over the last interval
+     */
+    void reorder( )
+    {
+        if ( !_bReordering.compareAndSet( false, true ) )
+        {
+            return;
+        }
+
+        try
+        {
+            Child [ ] order = _order.clone( );
+
+            for ( Child child : order )
+            {
+                long lEvaluations = child._evaluations.sumThenReset( );
+                long lDecisions = child._decisions.sumThenReset( );
+
+                // An authenticator not reached during the interval keeps its score
+                if ( lEvaluations > 0 )
+                {
+                    child._dScore = (double) lDecisions / lEvaluations / ( child._nCost + 1 );
+                }
+            }
+
+            Arrays.sort( order, Comparator.comparingDouble( ( Child child ) -> child._dScore ).reversed( ).thenComparingInt( child -> child._nCost ) );
+            _order = order;
+        }
+        finally
+        {
+            _bReordering.set( false );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * For AND, the informations of all the authenticators are merged. For OR, the informations of the first authenticator giving some are returned.
+     */
+    @Override
+    public AuthenticateRequestInformations getSecurityInformations( List<String> elements )
+    {
+        List<Child> listChildren;
+
+        synchronized( this )
+        {
+            listChildren = new ArrayList<>( _listChildren );
+        }
+
+        AuthenticateRequestInformations merged = null;
+
+        for ( Child child : listChildren )
+        {
+            AuthenticateRequestInformations infos = child._authenticator.getSecurityInformations( elements );
+
+            if ( infos == null )
+            {
+                continue;
+            }
+
+            if ( _mode == MODE.OR )
+            {
+                return infos;
+            }
+
+            if ( merged == null )
+            {
+                merged = new AuthenticateRequestInformations( );
+            }
+
+            infos.getSecurityHeaders( ).forEach( merged::addSecurityHeader );
+            infos.getSecurityParameteres( ).forEach( merged::addSecurityParameter );
+        }
+
+        return merged;
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * The cost of all the authenticators.
+     */
+    @Override
+    public int getCostHint( )
+    {
+        int nCost = 0;
+
+        for ( Child child : _order )
+        {
+            nCost += child._nCost;
+        }
+
+        return nCost;
+    }
+
+    /**
+     * An authenticator and its statistics
+     */
+    private static final class Child
+    {
+        private final RequestAuthenticator _authenticator;
+        private final int _nCost;
+        private final LongAdder _evaluations = new LongAdder( );
+        private final LongAdder _decisions = new LongAdder( );
+        private volatile double _dScore;
+
+        /**
+         * Constructor
+         * 
+         * @param authenticator
+         *            The authenticator
+         * @param nCost
+         *            The cost hint
+         */
+        Child( RequestAuthenticator authenticator, int nCost )
+        {
+            _authenticator = authenticator;
+            _nCost = Math.max( 0, nCost );
+        }
+    }
+}
@@ -33,11 +33,10 @@
  */
 package fr.paris.lutece.util.signrequest;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
-import fr.paris.lutece.util.signrequest.security.HashService;
+import fr.paris.lutece.util.signrequest.security.SignatureHashService;
 import jakarta.servlet.http.HttpServletRequest;
 
 /**
@@ -47,19 +46,29 @@ public class HeaderHashAuthenticator extends AbstractPrivateKeyAuthenticator imp
 {
     private static final String HEADER_SIGNATURE = "Lutece-Request-Signature";
     private static final String HEADER_TIMESTAMP = "Lutece-Request-Timestamp";
+    private static final String HEADER_KEY_VERSION = "Lutece-Request-Key-Version";
 
     public HeaderHashAuthenticator( )
     {
 
     }
 
-    public HeaderHashAuthenticator(HashService hashService, List<String> lSignatureElements, String strPrivateKey)
+    public HeaderHashAuthenticator(SignatureHashService hashService, List<String> lSignatureElements, String strPrivateKey)
     {
         setHashService( hashService );
         setSignatureElements( lSignatureElements );
         setPrivateKey( strPrivateKey );
     }
     
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isSignedRequest( HttpServletRequest request )
+    {
+        return isSignedRequest( request.getHeader( HEADER_SIGNATURE ), request.getHeader( HEADER_TIMESTAMP ) );
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -69,36 +78,12 @@ public class HeaderHashAuthenticator extends AbstractPrivateKeyAuthenticator imp
         String strHash1 = request.getHeader( HEADER_SIGNATURE );
         String strTimestamp = request.getHeader( HEADER_TIMESTAMP );
 
-        // no signature or timestamp
-        if ( ( strHash1 == null ) || ( strTimestamp == null ) )
-        {
-            LOGGER.info( "SignRequest - Invalid signature" );
-
-            return false;
-        }
-
-        if ( !isValidTimestamp( strTimestamp ) )
+        if ( !isSignedRequest( strHash1, strTimestamp ) )
         {
-            LOGGER.info( "SignRequest - Invalid timestamp : " + strTimestamp );
-
             return false;
         }
 
-        List<String> listElements = new ArrayList<String>( );
-
-        for ( String strParameter : getSignatureElements( ) )
-        {
-            String strValue = request.getParameter( strParameter );
-
-            if ( strValue != null )
-            {
-                listElements.add( strValue );
-            }
-        }
-
-        String strHash2 = buildSignature( listElements, strTimestamp, getPrivateKey( ) );
-
-        return strHash1.equals( strHash2 );
+        return isValidSignatureWithKeyVersion( request, strTimestamp, request.getHeader( HEADER_KEY_VERSION ), strHash1 );
     }
 
     /**
@@ -110,7 +95,10 @@ public class HeaderHashAuthenticator extends AbstractPrivateKeyAuthenticator imp
         String strTimestamp = String.valueOf( new Date( ).getTime( ) );
         String strSignature = buildSignature( elements, strTimestamp, getPrivateKey( ) );
 
-        return new AuthenticateRequestInformations().addSecurityHeader(HEADER_TIMESTAMP,strTimestamp).addSecurityHeader(HEADER_SIGNATURE, strSignature);
+        AuthenticateRequestInformations infos = new AuthenticateRequestInformations().addSecurityHeader(HEADER_TIMESTAMP,strTimestamp).addSecurityHeader(HEADER_SIGNATURE, strSignature);
+        String strKeyVersion = getPrivateKeyVersion( );
+
+        return ( strKeyVersion != null ) ? infos.addSecurityHeader( HEADER_KEY_VERSION, strKeyVersion ) : infos;
         
     }
 }
@@ -39,9 +39,18 @@ import java.util.TreeSet;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import fr.paris.lutece.util.signrequest.ip.ClientAddress;
+import fr.paris.lutece.util.signrequest.ip.ClientIPResolver;
+import fr.paris.lutece.util.signrequest.ip.IPAddressParser;
+import fr.paris.lutece.util.signrequest.ip.IPAddressSet;
+import fr.paris.lutece.util.signrequest.ip.IPRadixTrie;
+import fr.paris.lutece.util.signrequest.path.PathPrefixMatcher;
+
 /**
  * IPAuthentificator is a class that authenticates requests based on the client's IP address.
  * It can be configured to either allow or block requests from specific IP addresses.
+ * Entries are IPv4 or IPv6 addresses or CIDR blocks (10.0.0.0/8, 2001:db8::/32), compiled into a radix trie.
+ * Behind proxies, a ClientIPResolver gives the client address from the forwarding headers.
  */
 public class IPAuthentificator implements RequestAuthenticator {
 	
@@ -56,7 +65,10 @@ public class IPAuthentificator implements RequestAuthenticator {
 	}
 	
 	private Set<String> _listIPs;
+	private IPAddressSet _ipSet;
+	private ClientIPResolver _clientIPResolver;
 	private Set<String> _listAuthorizedPath;
+	private PathPrefixMatcher _authorizedPaths = PathPrefixMatcher.of( null );
 	private MODE _mode;
 	
     public IPAuthentificator( )
@@ -67,8 +79,8 @@ public class IPAuthentificator implements RequestAuthenticator {
     public IPAuthentificator( String strMode, List<String> listIPs, List<String> listAuthorizedPath )
     {
         _mode = MODE.valueOf( strMode );
-        _listIPs = new TreeSet<String>( listIPs );
-        _listAuthorizedPath = new TreeSet<String>( listAuthorizedPath );
+        setIPs( new TreeSet<String>( listIPs ) );
+        setAuthorizedPaths( new TreeSet<String>( listAuthorizedPath ) );
     }
 
 	/**
@@ -84,11 +96,57 @@ public class IPAuthentificator implements RequestAuthenticator {
 	 * Sets the list of IP addresses.
 	 * 
 	 * @param list
-	 * 		The list of IP addresses
+	 * 		The list of IP addresses and CIDR blocks
+	 * @throws IllegalArgumentException
+	 * 		If an entry is not a valid address or block
 	 */
 	public void setIPs( Set<String> list ) {
+		_ipSet = ( list != null ) ? IPRadixTrie.of( list ) : null;
 		this._listIPs = list;
 	}
+
+    /**
+     * Sets the IP address set checked by the authenticator, for instance an IPListFileSource. The list of IP addresses given by getIPs is left
+     * unchanged.
+     * 
+     * @param ipSet
+     *            The IP address set
+     */
+    public void setIPAddressSet( IPAddressSet ipSet )
+    {
+        _ipSet = ipSet;
+    }
+
+    /**
+     * Sets the resolver of the client address, for requests received through proxies. Without resolver, the peer address is checked.
+     * 
+     * @param clientIPResolver
+     *            The resolver
+     */
+    public void setClientIPResolver( ClientIPResolver clientIPResolver )
+    {
+        _clientIPResolver = clientIPResolver;
+    }
+
+    /**
+     * Gets the resolver of the client address
+     * 
+     * @return The resolver, or null if the peer address is checked
+     */
+    public ClientIPResolver getClientIPResolver( )
+    {
+        return _clientIPResolver;
+    }
+
+    /**
+     * Gets the IP address set checked by the authenticator
+     * 
+     * @return The IP address set
+     */
+    public IPAddressSet getIPAddressSet( )
+    {
+        return _ipSet;
+    }
 	
 	/**
 	 * Sets the list of authorized path exclusions for IP restriction
@@ -97,6 +155,7 @@ public class IPAuthentificator implements RequestAuthenticator {
 	 * 		The list of excluded paths
 	 */
 	public void setAuthorizedPaths( Set<String> list ) {
+		_authorizedPaths = PathPrefixMatcher.of( list );
 		this._listAuthorizedPath = list;
 	}
 	
@@ -106,7 +165,7 @@ public class IPAuthentificator implements RequestAuthenticator {
 	 * @return the list of excluded paths
 	 */
 	public Set<String> getAuthorizedPaths( ) {
-		return _listIPs;
+		return _listAuthorizedPath;
 	}
 	
 	/**
@@ -140,16 +199,39 @@ public class IPAuthentificator implements RequestAuthenticator {
 	@Override
 	public boolean isRequestAuthenticated( HttpServletRequest request ) 
 	{
-	    	String servletPath = request.getServletPath( );
-	    	
-	    	if ( _listAuthorizedPath != null && 
-	    		_listAuthorizedPath.stream( ).anyMatch( path -> servletPath.startsWith ( path ) ) )
+	    	if ( _authorizedPaths.matches( request.getServletPath( ) ) )
 	    	{
 	    	    return true;
 	    	}
 	    	
-	    	String remoteAddr = request.getRemoteAddr();
-		boolean isIPInList = _listIPs != null && _listIPs.contains(remoteAddr);
+		IPAddressSet ipSet = _ipSet;
+		boolean isIPInList;
+
+		if ( _clientIPResolver != null )
+		{
+		    ClientAddress clientAddress = _clientIPResolver.resolve( request );
+
+		    if ( clientAddress == null )
+		    {
+		        // The peer address is not valid : deny whatever the mode, a BLOCK list must not be bypassed
+		        return false;
+		    }
+
+		    isIPInList = ipSet != null && clientAddress.isIn( ipSet );
+		}
+		else
+		{
+		    String strRemoteAddr = request.getRemoteAddr( );
+		    long [ ] address = IPAddressParser.getBuffer( );
+
+		    if ( strRemoteAddr == null || IPAddressParser.parse( strRemoteAddr, address ) != IPAddressParser.ADDRESS_BITS )
+		    {
+		        // Same as an unresolved address : deny whatever the mode
+		        return false;
+		    }
+
+		    isIPInList = ipSet != null && ipSet.contains( address [0], address [1] );
+		}
 
 		switch (_mode) {
 			case ALLOW:
@@ -174,4 +256,12 @@ public class IPAuthentificator implements RequestAuthenticator {
 		// Implementation not provided
 		return null;
 	}
+
+	/**
+	 * {@inheritDoc }
+	 */
+	@Override
+	public int getCostHint( ) {
+		return 1;
+	}
 }
@@ -33,15 +33,22 @@
  */
 package fr.paris.lutece.util.signrequest;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import jakarta.servlet.http.HttpServletRequest;
 
 import fr.paris.lutece.util.jwt.service.JWTUtil;
+import fr.paris.lutece.util.signrequest.jwt.JWTVerificationResult;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
 
 public class JWTNoEncryptionAuthenticator extends AbstractJWTAuthenticator
 {
+    private static final JwtParser UNSECURED_PARSER = Jwts.parserBuilder( ).build( );
+
     /**
      * Constructor
      * 
@@ -59,19 +66,53 @@ public class JWTNoEncryptionAuthenticator extends AbstractJWTAuthenticator
      * {@inheritDoc }
      */
     @Override
-    public boolean isRequestAuthenticated( HttpServletRequest request )
+    protected JWTVerificationResult verifyToken( HttpServletRequest request, String strToken )
     {
         // No signature checking for this implementation
-        return JWTUtil.checkUnsecuredPayloadValues( request , _strJWTHttpHeader, _mapClaimsToCheck);
+        if ( JWTUtil.checkUnsecuredPayloadValues( request, _strJWTHttpHeader, _mapClaimsToCheck ) )
+        {
+            return JWTVerificationResult.valid( null, getExpiration( strToken ) );
+        }
+
+        return JWTVerificationResult.failure( JWTVerificationResult.Status.REJECTED );
+    }
+
+    /**
+     * Reads the expiration of a token, ignoring its signature
+     * 
+     * @param strToken
+     *            The compact token
+     * @return The expiration in milliseconds since the epoch, 0 if the token does not expire, or UNKNOWN_EXPIRATION if the claims can not be read
+     */
+    private static long getExpiration( String strToken )
+    {
+        try
+        {
+            Date expiration = UNSECURED_PARSER.parseClaimsJwt( strToken.substring( 0, strToken.lastIndexOf( '.' ) + 1 ) ).getBody( ).getExpiration( );
+
+            return ( expiration != null ) ? expiration.getTime( ) : 0L;
+        }
+        catch( JwtException | IllegalArgumentException e )
+        {
+            return JWTVerificationResult.UNKNOWN_EXPIRATION;
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public AuthenticateRequestInformations getSecurityInformations( List<String> elements )
+    {
+        return new AuthenticateRequestInformations( ).addSecurityHeader( _strJWTHttpHeader, getToken( ) );
     }
 
     /**
      * {@inheritDoc }
      */
     @Override
-    public AuthenticateRequestInformations  getSecurityInformations( List<String> elements )
+    protected String buildToken( Date expirationDate )
     {
-    	return new AuthenticateRequestInformations().addSecurityHeader( _strJWTHttpHeader, JWTUtil.buildBase64JWT( _mapClaimsToCheck, getExpirationDate( ), null, null ) );
-      
+        return JWTUtil.buildBase64JWT( _mapClaimsToCheck, expirationDate, null, null );
     }
 }
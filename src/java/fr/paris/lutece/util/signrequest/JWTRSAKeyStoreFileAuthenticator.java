@@ -33,46 +33,31 @@
  */
 package fr.paris.lutece.util.signrequest;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.security.Key;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
-import java.security.PublicKey;
-import java.security.UnrecoverableKeyException;
 import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
 import java.util.Map;
 
-import fr.paris.lutece.util.jwt.service.JWTUtil;
-import jakarta.servlet.http.HttpServletRequest;
+import fr.paris.lutece.util.signrequest.security.KeyPairFile;
 
+/**
+ * JWT authenticator using the keys of a keystore file. The keystore is loaded once and reloaded when the file changes.
+ * <p>
+ * WARNING : be careful when using this authenticator to sign requests. It can be used for requests inside the same server, because it requires the
+ * keystore which contains both private and public keys. Do not use it in client/server request mode, as API calls. See doc for more informations.
+ * </p>
+ */
 public class JWTRSAKeyStoreFileAuthenticator extends AbstractJWTRSAAuthenticator
 {
-    private final String _strKeystorePath;
     private final String _strKeystorePassword;
     private final String _strCertificatePassword;
     private final String _strAlias;
-
-    /**
-     * {@inheritDoc }
-     */
-    @Override
-    public boolean isRequestAuthenticated( HttpServletRequest request )
-    {
-        boolean validSignature = JWTUtil.checkSignature( request, _strJWTHttpHeader, getKeyPair( ).getPublic( ) );
-        
-        // WARNING
-        // Be careful when your using the KeyStoreFileAuthenticator to sign request.
-        // This implementation can be used from request inside the same server; because
-        // its requires the keystore which contains both private and public keys. Do
-        // not use it if your are client/server request mode, as API calls. See doc
-        // for more informations.
-        return super.isRequestAuthenticated( request, getKeyPair( ).getPublic( ) );
-    }
+    private final KeyPairFile _keyPairFile;
 
     /**
      * Constructor
@@ -98,10 +83,16 @@ public class JWTRSAKeyStoreFileAuthenticator extends AbstractJWTRSAAuthenticator
             String strEncryptionAlgorythmName, String strKeystorePath, String strKeystorePassword, String strCertificatePassword, String strAlias )
     {
         super( mapClaimsToCheck, strJWTHttpHeader, lValidityPeriod, strEncryptionAlgorythmName );
-        _strKeystorePath = strKeystorePath;
+
+        if ( strKeystorePath == null )
+        {
+            throw new IllegalArgumentException( "The keystore path is not defined" );
+        }
+
         _strKeystorePassword = strKeystorePassword;
         _strCertificatePassword = strCertificatePassword;
         _strAlias = strAlias;
+        _keyPairFile = new KeyPairFile( Paths.get( strKeystorePath ), this::loadKeyPair );
     }
 
     /**
@@ -110,24 +101,43 @@ public class JWTRSAKeyStoreFileAuthenticator extends AbstractJWTRSAAuthenticator
     @Override
     protected KeyPair getKeyPair( )
     {
-        try
-        {
-            FileInputStream is = new FileInputStream( _strKeystorePath );
-            KeyStore keystore = KeyStore.getInstance( KeyStore.getDefaultType( ) );
-            keystore.load( is, _strKeystorePassword.toCharArray( ) );
+        return _keyPairFile.getKeyPair( );
+    }
+
+    /**
+     * Gets the keystore file, with its reload metrics
+     * 
+     * @return The keystore file
+     */
+    public KeyPairFile getKeyPairFile( )
+    {
+        return _keyPairFile;
+    }
 
-            Key key = (PrivateKey) keystore.getKey( _strAlias, _strCertificatePassword.toCharArray( ) );
-            Certificate cert = keystore.getCertificate( _strAlias );
-            PublicKey publicKey = cert.getPublicKey( );
+    /**
+     * Reads the key pair from the keystore
+     * 
+     * @param is
+     *            The keystore content
+     * @return The key pair
+     * @throws IOException
+     *             If the keystore can not be read
+     * @throws GeneralSecurityException
+     *             If the keys can not be read
+     */
+    private KeyPair loadKeyPair( InputStream is ) throws IOException, GeneralSecurityException
+    {
+        KeyStore keystore = KeyStore.getInstance( KeyStore.getDefaultType( ) );
+        keystore.load( is, _strKeystorePassword.toCharArray( ) );
 
-            return new KeyPair( publicKey, (PrivateKey) key );
-        }
+        PrivateKey key = (PrivateKey) keystore.getKey( _strAlias, _strCertificatePassword.toCharArray( ) );
+        Certificate cert = keystore.getCertificate( _strAlias );
 
-        catch( CertificateException | IOException | KeyStoreException | NoSuchAlgorithmException | UnrecoverableKeyException e )
+        if ( cert == null )
         {
-            LOGGER.error( "Unable to get key pair from certificate", e );
+            throw new GeneralSecurityException( "No certificate found for alias " + _strAlias );
         }
 
-        return null;
+        return new KeyPair( cert.getPublicKey( ), key );
     }
 }
@@ -33,21 +33,24 @@
  */
 package fr.paris.lutece.util.signrequest;
 
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.KeyPair;
-import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
-import java.security.interfaces.RSAPublicKey;
-import java.security.spec.InvalidKeySpecException;
+import java.security.PublicKey;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 import java.util.Map;
 
+/**
+ * JWT authenticator using RSA keys given as base64 encoded text. The keys are decoded once at construction.
+ */
 public class JWTRSAPlainTextAuthenticator extends AbstractJWTRSAAuthenticator
 {
-    String _strPlainTextPublicKey;
-    String _strPlainTextPrivateKey;
+    private static final String KEY_ALGORITHM = "RSA";
+
+    private final KeyPair _keyPair;
 
     /**
      * Constructor
@@ -61,57 +64,52 @@ public class JWTRSAPlainTextAuthenticator extends AbstractJWTRSAAuthenticator
      * @param strEncryptionAlgorythmName
      *            The name of the algorithm.
      * @param strPlainTextPrivateKey
-     *            The plain text private key
+     *            The plain text private key (base64 encoded PKCS#8), may be null if requests are not signed
      * @param strPlainTextPublicKey
-     *            The plain text public key
+     *            The plain text public key (base64 encoded X.509), may be null if requests are not verified
+     * @throws IllegalArgumentException
+     *             If a key can not be decoded
      */
     public JWTRSAPlainTextAuthenticator( Map<String, String> mapClaimsToCheck, String strJWTHttpHeader, long lValidityPeriod, String strEncryptionAlgorythmName,
             String strPlainTextPrivateKey, String strPlainTextPublicKey )
     {
         super( mapClaimsToCheck, strJWTHttpHeader, lValidityPeriod, strEncryptionAlgorythmName );
-        _strPlainTextPrivateKey = strPlainTextPrivateKey;
-        _strPlainTextPublicKey = strPlainTextPublicKey;
 
-    }
+        if ( ( strPlainTextPrivateKey == null ) && ( strPlainTextPublicKey == null ) )
+        {
+            throw new IllegalArgumentException( "No RSA key defined" );
+        }
 
-    /**
-     * {@inheritDoc }
-     */
-    @Override
-    protected KeyPair getKeyPair( )
-    {
-        RSAPublicKey pubKey = null;
-        PrivateKey privKey = null;
         try
         {
-            KeyFactory kf = KeyFactory.getInstance( "RSA" );
+            KeyFactory kf = KeyFactory.getInstance( KEY_ALGORITHM );
+            PublicKey pubKey = null;
+            PrivateKey privKey = null;
 
-            try
+            if ( strPlainTextPublicKey != null )
             {
-                X509EncodedKeySpec keySpecX509 = new X509EncodedKeySpec( Base64.getDecoder( ).decode( _strPlainTextPublicKey ) );
-                pubKey = (RSAPublicKey) kf.generatePublic( keySpecX509 );
-            }
-            catch( InvalidKeySpecException e )
-            {
-                LOGGER.error( "Unable to convert given plain text key to public java.security.Key", e );
+                pubKey = kf.generatePublic( new X509EncodedKeySpec( Base64.getDecoder( ).decode( strPlainTextPublicKey ) ) );
             }
 
-            try
-            {
-                PKCS8EncodedKeySpec keySpecPKCS8 = new PKCS8EncodedKeySpec( Base64.getDecoder( ).decode( _strPlainTextPrivateKey ) );
-                privKey = kf.generatePrivate( keySpecPKCS8 );
-            }
-            catch( InvalidKeySpecException e )
+            if ( strPlainTextPrivateKey != null )
             {
-                LOGGER.error( "Unable to convert given plain text key to public java.security.Key", e );
+                privKey = kf.generatePrivate( new PKCS8EncodedKeySpec( Base64.getDecoder( ).decode( strPlainTextPrivateKey ) ) );
             }
+
+            _keyPair = new KeyPair( pubKey, privKey );
         }
-        catch( NoSuchAlgorithmException e )
+        catch( GeneralSecurityException | IllegalArgumentException e )
         {
-            LOGGER.error( "Unable to obtain a KeyFactory for RSA", e );
-            return null;
+            throw new IllegalArgumentException( "Unable to convert given plain text key to java.security.Key", e );
         }
+    }
 
-        return new KeyPair( pubKey, privKey );
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected KeyPair getKeyPair( )
+    {
+        return _keyPair;
     }
 }
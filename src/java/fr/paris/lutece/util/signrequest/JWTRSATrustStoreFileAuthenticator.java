@@ -33,23 +33,26 @@
  */
 package fr.paris.lutece.util.signrequest;
 
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.PublicKey;
 import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
 import java.util.List;
 import java.util.Map;
 
+import fr.paris.lutece.util.signrequest.security.KeyPairFile;
+
+/**
+ * JWT authenticator using a public key of a truststore file. The truststore is loaded once and reloaded when the file changes.
+ */
 public class JWTRSATrustStoreFileAuthenticator extends AbstractJWTRSAAuthenticator
 {
-    private final String _strCacertPath;
     private final String _strCacertPassword;
     private final String _strAlias;
+    private final KeyPairFile _keyPairFile;
 
     /**
      * Constructor
@@ -63,16 +66,25 @@ public class JWTRSATrustStoreFileAuthenticator extends AbstractJWTRSAAuthenticat
      * @param strEncryptionAlgorythmName
      *            The name of the algorithm.
      * @param strCacertPath
+     *            The path of the truststore
      * @param strCacertPassword
+     *            The password of the truststore
      * @param strAlias
+     *            The alias of the certificate in the truststore
      */
     public JWTRSATrustStoreFileAuthenticator( Map<String, String> mapClaimsToCheck, String strJWTHttpHeader, long lValidityPeriod,
             String strEncryptionAlgorythmName, String strCacertPath, String strCacertPassword, String strAlias )
     {
         super( mapClaimsToCheck, strJWTHttpHeader, lValidityPeriod, strEncryptionAlgorythmName );
-        _strCacertPath = strCacertPath;
+
+        if ( strCacertPath == null )
+        {
+            throw new IllegalArgumentException( "The truststore path is not defined" );
+        }
+
         _strCacertPassword = strCacertPassword;
         _strAlias = strAlias;
+        _keyPairFile = new KeyPairFile( Paths.get( strCacertPath ), this::loadKeyPair );
     }
 
     /**
@@ -81,23 +93,43 @@ public class JWTRSATrustStoreFileAuthenticator extends AbstractJWTRSAAuthenticat
     @Override
     protected KeyPair getKeyPair( )
     {
-        try
-        {
-            FileInputStream is = new FileInputStream( _strCacertPath );
-            KeyStore keystore = KeyStore.getInstance( KeyStore.getDefaultType( ) );
-            keystore.load( is, _strCacertPassword.toCharArray( ) );
-            Certificate cert = keystore.getCertificate( _strAlias );
-            PublicKey publicKey = cert.getPublicKey( );
+        return _keyPairFile.getKeyPair( );
+    }
 
-            return new KeyPair( publicKey, null );
-        }
+    /**
+     * Gets the truststore file, with its reload metrics
+     * 
+     * @return The truststore file
+     */
+    public KeyPairFile getKeyPairFile( )
+    {
+        return _keyPairFile;
+    }
+
+    /**
+     * Reads the public key from the truststore
+     * 
+     * @param is
+     *            The truststore content
+     * @return The key pair, without private key
+     * @throws IOException
+     *             If the truststore can not be read
+     * @throws GeneralSecurityException
+     *             If the certificate can not be read
+     */
+    private KeyPair loadKeyPair( InputStream is ) throws IOException, GeneralSecurityException
+    {
+        KeyStore keystore = KeyStore.getInstance( KeyStore.getDefaultType( ) );
+        keystore.load( is, _strCacertPassword.toCharArray( ) );
+
+        Certificate cert = keystore.getCertificate( _strAlias );
 
-        catch( CertificateException | IOException | KeyStoreException | NoSuchAlgorithmException e )
+        if ( cert == null )
         {
-            LOGGER.error( "Unable to get key pair from certificate", e );
+            throw new GeneralSecurityException( "No certificate found for alias " + _strAlias );
         }
 
-        return null;
+        return new KeyPair( cert.getPublicKey( ), null );
     }
 
     /**
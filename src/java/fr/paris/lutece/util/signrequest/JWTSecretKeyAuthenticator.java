@@ -34,18 +34,26 @@
 package fr.paris.lutece.util.signrequest;
 
 import java.security.Key;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import jakarta.servlet.http.HttpServletRequest;
 
 import fr.paris.lutece.util.jwt.service.JWTUtil;
+import fr.paris.lutece.util.signrequest.jwt.JWTVerificationResult;
+import fr.paris.lutece.util.signrequest.jwt.JWTVerifier;
 
+/**
+ * JWT authenticator using a secret key. The key is built once at construction.
+ */
 public class JWTSecretKeyAuthenticator extends AbstractJWTAuthenticator
 {
-    private String _strSecretKey;
-    private String _strEncryptionAlgorythmName;
-    private final String DEFAULT_ENC_ALGO_NAME = "HS256";
+    private static final String DEFAULT_ENC_ALGO_NAME = "HS256";
+
+    private final String _strEncryptionAlgorythmName;
+    private final Key _key;
+    private final JWTVerifier _verifier;
 
     /**
      * Constructor
@@ -65,40 +73,47 @@ public class JWTSecretKeyAuthenticator extends AbstractJWTAuthenticator
             String strSecretKey )
     {
         super( mapClaimsToCheck, strJWTHttpHeader, lValidityPeriod );
-        _strSecretKey = strSecretKey;
-        _strEncryptionAlgorythmName = strEncryptionAlgorythmName;
 
-        if ( _strEncryptionAlgorythmName == null )
+        if ( ( strSecretKey == null ) || strSecretKey.isEmpty( ) )
+        {
+            throw new IllegalArgumentException( "The secret key is not defined" );
+        }
+
+        _strEncryptionAlgorythmName = ( strEncryptionAlgorythmName != null ) ? strEncryptionAlgorythmName : DEFAULT_ENC_ALGO_NAME;
+        _key = JWTUtil.getKey( strSecretKey, _strEncryptionAlgorythmName );
+
+        if ( _key == null )
         {
-            _strEncryptionAlgorythmName = DEFAULT_ENC_ALGO_NAME;
+            throw new IllegalArgumentException( "Unable to build a key for algorithm " + _strEncryptionAlgorythmName );
         }
+
+        _verifier = new JWTVerifier( _key, mapClaimsToCheck );
     }
 
     /**
      * {@inheritDoc }
      */
     @Override
-    public boolean isRequestAuthenticated( HttpServletRequest request )
+    protected JWTVerificationResult verifyToken( HttpServletRequest request, String strToken )
     {
-        Key key = JWTUtil.getKey( _strSecretKey, _strEncryptionAlgorythmName );
-        boolean validSignature = JWTUtil.checkSignature( request, _strJWTHttpHeader, key );
+        return _verifier.verify( strToken );
+    }
 
-        if ( validSignature )
-        {
-            return super.isRequestAuthenticated( request, key );
-        }
-        return false;
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public AuthenticateRequestInformations getSecurityInformations( List<String> elements )
+    {
+        return new AuthenticateRequestInformations( ).addSecurityHeader( _strJWTHttpHeader, getToken( ) );
     }
 
     /**
      * {@inheritDoc }
      */
     @Override
-    public AuthenticateRequestInformations  getSecurityInformations( List<String> elements )
+    protected String buildToken( Date expirationDate )
     {
-        Key key = JWTUtil.getKey( _strSecretKey, _strEncryptionAlgorythmName );
-        
-        return new AuthenticateRequestInformations().addSecurityHeader( _strJWTHttpHeader, JWTUtil.buildBase64JWT( _mapClaimsToCheck, getExpirationDate( ), _strEncryptionAlgorythmName, key ) );
-    
+        return JWTUtil.buildBase64JWT( _mapClaimsToCheck, expirationDate, _strEncryptionAlgorythmName, _key );
     }
 }
@@ -60,4 +60,13 @@ public class NoSecurityAuthenticator implements RequestAuthenticator
     {
     	return null; 
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getCostHint( )
+    {
+        return 0;
+    }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest;
+
+import java.util.List;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.paris.lutece.util.signrequest.ip.ClientAddress;
+import fr.paris.lutece.util.signrequest.ip.ClientIPResolver;
+import fr.paris.lutece.util.signrequest.security.RateLimiter;
+
+/**
+ * Rate limiting authenticator : rejects the requests of a client that exceeds its rate. Keyed by IP, it is cheap enough to run before an authenticator
+ * checking a signature, so that abusive callers are rejected before any hashing or RSA verification. Requests whose address can't be resolved share
+ * one bucket.
+ */
+public class RateLimitAuthenticator implements RequestAuthenticator
+{
+    /**
+     * The key of the rate limit buckets.
+     * CLIENT_ID: the Lutece-Request-ClientID header, the client address for requests without this header. The header is not verified here : a caller
+     * changing it on each request gets a new bucket each time, and fills the limiter. This key must therefore only be used after the signature of the
+     * client ID has been verified, for instance in a non adaptive AND composite authenticator where it is given a higher cost than the
+     * ClientHeaderHashAuthenticator, so that it runs after it.
+     * IP: the client address.
+     */
+    public enum KEY
+    {
+        CLIENT_ID,
+        IP
+    }
+
+    private static final Logger LOGGER = LogManager.getLogger( "lutece.security.signrequest" );
+    private static final String HEADER_CLIENT_ID = "Lutece-Request-ClientID";
+    // The unspecified address (::), never the address of a client, keys the requests whose address can't be resolved
+    private static final long UNKNOWN_ADDRESS = 0L;
+
+    private final RateLimiter _rateLimiter;
+    private final KEY _key;
+    private ClientIPResolver _clientIPResolver;
+
+    /**
+     * Constructor
+     * 
+     * @param key
+     *            The key of the buckets
+     * @param dRate
+     *            The number of requests allowed per second for each key
+     * @param nBurst
+     *            The number of requests a key can send at once
+     * @param nCapacity
+     *            The maximum number of keys tracked at once
+     */
+    public RateLimitAuthenticator( KEY key, double dRate, int nBurst, int nCapacity )
+    {
+        _key = key;
+        _rateLimiter = new RateLimiter( dRate, nBurst, nCapacity );
+    }
+
+    /**
+     * Sets the resolver of the client address, for requests received through proxies. Without resolver, the peer address is used.
+     * 
+     * @param clientIPResolver
+     *            The resolver
+     */
+    public void setClientIPResolver( ClientIPResolver clientIPResolver )
+    {
+        _clientIPResolver = clientIPResolver;
+    }
+
+    /**
+     * Gets the rate limiter
+     * 
+     * @return The rate limiter, for its metrics
+     */
+    public RateLimiter getRateLimiter( )
+    {
+        return _rateLimiter;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isRequestAuthenticated( HttpServletRequest request )
+    {
+        boolean bAllowed;
+        String strClientId = ( _key == KEY.CLIENT_ID ) ? request.getHeader( HEADER_CLIENT_ID ) : null;
+
+        if ( strClientId != null )
+        {
+            bAllowed = _rateLimiter.tryAcquire( strClientId );
+        }
+        else
+            if ( _clientIPResolver != null )
+            {
+                ClientAddress address = _clientIPResolver.resolve( request );
+                bAllowed = ( address != null ) ? _rateLimiter.tryAcquire( address.getHigh( ), address.getLow( ) )
+                        : _rateLimiter.tryAcquire( UNKNOWN_ADDRESS, UNKNOWN_ADDRESS );
+            }
+            else
+            {
+                String strRemoteAddr = request.getRemoteAddr( );
+                bAllowed = ( strRemoteAddr != null ) ? _rateLimiter.tryAcquire( strRemoteAddr ) : _rateLimiter.tryAcquire( UNKNOWN_ADDRESS, UNKNOWN_ADDRESS );
+            }
+
+        if ( !bAllowed && LOGGER.isDebugEnabled( ) )
+        {
+            LOGGER.debug( "SignRequest - Rate limit exceeded : " + ( ( strClientId != null ) ? strClientId : request.getRemoteAddr( ) ) );
+        }
+
+        return bAllowed;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public AuthenticateRequestInformations getSecurityInformations( List<String> elements )
+    {
+        // Nothing to add : the limit only applies to incoming requests
+        return null;
+    }
+
+    /**
+     * Stops the background eviction of the rate limiter
+     */
+    public void close( )
+    {
+        _rateLimiter.close( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getCostHint( )
+    {
+        return 1;
+    }
+}
@@ -62,4 +62,15 @@ public interface RequestAuthenticator
      * @return AuthenticateRequestInformations      
      */
     AuthenticateRequestInformations getSecurityInformations(  List<String> elements );
+
+    /**
+     * Gives the relative cost of a check, so that a composite authenticator runs the cheap checks first : about 1 for a lookup, 10 for a hash and 100
+     * for an asymmetric signature.
+     * 
+     * @return The cost hint
+     */
+    default int getCostHint( )
+    {
+        return 10;
+    }
 }
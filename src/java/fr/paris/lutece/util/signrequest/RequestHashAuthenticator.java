@@ -33,11 +33,10 @@
  */
 package fr.paris.lutece.util.signrequest;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
-import fr.paris.lutece.util.signrequest.security.HashService;
+import fr.paris.lutece.util.signrequest.security.SignatureHashService;
 import jakarta.servlet.http.HttpServletRequest;
 
 /**
@@ -47,19 +46,29 @@ public class RequestHashAuthenticator extends AbstractPrivateKeyAuthenticator im
 {
     private static final String PARAMETER_SIGNATURE = "signature";
     private static final String PARAMETER_TIMESTAMP = "timestamp";
+    private static final String PARAMETER_KEY_VERSION = "keyVersion";
 
     public RequestHashAuthenticator( )
     {
 
     }
 
-    public RequestHashAuthenticator(HashService hashService, List<String> lSignatureElements, String strPrivateKey)
+    public RequestHashAuthenticator(SignatureHashService hashService, List<String> lSignatureElements, String strPrivateKey)
     {
         setHashService( hashService );
         setSignatureElements( lSignatureElements );
         setPrivateKey( strPrivateKey );
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isSignedRequest( HttpServletRequest request )
+    {
+        return isSignedRequest( request.getParameter( PARAMETER_SIGNATURE ), request.getParameter( PARAMETER_TIMESTAMP ) );
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -69,36 +78,12 @@ public class RequestHashAuthenticator extends AbstractPrivateKeyAuthenticator im
         String strHash1 = request.getParameter( PARAMETER_SIGNATURE );
         String strTimestamp = request.getParameter( PARAMETER_TIMESTAMP );
 
-        // no signature or timestamp
-        if ( ( strHash1 == null ) || ( strTimestamp == null ) )
-        {
-            LOGGER.info( "SignRequest - Invalid signature" );
-
-            return false;
-        }
-
-        if ( !isValidTimestamp( strTimestamp ) )
+        if ( !isSignedRequest( strHash1, strTimestamp ) )
         {
-            LOGGER.info( "SignRequest - Invalid timestamp : " + strTimestamp );
-
             return false;
         }
 
-        List<String> listElements = new ArrayList<String>( );
-
-        for ( String strParameter : getSignatureElements( ) )
-        {
-            String strValue = request.getParameter( strParameter );
-
-            if ( strValue != null )
-            {
-                listElements.add( strValue );
-            }
-        }
-
-        String strHash2 = buildSignature( listElements, strTimestamp, getPrivateKey( ) );
-
-        return strHash1.equals( strHash2 );
+        return isValidSignatureWithKeyVersion( request, strTimestamp, request.getParameter( PARAMETER_KEY_VERSION ), strHash1 );
     }
 
     /**
@@ -111,7 +96,10 @@ public class RequestHashAuthenticator extends AbstractPrivateKeyAuthenticator im
         String strTimestamp = String.valueOf( new Date( ).getTime( ) );
         String strSignature = buildSignature( elements, strTimestamp, getPrivateKey( ) );
         
-        return new AuthenticateRequestInformations().addSecurityParameter(PARAMETER_TIMESTAMP,strTimestamp).addSecurityParameter(PARAMETER_SIGNATURE, strSignature);
+        AuthenticateRequestInformations infos = new AuthenticateRequestInformations().addSecurityParameter(PARAMETER_TIMESTAMP,strTimestamp).addSecurityParameter(PARAMETER_SIGNATURE, strSignature);
+        String strKeyVersion = getPrivateKeyVersion( );
+
+        return ( strKeyVersion != null ) ? infos.addSecurityParameter( PARAMETER_KEY_VERSION, strKeyVersion ) : infos;
         		
         
         
@@ -145,6 +133,13 @@ public class RequestHashAuthenticator extends AbstractPrivateKeyAuthenticator im
         String strSignature = buildSignature( listElements, strTimestamp, getPrivateKey( ) );
         sbExtrasParameters.append( '&' ).append( PARAMETER_SIGNATURE ).append( '=' ).append( strSignature );
 
+        String strKeyVersion = getPrivateKeyVersion( );
+
+        if ( strKeyVersion != null )
+        {
+            sbExtrasParameters.append( '&' ).append( PARAMETER_KEY_VERSION ).append( '=' ).append( strKeyVersion );
+        }
+
         return sbExtrasParameters.toString( );
     }
 
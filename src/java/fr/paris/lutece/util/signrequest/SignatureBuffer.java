@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest;
+
+import fr.paris.lutece.util.signrequest.security.HashEngine;
+
+/**
+ * Per thread buffers used to build and check signatures without allocating intermediate strings or arrays
+ */
+final class SignatureBuffer
+{
+    private static final int DEFAULT_SOURCE_SIZE = 256;
+    private static final int MAX_POOLED_HASH_SIZE = 128;
+    private static final char [ ] HEX_DIGITS = "0123456789abcdef".toCharArray( );
+    private static final ThreadLocal<SignatureBuffer> THREAD_BUFFER = ThreadLocal.withInitial( SignatureBuffer::new );
+
+    private byte [ ] _source = new byte [ DEFAULT_SOURCE_SIZE];
+    private final byte [ ] [ ] _expected = new byte [ MAX_POOLED_HASH_SIZE + 1] [ ];
+    private final byte [ ] [ ] _computed = new byte [ MAX_POOLED_HASH_SIZE + 1] [ ];
+
+    /**
+     * Private constructor
+     */
+    private SignatureBuffer( )
+    {
+    }
+
+    /**
+     * Gets the buffer of the current thread
+     * 
+     * @return The buffer
+     */
+    static SignatureBuffer get( )
+    {
+        return THREAD_BUFFER.get( );
+    }
+
+    /**
+     * Feeds the UTF-8 encoding of a string into a hash engine
+     * 
+     * @param engine
+     *            The hash engine
+     * @param strValue
+     *            The string
+     */
+    void update( HashEngine engine, String strValue )
+    {
+        int nLength = encode( strValue );
+        engine.update( _source, 0, nLength );
+    }
+
+    /**
+     * Gets the buffer that receives the decoded signature
+     * 
+     * @param nLength
+     *            The length of the hash
+     * @return A buffer of exactly this length
+     */
+    byte [ ] getExpected( int nLength )
+    {
+        return getPooled( _expected, nLength );
+    }
+
+    /**
+     * Gets the buffer that receives the computed hash
+     * 
+     * @param nLength
+     *            The length of the hash
+     * @return A buffer of exactly this length
+     */
+    byte [ ] getComputed( int nLength )
+    {
+        return getPooled( _computed, nLength );
+    }
+
+    /**
+     * Convert bytes into an hexadecimal string
+     * 
+     * @param bytes
+     *            Array of bytes
+     * @return An Hexadecimal string
+     */
+    static String hex( byte [ ] bytes )
+    {
+        char [ ] chars = new char [ bytes.length * 2];
+
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            int b = bytes [i] & 0xFF;
+            chars [2 * i] = HEX_DIGITS [b >>> 4];
+            chars [( 2 * i ) + 1] = HEX_DIGITS [b & 0xF];
+        }
+
+        return new String( chars );
+    }
+
+    /**
+     * Encodes a string in UTF-8 into the source buffer. Unpaired surrogates are replaced by '?' as String.getBytes does.
+     * 
+     * @param strValue
+     *            The string
+     * @return The number of bytes
+     */
+    private int encode( String strValue )
+    {
+        int nChars = strValue.length( );
+
+        if ( _source.length < ( nChars * 3 ) )
+        {
+            _source = new byte [ nChars * 3];
+        }
+
+        byte [ ] source = _source;
+        int nPos = 0;
+
+        for ( int i = 0; i < nChars; i++ )
+        {
+            char c = strValue.charAt( i );
+
+            if ( c < 0x80 )
+            {
+                source [nPos++] = (byte) c;
+            }
+            else if ( c < 0x800 )
+            {
+                source [nPos++] = (byte) ( 0xC0 | ( c >> 6 ) );
+                source [nPos++] = (byte) ( 0x80 | ( c & 0x3F ) );
+            }
+            else if ( !Character.isSurrogate( c ) )
+            {
+                source [nPos++] = (byte) ( 0xE0 | ( c >> 12 ) );
+                source [nPos++] = (byte) ( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+                source [nPos++] = (byte) ( 0x80 | ( c & 0x3F ) );
+            }
+            else if ( Character.isHighSurrogate( c ) && ( ( i + 1 ) < nChars ) && Character.isLowSurrogate( strValue.charAt( i + 1 ) ) )
+            {
+                int nCodePoint = Character.toCodePoint( c, strValue.charAt( ++i ) );
+                source [nPos++] = (byte) ( 0xF0 | ( nCodePoint >> 18 ) );
+                source [nPos++] = (byte) ( 0x80 | ( ( nCodePoint >> 12 ) & 0x3F ) );
+                source [nPos++] = (byte) ( 0x80 | ( ( nCodePoint >> 6 ) & 0x3F ) );
+                source [nPos++] = (byte) ( 0x80 | ( nCodePoint & 0x3F ) );
+            }
+            else
+            {
+                source [nPos++] = (byte) '?';
+            }
+        }
+
+        return nPos;
+    }
+
+    /**
+     * Gets a pooled buffer of a given length
+     * 
+     * @param pool
+     *            The pool, indexed by length
+     * @param nLength
+     *            The length
+     * @return The buffer
+     */
+    private static byte [ ] getPooled( byte [ ] [ ] pool, int nLength )
+    {
+        if ( nLength > MAX_POOLED_HASH_SIZE )
+        {
+            return new byte [ nLength];
+        }
+
+        byte [ ] buffer = pool [nLength];
+
+        if ( buffer == null )
+        {
+            buffer = new byte [ nLength];
+            pool [nLength] = buffer;
+        }
+
+        return buffer;
+    }
+}
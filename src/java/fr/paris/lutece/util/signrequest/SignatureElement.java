@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Signature element and where its value comes from. An element is declared as :
+ * <ul>
+ * <li>name or param:name : a request parameter, which parses a form body</li>
+ * <li>query:name : a parameter of the query string only, the body is not read</li>
+ * <li>header:name : a request header</li>
+ * <li>path:index : a segment of the path after the context path, from 0, or from the end if negative</li>
+ * <li>@body : the digest of the body, see {@link AbstractAuthenticator#ELEMENT_BODY}</li>
+ * </ul>
+ * Only the parameter source reads a form body : with the other ones, a request can be rejected before its body is read.
+ */
+public final class SignatureElement
+{
+    /**
+     * Source of the value
+     */
+    public enum Source
+    {
+        PARAMETER, QUERY, HEADER, PATH, BODY
+    }
+
+    private static final String PREFIX_PARAMETER = "param:";
+    private static final String PREFIX_QUERY = "query:";
+    private static final String PREFIX_HEADER = "header:";
+    private static final String PREFIX_PATH = "path:";
+
+    private final Source _source;
+    private final String _strName;
+    private final int _nSegment;
+
+    /**
+     * Constructor
+     * 
+     * @param source
+     *            The source
+     * @param strName
+     *            The name of the parameter or header
+     * @param nSegment
+     *            The index of the path segment
+     */
+    private SignatureElement( Source source, String strName, int nSegment )
+    {
+        _source = source;
+        _strName = strName;
+        _nSegment = nSegment;
+    }
+
+    /**
+     * Parses an element declaration
+     * 
+     * @param strElement
+     *            The declaration
+     * @return The element
+     * @throws IllegalArgumentException
+     *             If a path segment index is not a number
+     */
+    public static SignatureElement parse( String strElement )
+    {
+        if ( AbstractAuthenticator.ELEMENT_BODY.equals( strElement ) )
+        {
+            return new SignatureElement( Source.BODY, strElement, 0 );
+        }
+
+        if ( strElement.startsWith( PREFIX_QUERY ) )
+        {
+            return new SignatureElement( Source.QUERY, strElement.substring( PREFIX_QUERY.length( ) ), 0 );
+        }
+
+        if ( strElement.startsWith( PREFIX_HEADER ) )
+        {
+            return new SignatureElement( Source.HEADER, strElement.substring( PREFIX_HEADER.length( ) ), 0 );
+        }
+
+        if ( strElement.startsWith( PREFIX_PATH ) )
+        {
+            try
+            {
+                String strIndex = strElement.substring( PREFIX_PATH.length( ) ).trim( );
+
+                return new SignatureElement( Source.PATH, strIndex, Integer.parseInt( strIndex ) );
+            }
+            catch( NumberFormatException e )
+            {
+                throw new IllegalArgumentException( "Invalid path segment index : " + strElement, e );
+            }
+        }
+
+        if ( strElement.startsWith( PREFIX_PARAMETER ) )
+        {
+            return new SignatureElement( Source.PARAMETER, strElement.substring( PREFIX_PARAMETER.length( ) ), 0 );
+        }
+
+        return new SignatureElement( Source.PARAMETER, strElement, 0 );
+    }
+
+    /**
+     * Gets the source of the value
+     * 
+     * @return The source
+     */
+    public Source getSource( )
+    {
+        return _source;
+    }
+
+    /**
+     * Gets the name of the parameter or header
+     * 
+     * @return The name
+     */
+    public String getName( )
+    {
+        return _strName;
+    }
+
+    /**
+     * Gets the value of the element from a request
+     * 
+     * @param request
+     *            The request
+     * @return The value or null if the request does not provide it
+     */
+    public String getValue( HttpServletRequest request )
+    {
+        switch( _source )
+        {
+            case QUERY:
+                return getQueryParameter( request.getQueryString( ), _strName );
+            case HEADER:
+                return request.getHeader( _strName );
+            case PATH:
+                return getPathSegment( request, _nSegment );
+            case BODY:
+                return (String) request.getAttribute( AbstractAuthenticator.ATTRIBUTE_BODY_DIGEST );
+            default:
+                return request.getParameter( _strName );
+        }
+    }
+
+    /**
+     * Gets the first value of a parameter from a query string, without parsing the other parameters
+     * 
+     * @param strQueryString
+     *            The query string, or null
+     * @param strName
+     *            The name of the parameter, as it appears in the query string
+     * @return The decoded value, or null if the parameter is missing
+     */
+    static String getQueryParameter( String strQueryString, String strName )
+    {
+        if ( strQueryString == null )
+        {
+            return null;
+        }
+
+        int nLength = strQueryString.length( );
+        int nNameLength = strName.length( );
+        int nStart = 0;
+
+        while ( nStart <= nLength )
+        {
+            int nEnd = strQueryString.indexOf( '&', nStart );
+
+            if ( nEnd < 0 )
+            {
+                nEnd = nLength;
+            }
+
+            if ( strQueryString.startsWith( strName, nStart ) )
+            {
+                int nNameEnd = nStart + nNameLength;
+
+                if ( nNameEnd == nEnd )
+                {
+                    return "";
+                }
+
+                if ( strQueryString.charAt( nNameEnd ) == '=' )
+                {
+                    return decode( strQueryString.substring( nNameEnd + 1, nEnd ), true );
+                }
+            }
+
+            nStart = nEnd + 1;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets a segment of the path of a request, after the context path
+     * 
+     * @param request
+     *            The request
+     * @param nSegment
+     *            The index of the segment from 0, or from the end if negative
+     * @return The decoded segment, or null if the path has not so many segments
+     */
+    static String getPathSegment( HttpServletRequest request, int nSegment )
+    {
+        String strUri = request.getRequestURI( );
+
+        if ( strUri == null )
+        {
+            return null;
+        }
+
+        String strContextPath = request.getContextPath( );
+        int nFrom = ( ( strContextPath != null ) && strUri.startsWith( strContextPath ) ) ? strContextPath.length( ) : 0;
+        String [ ] segments = strUri.substring( nFrom ).split( "/" );
+
+        // The path starts with a / so the first token is empty
+        int nCount = segments.length - 1;
+        int nIndex = ( nSegment < 0 ) ? nCount + nSegment : nSegment;
+
+        if ( ( nIndex < 0 ) || ( nIndex >= nCount ) )
+        {
+            return null;
+        }
+
+        return decode( segments [nIndex + 1], false );
+    }
+
+    /**
+     * Decodes a URL encoded value, without allocation when there is nothing to decode
+     * 
+     * @param strValue
+     *            The value
+     * @param bPlusAsSpace
+     *            true to decode + as a space, as in a query string
+     * @return The decoded value
+     */
+    private static String decode( String strValue, boolean bPlusAsSpace )
+    {
+        boolean bPlus = bPlusAsSpace && ( strValue.indexOf( '+' ) >= 0 );
+
+        if ( !bPlus && ( strValue.indexOf( '%' ) < 0 ) )
+        {
+            return strValue;
+        }
+
+        try
+        {
+            return URLDecoder.decode( bPlusAsSpace ? strValue : strValue.replace( "+", "%2B" ), StandardCharsets.UTF_8 );
+        }
+        catch( IllegalArgumentException e )
+        {
+            return strValue;
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String toString( )
+    {
+        return _source + ":" + _strName;
+    }
+}
@@ -33,13 +33,27 @@
  */
 package fr.paris.lutece.util.signrequest.cdi;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.ConfigProvider;
 
+import fr.paris.lutece.util.signrequest.AbstractAuthenticator;
+import fr.paris.lutece.util.signrequest.AbstractJWTAuthenticator;
+import fr.paris.lutece.util.signrequest.AbstractPrivateKeyAuthenticator;
+import fr.paris.lutece.util.signrequest.CompositeAuthenticator;
 import fr.paris.lutece.util.signrequest.HeaderHashAuthenticator;
 import fr.paris.lutece.util.signrequest.IPAuthentificator;
 import fr.paris.lutece.util.signrequest.JWTNoEncryptionAuthenticator;
@@ -47,9 +61,19 @@ import fr.paris.lutece.util.signrequest.JWTRSAPlainTextAuthenticator;
 import fr.paris.lutece.util.signrequest.JWTRSATrustStoreFileAuthenticator;
 import fr.paris.lutece.util.signrequest.JWTSecretKeyAuthenticator;
 import fr.paris.lutece.util.signrequest.NoSecurityAuthenticator;
+import fr.paris.lutece.util.signrequest.RateLimitAuthenticator;
 import fr.paris.lutece.util.signrequest.RequestAuthenticator;
 import fr.paris.lutece.util.signrequest.RequestHashAuthenticator;
-import fr.paris.lutece.util.signrequest.security.HashService;
+import fr.paris.lutece.util.signrequest.ip.ClientIPResolver;
+import fr.paris.lutece.util.signrequest.ip.IPListFileSource;
+import fr.paris.lutece.util.signrequest.ip.IPRadixTrie;
+import fr.paris.lutece.util.signrequest.ip.IPv4Bitmap;
+import fr.paris.lutece.util.signrequest.jwt.JWTVerificationCache;
+import fr.paris.lutece.util.signrequest.path.PathRouteTable;
+import fr.paris.lutece.util.signrequest.security.SignatureHashService;
+import fr.paris.lutece.util.signrequest.security.KeyRing;
+import fr.paris.lutece.util.signrequest.security.ReplayGuard;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.inject.Instance;
 import jakarta.enterprise.inject.literal.NamedLiteral;
 import jakarta.inject.Inject;
@@ -61,9 +85,11 @@ public abstract class AbstractSignRequestAuthenticatorProducer
     private static final String CONFIG_HASH_SERVICE = ".cfg.hashService";
     private static final String CONFIG_SIGNATURE = ".cfg.signatureElements";
     private static final String CONFIG_PRIVATE_KEY = ".cfg.privateKey";
+    private static final String CONFIG_PRIVATE_KEYS = ".cfg.privateKeys";
     private static final String CONFIG_PUBLIC_KEY = ".cfg.publicKey";
     private static final String CONFIG_CLAIMS_TO_CHECK = ".cfg.claimsToCheck";
     private static final String CONFIG_TOKEN_VALIDITY_PERIOD = ".cfg.validityPeriod";
+    private static final String CONFIG_VALIDITY_TIME_PERIOD = ".cfg.validityTimePeriod";
     private static final String CONFIG_TOKEN_HTTP_HEADER = ".cfg.jwtHttpHeader";
     private static final String CONFIG_ENCRYPTION_ALGORYTHM = ".cfg.encryptionAlgorythmName";
     private static final String CONFIG_SECRET_KEY = ".cfg.secretKey";
@@ -72,13 +98,58 @@ public abstract class AbstractSignRequestAuthenticatorProducer
     private static final String CONFIG_ALIAS = ".cfg.alias";
     private static final String CONFIG_MODE = ".cfg.mode";
     private static final String CONFIG_IPS = ".cfg.ips";
+    private static final String CONFIG_IPS_FILES = ".cfg.ipsFiles";
+    private static final String CONFIG_IPS_BITMAP_FILE = ".cfg.ipsBitmapFile";
+    private static final String CONFIG_TRUSTED_PROXIES = ".cfg.trustedProxies";
+    private static final String CONFIG_FORWARDING_HEADER = ".cfg.forwardingHeader";
+    private static final String CONFIG_RATE_LIMIT_KEY = ".cfg.rateLimitKey";
+    private static final String CONFIG_RATE_LIMIT_RATE = ".cfg.rateLimitRate";
+    private static final String CONFIG_RATE_LIMIT_BURST = ".cfg.rateLimitBurst";
+    private static final String CONFIG_RATE_LIMIT_CAPACITY = ".cfg.rateLimitCapacity";
+    private static final int DEFAULT_RATE_LIMIT_CAPACITY = 65536;
     private static final String CONFIG_AUTHORIZED_PATH = ".cfg.authorizedPath";
+    private static final String CONFIG_COMPOSITE_MODE = ".cfg.compositeMode";
+    private static final String CONFIG_COMPOSITE_ADAPTIVE = ".cfg.adaptive";
+    private static final String CONFIG_COMPOSITE_AUTHENTICATORS = ".cfg.authenticators";
+    private static final String CONFIG_COST = ".cfg.cost";
+    private static final String CONFIG_ROUTES = ".routes";
+    private static final String CONFIG_VERIFICATION_CACHE_SIZE = ".cfg.verificationCacheSize";
+    private static final String CONFIG_VERIFICATION_CACHE_TTL = ".cfg.verificationCacheTtl";
+    private static final String CONFIG_TOKEN_CACHE_REFRESH = ".cfg.tokenCacheRefreshFraction";
+    private static final String CONFIG_REPLAY_GUARD_CAPACITY = ".cfg.replayGuardCapacity";
+    private static final String CONFIG_REPLAY_GUARD_WINDOW = ".cfg.replayGuardWindow";
+    private static final long DEFAULT_REPLAY_GUARD_WINDOW = 60000L;
     private static final String DEFAULT_HASH_SERVICE = "signrequest.Sha1HashService";
+
+    // Resolvers shared by all the authenticators with the same trusted proxies and forwarding header, so that the address is resolved once per request
+    private static final Map<List<String>, ClientIPResolver> CLIENT_IP_RESOLVERS = new ConcurrentHashMap<>( );
     
     @Inject
-    private Instance<HashService> _hashServices;
+    private Instance<SignatureHashService> _hashServices;
+
+    // Stop the background tasks of the produced authenticators (token refresh, rate limiter eviction, watched IP files)
+    private final List<Runnable> _listCloseTasks = new CopyOnWriteArrayList<>( );
     
     protected RequestAuthenticator produceRequestAuthenticator( String configPrefix )
+    {
+        return produceRequestAuthenticator( configPrefix, new ArrayDeque<>( ), null );
+    }
+
+    /**
+     * Produces an authenticator, possibly a child of composite authenticators or the authenticator of a route
+     * 
+     * @param configPrefix
+     *            The config prefix of the authenticator
+     * @param composites
+     *            The config prefixes of the composite authenticators being produced, to detect cycles
+     * @param strReferrer
+     *            What refers to the authenticator, or null for a top level authenticator, which is a NoSecurityAuthenticator when unknown
+     * @return The authenticator
+     * @throws IllegalStateException
+     *             If a child of a composite authenticator or the authenticator of a route is unknown, or if a composite authenticator has no child or
+     *             contains itself
+     */
+    private RequestAuthenticator produceRequestAuthenticator( String configPrefix, Deque<String> composites, String strReferrer )
     {
         Config _config = ConfigProvider.getConfig( );
         String strRequestAuthenticatorName = _config.getOptionalValue( configPrefix + CONFIG_NAME, String.class ).orElse( "" );
@@ -86,64 +157,331 @@ public abstract class AbstractSignRequestAuthenticatorProducer
         {
             case "signrequest.HeaderHashAuthenticator" ->
             {
-                yield new HeaderHashAuthenticator(
+                yield withReplayGuard( withPrivateKeys( new HeaderHashAuthenticator(
                         _hashServices.select( NamedLiteral.of( _config.getOptionalValue( configPrefix + CONFIG_HASH_SERVICE, String.class ).orElse( DEFAULT_HASH_SERVICE ) ) ).get( ),
                         _config.getOptionalValues( configPrefix + CONFIG_SIGNATURE, String.class ).orElse( new ArrayList<String>( ) ),
-                        _config.getOptionalValue( configPrefix + CONFIG_PRIVATE_KEY, String.class ).orElse( null ) );
+                        _config.getOptionalValue( configPrefix + CONFIG_PRIVATE_KEY, String.class ).orElse( null ) ), _config, configPrefix ), _config, configPrefix );
             }
             case "signrequest.RequestHashAuthenticator" ->
             {
-                yield new RequestHashAuthenticator(
+                yield withReplayGuard( withPrivateKeys( new RequestHashAuthenticator(
                         _hashServices.select( NamedLiteral.of( _config.getOptionalValue( configPrefix + CONFIG_HASH_SERVICE, String.class ).orElse( DEFAULT_HASH_SERVICE ) ) ).get( ),
                         _config.getOptionalValues( configPrefix + CONFIG_SIGNATURE, String.class ).orElse( new ArrayList<String>( ) ),
-                        _config.getOptionalValue( configPrefix + CONFIG_PRIVATE_KEY, String.class ).orElse( null ) );
+                        _config.getOptionalValue( configPrefix + CONFIG_PRIVATE_KEY, String.class ).orElse( null ) ), _config, configPrefix ), _config, configPrefix );
             }
             case "signrequest.JWTNoEncryptionAuthenticator" ->
             {
-                yield new JWTNoEncryptionAuthenticator(
+                yield withJWTCaches( new JWTNoEncryptionAuthenticator(
                         _config.getOptionalValue( configPrefix + CONFIG_CLAIMS_TO_CHECK, Map.class ).orElse( new HashMap<>( 0 ) ),
                         _config.getOptionalValue( configPrefix + CONFIG_TOKEN_HTTP_HEADER, String.class ).orElse( null ),
-                        _config.getOptionalValue( configPrefix + CONFIG_TOKEN_VALIDITY_PERIOD, Long.class ).orElse( 60000l ) );
+                        _config.getOptionalValue( configPrefix + CONFIG_TOKEN_VALIDITY_PERIOD, Long.class ).orElse( 60000l ) ), _config, configPrefix );
             }
             case "signrequest.JWTSecretKeyAuthenticator" ->
             {
-                yield new JWTSecretKeyAuthenticator(
+                yield withJWTCaches( new JWTSecretKeyAuthenticator(
                         _config.getOptionalValue( configPrefix + CONFIG_CLAIMS_TO_CHECK, Map.class ).orElse( new HashMap<>( 0 ) ),
                         _config.getOptionalValue( configPrefix + CONFIG_TOKEN_HTTP_HEADER, String.class ).orElse( null ),
                         _config.getOptionalValue( configPrefix + CONFIG_TOKEN_VALIDITY_PERIOD, Long.class ).orElse( 60000l ),
                         _config.getOptionalValue( configPrefix + CONFIG_ENCRYPTION_ALGORYTHM, String.class ).orElse( null ),
-                        _config.getOptionalValue( configPrefix + CONFIG_SECRET_KEY, String.class ).orElse( null ) );
+                        _config.getOptionalValue( configPrefix + CONFIG_SECRET_KEY, String.class ).orElse( null ) ), _config, configPrefix );
             }
             case "signrequest.JWTRSAPlainTextAuthenticator" ->
             {
-                yield new JWTRSAPlainTextAuthenticator(
+                yield withJWTCaches( new JWTRSAPlainTextAuthenticator(
                         _config.getOptionalValue( configPrefix + CONFIG_CLAIMS_TO_CHECK, Map.class ).orElse( new HashMap<>( 0 ) ),
                         _config.getOptionalValue( configPrefix + CONFIG_TOKEN_HTTP_HEADER, String.class ).orElse( null ),
                         _config.getOptionalValue( configPrefix + CONFIG_TOKEN_VALIDITY_PERIOD, Long.class ).orElse( 60000l ),
                         _config.getOptionalValue( configPrefix + CONFIG_ENCRYPTION_ALGORYTHM, String.class ).orElse( null ),
                         _config.getOptionalValue( configPrefix + CONFIG_PRIVATE_KEY, String.class ).orElse( null ),
-                        _config.getOptionalValue( configPrefix + CONFIG_PUBLIC_KEY, String.class ).orElse( null ) );
+                        _config.getOptionalValue( configPrefix + CONFIG_PUBLIC_KEY, String.class ).orElse( null ) ), _config, configPrefix );
             }
             case "signrequest.JWTRSATrustStoreFileAuthenticator" ->
             {
-                yield new JWTRSATrustStoreFileAuthenticator(
+                yield withJWTCaches( new JWTRSATrustStoreFileAuthenticator(
                         _config.getOptionalValue( configPrefix + CONFIG_CLAIMS_TO_CHECK, Map.class ).orElse( new HashMap<>( 0 ) ),
                         _config.getOptionalValue( configPrefix + CONFIG_TOKEN_HTTP_HEADER, String.class ).orElse( null ),
                         _config.getOptionalValue( configPrefix + CONFIG_TOKEN_VALIDITY_PERIOD, Long.class ).orElse( 60000l ),
                         _config.getOptionalValue( configPrefix + CONFIG_ENCRYPTION_ALGORYTHM, String.class ).orElse( null ),
                         _config.getOptionalValue( configPrefix + CONFIG_CACERT_PATH, String.class ).orElse( null ),
                         _config.getOptionalValue( configPrefix + CONFIG_CACERT_PASSWORD, String.class ).orElse( null ),
-                        _config.getOptionalValue( configPrefix + CONFIG_ALIAS, String.class ).orElse( null ) );
+                        _config.getOptionalValue( configPrefix + CONFIG_ALIAS, String.class ).orElse( null ) ), _config, configPrefix );
             }
             case "signrequest.IPAuthenticator" ->
             {
-                yield new IPAuthentificator( 
+                yield withIPSources( new IPAuthentificator( 
                         _config.getOptionalValue( configPrefix + CONFIG_MODE, String.class ).orElse( null ),
                         _config.getOptionalValues( configPrefix + CONFIG_IPS, String.class ).orElse( new ArrayList<String>( ) ),
-                        _config.getOptionalValues( configPrefix + CONFIG_AUTHORIZED_PATH, String.class ).orElse( new ArrayList<String>( ) ));
+                        _config.getOptionalValues( configPrefix + CONFIG_AUTHORIZED_PATH, String.class ).orElse( new ArrayList<String>( ) )), _config, configPrefix );
+            }
+            case "signrequest.RateLimitAuthenticator" ->
+            {
+                RateLimitAuthenticator authenticator = new RateLimitAuthenticator(
+                        RateLimitAuthenticator.KEY.valueOf( _config.getOptionalValue( configPrefix + CONFIG_RATE_LIMIT_KEY, String.class ).orElse( "IP" ) ),
+                        _config.getValue( configPrefix + CONFIG_RATE_LIMIT_RATE, Double.class ),
+                        _config.getOptionalValue( configPrefix + CONFIG_RATE_LIMIT_BURST, Integer.class ).orElse( 1 ),
+                        _config.getOptionalValue( configPrefix + CONFIG_RATE_LIMIT_CAPACITY, Integer.class ).orElse( DEFAULT_RATE_LIMIT_CAPACITY ) );
+                authenticator.setClientIPResolver( getClientIPResolver( _config, configPrefix ) );
+                _listCloseTasks.add( authenticator::close );
+                yield authenticator;
+            }
+            case "signrequest.CompositeAuthenticator" ->
+            {
+                if ( composites.contains( configPrefix ) )
+                {
+                    throw new IllegalStateException( "SignRequest - Composite authenticator containing itself : " + configPrefix );
+                }
+
+                List<String> listChildren = _config.getOptionalValues( configPrefix + CONFIG_COMPOSITE_AUTHENTICATORS, String.class ).orElse( null );
+
+                if ( ( listChildren == null ) || listChildren.isEmpty( ) )
+                {
+                    throw new IllegalStateException( "SignRequest - Composite authenticator without authenticators : " + configPrefix );
+                }
+
+                CompositeAuthenticator authenticator = new CompositeAuthenticator(
+                        CompositeAuthenticator.MODE.valueOf( _config.getOptionalValue( configPrefix + CONFIG_COMPOSITE_MODE, String.class ).orElse( "AND" ) ),
+                        _config.getOptionalValue( configPrefix + CONFIG_COMPOSITE_ADAPTIVE, Boolean.class ).orElse( false ) );
+
+                // Each authenticator is configured under its own prefix
+                composites.push( configPrefix );
+
+                for ( String strPrefix : listChildren )
+                {
+                    RequestAuthenticator child = produceRequestAuthenticator( strPrefix, composites, "the composite authenticator " + configPrefix );
+                    authenticator.add( child, _config.getOptionalValue( strPrefix + CONFIG_COST, Integer.class ).orElse( child.getCostHint( ) ) );
+                }
+
+                composites.pop( );
+
+                yield authenticator;
+            }
+            case "signrequest.NoSecurityAuthenticator" -> new NoSecurityAuthenticator( );
+            default ->
+            {
+                // A mistyped child or route must not turn a composite or a path into an open door
+                if ( strReferrer != null )
+                {
+                    throw new IllegalStateException(
+                            "SignRequest - Unknown authenticator in " + strReferrer + " : " + configPrefix + " (" + strRequestAuthenticatorName + ")" );
+                }
+
+                yield new NoSecurityAuthenticator( );
             }
-            default -> new NoSecurityAuthenticator( );
         };
     }
 
+    /**
+     * Produces a route table for a routing filter. The routes are pattern=authenticatorPrefix entries, each authenticator being configured under its
+     * own prefix. Routes giving the same prefix share the same authenticator.
+     * 
+     * @param configPrefix
+     *            The config prefix of the routes
+     * @return The route table
+     * @throws IllegalStateException
+     *             If the authenticator of a route is unknown
+     */
+    protected PathRouteTable<RequestAuthenticator> produceRouteTable( String configPrefix )
+    {
+        Config config = ConfigProvider.getConfig( );
+        PathRouteTable.Builder<RequestAuthenticator> builder = PathRouteTable.builder( );
+        Map<String, RequestAuthenticator> mapAuthenticators = new HashMap<>( );
+
+        for ( String strRoute : config.getValues( configPrefix + CONFIG_ROUTES, String.class ) )
+        {
+            int nSeparator = strRoute.lastIndexOf( '=' );
+
+            if ( nSeparator <= 0 )
+            {
+                throw new IllegalArgumentException( "Invalid route, pattern=authenticatorPrefix expected : " + strRoute );
+            }
+
+            String strAuthenticatorPrefix = strRoute.substring( nSeparator + 1 ).trim( );
+            builder.add( strRoute.substring( 0, nSeparator ).trim( ),
+                    mapAuthenticators.computeIfAbsent( strAuthenticatorPrefix,
+                            strPrefix -> produceRequestAuthenticator( strPrefix, new ArrayDeque<>( ), "the route table " + configPrefix ) ) );
+        }
+
+        return builder.build( );
+    }
+
+    /**
+     * Loads the IP addresses from watched files when files are configured and maps an IPv4 bitmap file when it is configured, in addition to the
+     * configured IP addresses. Resolves the client address from the forwarding headers when trusted proxies are configured.
+     * 
+     * @param authenticator
+     *            The IP authenticator
+     * @param config
+     *            The config
+     * @param configPrefix
+     *            The config prefix of the authenticator
+     * @return The authenticator
+     */
+    private IPAuthentificator withIPSources( IPAuthentificator authenticator, Config config, String configPrefix )
+    {
+        List<String> listFiles = config.getOptionalValues( configPrefix + CONFIG_IPS_FILES, String.class ).orElse( null );
+
+        if ( listFiles != null )
+        {
+            List<Path> listPaths = new ArrayList<>( listFiles.size( ) );
+
+            for ( String strFile : listFiles )
+            {
+                listPaths.add( Paths.get( strFile ) );
+            }
+
+            IPListFileSource source = new IPListFileSource( authenticator.getIPs( ), listPaths );
+            authenticator.setIPAddressSet( source );
+            _listCloseTasks.add( source::close );
+        }
+
+        String strBitmapFile = config.getOptionalValue( configPrefix + CONFIG_IPS_BITMAP_FILE, String.class ).orElse( null );
+
+        if ( strBitmapFile != null )
+        {
+            try
+            {
+                authenticator.setIPAddressSet( authenticator.getIPAddressSet( ).or( IPv4Bitmap.map( Paths.get( strBitmapFile ) ) ) );
+            }
+            catch( IOException e )
+            {
+                throw new IllegalArgumentException( "Unable to map the IPv4 bitmap file " + strBitmapFile, e );
+            }
+        }
+
+        authenticator.setClientIPResolver( getClientIPResolver( config, configPrefix ) );
+
+        return authenticator;
+    }
+
+    /**
+     * Gets the resolver of the client address when trusted proxies are configured. The forwarding header written by the trusted proxies defaults to
+     * X-Forwarded-For. Authenticators configured with the same trusted proxies, in any order, and the same header share the same resolver.
+     * 
+     * @param config
+     *            The config
+     * @param configPrefix
+     *            The config prefix of the authenticator
+     * @return The resolver, or null if no trusted proxy is configured
+     */
+    private static ClientIPResolver getClientIPResolver( Config config, String configPrefix )
+    {
+        List<String> listTrustedProxies = config.getOptionalValues( configPrefix + CONFIG_TRUSTED_PROXIES, String.class ).orElse( null );
+
+        if ( listTrustedProxies == null )
+        {
+            return null;
+        }
+
+        String strForwardingHeader = config.getOptionalValue( configPrefix + CONFIG_FORWARDING_HEADER, String.class )
+                .orElse( ClientIPResolver.HEADER_X_FORWARDED_FOR ).trim( );
+        List<String> listNormalized = listTrustedProxies.stream( ).map( String::trim ).filter( strProxy -> !strProxy.isEmpty( ) ).distinct( ).sorted( )
+                .collect( Collectors.toCollection( ArrayList::new ) );
+
+        // The header is the first element of the key
+        listNormalized.add( 0, strForwardingHeader.toLowerCase( Locale.ROOT ) );
+
+        return CLIENT_IP_RESOLVERS.computeIfAbsent( listNormalized,
+                key -> new ClientIPResolver( IPRadixTrie.of( key.subList( 1, key.size( ) ) ), strForwardingHeader ) );
+    }
+
+    /**
+     * Enables the JWT verification cache when a cache size is configured and the token cache when a refresh fraction is configured
+     * 
+     * @param authenticator
+     *            The JWT authenticator
+     * @param config
+     *            The config
+     * @param configPrefix
+     *            The config prefix of the authenticator
+     * @return The authenticator
+     */
+    private <T extends AbstractJWTAuthenticator> T withJWTCaches( T authenticator, Config config, String configPrefix )
+    {
+        int nCacheSize = config.getOptionalValue( configPrefix + CONFIG_VERIFICATION_CACHE_SIZE, Integer.class ).orElse( 0 );
+
+        if ( nCacheSize > 0 )
+        {
+            authenticator.enableVerificationCache( nCacheSize,
+                    config.getOptionalValue( configPrefix + CONFIG_VERIFICATION_CACHE_TTL, Long.class ).orElse( JWTVerificationCache.DEFAULT_MAX_TTL ) );
+        }
+
+        double dRefreshFraction = config.getOptionalValue( configPrefix + CONFIG_TOKEN_CACHE_REFRESH, Double.class ).orElse( 0d );
+
+        if ( dRefreshFraction > 0 )
+        {
+            authenticator.enableTokenCache( dRefreshFraction );
+            _listCloseTasks.add( authenticator::close );
+        }
+
+        return authenticator;
+    }
+
+    /**
+     * Sets versioned private keys, as "version:key" entries newest first, when configured
+     * 
+     * @param authenticator
+     *            The authenticator
+     * @param config
+     *            The config
+     * @param configPrefix
+     *            The config prefix of the authenticator
+     * @return The authenticator
+     */
+    private static <T extends AbstractPrivateKeyAuthenticator> T withPrivateKeys( T authenticator, Config config, String configPrefix )
+    {
+        List<String> listPrivateKeys = config.getOptionalValues( configPrefix + CONFIG_PRIVATE_KEYS, String.class ).orElse( null );
+
+        if ( listPrivateKeys != null && !listPrivateKeys.isEmpty( ) )
+        {
+            authenticator.setPrivateKeys( KeyRing.parse( listPrivateKeys ) );
+        }
+
+        return authenticator;
+    }
+
+    /**
+     * Sets the validity time period when configured (validityTimePeriod, in seconds, unlike the validityPeriod of the JWT authenticators given in
+     * milliseconds), and a replay guard when a capacity is configured. The window of the guard defaults to the validity time period of the
+     * authenticator, so that a signature is remembered as long as its timestamp is accepted.
+     * 
+     * @param authenticator
+     *            The authenticator
+     * @param config
+     *            The config
+     * @param configPrefix
+     *            The config prefix of the authenticator
+     * @return The authenticator
+     */
+    private static <T extends AbstractAuthenticator> T withReplayGuard( T authenticator, Config config, String configPrefix )
+    {
+        config.getOptionalValue( configPrefix + CONFIG_VALIDITY_TIME_PERIOD, Long.class ).ifPresent( authenticator::setValidityTimePeriod );
+
+        int nCapacity = config.getOptionalValue( configPrefix + CONFIG_REPLAY_GUARD_CAPACITY, Integer.class ).orElse( 0 );
+
+        if ( nCapacity > 0 )
+        {
+            // The validity time period is in seconds, the window in milliseconds
+            long lValidityTimePeriod = authenticator.getValidityTimePeriod( );
+            long lDefaultWindow = ( lValidityTimePeriod > 0 ) ? ( lValidityTimePeriod * 1000L ) : DEFAULT_REPLAY_GUARD_WINDOW;
+
+            authenticator.setReplayGuard( new ReplayGuard(
+                    config.getOptionalValue( configPrefix + CONFIG_REPLAY_GUARD_WINDOW, Long.class ).orElse( lDefaultWindow ), nCapacity ) );
+        }
+
+        return authenticator;
+    }
+
+    /**
+     * Stops the background tasks of the authenticators produced, when the producer is destroyed
+     */
+    @PreDestroy
+    protected void close( )
+    {
+        for ( Runnable task : _listCloseTasks )
+        {
+            task.run( );
+        }
+
+        _listCloseTasks.clear( );
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+/**
+ * Address of the client of a request, as resolved by a ClientIPResolver
+ */
+public final class ClientAddress
+{
+    private final long _lHigh;
+    private final long _lLow;
+    private final String _strSource;
+    private final int _nStart;
+    private final int _nEnd;
+    private final IPAddressSet _trustedProxies;
+    private final String _strForwardingHeader;
+    private String _strAddress;
+
+    /**
+     * Constructor
+     * 
+     * @param lHigh
+     *            The 64 high bits of the address
+     * @param lLow
+     *            The 64 low bits of the address
+     * @param strSource
+     *            The text holding the address
+     * @param nStart
+     *            The start offset of the address in the text
+     * @param nEnd
+     *            The end offset of the address in the text
+     * @param trustedProxies
+     *            The trusted proxies used to resolve the address
+     * @param strForwardingHeader
+     *            The forwarding header used to resolve the address
+     */
+    ClientAddress( long lHigh, long lLow, String strSource, int nStart, int nEnd, IPAddressSet trustedProxies, String strForwardingHeader )
+    {
+        _lHigh = lHigh;
+        _lLow = lLow;
+        _strSource = strSource;
+        _nStart = nStart;
+        _nEnd = nEnd;
+        _trustedProxies = trustedProxies;
+        _strForwardingHeader = strForwardingHeader;
+    }
+
+    /**
+     * Gets the 64 high bits of the address
+     * 
+     * @return The 64 high bits, IPv4 addresses being mapped into IPv6
+     */
+    public long getHigh( )
+    {
+        return _lHigh;
+    }
+
+    /**
+     * Gets the 64 low bits of the address
+     * 
+     * @return The 64 low bits
+     */
+    public long getLow( )
+    {
+        return _lLow;
+    }
+
+    /**
+     * Tells if the address belongs to a set
+     * 
+     * @param set
+     *            The set
+     * @return true if the address belongs to the set
+     */
+    public boolean isIn( IPAddressSet set )
+    {
+        return set.contains( _lHigh, _lLow );
+    }
+
+    /**
+     * Gets the trusted proxies used to resolve the address
+     * 
+     * @return The trusted proxies
+     */
+    IPAddressSet getTrustedProxies( )
+    {
+        return _trustedProxies;
+    }
+
+    /**
+     * Gets the forwarding header used to resolve the address
+     * 
+     * @return The header name
+     */
+    String getForwardingHeader( )
+    {
+        return _strForwardingHeader;
+    }
+
+    /**
+     * Gets the address as found in the request
+     * 
+     * @return The address
+     */
+    @Override
+    public String toString( )
+    {
+        String strAddress = _strAddress;
+
+        if ( strAddress == null )
+        {
+            strAddress = _strSource.substring( _nStart, _nEnd );
+            _strAddress = strAddress;
+        }
+
+        return strAddress;
+    }
+}
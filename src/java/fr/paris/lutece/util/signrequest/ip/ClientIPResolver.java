@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the address of the client of a request received through proxies.
+ * <p>
+ * When the peer address belongs to the trusted proxies, the forwarding headers are walked from the right : each hop added by a trusted proxy is
+ * trusted in turn, and the first address that is not a trusted proxy is the client. Only the forwarding header written by the trusted proxies is read
+ * (X-Forwarded-For by default, or Forwarded from RFC 7239) : the other one is left as sent by the client, who could put any address in it. Addresses left of the first untrusted hop are never read, since the client can write anything there. If a hop is
+ * missing or is not a valid address (unknown, obfuscated identifier), the last trusted address is kept.
+ * </p>
+ * <p>
+ * Addresses are parsed in place from the header values. The result is cached in a request attribute, so that authenticators sharing the same trusted
+ * proxies resolve it once per request.
+ * </p>
+ */
+public final class ClientIPResolver
+{
+    /** The request attribute holding the resolved ClientAddress */
+    public static final String ATTRIBUTE_CLIENT_ADDRESS = "signrequest.clientAddress";
+    public static final String HEADER_FORWARDED = "Forwarded";
+    public static final String HEADER_X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private static final String PARAMETER_FOR = "for=";
+    private static final long INVALID = -1L;
+
+    private final IPAddressSet _trustedProxies;
+    private final String _strForwardingHeader;
+    private final boolean _bForwarded;
+
+    /**
+     * Constructor reading the X-Forwarded-For header
+     * 
+     * @param trustedProxies
+     *            The addresses of the trusted proxies
+     */
+    public ClientIPResolver( IPAddressSet trustedProxies )
+    {
+        this( trustedProxies, HEADER_X_FORWARDED_FOR );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param trustedProxies
+     *            The addresses of the trusted proxies
+     * @param strForwardingHeader
+     *            The forwarding header written by the trusted proxies : X-Forwarded-For or Forwarded
+     */
+    public ClientIPResolver( IPAddressSet trustedProxies, String strForwardingHeader )
+    {
+        if ( HEADER_FORWARDED.equalsIgnoreCase( strForwardingHeader ) )
+        {
+            _strForwardingHeader = HEADER_FORWARDED;
+        }
+        else
+            if ( HEADER_X_FORWARDED_FOR.equalsIgnoreCase( strForwardingHeader ) )
+            {
+                _strForwardingHeader = HEADER_X_FORWARDED_FOR;
+            }
+            else
+            {
+                throw new IllegalArgumentException( "Unsupported forwarding header : " + strForwardingHeader );
+            }
+
+        _trustedProxies = trustedProxies;
+        _bForwarded = HEADER_FORWARDED.equals( _strForwardingHeader );
+    }
+
+    /**
+     * Gets the trusted proxies
+     * 
+     * @return The addresses of the trusted proxies
+     */
+    public IPAddressSet getTrustedProxies( )
+    {
+        return _trustedProxies;
+    }
+
+    /**
+     * Gets the forwarding header read by the resolver
+     * 
+     * @return The header name
+     */
+    public String getForwardingHeader( )
+    {
+        return _strForwardingHeader;
+    }
+
+    /**
+     * Resolves the address of the client
+     * 
+     * @param request
+     *            The request
+     * @return The address, or null if the peer address is not valid
+     */
+    public ClientAddress resolve( HttpServletRequest request )
+    {
+        Object cached = request.getAttribute( ATTRIBUTE_CLIENT_ADDRESS );
+
+        if ( ( cached instanceof ClientAddress ) && ( ( (ClientAddress) cached ).getTrustedProxies( ) == _trustedProxies )
+                && ( ( (ClientAddress) cached ).getForwardingHeader( ) == _strForwardingHeader ) )
+        {
+            return (ClientAddress) cached;
+        }
+
+        ClientAddress address = resolveAddress( request );
+
+        if ( address != null )
+        {
+            request.setAttribute( ATTRIBUTE_CLIENT_ADDRESS, address );
+        }
+
+        return address;
+    }
+
+    /**
+     * Resolves the address of the client without the cache
+     * 
+     * @param request
+     *            The request
+     * @return The address, or null if the peer address is not valid
+     */
+    private ClientAddress resolveAddress( HttpServletRequest request )
+    {
+        long [ ] address = IPAddressParser.getBuffer( );
+        String strRemoteAddr = request.getRemoteAddr( );
+
+        if ( ( strRemoteAddr == null ) || ( IPAddressParser.parse( strRemoteAddr, address ) != IPAddressParser.ADDRESS_BITS ) )
+        {
+            return null;
+        }
+
+        ClientAddress client = new ClientAddress( address [0], address [1], strRemoteAddr, 0, strRemoteAddr.length( ), _trustedProxies,
+                _strForwardingHeader );
+
+        if ( !_trustedProxies.contains( address [0], address [1] ) )
+        {
+            return client;
+        }
+
+        List<String> listValues = getHeaderValues( request, _strForwardingHeader );
+
+        // Header lines are walked from the last one, and each line from the right
+        for ( int nLine = listValues.size( ) - 1; nLine >= 0; nLine-- )
+        {
+            String strValue = listValues.get( nLine );
+            int nEnd = strValue.length( );
+
+            while ( nEnd >= 0 )
+            {
+                int nStart = strValue.lastIndexOf( ',', nEnd - 1 ) + 1;
+                long lHop = _bForwarded ? parseForwardedElement( strValue, nStart, nEnd, address ) : parseNode( strValue, nStart, nEnd, address );
+
+                if ( lHop == INVALID )
+                {
+                    return client;
+                }
+
+                client = new ClientAddress( address [0], address [1], strValue, (int) ( lHop >>> 32 ), (int) lHop, _trustedProxies, _strForwardingHeader );
+
+                if ( !_trustedProxies.contains( address [0], address [1] ) )
+                {
+                    return client;
+                }
+
+                nEnd = nStart - 1;
+            }
+        }
+
+        return client;
+    }
+
+    /**
+     * Gets the lines of a header
+     * 
+     * @param request
+     *            The request
+     * @param strName
+     *            The header name
+     * @return The lines
+     */
+    private static List<String> getHeaderValues( HttpServletRequest request, String strName )
+    {
+        List<String> listValues = new ArrayList<>( 1 );
+        Enumeration<String> values = request.getHeaders( strName );
+
+        while ( ( values != null ) && values.hasMoreElements( ) )
+        {
+            listValues.add( values.nextElement( ) );
+        }
+
+        return listValues;
+    }
+
+    /**
+     * Parses the for parameter of a Forwarded element (for=192.0.2.60;proto=http;by=203.0.113.43)
+     * 
+     * @param strValue
+     *            The header value
+     * @param nStart
+     *            The start offset of the element
+     * @param nEnd
+     *            The end offset of the element
+     * @param out
+     *            The long [2] receiving the address
+     * @return The offsets of the address (start on the 32 high bits, end on the 32 low bits), or -1 if the element has no valid address
+     */
+    private static long parseForwardedElement( String strValue, int nStart, int nEnd, long [ ] out )
+    {
+        int nPairStart = nStart;
+
+        while ( nPairStart < nEnd )
+        {
+            int nPairEnd = strValue.indexOf( ';', nPairStart );
+
+            if ( ( nPairEnd < 0 ) || ( nPairEnd > nEnd ) )
+            {
+                nPairEnd = nEnd;
+            }
+
+            nPairStart = skipWhitespace( strValue, nPairStart, nPairEnd );
+
+            if ( strValue.regionMatches( true, nPairStart, PARAMETER_FOR, 0, PARAMETER_FOR.length( ) ) )
+            {
+                int nNodeStart = nPairStart + PARAMETER_FOR.length( );
+                int nNodeEnd = trimEnd( strValue, nNodeStart, nPairEnd );
+
+                if ( ( ( nNodeEnd - nNodeStart ) >= 2 ) && ( strValue.charAt( nNodeStart ) == '"' ) && ( strValue.charAt( nNodeEnd - 1 ) == '"' ) )
+                {
+                    nNodeStart++;
+                    nNodeEnd--;
+                }
+
+                return parseNode( strValue, nNodeStart, nNodeEnd, out );
+            }
+
+            nPairStart = nPairEnd + 1;
+        }
+
+        return INVALID;
+    }
+
+    /**
+     * Parses a node : an address, possibly with a port (192.0.2.43:47011, [2001:db8::17]:4711)
+     * 
+     * @param strValue
+     *            The header value
+     * @param nStart
+     *            The start offset of the node
+     * @param nEnd
+     *            The end offset of the node
+     * @param out
+     *            The long [2] receiving the address
+     * @return The offsets of the address (start on the 32 high bits, end on the 32 low bits), or -1 if the node is not a valid address
+     */
+    private static long parseNode( String strValue, int nStart, int nEnd, long [ ] out )
+    {
+        int nAddressStart = skipWhitespace( strValue, nStart, nEnd );
+        int nAddressEnd = trimEnd( strValue, nAddressStart, nEnd );
+
+        if ( nAddressStart == nAddressEnd )
+        {
+            return INVALID;
+        }
+
+        if ( strValue.charAt( nAddressStart ) == '[' )
+        {
+            int nClose = strValue.indexOf( ']', nAddressStart );
+
+            if ( ( nClose < 0 ) || ( nClose >= nAddressEnd ) )
+            {
+                return INVALID;
+            }
+
+            nAddressEnd = nClose + 1;
+        }
+        else
+        {
+            int nColon = strValue.indexOf( ':', nAddressStart );
+            int nNextColon = ( nColon < 0 ) ? -1 : strValue.indexOf( ':', nColon + 1 );
+
+            // A single colon separates an IPv4 address from its port
+            if ( ( nColon >= 0 ) && ( nColon < nAddressEnd ) && ( ( nNextColon < 0 ) || ( nNextColon >= nAddressEnd ) ) )
+            {
+                nAddressEnd = nColon;
+            }
+        }
+
+        if ( IPAddressParser.parse( strValue, nAddressStart, nAddressEnd, out ) != IPAddressParser.ADDRESS_BITS )
+        {
+            return INVALID;
+        }
+
+        return ( (long) nAddressStart << 32 ) | nAddressEnd;
+    }
+
+    /**
+     * Skips the leading whitespaces
+     * 
+     * @param strValue
+     *            The text
+     * @param nStart
+     *            The start offset
+     * @param nEnd
+     *            The end offset
+     * @return The offset of the first non whitespace char, or the end offset
+     */
+    private static int skipWhitespace( String strValue, int nStart, int nEnd )
+    {
+        int nPos = nStart;
+
+        while ( ( nPos < nEnd ) && ( strValue.charAt( nPos ) <= ' ' ) )
+        {
+            nPos++;
+        }
+
+        return nPos;
+    }
+
+    /**
+     * Skips the trailing whitespaces
+     * 
+     * @param strValue
+     *            The text
+     * @param nStart
+     *            The start offset
+     * @param nEnd
+     *            The end offset
+     * @return The offset after the last non whitespace char, or the start offset
+     */
+    private static int trimEnd( String strValue, int nStart, int nEnd )
+    {
+        int nPos = nEnd;
+
+        while ( ( nPos > nStart ) && ( strValue.charAt( nPos - 1 ) <= ' ' ) )
+        {
+            nPos--;
+        }
+
+        return nPos;
+    }
+}
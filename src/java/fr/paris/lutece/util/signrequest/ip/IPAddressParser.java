@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+/**
+ * Parses IPv4 and IPv6 addresses and CIDR blocks into 128 bits values, without any name resolution. IPv4 addresses are mapped into IPv6
+ * (::ffff:a.b.c.d), so that both families share the same address space.
+ * <p>
+ * A parsed address is written into a long [2] : the 64 high bits in the first element, the 64 low bits in the second one.
+ * </p>
+ */
+public final class IPAddressParser
+{
+    /** Length in bits of an address */
+    public static final int ADDRESS_BITS = 128;
+
+    /** Length of the prefix of IPv4 mapped addresses */
+    public static final int IPV4_MAPPED_PREFIX = 96;
+
+    private static final long IPV4_MAPPED_MARKER = 0xFFFF00000000L;
+    private static final int INVALID = -1;
+    private static final ThreadLocal<long [ ]> BUFFER = ThreadLocal.withInitial( ( ) -> new long [ 2] );
+
+    /**
+     * Private constructor
+     */
+    private IPAddressParser( )
+    {
+    }
+
+    /**
+     * Parses an address or a CIDR block (address/prefix length). The host bits of a block are cleared.
+     * 
+     * @param sequence
+     *            The text
+     * @param nStart
+     *            The start offset
+     * @param nEnd
+     *            The end offset (exclusive)
+     * @param out
+     *            The long [2] receiving the address
+     * @return The prefix length on 128 bits (128 for a single address), or -1 if the text is not valid
+     */
+    public static int parse( CharSequence sequence, int nStart, int nEnd, long [ ] out )
+    {
+        int nSlash = indexOf( sequence, '/', nStart, nEnd );
+        int nAddressEnd = ( nSlash < 0 ) ? nEnd : nSlash;
+        boolean bIPv4 = indexOf( sequence, ':', nStart, nAddressEnd ) < 0;
+        int nMaxPrefix;
+
+        if ( bIPv4 )
+        {
+            long lAddress = parseIPv4( sequence, nStart, nAddressEnd );
+
+            if ( lAddress < 0 )
+            {
+                return INVALID;
+            }
+
+            out [0] = 0L;
+            out [1] = IPV4_MAPPED_MARKER | lAddress;
+            nMaxPrefix = 32;
+        }
+        else
+        {
+            if ( !parseIPv6( sequence, nStart, nAddressEnd, out ) )
+            {
+                return INVALID;
+            }
+
+            nMaxPrefix = ADDRESS_BITS;
+        }
+
+        int nPrefix = nMaxPrefix;
+
+        if ( nSlash >= 0 )
+        {
+            nPrefix = parseDecimal( sequence, nSlash + 1, nEnd, nMaxPrefix );
+
+            if ( nPrefix < 0 )
+            {
+                return INVALID;
+            }
+        }
+
+        if ( bIPv4 )
+        {
+            nPrefix += IPV4_MAPPED_PREFIX;
+        }
+
+        out [0] &= highMask( nPrefix );
+        out [1] &= lowMask( nPrefix );
+
+        return nPrefix;
+    }
+
+    /**
+     * Parses an address or a CIDR block
+     * 
+     * @param sequence
+     *            The text
+     * @param out
+     *            The long [2] receiving the address
+     * @return The prefix length on 128 bits, or -1 if the text is not valid
+     */
+    public static int parse( CharSequence sequence, long [ ] out )
+    {
+        return parse( sequence, 0, sequence.length( ), out );
+    }
+
+    /**
+     * Gets a per thread long [2] to parse addresses on the request path without allocation
+     * 
+     * @return The buffer
+     */
+    public static long [ ] getBuffer( )
+    {
+        return BUFFER.get( );
+    }
+
+    /**
+     * Gets the mask of the high 64 bits for a prefix length
+     * 
+     * @param nPrefix
+     *            The prefix length
+     * @return The mask
+     */
+    static long highMask( int nPrefix )
+    {
+        if ( nPrefix <= 0 )
+        {
+            return 0L;
+        }
+
+        return ( nPrefix >= 64 ) ? -1L : ( -1L << ( 64 - nPrefix ) );
+    }
+
+    /**
+     * Gets the mask of the low 64 bits for a prefix length
+     * 
+     * @param nPrefix
+     *            The prefix length
+     * @return The mask
+     */
+    static long lowMask( int nPrefix )
+    {
+        if ( nPrefix <= 64 )
+        {
+            return 0L;
+        }
+
+        return ( nPrefix >= ADDRESS_BITS ) ? -1L : ( -1L << ( ADDRESS_BITS - nPrefix ) );
+    }
+
+    /**
+     * Parses a dotted decimal IPv4 address
+     * 
+     * @param sequence
+     *            The text
+     * @param nStart
+     *            The start offset
+     * @param nEnd
+     *            The end offset
+     * @return The address on 32 bits or -1
+     */
+    private static long parseIPv4( CharSequence sequence, int nStart, int nEnd )
+    {
+        long lAddress = 0L;
+        int nPos = nStart;
+
+        for ( int nPart = 0; nPart < 4; nPart++ )
+        {
+            int nPartEnd = indexOf( sequence, '.', nPos, nEnd );
+
+            if ( nPartEnd < 0 )
+            {
+                nPartEnd = nEnd;
+            }
+
+            // Leading zeros are rejected : some parsers read them as octal
+            if ( ( ( nPartEnd - nPos ) > 1 ) && ( sequence.charAt( nPos ) == '0' ) )
+            {
+                return INVALID;
+            }
+
+            int nValue = parseDecimal( sequence, nPos, nPartEnd, 255 );
+
+            if ( ( nValue < 0 ) || ( ( nPart < 3 ) == ( nPartEnd == nEnd ) ) )
+            {
+                return INVALID;
+            }
+
+            lAddress = ( lAddress << 8 ) | nValue;
+            nPos = nPartEnd + 1;
+        }
+
+        return lAddress;
+    }
+
+    /**
+     * Parses an IPv6 address, possibly within brackets, with a zone or an embedded IPv4 address
+     * 
+     * @param sequence
+     *            The text
+     * @param nStart
+     *            The start offset
+     * @param nEnd
+     *            The end offset
+     * @param out
+     *            The long [2] receiving the address
+     * @return true if the address is valid
+     */
+    private static boolean parseIPv6( CharSequence sequence, int nStart, int nEnd, long [ ] out )
+    {
+        int nPos = nStart;
+        int nLimit = nEnd;
+
+        if ( ( nLimit - nPos >= 2 ) && ( sequence.charAt( nPos ) == '[' ) && ( sequence.charAt( nLimit - 1 ) == ']' ) )
+        {
+            nPos++;
+            nLimit--;
+        }
+
+        int nZone = indexOf( sequence, '%', nPos, nLimit );
+
+        if ( nZone >= 0 )
+        {
+            nLimit = nZone;
+        }
+
+        long lHeadHigh = 0L;
+        long lHeadLow = 0L;
+        long lTailHigh = 0L;
+        long lTailLow = 0L;
+        int nHead = 0;
+        int nTail = 0;
+        boolean bCompressed = false;
+
+        if ( ( nLimit - nPos >= 2 ) && ( sequence.charAt( nPos ) == ':' ) && ( sequence.charAt( nPos + 1 ) == ':' ) )
+        {
+            bCompressed = true;
+            nPos += 2;
+        }
+
+        while ( nPos < nLimit )
+        {
+            int nGroupEnd = nPos;
+            int nValue = 0;
+
+            while ( ( nGroupEnd < nLimit ) && ( ( nGroupEnd - nPos ) < 4 ) && ( hexValue( sequence.charAt( nGroupEnd ) ) >= 0 ) )
+            {
+                nValue = ( nValue << 4 ) | hexValue( sequence.charAt( nGroupEnd ) );
+                nGroupEnd++;
+            }
+
+            int nGroups = 1;
+            long lGroups = nValue;
+
+            if ( ( nGroupEnd < nLimit ) && ( sequence.charAt( nGroupEnd ) == '.' ) )
+            {
+                // Embedded IPv4 address, always last
+                long lIPv4 = parseIPv4( sequence, nPos, nLimit );
+
+                if ( lIPv4 < 0 )
+                {
+                    return false;
+                }
+
+                nGroups = 2;
+                lGroups = lIPv4;
+                nGroupEnd = nLimit;
+            }
+            else if ( ( nGroupEnd == nPos ) || ( ( nGroupEnd < nLimit ) && ( sequence.charAt( nGroupEnd ) != ':' ) ) )
+            {
+                return false;
+            }
+
+            for ( int i = nGroups - 1; i >= 0; i-- )
+            {
+                long lGroup = ( lGroups >>> ( 16 * i ) ) & 0xFFFFL;
+
+                if ( bCompressed )
+                {
+                    lTailHigh = ( lTailHigh << 16 ) | ( lTailLow >>> 48 );
+                    lTailLow = ( lTailLow << 16 ) | lGroup;
+                    nTail++;
+                }
+                else
+                {
+                    if ( nHead >= 8 )
+                    {
+                        return false;
+                    }
+
+                    if ( nHead < 4 )
+                    {
+                        lHeadHigh |= lGroup << ( 48 - ( 16 * nHead ) );
+                    }
+                    else
+                    {
+                        lHeadLow |= lGroup << ( 48 - ( 16 * ( nHead - 4 ) ) );
+                    }
+
+                    nHead++;
+                }
+            }
+
+            if ( nGroupEnd == nLimit )
+            {
+                break;
+            }
+
+            // Skip the separator
+            nPos = nGroupEnd + 1;
+
+            if ( nPos == nLimit )
+            {
+                return false;
+            }
+
+            if ( sequence.charAt( nPos ) == ':' )
+            {
+                if ( bCompressed )
+                {
+                    return false;
+                }
+
+                bCompressed = true;
+                nPos++;
+            }
+        }
+
+        if ( bCompressed ? ( ( nHead + nTail ) > 7 ) : ( nHead != 8 ) )
+        {
+            return false;
+        }
+
+        out [0] = lHeadHigh | lTailHigh;
+        out [1] = lHeadLow | lTailLow;
+
+        return true;
+    }
+
+    /**
+     * Parses a decimal number
+     * 
+     * @param sequence
+     *            The text
+     * @param nStart
+     *            The start offset
+     * @param nEnd
+     *            The end offset
+     * @param nMax
+     *            The maximum value
+     * @return The number or -1
+     */
+    private static int parseDecimal( CharSequence sequence, int nStart, int nEnd, int nMax )
+    {
+        if ( ( nStart >= nEnd ) || ( ( nEnd - nStart ) > 3 ) )
+        {
+            return INVALID;
+        }
+
+        int nValue = 0;
+
+        for ( int i = nStart; i < nEnd; i++ )
+        {
+            char c = sequence.charAt( i );
+
+            if ( ( c < '0' ) || ( c > '9' ) )
+            {
+                return INVALID;
+            }
+
+            nValue = ( nValue * 10 ) + ( c - '0' );
+        }
+
+        return ( nValue <= nMax ) ? nValue : INVALID;
+    }
+
+    /**
+     * Gets the value of an hexadecimal digit
+     * 
+     * @param c
+     *            The char
+     * @return The value or -1 if the char is not an ASCII hexadecimal digit
+     */
+    private static int hexValue( char c )
+    {
+        if ( ( c >= '0' ) && ( c <= '9' ) )
+        {
+            return c - '0';
+        }
+
+        if ( ( c >= 'a' ) && ( c <= 'f' ) )
+        {
+            return ( c - 'a' ) + 10;
+        }
+
+        if ( ( c >= 'A' ) && ( c <= 'F' ) )
+        {
+            return ( c - 'A' ) + 10;
+        }
+
+        return INVALID;
+    }
+
+    /**
+     * Finds a char
+     * 
+     * @param sequence
+     *            The text
+     * @param c
+     *            The char
+     * @param nStart
+     *            The start offset
+     * @param nEnd
+     *            The end offset
+     * @return The index or -1
+     */
+    private static int indexOf( CharSequence sequence, char c, int nStart, int nEnd )
+    {
+        for ( int i = nStart; i < nEnd; i++ )
+        {
+            if ( sequence.charAt( i ) == c )
+            {
+                return i;
+            }
+        }
+
+        return INVALID;
+    }
+}
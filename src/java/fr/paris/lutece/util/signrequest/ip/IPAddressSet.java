@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+/**
+ * Set of IP addresses, usually made of CIDR blocks
+ */
+public interface IPAddressSet
+{
+    /**
+     * Tells if an address belongs to the set
+     * 
+     * @param strAddress
+     *            The IPv4 or IPv6 address
+     * @return true if the address belongs to the set, false if it does not or if it is not a valid address
+     */
+    default boolean contains( CharSequence strAddress )
+    {
+        long [ ] address = IPAddressParser.getBuffer( );
+
+        return ( strAddress != null ) && ( IPAddressParser.parse( strAddress, address ) == IPAddressParser.ADDRESS_BITS )
+                && contains( address [0], address [1] );
+    }
+
+    /**
+     * Tells if an address belongs to the set
+     * 
+     * @param lHigh
+     *            The 64 high bits of the address, IPv4 addresses being mapped into IPv6
+     * @param lLow
+     *            The 64 low bits of the address
+     * @return true if the address belongs to the set
+     */
+    boolean contains( long lHigh, long lLow );
+
+    /**
+     * Gets the union of this set and another set
+     * 
+     * @param other
+     *            The other set
+     * @return A set containing the addresses of both sets
+     */
+    default IPAddressSet or( IPAddressSet other )
+    {
+        return ( lHigh, lLow ) -> contains( lHigh, lLow ) || other.contains( lHigh, lLow );
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.paris.lutece.util.signrequest.service.FileWatcherService;
+
+/**
+ * Set of IP addresses and CIDR blocks loaded from files and reloaded when a file changes.
+ * <p>
+ * Files are read by an IPListReader and compiled into a new IPRadixTrie on the file watcher thread. The new trie is then published with a single
+ * volatile write : lookups always see a complete list, either the previous one or the new one. If a file can not be read, the previous list is
+ * kept.
+ * </p>
+ */
+public final class IPListFileSource implements IPAddressSet
+{
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+
+    private final List<Path> _listFiles;
+    private final List<String> _listEntries;
+    private final Runnable _listener = this::reload;
+    private final AtomicLong _lReloadCount = new AtomicLong( );
+    private final AtomicLong _lReloadFailureCount = new AtomicLong( );
+    private volatile IPRadixTrie _trie;
+    private volatile long _lInvalidLineCount;
+    private volatile long _lLastReloadDuration;
+
+    /**
+     * Constructor. Loads the files and watches them.
+     * 
+     * @param listEntries
+     *            Fixed entries added to the content of the files, may be empty
+     * @param listFiles
+     *            The files
+     * @throws IllegalArgumentException
+     *             If a fixed entry is not valid
+     */
+    public IPListFileSource( Collection<String> listEntries, List<Path> listFiles )
+    {
+        _listEntries = new ArrayList<>( listEntries );
+        _listFiles = new ArrayList<>( listFiles );
+
+        // Fails fast on the fixed entries, and is kept if a file can not be loaded
+        _trie = IPRadixTrie.of( _listEntries );
+        reload( );
+
+        for ( Path file : _listFiles )
+        {
+            try
+            {
+                FileWatcherService.getInstance( ).register( file, _listener );
+            }
+            catch( IOException e )
+            {
+                _logger.warn( "SignRequest - Unable to watch " + file + ", the IP list will not be reloaded", e );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains( long lHigh, long lLow )
+    {
+        return _trie.contains( lHigh, lLow );
+    }
+
+    /**
+     * Loads all the files and publishes the new list
+     * 
+     * @return true if all the files have been loaded
+     */
+    public boolean reload( )
+    {
+        long lStart = System.nanoTime( );
+        IPRadixTrie.Builder builder = IPRadixTrie.builder( );
+        IPListReader reader = new IPListReader( builder::add );
+
+        for ( String strEntry : _listEntries )
+        {
+            builder.add( strEntry );
+        }
+
+        try
+        {
+            for ( Path file : _listFiles )
+            {
+                reader.read( file );
+            }
+        }
+        catch( IOException | RuntimeException e )
+        {
+            _lReloadFailureCount.incrementAndGet( );
+            _logger.error( "SignRequest - Unable to load the IP list, the previous list is kept", e );
+
+            return false;
+        }
+
+        IPRadixTrie trie = builder.build( );
+        _trie = trie;
+        _lInvalidLineCount = reader.getInvalidLineCount( );
+        _lLastReloadDuration = System.nanoTime( ) - lStart;
+        _lReloadCount.incrementAndGet( );
+        _logger.info( "SignRequest - IP list loaded : " + trie.size( ) + " blocks in " + ( _lLastReloadDuration / 1000000L ) + " ms" );
+
+        return true;
+    }
+
+    /**
+     * Stops watching the files
+     */
+    public void close( )
+    {
+        for ( Path file : _listFiles )
+        {
+            FileWatcherService.getInstance( ).unregister( file, _listener );
+        }
+    }
+
+    /**
+     * Gets the number of blocks of the current list
+     * 
+     * @return The number of blocks, once covered blocks are dropped
+     */
+    public int size( )
+    {
+        return _trie.size( );
+    }
+
+    /**
+     * Gets the number of successful loads
+     * 
+     * @return The count
+     */
+    public long getReloadCount( )
+    {
+        return _lReloadCount.get( );
+    }
+
+    /**
+     * Gets the number of failed loads
+     * 
+     * @return The count
+     */
+    public long getReloadFailureCount( )
+    {
+        return _lReloadFailureCount.get( );
+    }
+
+    /**
+     * Gets the number of invalid lines skipped by the last load
+     * 
+     * @return The count
+     */
+    public long getInvalidLineCount( )
+    {
+        return _lInvalidLineCount;
+    }
+
+    /**
+     * Gets the duration of the last successful load
+     * 
+     * @return The duration in nanoseconds
+     */
+    public long getLastReloadDuration( )
+    {
+        return _lLastReloadDuration;
+    }
+}
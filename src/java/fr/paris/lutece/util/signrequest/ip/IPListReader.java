@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reader of IP list files.
+ * <p>
+ * Files hold one address or CIDR block per line. Blank lines and comments starting with # are ignored, invalid lines are logged and skipped. Files
+ * are read in a streaming way and lines are parsed in place from a reusable buffer, without creating a string per line.
+ * </p>
+ */
+final class IPListReader implements CharSequence
+{
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final char COMMENT = '#';
+
+    /**
+     * Receiver of the blocks read
+     */
+    @FunctionalInterface
+    interface BlockConsumer
+    {
+        /**
+         * Receives a block
+         * 
+         * @param lHigh
+         *            The 64 high bits of the address
+         * @param lLow
+         *            The 64 low bits of the address
+         * @param nPrefix
+         *            The prefix length on 128 bits
+         */
+        void accept( long lHigh, long lLow, int nPrefix );
+    }
+
+    private final BlockConsumer _consumer;
+    private final long [ ] _address = new long [ 2];
+    private final char [ ] _readBuffer = new char [ READ_BUFFER_SIZE];
+    private char [ ] _line = new char [ 64];
+    private int _nLength;
+    private long _lInvalidLines;
+
+    /**
+     * Constructor
+     * 
+     * @param consumer
+     *            The receiver of the blocks
+     */
+    IPListReader( BlockConsumer consumer )
+    {
+        _consumer = consumer;
+    }
+
+    /**
+     * Reads a file
+     * 
+     * @param file
+     *            The file
+     * @throws IOException
+     *             If the file can not be read
+     */
+    void read( Path file ) throws IOException
+    {
+        try ( Reader reader = Files.newBufferedReader( file, StandardCharsets.UTF_8 ) )
+        {
+            read( file, reader );
+        }
+    }
+
+    /**
+     * Reads a content
+     * 
+     * @param file
+     *            The file, for the logs
+     * @param reader
+     *            The content
+     * @throws IOException
+     *             If the content can not be read
+     */
+    void read( Path file, Reader reader ) throws IOException
+    {
+        long lLine = 0;
+        int nRead;
+        _nLength = 0;
+
+        while ( ( nRead = reader.read( _readBuffer ) ) >= 0 )
+        {
+            for ( int i = 0; i < nRead; i++ )
+            {
+                char c = _readBuffer [i];
+
+                if ( c == '\n' )
+                {
+                    parseLine( file, ++lLine );
+                }
+                else
+                {
+                    append( c );
+                }
+            }
+        }
+
+        parseLine( file, ++lLine );
+    }
+
+    /**
+     * Gets the number of invalid lines skipped
+     * 
+     * @return The count
+     */
+    long getInvalidLineCount( )
+    {
+        return _lInvalidLines;
+    }
+
+    /**
+     * Appends a char to the current line
+     * 
+     * @param c
+     *            The char
+     */
+    private void append( char c )
+    {
+        if ( _nLength == _line.length )
+        {
+            char [ ] line = new char [ _nLength * 2];
+            System.arraycopy( _line, 0, line, 0, _nLength );
+            _line = line;
+        }
+
+        _line [_nLength++] = c;
+    }
+
+    /**
+     * Parses the current line and starts a new one
+     * 
+     * @param file
+     *            The file
+     * @param lLine
+     *            The line number
+     */
+    private void parseLine( Path file, long lLine )
+    {
+        int nStart = 0;
+        int nEnd = _nLength;
+        _nLength = 0;
+
+        for ( int i = nStart; i < nEnd; i++ )
+        {
+            if ( _line [i] == COMMENT )
+            {
+                nEnd = i;
+            }
+        }
+
+        while ( ( nStart < nEnd ) && Character.isWhitespace( _line [nStart] ) )
+        {
+            nStart++;
+        }
+
+        while ( ( nEnd > nStart ) && Character.isWhitespace( _line [nEnd - 1] ) )
+        {
+            nEnd--;
+        }
+
+        if ( nStart == nEnd )
+        {
+            return;
+        }
+
+        int nPrefix = IPAddressParser.parse( this, nStart, nEnd, _address );
+
+        if ( nPrefix < 0 )
+        {
+            _lInvalidLines++;
+            _logger.warn( "SignRequest - Invalid IP address or CIDR block in " + file + " line " + lLine );
+
+            return;
+        }
+
+        _consumer.accept( _address [0], _address [1], nPrefix );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int length( )
+    {
+        return _line.length;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public char charAt( int nIndex )
+    {
+        return _line [nIndex];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public CharSequence subSequence( int nStart, int nEnd )
+    {
+        return new String( _line, nStart, nEnd - nStart );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String toString( )
+    {
+        return new String( _line, 0, _line.length );
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of CIDR blocks stored as a binary Patricia trie over primitive arrays. IPv4 and IPv6 blocks share the trie, IPv4 being mapped into
+ * IPv6.
+ * <p>
+ * Blocks covered by another block are dropped at build time, so every remaining block is a leaf. An inner node only stores the index of the bit that
+ * separates its two subtrees : a lookup tests at most one bit per distinct branching point, then compares the address with a single block. The cost
+ * depends on the shape of the list, not on its size.
+ * </p>
+ */
+public final class IPRadixTrie implements IPAddressSet
+{
+    private static final IPRadixTrie EMPTY = new IPRadixTrie( new long [ 0], new long [ 0], new int [ 0] );
+
+    // Inner nodes : the bit to test and the two children. A child >= 0 is a node, a child < 0 is the leaf ~child
+    private final int [ ] _nodeBits;
+    private final int [ ] _nodeChildren;
+
+    // Leaves : the blocks, sorted by address
+    private final long [ ] _leafHigh;
+    private final long [ ] _leafLow;
+    private final int [ ] _leafPrefix;
+    private int _nNodeCount;
+
+    /**
+     * Constructor
+     * 
+     * @param leafHigh
+     *            The 64 high bits of the blocks
+     * @param leafLow
+     *            The 64 low bits of the blocks
+     * @param leafPrefix
+     *            The prefix lengths of the blocks
+     */
+    private IPRadixTrie( long [ ] leafHigh, long [ ] leafLow, int [ ] leafPrefix )
+    {
+        int nLeaves = leafPrefix.length;
+
+        _leafHigh = leafHigh;
+        _leafLow = leafLow;
+        _leafPrefix = leafPrefix;
+        _nodeBits = new int [ Math.max( 0, nLeaves - 1 )];
+        _nodeChildren = new int [ 2 * _nodeBits.length];
+
+        if ( nLeaves > 1 )
+        {
+            build( 0, nLeaves );
+        }
+    }
+
+    /**
+     * Builds a trie from addresses and CIDR blocks
+     * 
+     * @param entries
+     *            The entries
+     * @return The trie
+     * @throws IllegalArgumentException
+     *             If an entry is not a valid address or block
+     */
+    public static IPRadixTrie of( Collection<? extends CharSequence> entries )
+    {
+        Builder builder = builder( );
+
+        for ( CharSequence entry : entries )
+        {
+            builder.add( entry );
+        }
+
+        return builder.build( );
+    }
+
+    /**
+     * Creates a builder
+     * 
+     * @return The builder
+     */
+    public static Builder builder( )
+    {
+        return new Builder( );
+    }
+
+    /**
+     * Gets the number of blocks stored, once covered blocks are dropped
+     * 
+     * @return The number of blocks
+     */
+    public int size( )
+    {
+        return _leafPrefix.length;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains( long lHigh, long lLow )
+    {
+        int nLeaves = _leafPrefix.length;
+
+        if ( nLeaves == 0 )
+        {
+            return false;
+        }
+
+        int nLeaf = 0;
+
+        if ( nLeaves > 1 )
+        {
+            int nNode = 0;
+
+            while ( nNode >= 0 )
+            {
+                int nBit = _nodeBits [nNode];
+                long lBit = ( nBit < 64 ) ? ( lHigh >>> ( 63 - nBit ) ) : ( lLow >>> ( 127 - nBit ) );
+                nNode = _nodeChildren [( 2 * nNode ) + (int) ( lBit & 1L )];
+            }
+
+            nLeaf = ~nNode;
+        }
+
+        int nPrefix = _leafPrefix [nLeaf];
+
+        return ( ( lHigh & IPAddressParser.highMask( nPrefix ) ) == _leafHigh [nLeaf] ) && ( ( lLow & IPAddressParser.lowMask( nPrefix ) ) == _leafLow [nLeaf] );
+    }
+
+    /**
+     * Builds the subtree of a range of leaves. The leaves are sorted and none covers another, so they all have a prefix longer than the common prefix of
+     * the range, and the first bit after it splits the range in two non empty parts.
+     * 
+     * @param nFrom
+     *            The first leaf
+     * @param nTo
+     *            The end of the range (exclusive)
+     * @return The node or ~leaf
+     */
+    private int build( int nFrom, int nTo )
+    {
+        if ( ( nTo - nFrom ) == 1 )
+        {
+            return ~nFrom;
+        }
+
+        int nBit = commonPrefixLength( _leafHigh [nFrom], _leafLow [nFrom], _leafHigh [nTo - 1], _leafLow [nTo - 1] );
+        int nSplit = nFrom + 1;
+
+        while ( bit( _leafHigh [nSplit], _leafLow [nSplit], nBit ) == 0 )
+        {
+            nSplit++;
+        }
+
+        int nNode = _nNodeCount++;
+        _nodeBits [nNode] = nBit;
+        _nodeChildren [2 * nNode] = build( nFrom, nSplit );
+        _nodeChildren [( 2 * nNode ) + 1] = build( nSplit, nTo );
+
+        return nNode;
+    }
+
+    /**
+     * Gets a bit of an address
+     * 
+     * @param lHigh
+     *            The 64 high bits
+     * @param lLow
+     *            The 64 low bits
+     * @param nBit
+     *            The bit index, 0 being the most significant
+     * @return The bit
+     */
+    private static int bit( long lHigh, long lLow, int nBit )
+    {
+        return (int) ( ( ( nBit < 64 ) ? ( lHigh >>> ( 63 - nBit ) ) : ( lLow >>> ( 127 - nBit ) ) ) & 1L );
+    }
+
+    /**
+     * Gets the length of the common prefix of two addresses
+     * 
+     * @param lHigh1
+     *            The 64 high bits of the first address
+     * @param lLow1
+     *            The 64 low bits of the first address
+     * @param lHigh2
+     *            The 64 high bits of the second address
+     * @param lLow2
+     *            The 64 low bits of the second address
+     * @return The length in bits
+     */
+    private static int commonPrefixLength( long lHigh1, long lLow1, long lHigh2, long lLow2 )
+    {
+        if ( lHigh1 != lHigh2 )
+        {
+            return Long.numberOfLeadingZeros( lHigh1 ^ lHigh2 );
+        }
+
+        return 64 + Long.numberOfLeadingZeros( lLow1 ^ lLow2 );
+    }
+
+    /**
+     * Builder of IPRadixTrie. Blocks are kept in primitive arrays, so adding millions of blocks does not create an object per block. Not thread safe.
+     */
+    public static final class Builder
+    {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final long [ ] _buffer = new long [ 2];
+        private long [ ] _high = new long [ INITIAL_CAPACITY];
+        private long [ ] _low = new long [ INITIAL_CAPACITY];
+        private int [ ] _prefix = new int [ INITIAL_CAPACITY];
+        private int _nSize;
+
+        /**
+         * Private constructor
+         */
+        private Builder( )
+        {
+        }
+
+        /**
+         * Adds an address or a CIDR block
+         * 
+         * @param entry
+         *            The entry, blank entries are ignored
+         * @return The builder
+         * @throws IllegalArgumentException
+         *             If the entry is not a valid address or block
+         */
+        public Builder add( CharSequence entry )
+        {
+            String strEntry = entry.toString( ).trim( );
+
+            if ( !strEntry.isEmpty( ) )
+            {
+                int nPrefix = IPAddressParser.parse( strEntry, _buffer );
+
+                if ( nPrefix < 0 )
+                {
+                    throw new IllegalArgumentException( "Invalid IP address or CIDR block : " + strEntry );
+                }
+
+                add( _buffer [0], _buffer [1], nPrefix );
+            }
+
+            return this;
+        }
+
+        /**
+         * Adds a block
+         * 
+         * @param lHigh
+         *            The 64 high bits of the address
+         * @param lLow
+         *            The 64 low bits of the address
+         * @param nPrefix
+         *            The prefix length on 128 bits
+         * @return The builder
+         */
+        public Builder add( long lHigh, long lLow, int nPrefix )
+        {
+            if ( ( nPrefix < 0 ) || ( nPrefix > IPAddressParser.ADDRESS_BITS ) )
+            {
+                throw new IllegalArgumentException( "Invalid prefix length : " + nPrefix );
+            }
+
+            if ( _nSize == _prefix.length )
+            {
+                int nCapacity = _nSize * 2;
+                _high = Arrays.copyOf( _high, nCapacity );
+                _low = Arrays.copyOf( _low, nCapacity );
+                _prefix = Arrays.copyOf( _prefix, nCapacity );
+            }
+
+            _high [_nSize] = lHigh & IPAddressParser.highMask( nPrefix );
+            _low [_nSize] = lLow & IPAddressParser.lowMask( nPrefix );
+            _prefix [_nSize] = nPrefix;
+            _nSize++;
+
+            return this;
+        }
+
+        /**
+         * Gets the number of blocks added
+         * 
+         * @return The number of blocks
+         */
+        public int size( )
+        {
+            return _nSize;
+        }
+
+        /**
+         * Builds the trie. The builder must not be used afterwards.
+         * 
+         * @return The trie
+         */
+        public IPRadixTrie build( )
+        {
+            if ( _nSize == 0 )
+            {
+                return EMPTY;
+            }
+
+            // By address, shorter prefixes first : a block comes before the blocks it covers
+            sort( 0, _nSize - 1 );
+
+            int nLeaves = 0;
+
+            for ( int i = 0; i < _nSize; i++ )
+            {
+                if ( nLeaves > 0 )
+                {
+                    int nLast = nLeaves - 1;
+                    int nLastPrefix = _prefix [nLast];
+
+                    if ( ( ( _high [i] & IPAddressParser.highMask( nLastPrefix ) ) == _high [nLast] )
+                            && ( ( _low [i] & IPAddressParser.lowMask( nLastPrefix ) ) == _low [nLast] ) )
+                    {
+                        // Covered by the last block
+                        continue;
+                    }
+                }
+
+                // Compacts in place, nLeaves <= i
+                _high [nLeaves] = _high [i];
+                _low [nLeaves] = _low [i];
+                _prefix [nLeaves] = _prefix [i];
+                nLeaves++;
+            }
+
+            return new IPRadixTrie( Arrays.copyOf( _high, nLeaves ), Arrays.copyOf( _low, nLeaves ), Arrays.copyOf( _prefix, nLeaves ) );
+        }
+
+        /**
+         * Sorts the blocks in place (quicksort, insertion sort for small ranges)
+         * 
+         * @param nFrom
+         *            The first index
+         * @param nTo
+         *            The last index (inclusive)
+         */
+        private void sort( int nFrom, int nTo )
+        {
+            int nLow = nFrom;
+            int nHigh = nTo;
+
+            while ( ( nHigh - nLow ) > 16 )
+            {
+                int nPivot = ( nLow + nHigh ) >>> 1;
+                long lPivotHigh = _high [nPivot];
+                long lPivotLow = _low [nPivot];
+                int nPivotPrefix = _prefix [nPivot];
+
+                // Three way partition, so that duplicate blocks do not degrade the sort
+                int nLess = nLow;
+                int nGreater = nHigh;
+                int i = nLow;
+
+                while ( i <= nGreater )
+                {
+                    int nCompare = compare( i, lPivotHigh, lPivotLow, nPivotPrefix );
+
+                    if ( nCompare < 0 )
+                    {
+                        swap( nLess++, i++ );
+                    }
+                    else if ( nCompare > 0 )
+                    {
+                        swap( i, nGreater-- );
+                    }
+                    else
+                    {
+                        i++;
+                    }
+                }
+
+                // Recurse on the smaller part to bound the stack depth
+                if ( ( nLess - nLow ) < ( nHigh - nGreater ) )
+                {
+                    sort( nLow, nLess - 1 );
+                    nLow = nGreater + 1;
+                }
+                else
+                {
+                    sort( nGreater + 1, nHigh );
+                    nHigh = nLess - 1;
+                }
+            }
+
+            for ( int i = nLow + 1; i <= nHigh; i++ )
+            {
+                for ( int j = i; ( j > nLow ) && ( compare( j - 1, _high [j], _low [j], _prefix [j] ) > 0 ); j-- )
+                {
+                    swap( j - 1, j );
+                }
+            }
+        }
+
+        /**
+         * Compares a block with a value
+         * 
+         * @param i
+         *            The block
+         * @param lHigh
+         *            The 64 high bits of the value
+         * @param lLow
+         *            The 64 low bits of the value
+         * @param nPrefix
+         *            The prefix length of the value
+         * @return The comparison
+         */
+        private int compare( int i, long lHigh, long lLow, int nPrefix )
+        {
+            int nCompare = Long.compareUnsigned( _high [i], lHigh );
+
+            if ( nCompare == 0 )
+            {
+                nCompare = Long.compareUnsigned( _low [i], lLow );
+            }
+
+            return ( nCompare != 0 ) ? nCompare : Integer.compare( _prefix [i], nPrefix );
+        }
+
+        /**
+         * Swaps two blocks
+         * 
+         * @param i
+         *            The first block
+         * @param j
+         *            The second block
+         */
+        private void swap( int i, int j )
+        {
+            long lHigh = _high [i];
+            _high [i] = _high [j];
+            _high [j] = lHigh;
+
+            long lLow = _low [i];
+            _low [i] = _low [j];
+            _low [j] = lLow;
+
+            int nPrefix = _prefix [i];
+            _prefix [i] = _prefix [j];
+            _prefix [j] = nPrefix;
+        }
+    }
+}
@@ -0,0 +1,695 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of IPv4 addresses stored as a compressed bitmap, for lists of millions of exact addresses.
+ * <p>
+ * Addresses are split on their 16 high bits, as in roaring bitmaps. Each used high part has a container holding its 16 low bits : a sorted array of
+ * chars while it holds at most 4096 addresses, a 8 KB bitmap beyond. A random list of 5 million addresses takes about 2 bytes per address, and a lookup
+ * is a binary search on the high parts followed by a binary search or a bit test.
+ * </p>
+ * <p>
+ * The whole set is a single buffer, which can be written to a file and memory mapped back : startup does not parse nor allocate the list, and the
+ * operating system shares the pages between processes. IPv6 addresses never belong to the set, large blocks are better stored in an IPRadixTrie.
+ * </p>
+ */
+public final class IPv4Bitmap implements IPAddressSet
+{
+    /** Smallest prefix length accepted for a block : a /8 already takes 256 bitmaps */
+    public static final int MIN_PREFIX = 8;
+
+    // "IP4B"
+    private static final int MAGIC = 0x49503442;
+    private static final int VERSION = 1;
+
+    // Header : magic, version, container count, padding, cardinality
+    private static final int HEADER_SIZE = 24;
+    private static final int OFFSET_CONTAINER_COUNT = 8;
+    private static final int OFFSET_CARDINALITY = 16;
+
+    // Container table entries : high part, cardinality, offset of the container
+    private static final int ENTRY_SIZE = 12;
+    private static final int ARRAY_MAX_CARDINALITY = 4096;
+    private static final int CONTAINER_CAPACITY = 65536;
+    private static final int BITMAP_WORDS = 1024;
+    private static final int BITMAP_SIZE = 8 * BITMAP_WORDS;
+
+    private static final long IPV4_MAPPED_MARKER = 0xFFFF00000000L;
+    private static final long IPV4_MASK = 0xFFFFFFFFL;
+
+    private final ByteBuffer _buffer;
+    private final int _nContainers;
+    private final long _lCardinality;
+
+    /**
+     * Constructor
+     * 
+     * @param buffer
+     *            The buffer
+     * @throws IllegalArgumentException
+     *             If the buffer is not a valid bitmap
+     */
+    private IPv4Bitmap( ByteBuffer buffer )
+    {
+        if ( ( buffer.capacity( ) < HEADER_SIZE ) || ( buffer.getInt( 0 ) != MAGIC ) || ( buffer.getInt( 4 ) != VERSION ) )
+        {
+            throw new IllegalArgumentException( "Not an IPv4 bitmap" );
+        }
+
+        _buffer = buffer;
+        _nContainers = buffer.getInt( OFFSET_CONTAINER_COUNT );
+        _lCardinality = buffer.getLong( OFFSET_CARDINALITY );
+        validate( );
+    }
+
+    /**
+     * Builds a bitmap from addresses and CIDR blocks
+     * 
+     * @param entries
+     *            The IPv4 entries
+     * @return The bitmap
+     * @throws IllegalArgumentException
+     *             If an entry is not a valid IPv4 address or block
+     */
+    public static IPv4Bitmap of( Collection<? extends CharSequence> entries )
+    {
+        Builder builder = builder( );
+
+        for ( CharSequence entry : entries )
+        {
+            builder.add( entry );
+        }
+
+        return builder.build( );
+    }
+
+    /**
+     * Creates a builder
+     * 
+     * @return The builder
+     */
+    public static Builder builder( )
+    {
+        return new Builder( );
+    }
+
+    /**
+     * Maps a bitmap file written by write
+     * 
+     * @param file
+     *            The file
+     * @return The bitmap, backed by the file
+     * @throws IOException
+     *             If the file can not be read or is not a valid bitmap
+     */
+    public static IPv4Bitmap map( Path file ) throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+        {
+            long lSize = channel.size( );
+
+            if ( lSize > Integer.MAX_VALUE )
+            {
+                throw new IOException( "IPv4 bitmap file too large : " + file );
+            }
+
+            // The mapping stays valid once the channel is closed
+            return new IPv4Bitmap( channel.map( FileChannel.MapMode.READ_ONLY, 0, lSize ) );
+        }
+        catch( IllegalArgumentException e )
+        {
+            throw new IOException( "Invalid IPv4 bitmap file : " + file, e );
+        }
+    }
+
+    /**
+     * Writes the bitmap to a file. The file is written aside then moved, so that processes mapping the previous file keep reading it.
+     * 
+     * @param file
+     *            The file, replaced if it exists
+     * @throws IOException
+     *             If the file can not be written
+     */
+    public void write( Path file ) throws IOException
+    {
+        Path temp = file.resolveSibling( file.getFileName( ) + ".tmp" );
+
+        try ( FileChannel channel = FileChannel.open( temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) )
+        {
+            ByteBuffer buffer = _buffer.duplicate( );
+            buffer.clear( );
+
+            while ( buffer.hasRemaining( ) )
+            {
+                channel.write( buffer );
+            }
+        }
+
+        Files.move( temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    /**
+     * Gets the number of addresses
+     * 
+     * @return The number of addresses
+     */
+    public long size( )
+    {
+        return _lCardinality;
+    }
+
+    /**
+     * Gets the size of the bitmap
+     * 
+     * @return The size in bytes, in memory or on disk
+     */
+    public int getSizeInBytes( )
+    {
+        return _buffer.capacity( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains( long lHigh, long lLow )
+    {
+        return ( lHigh == 0L ) && ( ( lLow & ~IPV4_MASK ) == IPV4_MAPPED_MARKER ) && contains( (int) lLow );
+    }
+
+    /**
+     * Tells if an IPv4 address belongs to the set
+     * 
+     * @param nAddress
+     *            The address on 32 bits
+     * @return true if the address belongs to the set
+     */
+    public boolean contains( int nAddress )
+    {
+        int nKey = nAddress >>> 16;
+        int nFrom = 0;
+        int nTo = _nContainers - 1;
+
+        while ( nFrom <= nTo )
+        {
+            int nMiddle = ( nFrom + nTo ) >>> 1;
+            int nEntry = HEADER_SIZE + ( nMiddle * ENTRY_SIZE );
+            int nMiddleKey = _buffer.getInt( nEntry );
+
+            if ( nMiddleKey < nKey )
+            {
+                nFrom = nMiddle + 1;
+            }
+            else
+                if ( nMiddleKey > nKey )
+                {
+                    nTo = nMiddle - 1;
+                }
+                else
+                {
+                    return containerContains( _buffer.getInt( nEntry + 4 ), _buffer.getInt( nEntry + 8 ), nAddress & 0xFFFF );
+                }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tells if a container holds a low part
+     * 
+     * @param nCardinality
+     *            The cardinality of the container
+     * @param nOffset
+     *            The offset of the container
+     * @param nLow
+     *            The 16 low bits of the address
+     * @return true if the container holds the low part
+     */
+    private boolean containerContains( int nCardinality, int nOffset, int nLow )
+    {
+        if ( nCardinality > ARRAY_MAX_CARDINALITY )
+        {
+            return ( _buffer.getLong( nOffset + ( ( nLow >>> 6 ) << 3 ) ) & ( 1L << nLow ) ) != 0;
+        }
+
+        int nFrom = 0;
+        int nTo = nCardinality - 1;
+
+        while ( nFrom <= nTo )
+        {
+            int nMiddle = ( nFrom + nTo ) >>> 1;
+            int nValue = _buffer.getChar( nOffset + ( nMiddle << 1 ) );
+
+            if ( nValue < nLow )
+            {
+                nFrom = nMiddle + 1;
+            }
+            else
+                if ( nValue > nLow )
+                {
+                    nTo = nMiddle - 1;
+                }
+                else
+                {
+                    return true;
+                }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks the consistency of the header and of the container table, so that a lookup never reads outside the buffer
+     * 
+     * @throws IllegalArgumentException
+     *             If the bitmap is not consistent
+     */
+    private void validate( )
+    {
+        int nCapacity = _buffer.capacity( );
+
+        if ( ( _nContainers < 0 ) || ( _nContainers > CONTAINER_CAPACITY ) || ( ( HEADER_SIZE + ( (long) _nContainers * ENTRY_SIZE ) ) > nCapacity ) )
+        {
+            throw new IllegalArgumentException( "Invalid container count" );
+        }
+
+        int nPreviousKey = -1;
+        long lCardinality = 0;
+
+        for ( int i = 0; i < _nContainers; i++ )
+        {
+            int nEntry = HEADER_SIZE + ( i * ENTRY_SIZE );
+            int nKey = _buffer.getInt( nEntry );
+            int nCardinality = _buffer.getInt( nEntry + 4 );
+            int nOffset = _buffer.getInt( nEntry + 8 );
+            long lEnd = (long) nOffset + ( ( nCardinality > ARRAY_MAX_CARDINALITY ) ? BITMAP_SIZE : ( 2L * nCardinality ) );
+
+            if ( ( nKey <= nPreviousKey ) || ( nKey >= CONTAINER_CAPACITY ) || ( nCardinality <= 0 ) || ( nCardinality > CONTAINER_CAPACITY )
+                    || ( nOffset < 0 ) || ( lEnd > nCapacity ) )
+            {
+                throw new IllegalArgumentException( "Invalid container " + i );
+            }
+
+            nPreviousKey = nKey;
+            lCardinality += nCardinality;
+        }
+
+        if ( lCardinality != _lCardinality )
+        {
+            throw new IllegalArgumentException( "Invalid cardinality" );
+        }
+    }
+
+    /**
+     * Tells if a block is an IPv4 block that can be stored in a bitmap
+     * 
+     * @param lHigh
+     *            The 64 high bits of the address
+     * @param lLow
+     *            The 64 low bits of the address
+     * @param nPrefix
+     *            The prefix length on 128 bits
+     * @return true if the block can be added to a bitmap builder
+     */
+    public static boolean isSupported( long lHigh, long lLow, int nPrefix )
+    {
+        return ( lHigh == 0L ) && ( ( lLow & ~IPV4_MASK ) == IPV4_MAPPED_MARKER ) && ( nPrefix >= ( IPAddressParser.IPV4_MAPPED_PREFIX + MIN_PREFIX ) )
+                && ( nPrefix <= IPAddressParser.ADDRESS_BITS );
+    }
+
+    /**
+     * Builder of IPv4Bitmap
+     */
+    public static final class Builder
+    {
+        private final long [ ] _buffer = new long [ 2];
+
+        // Ranges of addresses : first address on the 32 high bits, last address on the 32 low bits, the sign bit flipped to sort them unsigned
+        private long [ ] _ranges = new long [ 64];
+        private int _nSize;
+
+        /**
+         * Constructor
+         */
+        private Builder( )
+        {
+        }
+
+        /**
+         * Adds an IPv4 address or CIDR block
+         * 
+         * @param entry
+         *            The address or block, blank entries being ignored
+         * @return The builder
+         * @throws IllegalArgumentException
+         *             If the entry is not a valid IPv4 address or block
+         */
+        public Builder add( CharSequence entry )
+        {
+            String strEntry = entry.toString( ).trim( );
+
+            if ( !strEntry.isEmpty( ) )
+            {
+                int nPrefix = IPAddressParser.parse( strEntry, _buffer );
+
+                if ( nPrefix < 0 )
+                {
+                    throw new IllegalArgumentException( "Invalid IP address or CIDR block : " + strEntry );
+                }
+
+                add( _buffer [0], _buffer [1], nPrefix );
+            }
+
+            return this;
+        }
+
+        /**
+         * Adds a block
+         * 
+         * @param lHigh
+         *            The 64 high bits of the address
+         * @param lLow
+         *            The 64 low bits of the address
+         * @param nPrefix
+         *            The prefix length on 128 bits
+         * @return The builder
+         * @throws IllegalArgumentException
+         *             If the block is not an IPv4 block of at most /8
+         */
+        public Builder add( long lHigh, long lLow, int nPrefix )
+        {
+            if ( !isSupported( lHigh, lLow, nPrefix ) )
+            {
+                throw new IllegalArgumentException( "Not an IPv4 address or block of at most /" + MIN_PREFIX );
+            }
+
+            return add( (int) lLow, nPrefix - IPAddressParser.IPV4_MAPPED_PREFIX );
+        }
+
+        /**
+         * Adds an IPv4 address
+         * 
+         * @param nAddress
+         *            The address on 32 bits
+         * @return The builder
+         */
+        public Builder add( int nAddress )
+        {
+            long lAddress = nAddress & IPV4_MASK;
+            addRange( lAddress, lAddress );
+
+            return this;
+        }
+
+        /**
+         * Adds an IPv4 block
+         * 
+         * @param nAddress
+         *            The address on 32 bits
+         * @param nPrefix
+         *            The prefix length on 32 bits
+         * @return The builder
+         * @throws IllegalArgumentException
+         *             If the prefix length is out of range
+         */
+        public Builder add( int nAddress, int nPrefix )
+        {
+            if ( ( nPrefix < MIN_PREFIX ) || ( nPrefix > 32 ) )
+            {
+                throw new IllegalArgumentException( "Invalid prefix length : " + nPrefix );
+            }
+
+            long lHostMask = IPV4_MASK >>> nPrefix;
+            long lFirst = nAddress & IPV4_MASK & ~lHostMask;
+            addRange( lFirst, lFirst | lHostMask );
+
+            return this;
+        }
+
+        /**
+         * Gets the number of addresses and blocks added
+         * 
+         * @return The number of entries
+         */
+        public int size( )
+        {
+            return _nSize;
+        }
+
+        /**
+         * Builds the bitmap
+         * 
+         * @return The bitmap
+         */
+        public IPv4Bitmap build( )
+        {
+            Arrays.sort( _ranges, 0, _nSize );
+
+            ContainerList containers = new ContainerList( );
+            long lMergedEnd = -1L;
+
+            for ( int i = 0; i < _nSize; i++ )
+            {
+                long lRange = _ranges [i] ^ Long.MIN_VALUE;
+                long lFirst = Math.max( lRange >>> 32, lMergedEnd + 1 );
+                long lLast = lRange & IPV4_MASK;
+
+                if ( lLast > lMergedEnd )
+                {
+                    lMergedEnd = lLast;
+
+                    // Splits the range on the containers
+                    while ( lFirst <= lLast )
+                    {
+                        long lContainerLast = Math.min( lLast, lFirst | 0xFFFFL );
+                        containers.addRange( (int) ( lFirst >>> 16 ), (int) ( lFirst & 0xFFFF ), (int) ( lContainerLast & 0xFFFF ) );
+                        lFirst = lContainerLast + 1;
+                    }
+                }
+            }
+
+            return new IPv4Bitmap( containers.toBuffer( ) );
+        }
+
+        /**
+         * Adds a range
+         * 
+         * @param lFirst
+         *            The first address
+         * @param lLast
+         *            The last address
+         */
+        private void addRange( long lFirst, long lLast )
+        {
+            if ( _nSize == _ranges.length )
+            {
+                _ranges = Arrays.copyOf( _ranges, _nSize * 2 );
+            }
+
+            _ranges [_nSize++] = ( ( lFirst << 32 ) | lLast ) ^ Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Containers being built, filled in ascending order
+     */
+    private static final class ContainerList
+    {
+        private final int [ ] _keys = new int [ CONTAINER_CAPACITY];
+        private final int [ ] _cardinalities = new int [ CONTAINER_CAPACITY];
+        private final Object [ ] _containers = new Object [ CONTAINER_CAPACITY];
+        private final long [ ] _bitmap = new long [ BITMAP_WORDS];
+        private int _nCount;
+        private int _nCurrentKey = -1;
+        private int _nCurrentCardinality;
+
+        /**
+         * Adds a range of low parts to a container, after the ranges already added
+         * 
+         * @param nKey
+         *            The high part
+         * @param nFirst
+         *            The first low part
+         * @param nLast
+         *            The last low part
+         */
+        void addRange( int nKey, int nFirst, int nLast )
+        {
+            if ( nKey != _nCurrentKey )
+            {
+                flush( );
+                _nCurrentKey = nKey;
+            }
+
+            int nFirstWord = nFirst >>> 6;
+            int nLastWord = nLast >>> 6;
+            long lFirstMask = -1L << nFirst;
+            long lLastMask = -1L >>> ( 63 - ( nLast & 63 ) );
+
+            if ( nFirstWord == nLastWord )
+            {
+                _bitmap [nFirstWord] |= lFirstMask & lLastMask;
+            }
+            else
+            {
+                _bitmap [nFirstWord] |= lFirstMask;
+                Arrays.fill( _bitmap, nFirstWord + 1, nLastWord, -1L );
+                _bitmap [nLastWord] |= lLastMask;
+            }
+
+            _nCurrentCardinality += ( nLast - nFirst ) + 1;
+        }
+
+        /**
+         * Stores the current container, as an array or a bitmap depending on its cardinality
+         */
+        private void flush( )
+        {
+            if ( _nCurrentCardinality == 0 )
+            {
+                return;
+            }
+
+            Object container;
+
+            if ( _nCurrentCardinality > ARRAY_MAX_CARDINALITY )
+            {
+                container = _bitmap.clone( );
+            }
+            else
+            {
+                char [ ] values = new char [ _nCurrentCardinality];
+                int nValue = 0;
+
+                for ( int nWord = 0; nWord < BITMAP_WORDS; nWord++ )
+                {
+                    long lWord = _bitmap [nWord];
+
+                    while ( lWord != 0 )
+                    {
+                        values [nValue++] = (char) ( ( nWord << 6 ) + Long.numberOfTrailingZeros( lWord ) );
+                        lWord &= lWord - 1;
+                    }
+                }
+
+                container = values;
+            }
+
+            _keys [_nCount] = _nCurrentKey;
+            _cardinalities [_nCount] = _nCurrentCardinality;
+            _containers [_nCount] = container;
+            _nCount++;
+            _nCurrentCardinality = 0;
+            Arrays.fill( _bitmap, 0L );
+        }
+
+        /**
+         * Writes the containers into a buffer
+         * 
+         * @return The buffer
+         */
+        ByteBuffer toBuffer( )
+        {
+            flush( );
+
+            // Bitmap containers are aligned on 8 bytes
+            long lSize = align( HEADER_SIZE + ( (long) _nCount * ENTRY_SIZE ) );
+            long lCardinality = 0;
+
+            for ( int i = 0; i < _nCount; i++ )
+            {
+                lSize = ( _containers [i] instanceof long [ ] ) ? ( align( lSize ) + BITMAP_SIZE ) : ( lSize + ( 2L * _cardinalities [i] ) );
+                lCardinality += _cardinalities [i];
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate( (int) align( lSize ) );
+            buffer.putInt( MAGIC ).putInt( VERSION ).putInt( _nCount ).putInt( 0 ).putLong( lCardinality );
+
+            int nOffset = (int) align( HEADER_SIZE + ( (long) _nCount * ENTRY_SIZE ) );
+
+            for ( int i = 0; i < _nCount; i++ )
+            {
+                int nEntry = HEADER_SIZE + ( i * ENTRY_SIZE );
+                buffer.putInt( nEntry, _keys [i] ).putInt( nEntry + 4, _cardinalities [i] );
+
+                if ( _containers [i] instanceof long [ ] bitmap )
+                {
+                    nOffset = (int) align( nOffset );
+                    buffer.putInt( nEntry + 8, nOffset );
+
+                    for ( long lWord : bitmap )
+                    {
+                        buffer.putLong( nOffset, lWord );
+                        nOffset += 8;
+                    }
+                }
+                else
+                {
+                    buffer.putInt( nEntry + 8, nOffset );
+
+                    for ( char c : (char [ ]) _containers [i] )
+                    {
+                        buffer.putChar( nOffset, c );
+                        nOffset += 2;
+                    }
+                }
+            }
+
+            return buffer;
+        }
+
+        /**
+         * Aligns an offset on 8 bytes
+         * 
+         * @param lOffset
+         *            The offset
+         * @return The aligned offset
+         */
+        private static long align( long lOffset )
+        {
+            return ( lOffset + 7 ) & ~7L;
+        }
+    }
+}
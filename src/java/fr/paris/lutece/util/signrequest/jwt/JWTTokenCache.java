@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.jwt;
+
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.paris.lutece.util.signrequest.service.SchedulerService;
+
+/**
+ * Cache of the signed JWT sent by a client. The same token is reused until a fraction of its lifetime has passed, then a new one is signed in the
+ * background : callers only sign when no usable token exists (first call, or a refresh that could not be done in time).
+ * <p>
+ * A token is only refreshed if it has been used since it was signed, so an idle client does not keep signing tokens.
+ * </p>
+ */
+public final class JWTTokenCache
+{
+    /** Default fraction of the lifetime after which a token is refreshed */
+    public static final double DEFAULT_REFRESH_FRACTION = 0.75;
+
+    /** A token is no longer served during this last part of its lifetime, in milliseconds */
+    private static final long EXPIRY_MARGIN = 1000L;
+    private static final long RETRY_DELAY = 1000L;
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+
+    private final Function<Date, String> _tokenBuilder;
+    private final long _lValidity;
+    private final long _lRefreshDelay;
+    private final AtomicBoolean _bRefreshing = new AtomicBoolean( );
+    private volatile Token _token;
+    private volatile boolean _bUsed;
+    private volatile boolean _bClosed;
+    private volatile ScheduledFuture<?> _refreshTask;
+
+    /**
+     * Constructor
+     * 
+     * @param tokenBuilder
+     *            Signs a token expiring at the given date
+     * @param lValidity
+     *            The validity of a token in milliseconds
+     * @param dRefreshFraction
+     *            The fraction of the lifetime after which a token is refreshed, in ]0, 1]
+     */
+    public JWTTokenCache( Function<Date, String> tokenBuilder, long lValidity, double dRefreshFraction )
+    {
+        if ( ( lValidity <= 0 ) || !( dRefreshFraction > 0 ) || ( dRefreshFraction > 1 ) )
+        {
+            throw new IllegalArgumentException( "Invalid token validity or refresh fraction" );
+        }
+
+        _tokenBuilder = tokenBuilder;
+        _lValidity = lValidity;
+        _lRefreshDelay = (long) ( lValidity * dRefreshFraction );
+    }
+
+    /**
+     * Gets a valid token
+     * 
+     * @return The token
+     */
+    public String getToken( )
+    {
+        Token token = _token;
+
+        if ( ( token == null ) || ( System.currentTimeMillis( ) >= token._lUsableUntil ) )
+        {
+            // No usable token : sign one now
+            token = issueIfNeeded( );
+        }
+
+        if ( !_bUsed )
+        {
+            _bUsed = true;
+        }
+
+        return token._strValue;
+    }
+
+    /**
+     * Drops the current token, the next call signs a new one
+     */
+    public void invalidate( )
+    {
+        _token = null;
+    }
+
+    /**
+     * Cancels the pending refresh. Tokens are still served, but no longer refreshed in the background.
+     */
+    public void close( )
+    {
+        _bClosed = true;
+
+        ScheduledFuture<?> task = _refreshTask;
+
+        if ( task != null )
+        {
+            task.cancel( false );
+        }
+    }
+
+    /**
+     * Signs a token unless another thread just did it
+     * 
+     * @return The token
+     */
+    private synchronized Token issueIfNeeded( )
+    {
+        Token token = _token;
+
+        if ( ( token != null ) && ( System.currentTimeMillis( ) < token._lUsableUntil ) )
+        {
+            return token;
+        }
+
+        return issue( );
+    }
+
+    /**
+     * Signs a token, publishes it and schedules its refresh
+     * 
+     * @return The token
+     */
+    private synchronized Token issue( )
+    {
+        long lNow = System.currentTimeMillis( );
+        Date expiration = new Date( lNow + _lValidity );
+        String strValue = _tokenBuilder.apply( expiration );
+
+        // JWT dates are truncated to the second
+        long lExpiresAt = ( expiration.getTime( ) / 1000L ) * 1000L;
+        Token token = new Token( strValue, lExpiresAt - Math.min( EXPIRY_MARGIN, _lValidity / 2 ) );
+
+        _token = token;
+        _bUsed = false;
+        scheduleRefresh( _lRefreshDelay );
+
+        return token;
+    }
+
+    /**
+     * Schedules a refresh, unless one is already pending
+     * 
+     * @param lDelay
+     *            The delay in milliseconds
+     */
+    private void scheduleRefresh( long lDelay )
+    {
+        if ( !_bClosed && _bRefreshing.compareAndSet( false, true ) )
+        {
+            _refreshTask = SchedulerService.getInstance( ).schedule( this::refresh, lDelay );
+        }
+    }
+
+    /**
+     * Background refresh
+     */
+    private void refresh( )
+    {
+        _bRefreshing.set( false );
+
+        if ( !_bUsed || _bClosed )
+        {
+            // Idle : the next caller will sign a token
+            return;
+        }
+
+        try
+        {
+            issue( );
+        }
+        catch( RuntimeException e )
+        {
+            _logger.error( "SignRequest - Unable to refresh the JWT", e );
+            scheduleRefresh( RETRY_DELAY );
+        }
+    }
+
+    /**
+     * Signed token
+     */
+    private static final class Token
+    {
+        private final String _strValue;
+        private final long _lUsableUntil;
+
+        /**
+         * Constructor
+         * 
+         * @param strValue
+         *            The compact token
+         * @param lUsableUntil
+         *            The time after which the token is no longer served
+         */
+        Token( String strValue, long lUsableUntil )
+        {
+            _strValue = strValue;
+            _lUsableUntil = lUsableUntil;
+        }
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.jwt;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.paris.lutece.util.signrequest.service.CacheEvictor;
+
+/**
+ * Cache of JWT verification results.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the compact token, so the tokens themselves are not retained. A valid result is never kept beyond the exp
+ * claim of the token nor beyond the maximum TTL, an invalid result is kept for a short time only. When the cache is full, expired entries are evicted
+ * first, then the least recently accessed ones.
+ * </p>
+ * <p>
+ * A result only holds for the keys and claims of the authenticator that produced it : a cache must not be shared between authenticators. Each entry
+ * records the key that verified the token, so that a result obtained with a key since replaced is not served.
+ * </p>
+ */
+public final class JWTVerificationCache
+{
+    /** Default maximum time to live of an entry in milliseconds */
+    public static final long DEFAULT_MAX_TTL = 300000L;
+
+    /** Time to live of an invalid result in milliseconds */
+    public static final long NEGATIVE_TTL = 30000L;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int MAX_CACHEABLE_LENGTH = 16384;
+    private static final ThreadLocal<Digester> DIGESTER = ThreadLocal.withInitial( Digester::new );
+
+    private final Map<TokenKey, Entry> _mapEntries = new ConcurrentHashMap<>( );
+    private final LongAdder _hits = new LongAdder( );
+    private final LongAdder _misses = new LongAdder( );
+    private final CacheEvictor _evictor;
+    private final long _lMaxTtl;
+
+    /**
+     * Constructor
+     * 
+     * @param nMaxSize
+     *            The maximum number of entries
+     * @param lMaxTtl
+     *            The maximum time to live of an entry in milliseconds
+     */
+    public JWTVerificationCache( int nMaxSize, long lMaxTtl )
+    {
+        if ( ( nMaxSize <= 0 ) || ( lMaxTtl <= 0 ) )
+        {
+            throw new IllegalArgumentException( "Cache size and TTL must be positive" );
+        }
+
+        _evictor = new CacheEvictor( nMaxSize );
+        _lMaxTtl = lMaxTtl;
+    }
+
+    /**
+     * Gets the cached verification result of a token
+     * 
+     * @param strToken
+     *            The compact token
+     * @return TRUE or FALSE if a result is cached, otherwise null
+     */
+    public Boolean get( String strToken )
+    {
+        return get( strToken, null );
+    }
+
+    /**
+     * Gets the cached verification result of a token, if it was obtained with a given verification key
+     * 
+     * @param strToken
+     *            The compact token
+     * @param verificationKey
+     *            The current verification key, compared by identity, or null
+     * @return TRUE or FALSE if a result is cached, otherwise null
+     */
+    public Boolean get( String strToken, Object verificationKey )
+    {
+        TokenKey key = toKey( strToken );
+
+        if ( key != null )
+        {
+            Entry entry = _mapEntries.get( key );
+
+            if ( entry != null )
+            {
+                long lNow = System.currentTimeMillis( );
+
+                if ( ( lNow < entry.getExpiresAt( ) ) && ( entry._verificationKey == verificationKey ) )
+                {
+                    entry.touch( lNow );
+                    _hits.increment( );
+
+                    return entry._bValid ? Boolean.TRUE : Boolean.FALSE;
+                }
+
+                _mapEntries.remove( key, entry );
+            }
+        }
+
+        _misses.increment( );
+
+        return null;
+    }
+
+    /**
+     * Caches the verification result of a token
+     * 
+     * @param strToken
+     *            The compact token
+     * @param bValid
+     *            The verification result
+     * @param lExpiration
+     *            The expiration of the token in milliseconds since the epoch, 0 if the token does not expire, UNKNOWN_EXPIRATION if it is not known
+     */
+    public void put( String strToken, boolean bValid, long lExpiration )
+    {
+        put( strToken, bValid, lExpiration, null );
+    }
+
+    /**
+     * Caches the verification result of a token obtained with a given verification key
+     * 
+     * @param strToken
+     *            The compact token
+     * @param bValid
+     *            The verification result
+     * @param lExpiration
+     *            The expiration of the token in milliseconds since the epoch, 0 if the token does not expire, UNKNOWN_EXPIRATION if it is not known
+     * @param verificationKey
+     *            The key read before the verification, compared by identity, or null
+     */
+    public void put( String strToken, boolean bValid, long lExpiration, Object verificationKey )
+    {
+        if ( bValid && ( lExpiration == JWTVerificationResult.UNKNOWN_EXPIRATION ) )
+        {
+            // A valid result must not outlive the token
+            return;
+        }
+
+        long lNow = System.currentTimeMillis( );
+        long lExpiresAt = lNow + ( bValid ? _lMaxTtl : Math.min( _lMaxTtl, NEGATIVE_TTL ) );
+
+        if ( bValid && ( lExpiration > 0 ) )
+        {
+            lExpiresAt = Math.min( lExpiresAt, lExpiration );
+        }
+
+        TokenKey key = ( lExpiresAt > lNow ) ? toKey( strToken ) : null;
+
+        if ( key == null )
+        {
+            return;
+        }
+
+        _mapEntries.put( key, new Entry( bValid, lExpiresAt, lNow, verificationKey ) );
+        _evictor.evictIfFull( _mapEntries, lNow );
+    }
+
+    /**
+     * Removes all the entries
+     */
+    public void clear( )
+    {
+        _mapEntries.clear( );
+    }
+
+    /**
+     * Gets the number of entries
+     * 
+     * @return The number of entries
+     */
+    public int size( )
+    {
+        return _mapEntries.size( );
+    }
+
+    /**
+     * Gets the number of lookups that found a result
+     * 
+     * @return The hit count
+     */
+    public long getHitCount( )
+    {
+        return _hits.sum( );
+    }
+
+    /**
+     * Gets the number of lookups that found no result
+     * 
+     * @return The miss count
+     */
+    public long getMissCount( )
+    {
+        return _misses.sum( );
+    }
+
+    /**
+     * Gets the number of entries evicted to keep the cache within its size
+     * 
+     * @return The eviction count
+     */
+    public long getEvictionCount( )
+    {
+        return _evictor.getEvictionCount( );
+    }
+
+    /**
+     * Computes the key of a token
+     * 
+     * @param strToken
+     *            The compact token
+     * @return The key or null if the token can not be cached
+     */
+    private static TokenKey toKey( String strToken )
+    {
+        if ( ( strToken == null ) || strToken.isEmpty( ) || ( strToken.length( ) > MAX_CACHEABLE_LENGTH ) )
+        {
+            return null;
+        }
+
+        return DIGESTER.get( ).digest( strToken );
+    }
+
+    /**
+     * Per thread SHA-256 digester of compact tokens
+     */
+    private static final class Digester
+    {
+        private final MessageDigest _digest;
+        private final byte [ ] _buffer = new byte [ 1024];
+        private final byte [ ] _hash = new byte [ 32];
+
+        /**
+         * Constructor
+         */
+        Digester( )
+        {
+            try
+            {
+                _digest = MessageDigest.getInstance( DIGEST_ALGORITHM );
+            }
+            catch( NoSuchAlgorithmException e )
+            {
+                throw new IllegalStateException( e );
+            }
+        }
+
+        /**
+         * Digests a token. Compact tokens only hold ASCII chars, any other token is not cached so that the key stays an exact image of the token.
+         * 
+         * @param strToken
+         *            The token
+         * @return The key or null
+         */
+        TokenKey digest( String strToken )
+        {
+            int nLength = strToken.length( );
+
+            for ( int nOffset = 0; nOffset < nLength; nOffset += _buffer.length )
+            {
+                int nCount = Math.min( _buffer.length, nLength - nOffset );
+
+                for ( int i = 0; i < nCount; i++ )
+                {
+                    char c = strToken.charAt( nOffset + i );
+
+                    if ( c > 0x7F )
+                    {
+                        _digest.reset( );
+
+                        return null;
+                    }
+
+                    _buffer [i] = (byte) c;
+                }
+
+                _digest.update( _buffer, 0, nCount );
+            }
+
+            try
+            {
+                _digest.digest( _hash, 0, _hash.length );
+            }
+            catch( DigestException e )
+            {
+                throw new IllegalStateException( e );
+            }
+
+            return new TokenKey( readLong( _hash, 0 ), readLong( _hash, 8 ), readLong( _hash, 16 ), readLong( _hash, 24 ) );
+        }
+
+        /**
+         * Reads a big endian long
+         * 
+         * @param bytes
+         *            The bytes
+         * @param nOffset
+         *            The offset
+         * @return The long
+         */
+        private static long readLong( byte [ ] bytes, int nOffset )
+        {
+            long lValue = 0;
+
+            for ( int i = 0; i < 8; i++ )
+            {
+                lValue = ( lValue << 8 ) | ( bytes [nOffset + i] & 0xFF );
+            }
+
+            return lValue;
+        }
+    }
+
+    /**
+     * SHA-256 digest of a token
+     */
+    private static final class TokenKey
+    {
+        private final long _l0;
+        private final long _l1;
+        private final long _l2;
+        private final long _l3;
+
+        /**
+         * Constructor
+         * 
+         * @param l0
+         *            Bytes 0 to 7
+         * @param l1
+         *            Bytes 8 to 15
+         * @param l2
+         *            Bytes 16 to 23
+         * @param l3
+         *            Bytes 24 to 31
+         */
+        TokenKey( long l0, long l1, long l2, long l3 )
+        {
+            _l0 = l0;
+            _l1 = l1;
+            _l2 = l2;
+            _l3 = l3;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public int hashCode( )
+        {
+            return (int) ( _l0 ^ ( _l0 >>> 32 ) );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+
+            if ( !( obj instanceof TokenKey ) )
+            {
+                return false;
+            }
+
+            TokenKey other = (TokenKey) obj;
+
+            return ( _l0 == other._l0 ) && ( _l1 == other._l1 ) && ( _l2 == other._l2 ) && ( _l3 == other._l3 );
+        }
+    }
+
+    /**
+     * Cached result
+     */
+    private static final class Entry extends CacheEvictor.Entry
+    {
+        private final boolean _bValid;
+        private final Object _verificationKey;
+
+        /**
+         * Constructor
+         * 
+         * @param bValid
+         *            The verification result
+         * @param lExpiresAt
+         *            The time after which the entry is stale
+         * @param lNow
+         *            The current time
+         * @param verificationKey
+         *            The verification key, or null
+         */
+        Entry( boolean bValid, long lExpiresAt, long lNow, Object verificationKey )
+        {
+            super( lExpiresAt, lNow );
+            _bValid = bValid;
+            _verificationKey = verificationKey;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.jwt;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of the verification of a JWT
+ */
+public final class JWTVerificationResult
+{
+    /** The expiration of the token is unknown */
+    public static final long UNKNOWN_EXPIRATION = -1L;
+
+    /**
+     * Verification status
+     */
+    public enum Status
+    {
+        /** The token is valid */
+        VALID,
+        /** No token found in the request */
+        MISSING_TOKEN,
+        /** The token can not be parsed */
+        MALFORMED,
+        /** The token is not of the expected type (unsigned token, JWE...) */
+        UNSUPPORTED,
+        /** No key is available to check the signature */
+        NO_KEY,
+        /** The signature does not match */
+        INVALID_SIGNATURE,
+        /** The token is expired */
+        EXPIRED,
+        /** The token is not yet valid */
+        NOT_YET_VALID,
+        /** A claim does not have the expected value */
+        CLAIM_MISMATCH,
+        /** The token has been rejected by a previous verification */
+        REJECTED
+    }
+
+    private static final JWTVerificationResult CACHED_VALID = new JWTVerificationResult( Status.VALID, null, null, UNKNOWN_EXPIRATION );
+    private static final JWTVerificationResult CACHED_REJECTED = new JWTVerificationResult( Status.REJECTED, null, null, UNKNOWN_EXPIRATION );
+
+    private final Status _status;
+    private final Map<String, Object> _mapClaims;
+    private final String _strFailedClaim;
+    private final long _lExpiration;
+
+    /**
+     * Constructor
+     * 
+     * @param status
+     *            The status
+     * @param mapClaims
+     *            The claims of the token, if it could be parsed
+     * @param strFailedClaim
+     *            The name of the claim that does not match
+     * @param lExpiration
+     *            The expiration of the token in milliseconds since the epoch, 0 if it does not expire
+     */
+    private JWTVerificationResult( Status status, Map<String, Object> mapClaims, String strFailedClaim, long lExpiration )
+    {
+        _status = status;
+        _mapClaims = mapClaims;
+        _strFailedClaim = strFailedClaim;
+        _lExpiration = lExpiration;
+    }
+
+    /**
+     * Builds the result of a valid token
+     * 
+     * @param mapClaims
+     *            The claims
+     * @param lExpiration
+     *            The expiration in milliseconds since the epoch, 0 if the token does not expire
+     * @return The result
+     */
+    public static JWTVerificationResult valid( Map<String, Object> mapClaims, long lExpiration )
+    {
+        return new JWTVerificationResult( Status.VALID, mapClaims, null, lExpiration );
+    }
+
+    /**
+     * Builds the result of a token whose claims do not match
+     * 
+     * @param mapClaims
+     *            The claims
+     * @param strFailedClaim
+     *            The name of the first claim that does not match
+     * @return The result
+     */
+    public static JWTVerificationResult claimMismatch( Map<String, Object> mapClaims, String strFailedClaim )
+    {
+        return new JWTVerificationResult( Status.CLAIM_MISMATCH, mapClaims, strFailedClaim, UNKNOWN_EXPIRATION );
+    }
+
+    /**
+     * Builds the result of a rejected token
+     * 
+     * @param status
+     *            The failure status
+     * @return The result
+     */
+    public static JWTVerificationResult failure( Status status )
+    {
+        return new JWTVerificationResult( status, null, null, UNKNOWN_EXPIRATION );
+    }
+
+    /**
+     * Gets the result of a verification found in a cache
+     * 
+     * @param bValid
+     *            The cached outcome
+     * @return The result
+     */
+    public static JWTVerificationResult cached( boolean bValid )
+    {
+        return bValid ? CACHED_VALID : CACHED_REJECTED;
+    }
+
+    /**
+     * Gets the status
+     * 
+     * @return The status
+     */
+    public Status getStatus( )
+    {
+        return _status;
+    }
+
+    /**
+     * Tells if the token is valid
+     * 
+     * @return true if the token is valid
+     */
+    public boolean isValid( )
+    {
+        return _status == Status.VALID;
+    }
+
+    /**
+     * Gets the claims of the token
+     * 
+     * @return The claims, empty if the token could not be parsed or if the result comes from a cache
+     */
+    public Map<String, Object> getClaims( )
+    {
+        return ( _mapClaims != null ) ? Collections.unmodifiableMap( _mapClaims ) : Collections.emptyMap( );
+    }
+
+    /**
+     * Gets the name of the claim that does not match
+     * 
+     * @return The claim name or null
+     */
+    public String getFailedClaim( )
+    {
+        return _strFailedClaim;
+    }
+
+    /**
+     * Gets the expiration of the token
+     * 
+     * @return The expiration in milliseconds since the epoch, 0 if the token does not expire or UNKNOWN_EXPIRATION
+     */
+    public long getExpiration( )
+    {
+        return _lExpiration;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String toString( )
+    {
+        return ( _strFailedClaim != null ) ? ( _status + " (" + _strFailedClaim + ")" ) : _status.toString( );
+    }
+}
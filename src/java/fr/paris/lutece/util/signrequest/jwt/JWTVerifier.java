@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.jwt;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SecurityException;
+
+/**
+ * Verifies signed JWTs : the token is parsed and its signature checked once, then the expected claims are matched against the parsed claims. A
+ * verifier is immutable and thread safe.
+ */
+public final class JWTVerifier
+{
+    private final Key _key;
+    private final JwtParser _parser;
+    private final Map<String, String> _mapClaimsToCheck;
+
+    /**
+     * Constructor
+     * 
+     * @param key
+     *            The key used to check the signature
+     * @param mapClaimsToCheck
+     *            The map of claims key/values to check in the JWT
+     */
+    public JWTVerifier( Key key, Map<String, String> mapClaimsToCheck )
+    {
+        if ( key == null )
+        {
+            throw new IllegalArgumentException( "No key to check the signature" );
+        }
+
+        _key = key;
+        _parser = Jwts.parserBuilder( ).setSigningKey( key ).build( );
+        _mapClaimsToCheck = ( mapClaimsToCheck != null ) ? new HashMap<>( mapClaimsToCheck ) : new HashMap<>( );
+    }
+
+    /**
+     * Gets the key used to check the signature
+     * 
+     * @return The key
+     */
+    public Key getKey( )
+    {
+        return _key;
+    }
+
+    /**
+     * Verifies a token
+     * 
+     * @param strToken
+     *            The compact token
+     * @return The result
+     */
+    public JWTVerificationResult verify( String strToken )
+    {
+        if ( ( strToken == null ) || strToken.isEmpty( ) )
+        {
+            return JWTVerificationResult.failure( JWTVerificationResult.Status.MISSING_TOKEN );
+        }
+
+        Claims claims;
+
+        try
+        {
+            claims = _parser.parseClaimsJws( strToken ).getBody( );
+        }
+        catch( ExpiredJwtException e )
+        {
+            return JWTVerificationResult.failure( JWTVerificationResult.Status.EXPIRED );
+        }
+        catch( PrematureJwtException e )
+        {
+            return JWTVerificationResult.failure( JWTVerificationResult.Status.NOT_YET_VALID );
+        }
+        catch( SecurityException e )
+        {
+            return JWTVerificationResult.failure( JWTVerificationResult.Status.INVALID_SIGNATURE );
+        }
+        catch( UnsupportedJwtException e )
+        {
+            return JWTVerificationResult.failure( JWTVerificationResult.Status.UNSUPPORTED );
+        }
+        catch( JwtException | IllegalArgumentException e )
+        {
+            return JWTVerificationResult.failure( JWTVerificationResult.Status.MALFORMED );
+        }
+
+        for ( Map.Entry<String, String> entry : _mapClaimsToCheck.entrySet( ) )
+        {
+            Object value = claims.get( entry.getKey( ) );
+
+            if ( ( value == null ) || !String.valueOf( value ).equals( entry.getValue( ) ) )
+            {
+                return JWTVerificationResult.claimMismatch( claims, entry.getKey( ) );
+            }
+        }
+
+        Date expiration = claims.getExpiration( );
+
+        return JWTVerificationResult.valid( claims, ( expiration != null ) ? expiration.getTime( ) : 0L );
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.path;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of path prefixes compiled into a character trie. A lookup reads the path once, char by char, and does not allocate.
+ */
+public final class PathPrefixMatcher
+{
+    private static final int NO_VALUE = -1;
+    private static final PathPrefixMatcher EMPTY = new PathPrefixMatcher( new String [ 0] );
+
+    // State s has the edges [_firstEdge[s], _firstEdge[s + 1]), sorted by char
+    private final int [ ] _firstEdge;
+    private final char [ ] _edgeChars;
+    private final int [ ] _edgeTargets;
+
+    // Index of the prefix ending at each state, or NO_VALUE
+    private final int [ ] _values;
+    private final String [ ] _prefixes;
+
+    /**
+     * Constructor
+     * 
+     * @param prefixes
+     *            The prefixes
+     */
+    private PathPrefixMatcher( String [ ] prefixes )
+    {
+        _prefixes = prefixes;
+
+        Node root = new Node( );
+        int nStates = 1;
+        int nEdges = 0;
+
+        for ( int i = 0; i < prefixes.length; i++ )
+        {
+            Node node = root;
+
+            for ( int j = 0; j < prefixes [i].length( ); j++ )
+            {
+                Node child = node._mapChildren.get( prefixes [i].charAt( j ) );
+
+                if ( child == null )
+                {
+                    child = new Node( );
+                    node._mapChildren.put( prefixes [i].charAt( j ), child );
+                    nStates++;
+                    nEdges++;
+                }
+
+                node = child;
+            }
+
+            if ( node._nValue == NO_VALUE )
+            {
+                node._nValue = i;
+            }
+        }
+
+        _firstEdge = new int [ nStates + 1];
+        _edgeChars = new char [ nEdges];
+        _edgeTargets = new int [ nEdges];
+        _values = new int [ nStates];
+
+        // Breadth first numbering : the children of a state get consecutive numbers
+        Deque<Node> queue = new ArrayDeque<>( );
+        root._nState = 0;
+        queue.add( root );
+
+        int nNextState = 1;
+        int nEdge = 0;
+
+        while ( !queue.isEmpty( ) )
+        {
+            Node node = queue.poll( );
+            _values [node._nState] = node._nValue;
+            _firstEdge [node._nState] = nEdge;
+
+            for ( Map.Entry<Character, Node> entry : node._mapChildren.entrySet( ) )
+            {
+                Node child = entry.getValue( );
+                child._nState = nNextState++;
+                _edgeChars [nEdge] = entry.getKey( );
+                _edgeTargets [nEdge] = child._nState;
+                nEdge++;
+                queue.add( child );
+            }
+        }
+
+        _firstEdge [nStates] = nEdge;
+    }
+
+    /**
+     * Compiles a collection of prefixes
+     * 
+     * @param prefixes
+     *            The prefixes, null entries are ignored
+     * @return The matcher
+     */
+    public static PathPrefixMatcher of( Collection<String> prefixes )
+    {
+        if ( ( prefixes == null ) || prefixes.isEmpty( ) )
+        {
+            return EMPTY;
+        }
+
+        return new PathPrefixMatcher( prefixes.stream( ).filter( p -> p != null ).toArray( String [ ]::new ) );
+    }
+
+    /**
+     * Tells if a path starts with one of the prefixes
+     * 
+     * @param path
+     *            The path, null being handled as an empty path
+     * @return true if the path starts with one of the prefixes
+     */
+    public boolean matches( CharSequence path )
+    {
+        return find( path, false ) != NO_VALUE;
+    }
+
+    /**
+     * Finds the longest prefix of a path
+     * 
+     * @param path
+     *            The path, null being handled as an empty path
+     * @return The index of the prefix in the collection given at construction, or -1 if no prefix matches
+     */
+    public int longestMatch( CharSequence path )
+    {
+        return find( path, true );
+    }
+
+    /**
+     * Finds all the prefixes of a path in one walk
+     * 
+     * @param path
+     *            The path, null being handled as an empty path
+     * @param matches
+     *            Receives the indexes of the prefixes, shortest first
+     * @return The number of prefixes found, at most the length of the array
+     */
+    public int allMatches( CharSequence path, int [ ] matches )
+    {
+        int nState = 0;
+        int nCount = 0;
+        int nLength = ( path != null ) ? path.length( ) : 0;
+
+        if ( ( _values [0] != NO_VALUE ) && ( matches.length > 0 ) )
+        {
+            matches [nCount++] = _values [0];
+        }
+
+        for ( int i = 0; ( i < nLength ) && ( nCount < matches.length ); i++ )
+        {
+            nState = next( nState, path.charAt( i ) );
+
+            if ( nState < 0 )
+            {
+                break;
+            }
+
+            if ( _values [nState] != NO_VALUE )
+            {
+                matches [nCount++] = _values [nState];
+            }
+        }
+
+        return nCount;
+    }
+
+    /**
+     * Gets the prefixes
+     * 
+     * @return The prefixes, in the order given at construction
+     */
+    public String [ ] getPrefixes( )
+    {
+        return Arrays.copyOf( _prefixes, _prefixes.length );
+    }
+
+    /**
+     * Walks the trie along a path
+     * 
+     * @param path
+     *            The path
+     * @param bLongest
+     *            true to find the longest prefix, false to stop at the first one
+     * @return The index of the prefix or NO_VALUE
+     */
+    private int find( CharSequence path, boolean bLongest )
+    {
+        int nState = 0;
+        int nFound = _values [0];
+        int nLength = ( path != null ) ? path.length( ) : 0;
+
+        for ( int i = 0; i < nLength; i++ )
+        {
+            if ( ( nFound != NO_VALUE ) && !bLongest )
+            {
+                return nFound;
+            }
+
+            nState = next( nState, path.charAt( i ) );
+
+            if ( nState < 0 )
+            {
+                return nFound;
+            }
+
+            if ( _values [nState] != NO_VALUE )
+            {
+                nFound = _values [nState];
+            }
+        }
+
+        return nFound;
+    }
+
+    /**
+     * Follows the edge of a state labeled by a char
+     * 
+     * @param nState
+     *            The state
+     * @param c
+     *            The char
+     * @return The target state or -1
+     */
+    private int next( int nState, char c )
+    {
+        int nLow = _firstEdge [nState];
+        int nHigh = _firstEdge [nState + 1] - 1;
+
+        while ( nLow <= nHigh )
+        {
+            int nMiddle = ( nLow + nHigh ) >>> 1;
+            char cMiddle = _edgeChars [nMiddle];
+
+            if ( cMiddle < c )
+            {
+                nLow = nMiddle + 1;
+            }
+            else if ( cMiddle > c )
+            {
+                nHigh = nMiddle - 1;
+            }
+            else
+            {
+                return _edgeTargets [nMiddle];
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Trie node used during the compilation
+     */
+    private static final class Node
+    {
+        private final Map<Character, Node> _mapChildren = new TreeMap<>( );
+        private int _nValue = NO_VALUE;
+        private int _nState;
+    }
+}
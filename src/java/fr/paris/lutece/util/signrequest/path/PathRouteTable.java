@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.path;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable table routing paths to values, with servlet mapping like patterns :
+ * <ul>
+ * <li>/health : exact path</li>
+ * <li>/rest/api/* : the path /rest/api and all the paths below</li>
+ * <li>/rest/&#42;/admin/* : a * segment matches any single segment</li>
+ * <li>/* : all the paths</li>
+ * </ul>
+ * An exact route wins, then the route with the longest literal head, the part before the first * segment. The heads are compiled into a
+ * {@link PathPrefixMatcher}, so a lookup is a hash lookup and one trie walk.
+ * 
+ * @param <T>
+ *            The type of the values
+ */
+public final class PathRouteTable<T>
+{
+    private static final String WILDCARD = "*";
+    private static final String PREFIX_SUFFIX = "/*";
+
+    private final Map<String, T> _mapExact;
+    private final PathPrefixMatcher _heads;
+    private final Route<T> [ ] [ ] _routes;
+    private final int _nMaxMatches;
+
+    /**
+     * Constructor
+     * 
+     * @param mapExact
+     *            The exact routes
+     * @param mapHeads
+     *            The other routes by head
+     */
+    @SuppressWarnings( "unchecked" )
+    private PathRouteTable( Map<String, T> mapExact, Map<String, List<Route<T>>> mapHeads )
+    {
+        _mapExact = mapExact;
+        _heads = PathPrefixMatcher.of( new ArrayList<>( mapHeads.keySet( ) ) );
+        _routes = new Route [ mapHeads.size( )] [ ];
+        _nMaxMatches = mapHeads.size( );
+
+        int i = 0;
+
+        for ( List<Route<T>> listRoutes : mapHeads.values( ) )
+        {
+            // The most specific routes first
+            listRoutes.sort( Comparator.comparingInt( ( Route<T> route ) -> -route._segments.length ).thenComparing( route -> route._bPrefix ) );
+            _routes [i++] = listRoutes.toArray( new Route [ listRoutes.size( )] );
+        }
+    }
+
+    /**
+     * Creates a builder
+     * 
+     * @param <T>
+     *            The type of the values
+     * @return The builder
+     */
+    public static <T> Builder<T> builder( )
+    {
+        return new Builder<>( );
+    }
+
+    /**
+     * Finds the value of the route of a path
+     * 
+     * @param strPath
+     *            The path, relative to the context
+     * @return The value, or null if no route matches
+     */
+    public T route( String strPath )
+    {
+        String strRoutePath = ( strPath != null ) ? strPath : "";
+        T value = _mapExact.get( strRoutePath );
+
+        if ( ( value != null ) || ( _nMaxMatches == 0 ) )
+        {
+            return value;
+        }
+
+        int [ ] matches = new int [ _nMaxMatches];
+        int nCount = _heads.allMatches( strRoutePath, matches );
+
+        // Longest head first
+        for ( int i = nCount - 1; i >= 0; i-- )
+        {
+            for ( Route<T> route : _routes [matches [i]] )
+            {
+                if ( route.matches( strRoutePath ) )
+                {
+                    return route._value;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Compiled route
+     * 
+     * @param <T>
+     *            The type of the value
+     */
+    private static final class Route<T>
+    {
+        private final int _nHeadLength;
+        private final String [ ] _segments;
+        private final boolean _bPrefix;
+        private final T _value;
+
+        /**
+         * Constructor
+         * 
+         * @param nHeadLength
+         *            The length of the literal head
+         * @param segments
+         *            The segments after the head, * for any segment
+         * @param bPrefix
+         *            true if the paths below also match
+         * @param value
+         *            The value
+         */
+        Route( int nHeadLength, String [ ] segments, boolean bPrefix, T value )
+        {
+            _nHeadLength = nHeadLength;
+            _segments = segments;
+            _bPrefix = bPrefix;
+            _value = value;
+        }
+
+        /**
+         * Tells if a path starting with the head of the route matches the rest of the route
+         * 
+         * @param strPath
+         *            The path
+         * @return true if the path matches
+         */
+        boolean matches( String strPath )
+        {
+            int nLength = strPath.length( );
+            int nOffset = _nHeadLength;
+
+            for ( int i = 0; i < _segments.length; i++ )
+            {
+                if ( i > 0 )
+                {
+                    if ( ( nOffset >= nLength ) || ( strPath.charAt( nOffset ) != '/' ) )
+                    {
+                        return false;
+                    }
+
+                    nOffset++;
+                }
+
+                int nEnd = strPath.indexOf( '/', nOffset );
+
+                if ( nEnd < 0 )
+                {
+                    nEnd = nLength;
+                }
+
+                String strSegment = _segments [i];
+
+                if ( WILDCARD.equals( strSegment ) ? ( nEnd == nOffset )
+                        : ( ( nEnd - nOffset != strSegment.length( ) ) || !strPath.startsWith( strSegment, nOffset ) ) )
+                {
+                    return false;
+                }
+
+                nOffset = nEnd;
+            }
+
+            if ( nOffset == nLength )
+            {
+                return true;
+            }
+
+            // The head ends with / when all the paths are routed
+            return _bPrefix && ( ( strPath.charAt( nOffset ) == '/' ) || ( nOffset > 0 && strPath.charAt( nOffset - 1 ) == '/' ) );
+        }
+    }
+
+    /**
+     * Builder
+     * 
+     * @param <T>
+     *            The type of the values
+     */
+    public static final class Builder<T>
+    {
+        private final Map<String, T> _mapExact = new HashMap<>( );
+        private final Map<String, List<Route<T>>> _mapHeads = new LinkedHashMap<>( );
+
+        /**
+         * Private constructor
+         */
+        private Builder( )
+        {
+        }
+
+        /**
+         * Adds a route. The first route added for a pattern is kept.
+         * 
+         * @param strPattern
+         *            The pattern
+         * @param value
+         *            The value
+         * @return The builder
+         * @throws IllegalArgumentException
+         *             If the pattern does not start with /
+         */
+        public Builder<T> add( String strPattern, T value )
+        {
+            if ( ( strPattern == null ) || !strPattern.startsWith( "/" ) )
+            {
+                throw new IllegalArgumentException( "A route must start with / : " + strPattern );
+            }
+
+            boolean bPrefix = strPattern.endsWith( PREFIX_SUFFIX );
+            String strPath = bPrefix ? strPattern.substring( 0, strPattern.length( ) - PREFIX_SUFFIX.length( ) ) : strPattern;
+            int nWildcard = ( strPath + "/" ).indexOf( "/*/" );
+
+            if ( !bPrefix && ( nWildcard < 0 ) )
+            {
+                _mapExact.putIfAbsent( strPath, value );
+
+                return this;
+            }
+
+            String strHead;
+            String [ ] segments;
+
+            if ( nWildcard < 0 )
+            {
+                // /* gives an empty path : the head / matches all the paths
+                strHead = strPath.isEmpty( ) ? "/" : strPath;
+                segments = new String [ 0];
+            }
+            else
+            {
+                strHead = strPath.substring( 0, nWildcard + 1 );
+                segments = strPath.substring( nWildcard + 1 ).split( "/" );
+            }
+
+            _mapHeads.computeIfAbsent( strHead, k -> new ArrayList<>( ) ).add( new Route<>( strHead.length( ), segments, bPrefix, value ) );
+
+            return this;
+        }
+
+        /**
+         * Builds the table
+         * 
+         * @return The table
+         */
+        public PathRouteTable<T> build( )
+        {
+            Map<String, List<Route<T>>> mapHeads = new LinkedHashMap<>( );
+            _mapHeads.forEach( ( strHead, listRoutes ) -> mapHeads.put( strHead, new ArrayList<>( listRoutes ) ) );
+
+            return new PathRouteTable<>( new HashMap<>( _mapExact ), mapHeads );
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.paris.lutece.util.signrequest.service.CacheEvictor;
+
+/**
+ * Abstract HMAC HashService.<br>
+ * The key derived inner and outer pads are computed only once per key and shared by all threads. Each thread hashes with its own MessageDigest, so
+ * no provider lookup nor key setup is done while hashing. When the pads of too many keys are kept, the least recently used ones are evicted. An HMAC
+ * always needs a key : it is a keyed hash service only.
+ */
+public abstract class AbstractHmacHashService implements KeyedHashService
+{
+    private static final String HEX_DIGITS = "0123456789abcdef";
+    private static final int DEFAULT_MAX_KEYS = 1024;
+    private static final byte INNER_PAD = 0x36;
+    private static final byte OUTER_PAD = 0x5c;
+    private static Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+
+    private final String _strMacAlgorithm;
+    private final String _strDigestAlgorithm;
+    private final int _nBlockSize;
+    private final Map<String, Pads> _mapPads = new ConcurrentHashMap<>( );
+    private final ThreadLocal<HmacHashEngine> _threadEngine = ThreadLocal.withInitial( ( ) -> new HmacHashEngine( newMessageDigest( ) ) );
+    private volatile CacheEvictor _evictor = new CacheEvictor( DEFAULT_MAX_KEYS );
+
+    /**
+     * Constructor
+     * 
+     * @param strMacAlgorithm
+     *            The JCA name of the Mac algorithm (ie: HmacSHA256)
+     * @param strDigestAlgorithm
+     *            The JCA name of the underlying digest algorithm (ie: SHA-256)
+     * @param nBlockSize
+     *            The block size of the digest algorithm in bytes
+     */
+    protected AbstractHmacHashService( String strMacAlgorithm, String strDigestAlgorithm, int nBlockSize )
+    {
+        _strMacAlgorithm = strMacAlgorithm;
+        _strDigestAlgorithm = strDigestAlgorithm;
+        _nBlockSize = nBlockSize;
+    }
+
+    /**
+     * Sets the maximum number of keys whose state is kept
+     * 
+     * @param nMaxKeys
+     *            The maximum number of keys
+     */
+    public void setMaxKeys( int nMaxKeys )
+    {
+        _evictor = new CacheEvictor( nMaxKeys );
+    }
+
+    /**
+     * Gets the number of keys whose pads are kept
+     * 
+     * @return The number of keys
+     */
+    public int size( )
+    {
+        return _mapPads.size( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getHash( String strSource, String strKey )
+    {
+        HashEngine engine = getHashEngine( strKey );
+        byte [ ] source = strSource.getBytes( StandardCharsets.UTF_8 );
+        byte [ ] hash = new byte [ engine.getLength( )];
+
+        engine.update( source, 0, source.length );
+        engine.doFinal( hash, 0 );
+
+        return hex( hash );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public HashEngine getHashEngine( String strKey )
+    {
+        long lNow = System.currentTimeMillis( );
+        Pads pads = ( strKey != null ) ? _mapPads.get( strKey ) : null;
+
+        if ( pads != null )
+        {
+            pads.touch( lNow );
+        }
+        else
+        {
+            pads = computePads( strKey, lNow );
+            _mapPads.put( strKey, pads );
+            _evictor.evictIfFull( _mapPads, lNow );
+        }
+
+        HmacHashEngine engine = _threadEngine.get( );
+        engine.setPads( pads._innerPad, pads._outerPad );
+
+        return engine;
+    }
+
+    /**
+     * Computes the inner and outer pads of a key
+     * 
+     * @param strKey
+     *            The key
+     * @param lNow
+     *            The current time
+     * @return The inner and outer pads
+     */
+    private Pads computePads( String strKey, long lNow )
+    {
+        checkKey( strKey );
+
+        byte [ ] key = strKey.getBytes( StandardCharsets.UTF_8 );
+
+        if ( key.length > _nBlockSize )
+        {
+            key = newMessageDigest( ).digest( key );
+        }
+
+        byte [ ] innerPad = Arrays.copyOf( key, _nBlockSize );
+        byte [ ] outerPad = Arrays.copyOf( key, _nBlockSize );
+
+        for ( int i = 0; i < _nBlockSize; i++ )
+        {
+            innerPad [i] ^= INNER_PAD;
+            outerPad [i] ^= OUTER_PAD;
+        }
+
+        return new Pads( innerPad, outerPad, lNow );
+    }
+
+    /**
+     * Create a message digest of the underlying algorithm
+     * 
+     * @return The message digest
+     */
+    private MessageDigest newMessageDigest( )
+    {
+        try
+        {
+            return MessageDigest.getInstance( _strDigestAlgorithm );
+        }
+        catch( NoSuchAlgorithmException e )
+        {
+            _logger.error( "Error creating hash " + e.getMessage( ), e );
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Checks that a key can be used
+     * 
+     * @param strKey
+     *            The key
+     */
+    private void checkKey( String strKey )
+    {
+        if ( ( strKey == null ) || strKey.isEmpty( ) )
+        {
+            throw new IllegalArgumentException( "A non empty key is required to build a " + _strMacAlgorithm );
+        }
+    }
+
+    /**
+     * Convert bytes into an hexadecimal string
+     * 
+     * @param bytes
+     *            Array of bytes
+     * @return An Hexadecimal string
+     */
+    private static String hex( byte [ ] bytes )
+    {
+        StringBuilder sb = new StringBuilder( bytes.length * 2 );
+
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            int b = bytes [i] & 0xFF;
+            sb.append( HEX_DIGITS.charAt( b >>> 4 ) ).append( HEX_DIGITS.charAt( b & 0xF ) );
+        }
+
+        return sb.toString( );
+    }
+
+    /**
+     * Inner and outer pads of a key, never expiring
+     */
+    private static final class Pads extends CacheEvictor.Entry
+    {
+        private final byte [ ] _innerPad;
+        private final byte [ ] _outerPad;
+
+        /**
+         * Constructor
+         * 
+         * @param innerPad
+         *            The inner pad
+         * @param outerPad
+         *            The outer pad
+         * @param lNow
+         *            The current time
+         */
+        Pads( byte [ ] innerPad, byte [ ] outerPad, long lNow )
+        {
+            super( Long.MAX_VALUE, lNow );
+            _innerPad = innerPad;
+            _outerPad = outerPad;
+        }
+    }
+}
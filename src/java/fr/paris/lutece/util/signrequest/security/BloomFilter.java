@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable Bloom filter of strings. A string that has been added is always found, a string that has not been added is found with the false positive
+ * rate given at construction.
+ * <p>
+ * The bits are a power of two sized long array and the positions of a string are derived from a single 64 bits hash (double hashing), so a lookup
+ * hashes the string once and tests a few bits without allocating.
+ * </p>
+ */
+public final class BloomFilter
+{
+    private static final int MAX_HASHES = 16;
+    private static final long MIN_BITS = 64L;
+    private static final long MAX_BITS = 1L << 32;
+
+    private final long [ ] _bits;
+    private final long _lMask;
+    private final int _nHashes;
+    private final long _lSeed = ThreadLocalRandom.current( ).nextLong( );
+
+    /**
+     * Constructor
+     * 
+     * @param values
+     *            The strings to add
+     * @param dFalsePositiveRate
+     *            The false positive rate, between 0 and 1
+     */
+    public BloomFilter( Collection<? extends CharSequence> values, double dFalsePositiveRate )
+    {
+        if ( !( dFalsePositiveRate > 0 ) || !( dFalsePositiveRate < 1 ) )
+        {
+            throw new IllegalArgumentException( "The false positive rate must be between 0 and 1" );
+        }
+
+        int nValues = Math.max( 1, values.size( ) );
+        double dBits = ( -nValues * Math.log( dFalsePositiveRate ) ) / ( Math.log( 2 ) * Math.log( 2 ) );
+        long lBits = Math.min( MAX_BITS, Math.max( MIN_BITS, Long.highestOneBit( (long) Math.ceil( dBits ) - 1 ) << 1 ) );
+
+        _bits = new long [ (int) ( lBits >>> 6 )];
+        _lMask = lBits - 1;
+        _nHashes = (int) Math.max( 1, Math.min( MAX_HASHES, Math.round( ( (double) lBits / nValues ) * Math.log( 2 ) ) ) );
+
+        for ( CharSequence value : values )
+        {
+            long lHash = hash( value );
+            long lStep = step( lHash );
+
+            for ( int i = 0; i < _nHashes; i++ )
+            {
+                long lBit = lHash & _lMask;
+                _bits [(int) ( lBit >>> 6 )] |= 1L << lBit;
+                lHash += lStep;
+            }
+        }
+    }
+
+    /**
+     * Tells if a string may have been added
+     * 
+     * @param value
+     *            The string
+     * @return false if the string has not been added, true if it has probably been added
+     */
+    public boolean mightContain( CharSequence value )
+    {
+        long lHash = hash( value );
+        long lStep = step( lHash );
+
+        for ( int i = 0; i < _nHashes; i++ )
+        {
+            long lBit = lHash & _lMask;
+
+            if ( ( _bits [(int) ( lBit >>> 6 )] & ( 1L << lBit ) ) == 0 )
+            {
+                return false;
+            }
+
+            lHash += lStep;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the size of the filter
+     * 
+     * @return The number of bits
+     */
+    public long getBitCount( )
+    {
+        return _lMask + 1;
+    }
+
+    /**
+     * Gets the number of bits tested for each string
+     * 
+     * @return The number of hash functions
+     */
+    public int getHashCount( )
+    {
+        return _nHashes;
+    }
+
+    /**
+     * Hashes a string
+     * 
+     * @param value
+     *            The string
+     * @return The 64 bits hash
+     */
+    private long hash( CharSequence value )
+    {
+        long lHash = 0xcbf29ce484222325L ^ _lSeed;
+
+        for ( int i = 0; i < value.length( ); i++ )
+        {
+            lHash = ( lHash ^ value.charAt( i ) ) * 0x100000001b3L;
+        }
+
+        return mix( lHash );
+    }
+
+    /**
+     * Gets the step between the positions of a string, odd so that all the positions are distinct
+     * 
+     * @param lHash
+     *            The hash of the string
+     * @return The step
+     */
+    private static long step( long lHash )
+    {
+        return mix( lHash ^ 0x9e3779b97f4a7c15L ) | 1L;
+    }
+
+    /**
+     * Spreads the bits of a hash
+     * 
+     * @param lHash
+     *            The hash
+     * @return The mixed hash
+     */
+    private static long mix( long lHash )
+    {
+        long lMixed = ( lHash ^ ( lHash >>> 33 ) ) * 0xff51afd7ed558ccdL;
+        lMixed = ( lMixed ^ ( lMixed >>> 33 ) ) * 0xc4ceb9fe1a85ec53L;
+
+        return lMixed ^ ( lMixed >>> 33 );
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+/**
+ * Byte oriented and reusable hash engine. An engine is bound to the thread that obtained it and must not be shared.
+ */
+public interface HashEngine
+{
+    /**
+     * Feeds bytes into the hash
+     * 
+     * @param bytes
+     *            The bytes
+     * @param nOffset
+     *            The offset of the first byte
+     * @param nLength
+     *            The number of bytes
+     */
+    void update( byte [ ] bytes, int nOffset, int nLength );
+
+    /**
+     * Gets the length of the hash in bytes
+     * 
+     * @return The length of the hash
+     */
+    int getLength( );
+
+    /**
+     * Completes the hash and resets the engine
+     * 
+     * @param out
+     *            The buffer that receives the hash
+     * @param nOffset
+     *            The offset of the hash in the buffer
+     */
+    void doFinal( byte [ ] out, int nOffset );
+
+    /**
+     * Resets the engine, discarding any byte fed since the last completed hash
+     */
+    void reset( );
+}
@@ -36,7 +36,7 @@ package fr.paris.lutece.util.signrequest.security;
 /**
  * HashService
  */
-public interface HashService
+public interface HashService extends SignatureHashService
 {
     /**
      * Create a Hash string from a given source
@@ -46,4 +46,14 @@ public interface HashService
      * @return The Hash
      */
     String getHash( String strSource );
+
+    /**
+     * Gets a reusable hash engine bound to the current thread. Services that only provide string hashes return null.
+     * 
+     * @return The hash engine or null
+     */
+    default HashEngine getHashEngine( )
+    {
+        return null;
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HMAC-based key derivation function (RFC 5869) with HMAC-SHA256
+ */
+public final class Hkdf
+{
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int HASH_LENGTH = 32;
+    private static final int MAX_LENGTH = 255 * HASH_LENGTH;
+
+    /**
+     * Private constructor
+     */
+    private Hkdf( )
+    {
+    }
+
+    /**
+     * Derives a key
+     * 
+     * @param inputKey
+     *            The input keying material
+     * @param salt
+     *            The salt, null or empty for a salt of zeros
+     * @param info
+     *            The context of the derived key
+     * @param nLength
+     *            The length of the derived key in bytes, at most 8160
+     * @return The derived key
+     */
+    public static byte [ ] derive( byte [ ] inputKey, byte [ ] salt, byte [ ] info, int nLength )
+    {
+        return expand( extract( salt, inputKey ), info, nLength );
+    }
+
+    /**
+     * Extracts a pseudorandom key from an input keying material
+     * 
+     * @param salt
+     *            The salt, null or empty for a salt of zeros
+     * @param inputKey
+     *            The input keying material
+     * @return The pseudorandom key
+     */
+    public static byte [ ] extract( byte [ ] salt, byte [ ] inputKey )
+    {
+        byte [ ] key = ( ( salt == null ) || ( salt.length == 0 ) ) ? new byte [ HASH_LENGTH] : salt;
+
+        return newMac( key ).doFinal( inputKey );
+    }
+
+    /**
+     * Expands a pseudorandom key
+     * 
+     * @param pseudoRandomKey
+     *            The pseudorandom key
+     * @param info
+     *            The context of the derived key
+     * @param nLength
+     *            The length of the derived key in bytes, at most 8160
+     * @return The derived key
+     */
+    public static byte [ ] expand( byte [ ] pseudoRandomKey, byte [ ] info, int nLength )
+    {
+        if ( ( nLength <= 0 ) || ( nLength > MAX_LENGTH ) )
+        {
+            throw new IllegalArgumentException( "Invalid derived key length : " + nLength );
+        }
+
+        Mac mac = newMac( pseudoRandomKey );
+        byte [ ] result = new byte [ nLength];
+        byte [ ] block = new byte [ 0];
+        int nOffset = 0;
+
+        for ( int nCounter = 1; nOffset < nLength; nCounter++ )
+        {
+            mac.update( block );
+
+            if ( info != null )
+            {
+                mac.update( info );
+            }
+
+            mac.update( (byte) nCounter );
+            block = mac.doFinal( );
+
+            int nCopy = Math.min( block.length, nLength - nOffset );
+            System.arraycopy( block, 0, result, nOffset, nCopy );
+            nOffset += nCopy;
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a Mac
+     * 
+     * @param key
+     *            The key
+     * @return The Mac
+     */
+    private static Mac newMac( byte [ ] key )
+    {
+        try
+        {
+            Mac mac = Mac.getInstance( ALGORITHM );
+            mac.init( new SecretKeySpec( key, ALGORITHM ) );
+
+            return mac;
+        }
+        catch( GeneralSecurityException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+}
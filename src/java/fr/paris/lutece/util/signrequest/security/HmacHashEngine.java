@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+
+/**
+ * HMAC (RFC 2104) HashEngine based on a MessageDigest. The key derived inner and outer pads are computed once per key and shared between threads, so
+ * neither the key setup nor the final step allocate anything.
+ */
+final class HmacHashEngine implements HashEngine
+{
+    private final MessageDigest _md;
+    private final byte [ ] _innerHash;
+    private byte [ ] _innerPad;
+    private byte [ ] _outerPad;
+    private boolean _bStarted;
+
+    /**
+     * Constructor
+     * 
+     * @param md
+     *            The message digest
+     */
+    HmacHashEngine( MessageDigest md )
+    {
+        _md = md;
+        _innerHash = new byte [ md.getDigestLength( )];
+    }
+
+    /**
+     * Sets the key pads used by the next hashes
+     * 
+     * @param innerPad
+     *            The inner pad (key xor 0x36)
+     * @param outerPad
+     *            The outer pad (key xor 0x5c)
+     */
+    void setPads( byte [ ] innerPad, byte [ ] outerPad )
+    {
+        _innerPad = innerPad;
+        _outerPad = outerPad;
+        reset( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void update( byte [ ] bytes, int nOffset, int nLength )
+    {
+        start( );
+        _md.update( bytes, nOffset, nLength );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getLength( )
+    {
+        return _innerHash.length;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void doFinal( byte [ ] out, int nOffset )
+    {
+        start( );
+
+        try
+        {
+            _md.digest( _innerHash, 0, _innerHash.length );
+            _md.update( _outerPad );
+            _md.update( _innerHash );
+            _md.digest( out, nOffset, _innerHash.length );
+        }
+        catch( DigestException e )
+        {
+            throw new IllegalStateException( e );
+        }
+        finally
+        {
+            _bStarted = false;
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void reset( )
+    {
+        _md.reset( );
+        _bStarted = false;
+    }
+
+    /**
+     * Feeds the inner pad before the first byte of a message
+     */
+    private void start( )
+    {
+        if ( !_bStarted )
+        {
+            _md.update( _innerPad );
+            _bStarted = true;
+        }
+    }
+}
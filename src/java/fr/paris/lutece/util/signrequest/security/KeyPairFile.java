@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.paris.lutece.util.signrequest.service.FileWatcherService;
+
+/**
+ * Key pair loaded from a file (keystore, truststore...). The keys are loaded once and reloaded when the file changes : readers only get the current
+ * key pair, the file is never read on a request. A failed reload keeps the previous key pair.
+ */
+public final class KeyPairFile
+{
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+
+    private final Path _path;
+    private final Loader _loader;
+    private final Runnable _listener = this::reload;
+    private final AtomicLong _lReloadCount = new AtomicLong( );
+    private final AtomicLong _lReloadFailureCount = new AtomicLong( );
+    private volatile KeyPair _keyPair;
+    private volatile long _lLastReloadDuration;
+    private volatile long _lLastReloadTime;
+
+    /**
+     * Reads a key pair from the content of a file
+     */
+    @FunctionalInterface
+    public interface Loader
+    {
+        /**
+         * Reads a key pair
+         * 
+         * @param is
+         *            The content of the file
+         * @return The key pair
+         * @throws IOException
+         *             If the file can not be read
+         * @throws GeneralSecurityException
+         *             If the keys can not be read
+         */
+        KeyPair load( InputStream is ) throws IOException, GeneralSecurityException;
+    }
+
+    /**
+     * Constructor. Loads the key pair and watches the file.
+     * 
+     * @param path
+     *            The file
+     * @param loader
+     *            The loader of the key pair
+     */
+    public KeyPairFile( Path path, Loader loader )
+    {
+        _path = path;
+        _loader = loader;
+
+        reload( );
+
+        try
+        {
+            FileWatcherService.getInstance( ).register( _path, _listener );
+        }
+        catch( IOException e )
+        {
+            _logger.warn( "SignRequest - Unable to watch " + _path + ", keys will not be reloaded", e );
+        }
+    }
+
+    /**
+     * Gets the current key pair
+     * 
+     * @return The key pair or null if the file has never been loaded
+     */
+    public KeyPair getKeyPair( )
+    {
+        return _keyPair;
+    }
+
+    /**
+     * Loads the file and publishes its key pair
+     * 
+     * @return true if the file has been loaded
+     */
+    public boolean reload( )
+    {
+        long lStart = System.nanoTime( );
+
+        try ( InputStream is = Files.newInputStream( _path ) )
+        {
+            KeyPair keyPair = _loader.load( is );
+
+            if ( keyPair == null )
+            {
+                throw new GeneralSecurityException( "No key found" );
+            }
+
+            _keyPair = keyPair;
+            _lReloadCount.incrementAndGet( );
+            _logger.info( "SignRequest - Keys loaded from " + _path );
+
+            return true;
+        }
+        catch( IOException | GeneralSecurityException | RuntimeException e )
+        {
+            _lReloadFailureCount.incrementAndGet( );
+            _logger.error( "SignRequest - Unable to load keys from " + _path, e );
+
+            return false;
+        }
+        finally
+        {
+            _lLastReloadDuration = System.nanoTime( ) - lStart;
+            _lLastReloadTime = System.currentTimeMillis( );
+        }
+    }
+
+    /**
+     * Stops watching the file
+     */
+    public void close( )
+    {
+        FileWatcherService.getInstance( ).unregister( _path, _listener );
+    }
+
+    /**
+     * Gets the number of successful loads
+     * 
+     * @return The count
+     */
+    public long getReloadCount( )
+    {
+        return _lReloadCount.get( );
+    }
+
+    /**
+     * Gets the number of failed loads
+     * 
+     * @return The count
+     */
+    public long getReloadFailureCount( )
+    {
+        return _lReloadFailureCount.get( );
+    }
+
+    /**
+     * Gets the duration of the last load
+     * 
+     * @return The duration in nanoseconds
+     */
+    public long getLastReloadDuration( )
+    {
+        return _lLastReloadDuration;
+    }
+
+    /**
+     * Gets the time of the last load
+     * 
+     * @return The time in milliseconds since the epoch, 0 if no load happened
+     */
+    public long getLastReloadTime( )
+    {
+        return _lLastReloadTime;
+    }
+}
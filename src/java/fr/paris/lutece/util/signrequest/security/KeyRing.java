@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of versioned secret keys, newest first. The newest key signs, all of them are accepted : a new key is added at the head, and the old
+ * one removed once every caller uses the new one.
+ */
+public final class KeyRing
+{
+    private final String [ ] _versions;
+    private final String [ ] _keys;
+    private final byte [ ] [ ] _encodedKeys;
+    private final Map<String, Integer> _mapIndexes = new HashMap<>( );
+
+    /**
+     * Constructor
+     * 
+     * @param mapKeys
+     *            The keys by version, in iteration order newest first (a LinkedHashMap)
+     */
+    public KeyRing( Map<String, String> mapKeys )
+    {
+        if ( ( mapKeys == null ) || mapKeys.isEmpty( ) )
+        {
+            throw new IllegalArgumentException( "A key ring needs at least one key" );
+        }
+
+        int nSize = mapKeys.size( );
+        _versions = new String [ nSize];
+        _keys = new String [ nSize];
+        _encodedKeys = new byte [ nSize] [ ];
+
+        int i = 0;
+
+        for ( Map.Entry<String, String> key : mapKeys.entrySet( ) )
+        {
+            if ( ( key.getKey( ) == null ) || ( key.getValue( ) == null ) )
+            {
+                throw new IllegalArgumentException( "Key versions and keys must be defined" );
+            }
+
+            _versions [i] = key.getKey( );
+            _keys [i] = key.getValue( );
+            _encodedKeys [i] = key.getValue( ).getBytes( StandardCharsets.UTF_8 );
+            _mapIndexes.put( key.getKey( ), i );
+            i++;
+        }
+    }
+
+    /**
+     * Creates a key ring holding a single key, for a client key service that does not version its keys
+     * 
+     * @param strKey
+     *            The key
+     * @return The key ring, whose only version is an empty string
+     */
+    public static KeyRing of( String strKey )
+    {
+        return new KeyRing( Collections.singletonMap( "", strKey ) );
+    }
+
+    /**
+     * Parses a key ring from version:key entries, newest first
+     * 
+     * @param entries
+     *            The entries
+     * @return The key ring
+     * @throws IllegalArgumentException
+     *             If an entry has no version
+     */
+    public static KeyRing parse( Iterable<String> entries )
+    {
+        Map<String, String> mapKeys = new LinkedHashMap<>( );
+
+        for ( String strEntry : entries )
+        {
+            int nSeparator = strEntry.indexOf( ':' );
+
+            if ( nSeparator <= 0 )
+            {
+                throw new IllegalArgumentException( "Invalid key entry, version:key expected" );
+            }
+
+            mapKeys.put( strEntry.substring( 0, nSeparator ).trim( ), strEntry.substring( nSeparator + 1 ) );
+        }
+
+        return new KeyRing( mapKeys );
+    }
+
+    /**
+     * Gets the number of keys
+     * 
+     * @return The number of keys
+     */
+    public int size( )
+    {
+        return _versions.length;
+    }
+
+    /**
+     * Gets the index of a version
+     * 
+     * @param strVersion
+     *            The version
+     * @return The index, 0 for the newest key, or -1 if the version is unknown
+     */
+    public int indexOf( String strVersion )
+    {
+        Integer nIndex = ( strVersion != null ) ? _mapIndexes.get( strVersion ) : null;
+
+        return ( nIndex != null ) ? nIndex : -1;
+    }
+
+    /**
+     * Gets a version
+     * 
+     * @param nIndex
+     *            The index, 0 for the newest key
+     * @return The version
+     */
+    public String getVersion( int nIndex )
+    {
+        return _versions [nIndex];
+    }
+
+    /**
+     * Gets a key
+     * 
+     * @param nIndex
+     *            The index, 0 for the newest key
+     * @return The key
+     */
+    public String getKey( int nIndex )
+    {
+        return _keys [nIndex];
+    }
+
+    /**
+     * Gets a key encoded in UTF-8. The array must not be modified.
+     * 
+     * @param nIndex
+     *            The index, 0 for the newest key
+     * @return The encoded key
+     */
+    public byte [ ] getEncodedKey( int nIndex )
+    {
+        return _encodedKeys [nIndex];
+    }
+
+    /**
+     * Gets the version of the newest key
+     * 
+     * @return The version
+     */
+    public String getCurrentVersion( )
+    {
+        return _versions [0];
+    }
+
+    /**
+     * Gets the newest key, used to sign
+     * 
+     * @return The key
+     */
+    public String getCurrentKey( )
+    {
+        return _keys [0];
+    }
+}
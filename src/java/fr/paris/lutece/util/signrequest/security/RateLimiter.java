@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.paris.lutece.util.signrequest.service.SchedulerService;
+
+/**
+ * Token bucket rate limiter keyed by client.
+ * <p>
+ * Buckets are stored in a fixed size open addressing table of primitive longs : each slot holds the 64 bits fingerprint of a key and the state of its
+ * bucket. The state is the theoretical arrival time of the next request (GCRA) : the tokens left are the time remaining before it, divided by the
+ * emission interval, and a refill is implicit as time passes. A single CAS on this long takes a token, so the check takes no lock and allocates
+ * nothing.
+ * </p>
+ * <p>
+ * A bucket that has refilled completely holds no information : a background task frees these slots, and a new key takes over such a slot when no
+ * other one is free. When every slot of its probe sequence holds a key still limited, the request of a new key is rejected and counted as an
+ * overflow : flooding the limiter with new keys can neither evict the limited ones nor get past it.
+ * </p>
+ */
+public final class RateLimiter
+{
+    private static final int MAX_PROBES = 16;
+    private static final long EMPTY = 0L;
+    private static final long EVICTION_PERIOD = 10000L;
+
+    private final long _lEmissionInterval;
+    private final long _lBurstTolerance;
+    private final long _lSeed = ThreadLocalRandom.current( ).nextLong( );
+    private final long _lOrigin = System.nanoTime( );
+    private final int _nMask;
+
+    // Slot i : fingerprint of the key at 2 * i, theoretical arrival time at 2 * i + 1
+    private final AtomicLongArray _table;
+    private final LongAdder _rejected = new LongAdder( );
+    private final LongAdder _overflows = new LongAdder( );
+    private final ScheduledFuture<?> _evictionTask;
+
+    /**
+     * Constructor
+     * 
+     * @param dRate
+     *            The number of requests allowed per second for each key
+     * @param nBurst
+     *            The number of requests a key can send at once
+     * @param nCapacity
+     *            The maximum number of keys tracked at once
+     */
+    public RateLimiter( double dRate, int nBurst, int nCapacity )
+    {
+        if ( ( dRate <= 0 ) || ( nBurst <= 0 ) || ( nCapacity <= 0 ) )
+        {
+            throw new IllegalArgumentException( "Rate, burst and capacity must be positive" );
+        }
+
+        _lEmissionInterval = Math.max( 1L, (long) ( TimeUnit.SECONDS.toNanos( 1 ) / dRate ) );
+        _lBurstTolerance = _lEmissionInterval * nBurst;
+
+        // Half full at capacity, to keep probe sequences short
+        int nSlots = Integer.highestOneBit( Math.max( MAX_PROBES, 2 * nCapacity ) - 1 ) << 1;
+        _nMask = nSlots - 1;
+        _table = new AtomicLongArray( 2 * nSlots );
+        _evictionTask = SchedulerService.getInstance( ).scheduleWithFixedDelay( this::evict, EVICTION_PERIOD );
+    }
+
+    /**
+     * Takes a token for a key
+     * 
+     * @param key
+     *            The key
+     * @return true if the request is allowed, false if the key has exceeded its rate
+     */
+    public boolean tryAcquire( CharSequence key )
+    {
+        long lHash = 0xcbf29ce484222325L ^ _lSeed;
+
+        for ( int i = 0; i < key.length( ); i++ )
+        {
+            lHash = ( lHash ^ key.charAt( i ) ) * 0x100000001b3L;
+        }
+
+        return tryAcquireFingerprint( mix( lHash ) );
+    }
+
+    /**
+     * Takes a token for a key made of two longs, such as an IP address
+     * 
+     * @param lHigh
+     *            The 64 high bits of the key
+     * @param lLow
+     *            The 64 low bits of the key
+     * @return true if the request is allowed, false if the key has exceeded its rate
+     */
+    public boolean tryAcquire( long lHigh, long lLow )
+    {
+        return tryAcquireFingerprint( mix( mix( lHigh ^ _lSeed ) ^ lLow ) );
+    }
+
+    /**
+     * Takes a token for a fingerprint
+     * 
+     * @param lFingerprint
+     *            The fingerprint of the key
+     * @return true if the request is allowed
+     */
+    private boolean tryAcquireFingerprint( long lFingerprint )
+    {
+        long lKey = ( lFingerprint == EMPTY ) ? 1L : lFingerprint;
+        long lNow = System.nanoTime( ) - _lOrigin;
+        int nSlot = findOrInsert( lKey, lNow );
+
+        if ( nSlot < 0 )
+        {
+            _overflows.increment( );
+
+            return false;
+        }
+
+        int nState = ( 2 * nSlot ) + 1;
+
+        while ( true )
+        {
+            long lArrival = _table.get( nState );
+            long lNextArrival = Math.max( lArrival, lNow ) + _lEmissionInterval;
+
+            if ( ( lNextArrival - lNow ) > _lBurstTolerance )
+            {
+                _rejected.increment( );
+
+                return false;
+            }
+
+            if ( _table.compareAndSet( nState, lArrival, lNextArrival ) )
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finds the slot of a key, claiming a free slot, or else the slot of a refilled bucket, if the key is not tracked yet
+     * 
+     * @param lKey
+     *            The key fingerprint, not empty
+     * @param lNow
+     *            The current time
+     * @return The slot or -1 if every slot holds a key still limited
+     */
+    private int findOrInsert( long lKey, long lNow )
+    {
+        int nIndex = (int) ( lKey ^ ( lKey >>> 32 ) );
+
+        while ( true )
+        {
+            int nFree = -1;
+            int nRefilled = -1;
+            long lRefilledKey = EMPTY;
+
+            // Evicted slots leave holes : the whole probe sequence is scanned
+            for ( int nProbe = 0; nProbe < MAX_PROBES; nProbe++ )
+            {
+                int nSlot = ( nIndex + nProbe ) & _nMask;
+                long lCurrent = _table.get( 2 * nSlot );
+
+                if ( lCurrent == lKey )
+                {
+                    return nSlot;
+                }
+
+                if ( ( lCurrent == EMPTY ) && ( nFree < 0 ) )
+                {
+                    nFree = nSlot;
+                }
+                else
+                    if ( ( lCurrent != EMPTY ) && ( nRefilled < 0 ) && ( _table.get( ( 2 * nSlot ) + 1 ) <= lNow ) )
+                    {
+                        nRefilled = nSlot;
+                        lRefilledKey = lCurrent;
+                    }
+            }
+
+            if ( nFree < 0 )
+            {
+                if ( nRefilled < 0 )
+                {
+                    return -1;
+                }
+
+                // The bucket of the previous key was full : it starts again from a full bucket if it comes back
+                if ( _table.compareAndSet( 2 * nRefilled, lRefilledKey, lKey ) )
+                {
+                    return nRefilled;
+                }
+
+                continue;
+            }
+
+            // A freed slot keeps the arrival time of its previous key, which is in the past : the bucket starts full
+            if ( _table.compareAndSet( 2 * nFree, EMPTY, lKey ) )
+            {
+                return nFree;
+            }
+        }
+    }
+
+    /**
+     * Frees the slots of the buckets that have refilled completely
+     */
+    void evict( )
+    {
+        long lNow = System.nanoTime( ) - _lOrigin;
+
+        for ( int nSlot = 0; nSlot <= _nMask; nSlot++ )
+        {
+            long lKey = _table.get( 2 * nSlot );
+            long lArrival = _table.get( ( 2 * nSlot ) + 1 );
+
+            if ( ( lKey != EMPTY ) && ( lArrival <= lNow ) && _table.compareAndSet( 2 * nSlot, lKey, EMPTY )
+                    && ( _table.get( ( 2 * nSlot ) + 1 ) != lArrival ) )
+            {
+                // A token has been taken meanwhile : the key is put back unless its slot has been reused
+                _table.compareAndSet( 2 * nSlot, EMPTY, lKey );
+            }
+        }
+    }
+
+    /**
+     * Gets the number of keys tracked
+     * 
+     * @return The number of keys
+     */
+    public int size( )
+    {
+        int nSize = 0;
+
+        for ( int nSlot = 0; nSlot <= _nMask; nSlot++ )
+        {
+            if ( _table.get( 2 * nSlot ) != EMPTY )
+            {
+                nSize++;
+            }
+        }
+
+        return nSize;
+    }
+
+    /**
+     * Gets the number of requests rejected
+     * 
+     * @return The count
+     */
+    public long getRejectedCount( )
+    {
+        return _rejected.sum( );
+    }
+
+    /**
+     * Gets the number of requests of new keys rejected because every slot held a key still limited
+     * 
+     * @return The count
+     */
+    public long getOverflowCount( )
+    {
+        return _overflows.sum( );
+    }
+
+    /**
+     * Stops the background eviction
+     */
+    public void close( )
+    {
+        _evictionTask.cancel( false );
+    }
+
+    /**
+     * Spreads the bits of a hash
+     * 
+     * @param lHash
+     *            The hash
+     * @return The mixed hash
+     */
+    private static long mix( long lHash )
+    {
+        long lMixed = ( lHash ^ ( lHash >>> 33 ) ) * 0xff51afd7ed558ccdL;
+        lMixed = ( lMixed ^ ( lMixed >>> 33 ) ) * 0xc4ceb9fe1a85ec53L;
+
+        return lMixed ^ ( lMixed >>> 33 );
+    }
+}
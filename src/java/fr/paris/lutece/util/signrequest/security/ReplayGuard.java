@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the signatures accepted within a validity window so that a signed request can only be used once.
+ * <p>
+ * Signatures are stored as 64 bits fingerprints in buckets covering a slice of time, chosen from the timestamp of the request. A bucket is a fixed
+ * size open addressing table whose slots are claimed by CAS, so the check-and-insert path takes no lock. When the window moves past a bucket, the
+ * whole bucket is replaced : entries are never evicted one by one. The memory used is fixed at construction.
+ * </p>
+ * <p>
+ * The fingerprints are only meaningful for signatures that have been checked : a guard must be consulted after the signature check.
+ * </p>
+ */
+public final class ReplayGuard
+{
+    private static final int BUCKETS_PER_WINDOW = 8;
+    private static final int MAX_PROBES = 16;
+    private static final long EMPTY = 0L;
+
+    private final long _lWindow;
+    private final long _lBucketDuration;
+    private final int _nSlotsPerBucket;
+    private final AtomicReferenceArray<Bucket> _ring;
+    private final LongAdder _replays = new LongAdder( );
+    private final LongAdder _overflows = new LongAdder( );
+
+    /**
+     * Constructor
+     * 
+     * @param lWindow
+     *            The validity window of a signature in milliseconds
+     * @param nCapacity
+     *            The maximum number of signatures accepted within a window
+     */
+    public ReplayGuard( long lWindow, int nCapacity )
+    {
+        if ( ( lWindow <= 0 ) || ( nCapacity <= 0 ) )
+        {
+            throw new IllegalArgumentException( "Window and capacity must be positive" );
+        }
+
+        _lWindow = lWindow;
+        _lBucketDuration = Math.max( 1L, ( lWindow + BUCKETS_PER_WINDOW - 1 ) / BUCKETS_PER_WINDOW );
+
+        // Half full at capacity, to keep probe sequences short
+        int nSlots = Math.max( MAX_PROBES, ( 2 * nCapacity ) / BUCKETS_PER_WINDOW );
+        _nSlotsPerBucket = Integer.highestOneBit( nSlots - 1 ) << 1;
+
+        // Timestamps are accepted from one window in the past to one window in the future
+        _ring = new AtomicReferenceArray<>( ( 2 * (int) ( ( lWindow + _lBucketDuration - 1 ) / _lBucketDuration ) ) + 2 );
+    }
+
+    /**
+     * Registers a signature
+     * 
+     * @param lTimestamp
+     *            The timestamp of the request in milliseconds
+     * @param signature
+     *            The signature bytes
+     * @return true if the signature has not been seen before and has been registered, false if it is a replay, if the timestamp is out of the window
+     *         or if the guard is full
+     */
+    public boolean register( long lTimestamp, byte [ ] signature )
+    {
+        return register( lTimestamp, fingerprint( signature ) );
+    }
+
+    /**
+     * Registers a signature
+     * 
+     * @param lTimestamp
+     *            The timestamp of the request in milliseconds
+     * @param strSignature
+     *            The signature
+     * @return true if the signature has not been seen before and has been registered
+     */
+    public boolean register( long lTimestamp, String strSignature )
+    {
+        long lHash = 0xcbf29ce484222325L;
+
+        for ( int i = 0; i < strSignature.length( ); i++ )
+        {
+            lHash = ( lHash ^ strSignature.charAt( i ) ) * 0x100000001b3L;
+        }
+
+        return register( lTimestamp, mix( lHash ) );
+    }
+
+    /**
+     * Registers a fingerprint
+     * 
+     * @param lTimestamp
+     *            The timestamp of the request in milliseconds
+     * @param lFingerprint
+     *            The fingerprint of the signature
+     * @return true if the fingerprint has been registered
+     */
+    private boolean register( long lTimestamp, long lFingerprint )
+    {
+        long lNow = System.currentTimeMillis( );
+
+        if ( ( lTimestamp < ( lNow - _lWindow ) ) || ( lTimestamp > ( lNow + _lWindow ) ) )
+        {
+            return false;
+        }
+
+        Bucket bucket = getBucket( Math.floorDiv( lTimestamp, _lBucketDuration ) );
+
+        if ( bucket == null )
+        {
+            return false;
+        }
+
+        long lValue = ( lFingerprint == EMPTY ) ? 1L : lFingerprint;
+        AtomicLongArray slots = bucket._slots;
+        int nMask = _nSlotsPerBucket - 1;
+        int nIndex = (int) ( lValue ^ ( lValue >>> 32 ) ) & nMask;
+
+        for ( int nProbe = 0; nProbe < MAX_PROBES; nProbe++ )
+        {
+            int nSlot = ( nIndex + nProbe ) & nMask;
+            long lCurrent = slots.get( nSlot );
+
+            if ( ( lCurrent == EMPTY ) && slots.compareAndSet( nSlot, EMPTY, lValue ) )
+            {
+                return true;
+            }
+
+            // Either taken before or by a concurrent insert
+            if ( slots.get( nSlot ) == lValue )
+            {
+                _replays.increment( );
+
+                return false;
+            }
+        }
+
+        _overflows.increment( );
+
+        return false;
+    }
+
+    /**
+     * Gets the bucket of a time slice, replacing the expired bucket that holds its place in the ring
+     * 
+     * @param lEpoch
+     *            The time slice
+     * @return The bucket or null if its place is held by a more recent bucket
+     */
+    private Bucket getBucket( long lEpoch )
+    {
+        int nIndex = (int) Math.floorMod( lEpoch, (long) _ring.length( ) );
+
+        while ( true )
+        {
+            Bucket bucket = _ring.get( nIndex );
+
+            if ( ( bucket != null ) && ( bucket._lEpoch == lEpoch ) )
+            {
+                return bucket;
+            }
+
+            if ( ( bucket != null ) && ( bucket._lEpoch > lEpoch ) )
+            {
+                return null;
+            }
+
+            Bucket newBucket = new Bucket( lEpoch, _nSlotsPerBucket );
+
+            if ( _ring.compareAndSet( nIndex, bucket, newBucket ) )
+            {
+                return newBucket;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of replays detected
+     * 
+     * @return The count
+     */
+    public long getReplayCount( )
+    {
+        return _replays.sum( );
+    }
+
+    /**
+     * Gets the number of signatures rejected because a bucket was full
+     * 
+     * @return The count
+     */
+    public long getOverflowCount( )
+    {
+        return _overflows.sum( );
+    }
+
+    /**
+     * Computes the fingerprint of signature bytes
+     * 
+     * @param signature
+     *            The signature
+     * @return The fingerprint
+     */
+    private static long fingerprint( byte [ ] signature )
+    {
+        long lHash = 0L;
+
+        for ( int i = 0; i < signature.length; i++ )
+        {
+            lHash = Long.rotateLeft( lHash, 8 ) ^ ( signature [i] & 0xFF );
+
+            if ( ( i & 7 ) == 7 )
+            {
+                lHash = mix( lHash );
+            }
+        }
+
+        return mix( lHash ^ signature.length );
+    }
+
+    /**
+     * Spreads the bits of a hash
+     * 
+     * @param lValue
+     *            The hash
+     * @return The mixed hash
+     */
+    private static long mix( long lValue )
+    {
+        long l = ( lValue ^ ( lValue >>> 33 ) ) * 0xff51afd7ed558ccdL;
+        l = ( l ^ ( l >>> 33 ) ) * 0xc4ceb9fe1a85ec53L;
+
+        return l ^ ( l >>> 33 );
+    }
+
+    /**
+     * Fingerprints of the signatures of a time slice
+     */
+    private static final class Bucket
+    {
+        private final long _lEpoch;
+        private final AtomicLongArray _slots;
+
+        /**
+         * Constructor
+         * 
+         * @param lEpoch
+         *            The time slice
+         * @param nSlots
+         *            The number of slots
+         */
+        Bucket( long lEpoch, int nSlots )
+        {
+            _lEpoch = lEpoch;
+            _slots = new AtomicLongArray( nSlots );
+        }
+    }
+}
@@ -33,13 +33,6 @@
  */
 package fr.paris.lutece.util.signrequest.security;
 
-import java.io.UnsupportedEncodingException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Named;
 
@@ -48,57 +41,13 @@ import jakarta.inject.Named;
  */
 @ApplicationScoped
 @Named( "signrequest.Sha1HashService" )
-public class Sha1HashService implements HashService
+public class Sha1HashService extends AbstractDigestHashService
 {
-    private static final String HEX_DIGITS = "0123456789abcdef";
-    private static Logger _logger = LogManager.getLogger(  "lutece.security.signrequest" );
-
     /**
-     * {@inheritDoc }
+     * Constructor
      */
-    @Override
-    public String getHash( String strSource )
+    public Sha1HashService( )
     {
-        MessageDigest md1 = null;
-
-        try
-        {
-            md1 = MessageDigest.getInstance( "SHA-1" );
-        }
-        catch( NoSuchAlgorithmException e )
-        {
-            _logger.error( "Error creating hash " + e.getMessage( ), e );
-        }
-
-        try
-        {
-            md1.update( strSource.getBytes( "UTF-8" ) );
-        }
-        catch( UnsupportedEncodingException e )
-        {
-            _logger.error( "Error creating hash " + e.getMessage( ), e );
-        }
-
-        return hex( md1.digest( ) );
-    }
-
-    /**
-     * Convert bytes into an hexadecimal string
-     * 
-     * @param bytes
-     *            Array of bytes
-     * @return An Hexadecimal string
-     */
-    private static String hex( byte [ ] bytes )
-    {
-        StringBuilder sb = new StringBuilder( bytes.length * 2 );
-
-        for ( int i = 0; i < bytes.length; i++ )
-        {
-            int b = bytes [i] & 0xFF;
-            sb.append( HEX_DIGITS.charAt( b >>> 4 ) ).append( HEX_DIGITS.charAt( b & 0xF ) );
-        }
-
-        return sb.toString( );
+        super( "SHA-1" );
     }
 }
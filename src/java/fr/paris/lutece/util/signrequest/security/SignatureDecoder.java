@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.util.Arrays;
+
+/**
+ * Decodes signatures provided by requests into raw hashes.<br>
+ * A signature can be encoded in hexadecimal (case insensitive) or in base64url (with or without padding). The encoding is determined from the length of
+ * the signature, so a signature whose length does not match the expected hash is rejected before any decoding or hashing.
+ */
+public final class SignatureDecoder
+{
+    private static final int [ ] HEX_VALUES = new int [ 128];
+    private static final int [ ] BASE64URL_VALUES = new int [ 128];
+
+    static
+    {
+        Arrays.fill( HEX_VALUES, -1 );
+        Arrays.fill( BASE64URL_VALUES, -1 );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            HEX_VALUES ['0' + i] = i;
+        }
+
+        for ( int i = 0; i < 6; i++ )
+        {
+            HEX_VALUES ['a' + i] = 10 + i;
+            HEX_VALUES ['A' + i] = 10 + i;
+        }
+
+        String strAlphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+        for ( int i = 0; i < strAlphabet.length( ); i++ )
+        {
+            BASE64URL_VALUES [strAlphabet.charAt( i )] = i;
+        }
+    }
+
+    /**
+     * Private constructor
+     */
+    private SignatureDecoder( )
+    {
+    }
+
+    /**
+     * Decodes a signature
+     * 
+     * @param strSignature
+     *            The signature
+     * @param out
+     *            The buffer that receives the hash. Its length is the expected length of the hash.
+     * @return true if the signature has been decoded, false if it is malformed
+     */
+    public static boolean decode( String strSignature, byte [ ] out )
+    {
+        int nLength = out.length;
+        int nChars = strSignature.length( );
+
+        if ( nChars == ( 2 * nLength ) )
+        {
+            return decodeHex( strSignature, out );
+        }
+
+        int nUnpadded = ( ( 4 * nLength ) + 2 ) / 3;
+        int nPadded = ( ( nLength + 2 ) / 3 ) * 4;
+
+        if ( nChars == nPadded )
+        {
+            // Check the padding, then decode the significant chars
+            for ( int i = nUnpadded; i < nPadded; i++ )
+            {
+                if ( strSignature.charAt( i ) != '=' )
+                {
+                    return false;
+                }
+            }
+
+            return decodeBase64Url( strSignature, out );
+        }
+
+        if ( nChars == nUnpadded )
+        {
+            return decodeBase64Url( strSignature, out );
+        }
+
+        return false;
+    }
+
+    /**
+     * Decodes an hexadecimal signature
+     * 
+     * @param strSignature
+     *            The signature
+     * @param out
+     *            The buffer that receives the hash
+     * @return true if the signature is a valid hexadecimal string
+     */
+    private static boolean decodeHex( String strSignature, byte [ ] out )
+    {
+        int nInvalid = 0;
+
+        for ( int i = 0; i < out.length; i++ )
+        {
+            int nHigh = value( HEX_VALUES, strSignature.charAt( 2 * i ) );
+            int nLow = value( HEX_VALUES, strSignature.charAt( ( 2 * i ) + 1 ) );
+
+            nInvalid |= nHigh | nLow;
+            out [i] = (byte) ( ( nHigh << 4 ) | nLow );
+        }
+
+        return nInvalid >= 0;
+    }
+
+    /**
+     * Decodes a base64url signature. The padding, if any, has already been checked.
+     * 
+     * @param strSignature
+     *            The signature
+     * @param out
+     *            The buffer that receives the hash
+     * @return true if the signature is a valid base64url string
+     */
+    private static boolean decodeBase64Url( String strSignature, byte [ ] out )
+    {
+        int nBits = 0;
+        int nBitCount = 0;
+        int nPos = 0;
+        int nInvalid = 0;
+
+        for ( int i = 0; nPos < out.length; i++ )
+        {
+            char c = strSignature.charAt( i );
+            int nValue = value( BASE64URL_VALUES, c );
+
+            nInvalid |= nValue;
+            nBits = ( nBits << 6 ) | ( nValue & 0x3F );
+            nBitCount += 6;
+
+            if ( nBitCount >= 8 )
+            {
+                nBitCount -= 8;
+                out [nPos++] = (byte) ( nBits >> nBitCount );
+            }
+        }
+
+        // The unused trailing bits must be zero so that a hash has only one valid encoding
+        return ( nInvalid >= 0 ) && ( ( nBits & ( ( 1 << nBitCount ) - 1 ) ) == 0 );
+    }
+
+    /**
+     * Gets the value of a digit
+     * 
+     * @param values
+     *            The values of the ASCII chars
+     * @param c
+     *            The digit
+     * @return The value, or -1 if the char is not a digit of the encoding
+     */
+    private static int value( int [ ] values, char c )
+    {
+        return ( c < values.length ) ? values [c] : -1;
+    }
+}
@@ -33,13 +33,14 @@
  */
 package fr.paris.lutece.util.signrequest.service;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Basic Client Key Service
  */
-public class BasicClientKeyService implements ClientKeyService
+public class BasicClientKeyService implements EnumerableClientKeyService
 {
 
     private Map<String, String> _mapClients = new HashMap<String, String>( );
@@ -64,4 +65,13 @@ public class BasicClientKeyService implements ClientKeyService
         return _mapClients.get( strClientId );
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Collection<String> getClientIds( )
+    {
+        return _mapClients.keySet( );
+    }
+
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.paris.lutece.util.signrequest.security.BloomFilter;
+import fr.paris.lutece.util.signrequest.security.KeyRing;
+
+/**
+ * Client key service rejecting unknown client IDs with a Bloom filter before looking up their key.
+ * <p>
+ * The filter holds the IDs listed by an enumerable client key service. It is rebuilt periodically and swapped with a single volatile write : the
+ * shared scheduler only starts the rebuilds, which list the IDs on the worker executor of the {@link SchedulerService}, or on the one given by
+ * {@link #setRebuildExecutor(Executor)}, since listing them may be a slow database scan. An ID missing from the filter gets no key without calling the underlying service ; an ID found in the filter, including the few
+ * false positives, is looked up as usual. A client added since the last rebuild is rejected until the next one : call rebuild after adding a
+ * client. Until the filter has been built once, all the IDs are looked up. The key rings of a service versioning its keys are passed through.
+ * </p>
+ */
+public class BloomFilterClientKeyService implements VersionedClientKeyService
+{
+    /** Default false positive rate of the filter */
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+
+    private final ClientKeyService _clientKeyService;
+    private final EnumerableClientKeyService _clientIdSource;
+    private final double _dFalsePositiveRate;
+    private final LongAdder _rejected = new LongAdder( );
+    private final ScheduledFuture<?> _rebuildTask;
+    private final AtomicBoolean _bRebuilding = new AtomicBoolean( );
+    private volatile Executor _rebuildExecutor;
+    private volatile BloomFilter _filter;
+
+    /**
+     * Constructor
+     * 
+     * @param clientKeyService
+     *            The client key service giving the keys and the client IDs
+     * @param lRebuildPeriod
+     *            The delay between two rebuilds of the filter in milliseconds, 0 to rebuild it only on demand
+     */
+    public BloomFilterClientKeyService( EnumerableClientKeyService clientKeyService, long lRebuildPeriod )
+    {
+        this( clientKeyService, clientKeyService, DEFAULT_FALSE_POSITIVE_RATE, lRebuildPeriod );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param clientKeyService
+     *            The client key service giving the keys, for instance a caching client key service
+     * @param clientIdSource
+     *            The client key service giving the client IDs
+     * @param dFalsePositiveRate
+     *            The false positive rate of the filter
+     * @param lRebuildPeriod
+     *            The delay between two rebuilds of the filter in milliseconds, 0 to rebuild it only on demand
+     */
+    public BloomFilterClientKeyService( ClientKeyService clientKeyService, EnumerableClientKeyService clientIdSource, double dFalsePositiveRate,
+            long lRebuildPeriod )
+    {
+        _clientKeyService = clientKeyService;
+        _clientIdSource = clientIdSource;
+        _dFalsePositiveRate = dFalsePositiveRate;
+        rebuild( );
+        _rebuildTask = ( lRebuildPeriod > 0 ) ? SchedulerService.getInstance( ).scheduleWithFixedDelay( this::startRebuild, lRebuildPeriod ) : null;
+    }
+
+    /**
+     * Sets the executor running the periodic rebuilds
+     * 
+     * @param executor
+     *            The executor
+     */
+    public void setRebuildExecutor( Executor executor )
+    {
+        _rebuildExecutor = executor;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getKey( String strClientId )
+    {
+        return isRejected( strClientId ) ? null : _clientKeyService.getKey( strClientId );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public KeyRing getKeyRing( String strClientId )
+    {
+        if ( !isVersioned( ) )
+        {
+            String strKey = getKey( strClientId );
+
+            return ( strKey != null ) ? KeyRing.of( strKey ) : null;
+        }
+
+        return isRejected( strClientId ) ? null : ( (VersionedClientKeyService) _clientKeyService ).getKeyRing( strClientId );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isVersioned( )
+    {
+        return ( _clientKeyService instanceof VersionedClientKeyService ) && ( (VersionedClientKeyService) _clientKeyService ).isVersioned( );
+    }
+
+    /**
+     * Tells if a client ID is missing from the filter
+     * 
+     * @param strClientId
+     *            The client ID
+     * @return true if the client is unknown
+     */
+    private boolean isRejected( String strClientId )
+    {
+        BloomFilter filter = _filter;
+
+        if ( ( strClientId != null ) && ( filter != null ) && !filter.mightContain( strClientId ) )
+        {
+            _rejected.increment( );
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Rebuilds the filter from the client IDs. If the IDs can not be listed, the current filter is kept.
+     * 
+     * @return true if the filter has been rebuilt
+     */
+    public boolean rebuild( )
+    {
+        try
+        {
+            _filter = new BloomFilter( _clientIdSource.getClientIds( ), _dFalsePositiveRate );
+
+            return true;
+        }
+        catch( RuntimeException e )
+        {
+            _logger.error( "SignRequest - Unable to list the client IDs, the previous filter is kept", e );
+
+            return false;
+        }
+    }
+
+    /**
+     * Starts a periodic rebuild on the rebuild executor, unless the previous one is still running
+     */
+    private void startRebuild( )
+    {
+        if ( !_bRebuilding.compareAndSet( false, true ) )
+        {
+            return;
+        }
+
+        try
+        {
+            Executor executor = _rebuildExecutor;
+
+            ( ( executor != null ) ? executor : SchedulerService.getInstance( ).getWorkerExecutor( ) ).execute( ( ) -> {
+                try
+                {
+                    rebuild( );
+                }
+                finally
+                {
+                    _bRebuilding.set( false );
+                }
+            } );
+        }
+        catch( RejectedExecutionException e )
+        {
+            _bRebuilding.set( false );
+            _logger.warn( "SignRequest - Rebuild of the client IDs filter rejected by the executor" );
+        }
+    }
+
+    /**
+     * Gets the number of client IDs rejected by the filter
+     * 
+     * @return The count
+     */
+    public long getRejectedCount( )
+    {
+        return _rejected.sum( );
+    }
+
+    /**
+     * Stops the periodic rebuild of the filter
+     */
+    public void close( )
+    {
+        if ( _rebuildTask != null )
+        {
+            _rebuildTask.cancel( false );
+        }
+    }
+}
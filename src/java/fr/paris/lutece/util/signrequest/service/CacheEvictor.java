@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a concurrent cache within its maximum size. Expired entries are evicted first, then the least recently accessed ones, down to 90% of the
+ * maximum size so that eviction does not run on every insertion.
+ */
+public final class CacheEvictor
+{
+    private static final long ACCESS_RESOLUTION = 1000L;
+
+    private final AtomicBoolean _bEvicting = new AtomicBoolean( );
+    private final LongAdder _evictions = new LongAdder( );
+    private final int _nMaxSize;
+
+    /**
+     * Constructor
+     * 
+     * @param nMaxSize
+     *            The maximum number of entries
+     */
+    public CacheEvictor( int nMaxSize )
+    {
+        _nMaxSize = nMaxSize;
+    }
+
+    /**
+     * Brings a cache back under its maximum size if it is over it. Only one thread evicts at a time, the others go on.
+     * 
+     * @param mapEntries
+     *            The entries of the cache
+     * @param lNow
+     *            The current time
+     */
+    public void evictIfFull( Map<?, ? extends Entry> mapEntries, long lNow )
+    {
+        if ( ( mapEntries.size( ) <= _nMaxSize ) || !_bEvicting.compareAndSet( false, true ) )
+        {
+            return;
+        }
+
+        try
+        {
+            mapEntries.values( ).removeIf( entry -> entry.getExpiresAt( ) <= lNow );
+
+            int nExcess = mapEntries.size( ) - ( _nMaxSize - ( _nMaxSize / 10 ) );
+
+            if ( nExcess > 0 )
+            {
+                // Access times keep changing : sort a snapshot and evict up to the threshold it gives
+                long [ ] accesses = mapEntries.values( ).stream( ).mapToLong( Entry::getLastAccess ).toArray( );
+
+                if ( accesses.length > 0 )
+                {
+                    Arrays.sort( accesses );
+
+                    long lThreshold = accesses [Math.min( nExcess, accesses.length ) - 1];
+                    Iterator<? extends Entry> iterator = mapEntries.values( ).iterator( );
+
+                    while ( ( nExcess > 0 ) && iterator.hasNext( ) )
+                    {
+                        if ( iterator.next( ).getLastAccess( ) <= lThreshold )
+                        {
+                            iterator.remove( );
+                            _evictions.increment( );
+                            nExcess--;
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            _bEvicting.set( false );
+        }
+    }
+
+    /**
+     * Gets the number of entries evicted to keep the cache within its size
+     * 
+     * @return The eviction count
+     */
+    public long getEvictionCount( )
+    {
+        return _evictions.sum( );
+    }
+
+    /**
+     * Cache entry with an expiration and a last access time
+     */
+    public abstract static class Entry
+    {
+        private final long _lExpiresAt;
+        private volatile long _lLastAccess;
+
+        /**
+         * Constructor
+         * 
+         * @param lExpiresAt
+         *            The time after which the entry is stale
+         * @param lNow
+         *            The current time
+         */
+        protected Entry( long lExpiresAt, long lNow )
+        {
+            _lExpiresAt = lExpiresAt;
+            _lLastAccess = lNow;
+        }
+
+        /**
+         * Gets the expiration time
+         * 
+         * @return The time after which the entry is stale
+         */
+        public long getExpiresAt( )
+        {
+            return _lExpiresAt;
+        }
+
+        /**
+         * Gets the last access time, to the second
+         * 
+         * @return The time of the last recorded access
+         */
+        public long getLastAccess( )
+        {
+            return _lLastAccess;
+        }
+
+        /**
+         * Records an access. The access time is only written once per second so that hot entries do not become a point of contention.
+         * 
+         * @param lNow
+         *            The current time
+         */
+        public void touch( long lNow )
+        {
+            if ( ( lNow - _lLastAccess ) >= ACCESS_RESOLUTION )
+            {
+                _lLastAccess = lNow;
+            }
+        }
+    }
+}
@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.paris.lutece.util.signrequest.security.KeyRing;
+
+/**
+ * Client key service caching the keys given by another client key service.
+ * <p>
+ * A key is kept for a time to live. Once three quarters of it have elapsed, the next lookup triggers a reload on the refresh executor and keeps
+ * getting the current key meanwhile : keys in use are refreshed before they expire. Unknown client IDs are cached too, for a shorter time. Concurrent
+ * misses for the same client ID share a single load. When the cache is full, the least recently used entries are evicted. A load started before an
+ * invalidation does not cache its result.
+ * </p>
+ * <p>
+ * When the underlying service versions its keys, their whole key rings are cached, so that the previous keys stay accepted during a rotation.
+ * </p>
+ */
+public class CachingClientKeyService implements VersionedClientKeyService
+{
+    /** Default time to live of an unknown client ID in milliseconds */
+    public static final long DEFAULT_NEGATIVE_TTL = 30000L;
+
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+    private static final double REFRESH_AHEAD_FRACTION = 0.75;
+
+    private final ClientKeyService _clientKeyService;
+    private final VersionedClientKeyService _versionedClientKeyService;
+    private final Map<String, Entry> _mapEntries = new ConcurrentHashMap<>( );
+    private final Map<String, CompletableFuture<Entry>> _mapLoads = new ConcurrentHashMap<>( );
+    // Incremented by each invalidation, so that the loads started before do not cache a stale key
+    private final AtomicLong _lGeneration = new AtomicLong( );
+    private final CacheEvictor _evictor;
+    private final long _lTtl;
+    private final long _lNegativeTtl;
+    private final LongAdder _hits = new LongAdder( );
+    private final LongAdder _misses = new LongAdder( );
+    private final LongAdder _loads = new LongAdder( );
+    private final LongAdder _loadFailures = new LongAdder( );
+    private final LongAdder _loadTime = new LongAdder( );
+    private final LongAdder _refreshes = new LongAdder( );
+    private volatile Executor _refreshExecutor;
+    private Clock _clock = Clock.systemUTC( );
+
+    /**
+     * Constructor
+     * 
+     * @param clientKeyService
+     *            The client key service giving the keys
+     * @param nMaxSize
+     *            The maximum number of client IDs cached
+     * @param lTtl
+     *            The time to live of a key in milliseconds
+     */
+    public CachingClientKeyService( ClientKeyService clientKeyService, int nMaxSize, long lTtl )
+    {
+        this( clientKeyService, nMaxSize, lTtl, Math.min( lTtl, DEFAULT_NEGATIVE_TTL ) );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param clientKeyService
+     *            The client key service giving the keys
+     * @param nMaxSize
+     *            The maximum number of client IDs cached
+     * @param lTtl
+     *            The time to live of a key in milliseconds
+     * @param lNegativeTtl
+     *            The time to live of an unknown client ID in milliseconds, 0 not to cache unknown client IDs
+     */
+    public CachingClientKeyService( ClientKeyService clientKeyService, int nMaxSize, long lTtl, long lNegativeTtl )
+    {
+        if ( ( nMaxSize <= 0 ) || ( lTtl <= 0 ) || ( lNegativeTtl < 0 ) )
+        {
+            throw new IllegalArgumentException( "Cache size and TTL must be positive" );
+        }
+
+        _clientKeyService = clientKeyService;
+        _versionedClientKeyService = ( ( clientKeyService instanceof VersionedClientKeyService )
+                && ( (VersionedClientKeyService) clientKeyService ).isVersioned( ) ) ? (VersionedClientKeyService) clientKeyService : null;
+        _evictor = new CacheEvictor( nMaxSize );
+        _lTtl = lTtl;
+        _lNegativeTtl = lNegativeTtl;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getKey( String strClientId )
+    {
+        if ( strClientId == null )
+        {
+            return _clientKeyService.getKey( strClientId );
+        }
+
+        return getEntry( strClientId )._strKey;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public KeyRing getKeyRing( String strClientId )
+    {
+        if ( _versionedClientKeyService == null )
+        {
+            String strKey = getKey( strClientId );
+
+            return ( strKey != null ) ? KeyRing.of( strKey ) : null;
+        }
+
+        if ( strClientId == null )
+        {
+            return _versionedClientKeyService.getKeyRing( strClientId );
+        }
+
+        return getEntry( strClientId )._keyRing;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isVersioned( )
+    {
+        return _versionedClientKeyService != null;
+    }
+
+    /**
+     * Gets the cached entry of a client, loading it on a miss
+     * 
+     * @param strClientId
+     *            The client ID
+     * @return The entry
+     */
+    private Entry getEntry( String strClientId )
+    {
+        long lNow = _clock.millis( );
+        Entry entry = _mapEntries.get( strClientId );
+
+        if ( ( entry != null ) && ( lNow < entry.getExpiresAt( ) ) )
+        {
+            _hits.increment( );
+            entry.touch( lNow );
+
+            if ( ( lNow >= entry._lRefreshAt ) && entry._bRefreshing.compareAndSet( false, true ) )
+            {
+                refresh( strClientId, entry );
+            }
+
+            return entry;
+        }
+
+        _misses.increment( );
+
+        return load( strClientId );
+    }
+
+    /**
+     * Sets the executor running the refreshes ahead of expiration, instead of the default pool of the library
+     * 
+     * @param executor
+     *            The executor
+     */
+    public void setRefreshExecutor( Executor executor )
+    {
+        _refreshExecutor = executor;
+    }
+
+    /**
+     * Sets the clock giving the current time, for the tests
+     * 
+     * @param clock
+     *            The clock
+     */
+    void setClock( Clock clock )
+    {
+        _clock = clock;
+    }
+
+    /**
+     * Removes the cached key of a client, for instance after a key change. A load in progress is not shared with the next lookups and does not cache
+     * its result.
+     * 
+     * @param strClientId
+     *            The client ID
+     */
+    public void invalidate( String strClientId )
+    {
+        _lGeneration.incrementAndGet( );
+        _mapLoads.remove( strClientId );
+        _mapEntries.remove( strClientId );
+    }
+
+    /**
+     * Removes all the cached keys
+     */
+    public void clear( )
+    {
+        _lGeneration.incrementAndGet( );
+        _mapLoads.clear( );
+        _mapEntries.clear( );
+    }
+
+    /**
+     * Gets the number of client IDs cached
+     * 
+     * @return The number of entries
+     */
+    public int size( )
+    {
+        return _mapEntries.size( );
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache
+     * 
+     * @return The hit count
+     */
+    public long getHitCount( )
+    {
+        return _hits.sum( );
+    }
+
+    /**
+     * Gets the number of lookups not answered from the cache
+     * 
+     * @return The miss count
+     */
+    public long getMissCount( )
+    {
+        return _misses.sum( );
+    }
+
+    /**
+     * Gets the number of calls to the underlying client key service
+     * 
+     * @return The load count
+     */
+    public long getLoadCount( )
+    {
+        return _loads.sum( );
+    }
+
+    /**
+     * Gets the number of calls to the underlying client key service that failed
+     * 
+     * @return The failure count
+     */
+    public long getLoadFailureCount( )
+    {
+        return _loadFailures.sum( );
+    }
+
+    /**
+     * Gets the total time spent in the underlying client key service
+     * 
+     * @return The time in nanoseconds
+     */
+    public long getTotalLoadTime( )
+    {
+        return _loadTime.sum( );
+    }
+
+    /**
+     * Gets the number of refreshes ahead of expiration
+     * 
+     * @return The refresh count
+     */
+    public long getRefreshCount( )
+    {
+        return _refreshes.sum( );
+    }
+
+    /**
+     * Gets the number of entries evicted to keep the cache within its size
+     * 
+     * @return The eviction count
+     */
+    public long getEvictionCount( )
+    {
+        return _evictor.getEvictionCount( );
+    }
+
+    /**
+     * Loads the key of a client, sharing the load in progress if any
+     * 
+     * @param strClientId
+     *            The client ID
+     * @return The entry
+     */
+    private Entry load( String strClientId )
+    {
+        CompletableFuture<Entry> future = new CompletableFuture<>( );
+        CompletableFuture<Entry> loading = _mapLoads.putIfAbsent( strClientId, future );
+
+        if ( loading != null )
+        {
+            try
+            {
+                return loading.join( );
+            }
+            catch( CompletionException e )
+            {
+                if ( e.getCause( ) instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause( );
+                }
+
+                throw e;
+            }
+        }
+
+        try
+        {
+            Entry entry = loadEntry( strClientId );
+            future.complete( entry );
+
+            return entry;
+        }
+        catch( RuntimeException e )
+        {
+            future.completeExceptionally( e );
+
+            throw e;
+        }
+        finally
+        {
+            _mapLoads.remove( strClientId, future );
+        }
+    }
+
+    /**
+     * Calls the underlying client key service and caches its result
+     * 
+     * @param strClientId
+     *            The client ID
+     * @return The entry
+     */
+    private Entry loadEntry( String strClientId )
+    {
+        long lGeneration = _lGeneration.get( );
+        long lStart = System.nanoTime( );
+        KeyRing keyRing = null;
+        String strKey;
+
+        try
+        {
+            if ( _versionedClientKeyService != null )
+            {
+                keyRing = _versionedClientKeyService.getKeyRing( strClientId );
+                strKey = ( keyRing != null ) ? keyRing.getCurrentKey( ) : null;
+            }
+            else
+            {
+                strKey = _clientKeyService.getKey( strClientId );
+            }
+        }
+        catch( RuntimeException e )
+        {
+            _loadFailures.increment( );
+
+            throw e;
+        }
+        finally
+        {
+            _loads.increment( );
+            _loadTime.add( System.nanoTime( ) - lStart );
+        }
+
+        long lNow = _clock.millis( );
+        Entry entry = new Entry( strKey, keyRing, lNow, ( strKey != null ) ? _lTtl : _lNegativeTtl );
+
+        // A load started before an invalidation must not replace the entry of a newer load
+        if ( ( entry.getExpiresAt( ) > lNow ) && ( _lGeneration.get( ) == lGeneration ) )
+        {
+            _mapEntries.put( strClientId, entry );
+
+            // Checked after the put : an invalidation either sees the entry or is seen here
+            if ( _lGeneration.get( ) != lGeneration )
+            {
+                _mapEntries.remove( strClientId, entry );
+            }
+            else
+            {
+                _evictor.evictIfFull( _mapEntries, lNow );
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Reloads the key of a client on the refresh executor
+     * 
+     * @param strClientId
+     *            The client ID
+     * @param entry
+     *            The current entry
+     */
+    private void refresh( String strClientId, Entry entry )
+    {
+        try
+        {
+            getRefreshExecutor( ).execute( ( ) -> {
+                try
+                {
+                    load( strClientId );
+                    _refreshes.increment( );
+                }
+                catch( RuntimeException e )
+                {
+                    // The current key is kept until it expires, the next lookup will try again
+                    entry._bRefreshing.set( false );
+                    _logger.warn( "SignRequest - Unable to refresh the key of the client " + strClientId, e );
+                }
+            } );
+        }
+        catch( RejectedExecutionException e )
+        {
+            entry._bRefreshing.set( false );
+            _logger.warn( "SignRequest - Refresh of the key of the client " + strClientId + " rejected by the executor" );
+        }
+    }
+
+    /**
+     * Gets the refresh executor. Loads may block on a remote key store : by default they run on the worker executor of the library, not on the shared
+     * scheduler whose tasks must be short.
+     * 
+     * @return The executor
+     */
+    private Executor getRefreshExecutor( )
+    {
+        Executor executor = _refreshExecutor;
+
+        return ( executor != null ) ? executor : SchedulerService.getInstance( ).getWorkerExecutor( );
+    }
+
+    /**
+     * Cached key of a client, null for an unknown client
+     */
+    private static final class Entry extends CacheEvictor.Entry
+    {
+        private final String _strKey;
+        private final KeyRing _keyRing;
+        private final long _lRefreshAt;
+        private final AtomicBoolean _bRefreshing = new AtomicBoolean( );
+
+        /**
+         * Constructor
+         * 
+         * @param strKey
+         *            The key, null for an unknown client
+         * @param keyRing
+         *            The keys of the client when they are versioned, otherwise null
+         * @param lNow
+         *            The load time
+         * @param lTtl
+         *            The time to live
+         */
+        Entry( String strKey, KeyRing keyRing, long lNow, long lTtl )
+        {
+            super( lNow + lTtl, lNow );
+            _strKey = strKey;
+            _keyRing = keyRing;
+            _lRefreshAt = ( strKey != null ) ? ( lNow + (long) ( lTtl * REFRESH_AHEAD_FRACTION ) ) : getExpiresAt( );
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.paris.lutece.util.signrequest.security.Hkdf;
+import fr.paris.lutece.util.signrequest.security.KeyRing;
+
+/**
+ * Client key service deriving the key of each client from a master secret, so that no key has to be stored nor looked up.
+ * <p>
+ * The key of a client is HKDF-SHA256( master secret, salt, "lutece-signrequest:v" + version + ":" + client ID ), encoded in hexadecimal. Changing the
+ * version changes all the keys : during a rotation, the previous versions stay accepted until every client uses the new one. Derived keys are kept
+ * in a bounded cache, the least recently used ones evicted first, and the HMAC hash services keep the pads of the keys they use : a known client
+ * costs no derivation nor key setup. The key to give to a new client is issued by getKey.
+ * </p>
+ * <p>
+ * Any client ID gets a key : this service replaces the key lookup, not the check that the client is allowed.
+ * </p>
+ */
+public class DerivedClientKeyService implements VersionedClientKeyService
+{
+    private static final String INFO_PREFIX = "lutece-signrequest:v";
+    private static final int KEY_LENGTH = 32;
+    private static final int DEFAULT_MAX_KEYS = 1024;
+
+    private final byte [ ] _masterSecret;
+    private final byte [ ] _salt;
+    private final int _nVersion;
+    private final Map<String, Entry> _mapKeys = new ConcurrentHashMap<>( );
+    private volatile CacheEvictor _evictor = new CacheEvictor( DEFAULT_MAX_KEYS );
+    private volatile int [ ] _previousVersions = new int [ 0];
+
+    /**
+     * Constructor
+     * 
+     * @param strMasterSecret
+     *            The master secret
+     * @param strSalt
+     *            The salt, null for none
+     * @param nVersion
+     *            The version of the keys
+     */
+    public DerivedClientKeyService( String strMasterSecret, String strSalt, int nVersion )
+    {
+        if ( ( strMasterSecret == null ) || strMasterSecret.isEmpty( ) )
+        {
+            throw new IllegalArgumentException( "The master secret is not defined" );
+        }
+
+        _masterSecret = strMasterSecret.getBytes( StandardCharsets.UTF_8 );
+        _salt = ( strSalt != null ) ? strSalt.getBytes( StandardCharsets.UTF_8 ) : null;
+        _nVersion = nVersion;
+    }
+
+    /**
+     * Sets the maximum number of derived keys cached
+     * 
+     * @param nMaxKeys
+     *            The maximum number of keys
+     */
+    public void setMaxKeys( int nMaxKeys )
+    {
+        _evictor = new CacheEvictor( nMaxKeys );
+    }
+
+    /**
+     * Gets the number of client key rings cached
+     * 
+     * @return The number of entries
+     */
+    public int size( )
+    {
+        return _mapKeys.size( );
+    }
+
+    /**
+     * Sets the previous versions of the keys, still accepted during a rotation
+     * 
+     * @param previousVersions
+     *            The previous versions, newest first
+     */
+    public void setPreviousVersions( int... previousVersions )
+    {
+        _previousVersions = previousVersions.clone( );
+        _mapKeys.clear( );
+    }
+
+    /**
+     * Gets the version of the keys
+     * 
+     * @return The version
+     */
+    public int getVersion( )
+    {
+        return _nVersion;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public KeyRing getKeyRing( String strClientId )
+    {
+        if ( strClientId == null )
+        {
+            return null;
+        }
+
+        long lNow = System.currentTimeMillis( );
+        Entry entry = _mapKeys.get( strClientId );
+
+        if ( entry != null )
+        {
+            entry.touch( lNow );
+
+            return entry._keyRing;
+        }
+
+        Map<String, String> mapKeys = new LinkedHashMap<>( );
+        mapKeys.put( String.valueOf( _nVersion ), deriveKey( strClientId, _nVersion ) );
+
+        for ( int nVersion : _previousVersions )
+        {
+            mapKeys.put( String.valueOf( nVersion ), deriveKey( strClientId, nVersion ) );
+        }
+
+        KeyRing keyRing = new KeyRing( mapKeys );
+        _mapKeys.put( strClientId, new Entry( keyRing, lNow ) );
+        _evictor.evictIfFull( _mapKeys, lNow );
+
+        return keyRing;
+    }
+
+    /**
+     * Derives the key of a client, without the cache
+     * 
+     * @param strClientId
+     *            The client ID
+     * @param nVersion
+     *            The version of the key
+     * @return The key in hexadecimal
+     */
+    public String deriveKey( String strClientId, int nVersion )
+    {
+        byte [ ] info = ( INFO_PREFIX + nVersion + ":" + strClientId ).getBytes( StandardCharsets.UTF_8 );
+
+        return HexFormat.of( ).formatHex( Hkdf.derive( _masterSecret, _salt, info, KEY_LENGTH ) );
+    }
+
+    /**
+     * Cached key ring of a client, never expiring
+     */
+    private static final class Entry extends CacheEvictor.Entry
+    {
+        private final KeyRing _keyRing;
+
+        /**
+         * Constructor
+         * 
+         * @param keyRing
+         *            The key ring
+         * @param lNow
+         *            The current time
+         */
+        Entry( KeyRing keyRing, long lNow )
+        {
+            super( Long.MAX_VALUE, lNow );
+            _keyRing = keyRing;
+        }
+    }
+}
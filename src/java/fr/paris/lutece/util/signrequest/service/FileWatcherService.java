@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Notifies listeners when watched files are created or modified. A single daemon thread watches the parent directories of all the registered files and
+ * runs the listeners. Events received within a short delay are coalesced, so a listener runs once per burst of writes.
+ * <p>
+ * The thread is started by the first registration and stopped by {@link #shutdown()}, which the web application calls when it is undeployed.
+ * </p>
+ */
+public final class FileWatcherService
+{
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+    private static final String THREAD_NAME = "signrequest-file-watcher";
+    private static final long COALESCE_DELAY = 100L;
+    private static final FileWatcherService _singleton = new FileWatcherService( );
+
+    private final Map<Path, List<Runnable>> _mapListeners = new ConcurrentHashMap<>( );
+    private final Map<Path, WatchKey> _mapWatchKeys = new HashMap<>( );
+    private WatchService _watchService;
+
+    /**
+     * Private constructor
+     */
+    private FileWatcherService( )
+    {
+    }
+
+    /**
+     * Returns the unique instance
+     * 
+     * @return The instance
+     */
+    public static FileWatcherService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * Registers a listener called each time a file is created or modified
+     * 
+     * @param file
+     *            The file
+     * @param listener
+     *            The listener, run by the watcher thread
+     * @throws IOException
+     *             If the directory of the file can not be watched
+     */
+    public synchronized void register( Path file, Runnable listener ) throws IOException
+    {
+        Path path = file.toAbsolutePath( ).normalize( );
+        Path directory = path.getParent( );
+
+        if ( _watchService == null )
+        {
+            WatchService watchService = FileSystems.getDefault( ).newWatchService( );
+            _watchService = watchService;
+
+            Thread thread = new Thread( ( ) -> watch( watchService ), THREAD_NAME );
+            thread.setDaemon( true );
+            thread.start( );
+        }
+
+        if ( !_mapWatchKeys.containsKey( directory ) )
+        {
+            _mapWatchKeys.put( directory,
+                    directory.register( _watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY ) );
+        }
+
+        _mapListeners.computeIfAbsent( path, p -> new CopyOnWriteArrayList<>( ) ).add( listener );
+    }
+
+    /**
+     * Unregisters a listener
+     * 
+     * @param file
+     *            The file
+     * @param listener
+     *            The listener
+     */
+    public synchronized void unregister( Path file, Runnable listener )
+    {
+        Path path = file.toAbsolutePath( ).normalize( );
+        List<Runnable> listListeners = _mapListeners.get( path );
+
+        if ( ( listListeners == null ) || !listListeners.remove( listener ) || !listListeners.isEmpty( ) )
+        {
+            return;
+        }
+
+        _mapListeners.remove( path );
+
+        Path directory = path.getParent( );
+
+        if ( _mapListeners.keySet( ).stream( ).noneMatch( p -> directory.equals( p.getParent( ) ) ) )
+        {
+            WatchKey key = _mapWatchKeys.remove( directory );
+
+            if ( key != null )
+            {
+                key.cancel( );
+            }
+        }
+    }
+
+    /**
+     * Stops watching all the files and stops the watcher thread. The listeners registered so far are dropped, the thread is started again by the next
+     * registration.
+     */
+    public synchronized void shutdown( )
+    {
+        _mapListeners.clear( );
+        _mapWatchKeys.clear( );
+
+        if ( _watchService != null )
+        {
+            try
+            {
+                // The watcher thread ends on the ClosedWatchServiceException
+                _watchService.close( );
+            }
+            catch( IOException e )
+            {
+                _logger.warn( "SignRequest - Unable to close the file watcher", e );
+            }
+
+            _watchService = null;
+        }
+    }
+
+    /**
+     * Watcher thread loop
+     * 
+     * @param watchService
+     *            The watch service of the thread
+     */
+    private void watch( WatchService watchService )
+    {
+        try
+        {
+            while ( true )
+            {
+                Set<Path> setChanged = new LinkedHashSet<>( );
+                WatchKey key = watchService.take( );
+
+                // Let the writer finish and coalesce the events of the burst
+                Thread.sleep( COALESCE_DELAY );
+
+                while ( key != null )
+                {
+                    collect( key, setChanged );
+                    key = watchService.poll( );
+                }
+
+                for ( Path path : setChanged )
+                {
+                    notifyListeners( path );
+                }
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+        catch( ClosedWatchServiceException e )
+        {
+            _logger.debug( "SignRequest - File watcher closed" );
+        }
+    }
+
+    /**
+     * Collects the watched files changed according to a watch key
+     * 
+     * @param key
+     *            The watch key
+     * @param setChanged
+     *            The changed files
+     */
+    private void collect( WatchKey key, Set<Path> setChanged )
+    {
+        Path directory = (Path) key.watchable( );
+
+        for ( WatchEvent<?> event : key.pollEvents( ) )
+        {
+            if ( event.kind( ) == StandardWatchEventKinds.OVERFLOW )
+            {
+                // Events were lost : consider all the files of the directory as changed
+                _mapListeners.keySet( ).stream( ).filter( p -> directory.equals( p.getParent( ) ) ).forEach( setChanged::add );
+            }
+            else
+            {
+                Path path = directory.resolve( (Path) event.context( ) );
+
+                if ( _mapListeners.containsKey( path ) )
+                {
+                    setChanged.add( path );
+                }
+            }
+        }
+
+        key.reset( );
+    }
+
+    /**
+     * Runs the listeners of a file
+     * 
+     * @param path
+     *            The file
+     */
+    private void notifyListeners( Path path )
+    {
+        for ( Runnable listener : _mapListeners.getOrDefault( path, List.of( ) ) )
+        {
+            try
+            {
+                listener.run( );
+            }
+            catch( RuntimeException e )
+            {
+                _logger.error( "SignRequest - Error while processing a change of file " + path, e );
+            }
+        }
+    }
+}
@@ -0,0 +1,569 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Client key service reading the keys from a memory mapped index file.
+ * <p>
+ * The index is written by writeIndex, from a map of keys that readClients can read from a CSV or properties file. It holds a table of client ID
+ * hashes sorted for a binary search, followed by the client IDs and keys in UTF-8. The file is mapped read-only : startup does not read the keys, and they stay out of the heap
+ * until they are looked up. When a new index file replaces the current one, it is mapped and swapped with a single volatile write. A file that can
+ * not be mapped or is not a valid index is ignored and the previous index is kept.
+ * </p>
+ */
+public class MappedClientKeyService implements EnumerableClientKeyService
+{
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+
+    // "CKIX"
+    private static final int MAGIC = 0x434B4958;
+    private static final int VERSION = 1;
+
+    // Header : magic, version, client count, padding
+    private static final int HEADER_SIZE = 16;
+    private static final int OFFSET_COUNT = 8;
+
+    // Records : hash of the client ID, offset of the client ID and key
+    private static final int RECORD_SIZE = 12;
+    private static final int MAX_LENGTH = 0xFFFF;
+    private static final String PROPERTIES_EXTENSION = ".properties";
+
+    private final Path _path;
+    private final Runnable _listener = this::reload;
+    private final AtomicLong _lReloadCount = new AtomicLong( );
+    private final AtomicLong _lReloadFailureCount = new AtomicLong( );
+    private volatile Index _index;
+    private volatile long _lLastReloadDuration;
+
+    /**
+     * Constructor. Maps the index and watches the file.
+     * 
+     * @param path
+     *            The index file
+     */
+    public MappedClientKeyService( Path path )
+    {
+        _path = path;
+
+        reload( );
+
+        try
+        {
+            FileWatcherService.getInstance( ).register( _path, _listener );
+        }
+        catch( IOException e )
+        {
+            _logger.warn( "SignRequest - Unable to watch " + _path + ", client keys will not be reloaded", e );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getKey( String strClientId )
+    {
+        Index index = _index;
+
+        return ( ( index != null ) && ( strClientId != null ) ) ? index.getKey( strClientId ) : null;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Collection<String> getClientIds( )
+    {
+        Index index = _index;
+
+        return ( index != null ) ? index.getClientIds( ) : new ArrayList<>( );
+    }
+
+    /**
+     * Maps the index file and publishes it
+     * 
+     * @return true if the file has been mapped
+     */
+    public boolean reload( )
+    {
+        long lStart = System.nanoTime( );
+
+        try ( FileChannel channel = FileChannel.open( _path, StandardOpenOption.READ ) )
+        {
+            long lSize = channel.size( );
+
+            if ( lSize > Integer.MAX_VALUE )
+            {
+                throw new IOException( "Index file too large" );
+            }
+
+            // The mapping stays valid once the channel is closed
+            Index index = new Index( channel.map( FileChannel.MapMode.READ_ONLY, 0, lSize ) );
+            _index = index;
+            _lReloadCount.incrementAndGet( );
+            _logger.info( "SignRequest - " + index._nCount + " client keys mapped from " + _path );
+
+            return true;
+        }
+        catch( IOException | RuntimeException e )
+        {
+            _lReloadFailureCount.incrementAndGet( );
+            _logger.error( "SignRequest - Unable to map the client keys from " + _path, e );
+
+            return false;
+        }
+        finally
+        {
+            _lLastReloadDuration = System.nanoTime( ) - lStart;
+        }
+    }
+
+    /**
+     * Stops watching the file
+     */
+    public void close( )
+    {
+        FileWatcherService.getInstance( ).unregister( _path, _listener );
+    }
+
+    /**
+     * Gets the number of clients
+     * 
+     * @return The number of clients of the current index
+     */
+    public int size( )
+    {
+        Index index = _index;
+
+        return ( index != null ) ? index._nCount : 0;
+    }
+
+    /**
+     * Gets the number of successful loads
+     * 
+     * @return The count
+     */
+    public long getReloadCount( )
+    {
+        return _lReloadCount.get( );
+    }
+
+    /**
+     * Gets the number of failed loads
+     * 
+     * @return The count
+     */
+    public long getReloadFailureCount( )
+    {
+        return _lReloadFailureCount.get( );
+    }
+
+    /**
+     * Gets the duration of the last load
+     * 
+     * @return The duration in nanoseconds
+     */
+    public long getLastReloadDuration( )
+    {
+        return _lLastReloadDuration;
+    }
+
+    /**
+     * Writes an index file. The file is written aside then moved, so that the services mapping the previous file keep reading it until they swap.
+     * 
+     * @param mapClients
+     *            The keys by client ID
+     * @param path
+     *            The index file
+     * @throws IOException
+     *             If the file can not be written
+     */
+    public static void writeIndex( Map<String, String> mapClients, Path path ) throws IOException
+    {
+        int nCount = mapClients.size( );
+        long [ ] hashes = new long [ nCount];
+        byte [ ] [ ] ids = new byte [ nCount] [ ];
+        byte [ ] [ ] keys = new byte [ nCount] [ ];
+        Integer [ ] order = new Integer [ nCount];
+        long lSize = HEADER_SIZE + ( (long) nCount * RECORD_SIZE );
+        int i = 0;
+
+        for ( Map.Entry<String, String> client : mapClients.entrySet( ) )
+        {
+            hashes [i] = hash( client.getKey( ) );
+            ids [i] = client.getKey( ).getBytes( StandardCharsets.UTF_8 );
+            keys [i] = client.getValue( ).getBytes( StandardCharsets.UTF_8 );
+
+            if ( ( ids [i].length > MAX_LENGTH ) || ( keys [i].length > MAX_LENGTH ) )
+            {
+                throw new IllegalArgumentException( "Client ID or key too long : " + client.getKey( ) );
+            }
+
+            order [i] = i;
+            lSize += 4 + ids [i].length + keys [i].length;
+            i++;
+        }
+
+        if ( lSize > Integer.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( "Too many clients for an index file" );
+        }
+
+        Arrays.sort( order, ( n1, n2 ) -> Long.compare( hashes [n1], hashes [n2] ) );
+
+        ByteBuffer buffer = ByteBuffer.allocate( (int) lSize );
+        buffer.putInt( MAGIC ).putInt( VERSION ).putInt( nCount ).putInt( 0 );
+
+        int nOffset = HEADER_SIZE + ( nCount * RECORD_SIZE );
+
+        for ( int nRecord = 0; nRecord < nCount; nRecord++ )
+        {
+            int nClient = order [nRecord];
+            buffer.putLong( hashes [nClient] ).putInt( nOffset );
+            nOffset += 4 + ids [nClient].length + keys [nClient].length;
+        }
+
+        for ( int nRecord = 0; nRecord < nCount; nRecord++ )
+        {
+            int nClient = order [nRecord];
+            buffer.putShort( (short) ids [nClient].length ).put( ids [nClient] );
+            buffer.putShort( (short) keys [nClient].length ).put( keys [nClient] );
+        }
+
+        buffer.flip( );
+
+        Path temp = path.resolveSibling( path.getFileName( ) + ".tmp" );
+
+        try ( FileChannel channel = FileChannel.open( temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) )
+        {
+            while ( buffer.hasRemaining( ) )
+            {
+                channel.write( buffer );
+            }
+        }
+
+        Files.move( temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    /**
+     * Reads the keys by client ID from a properties file (clientId=key) or a CSV file (clientId,key or clientId;key)
+     * 
+     * @param path
+     *            The file
+     * @return The keys by client ID
+     * @throws IOException
+     *             If the file can not be read
+     */
+    public static Map<String, String> readClients( Path path ) throws IOException
+    {
+        Map<String, String> mapClients = new LinkedHashMap<>( );
+
+        if ( path.getFileName( ).toString( ).endsWith( PROPERTIES_EXTENSION ) )
+        {
+            Properties properties = new Properties( );
+
+            try ( Reader reader = Files.newBufferedReader( path, StandardCharsets.UTF_8 ) )
+            {
+                properties.load( reader );
+            }
+
+            for ( String strClientId : properties.stringPropertyNames( ) )
+            {
+                mapClients.put( strClientId, properties.getProperty( strClientId ) );
+            }
+
+            return mapClients;
+        }
+
+        try ( BufferedReader reader = Files.newBufferedReader( path, StandardCharsets.UTF_8 ) )
+        {
+            String strLine;
+            int nLine = 0;
+
+            while ( ( strLine = reader.readLine( ) ) != null )
+            {
+                nLine++;
+                strLine = strLine.trim( );
+
+                if ( strLine.isEmpty( ) || ( strLine.charAt( 0 ) == '#' ) )
+                {
+                    continue;
+                }
+
+                int nSeparator = strLine.indexOf( ',' );
+
+                if ( nSeparator < 0 )
+                {
+                    nSeparator = strLine.indexOf( ';' );
+                }
+
+                if ( nSeparator <= 0 )
+                {
+                    throw new IOException( "Invalid client line " + nLine + " in " + path );
+                }
+
+                mapClients.put( strLine.substring( 0, nSeparator ).trim( ), strLine.substring( nSeparator + 1 ).trim( ) );
+            }
+        }
+
+        return mapClients;
+    }
+
+    /**
+     * Hashes a client ID
+     * 
+     * @param strClientId
+     *            The client ID
+     * @return The 64 bits hash, stored in the index file
+     */
+    private static long hash( String strClientId )
+    {
+        long lHash = 0xcbf29ce484222325L;
+
+        for ( int i = 0; i < strClientId.length( ); i++ )
+        {
+            lHash = ( lHash ^ strClientId.charAt( i ) ) * 0x100000001b3L;
+        }
+
+        lHash = ( lHash ^ ( lHash >>> 33 ) ) * 0xff51afd7ed558ccdL;
+        lHash = ( lHash ^ ( lHash >>> 33 ) ) * 0xc4ceb9fe1a85ec53L;
+
+        return lHash ^ ( lHash >>> 33 );
+    }
+
+    /**
+     * Mapped index
+     */
+    private static final class Index
+    {
+        private final ByteBuffer _buffer;
+        private final int _nCount;
+
+        /**
+         * Constructor
+         * 
+         * @param buffer
+         *            The content of the index file
+         * @throws IllegalArgumentException
+         *             If the content is not a valid index
+         */
+        Index( ByteBuffer buffer )
+        {
+            if ( ( buffer.capacity( ) < HEADER_SIZE ) || ( buffer.getInt( 0 ) != MAGIC ) || ( buffer.getInt( 4 ) != VERSION ) )
+            {
+                throw new IllegalArgumentException( "Not a client key index" );
+            }
+
+            _buffer = buffer;
+            _nCount = buffer.getInt( OFFSET_COUNT );
+            validate( );
+        }
+
+        /**
+         * Checks that the records are sorted and that the client IDs and keys are within the file, so that a lookup never reads outside the buffer
+         * 
+         * @throws IllegalArgumentException
+         *             If the index is not consistent
+         */
+        private void validate( )
+        {
+            int nCapacity = _buffer.capacity( );
+
+            if ( ( _nCount < 0 ) || ( ( HEADER_SIZE + ( (long) _nCount * RECORD_SIZE ) ) > nCapacity ) )
+            {
+                throw new IllegalArgumentException( "Invalid client count" );
+            }
+
+            long lPreviousHash = Long.MIN_VALUE;
+
+            for ( int i = 0; i < _nCount; i++ )
+            {
+                int nRecord = HEADER_SIZE + ( i * RECORD_SIZE );
+                long lHash = _buffer.getLong( nRecord );
+                long lOffset = _buffer.getInt( nRecord + 8 );
+
+                if ( ( lHash < lPreviousHash ) || ( lOffset < HEADER_SIZE ) || ( ( lOffset + 2 ) > nCapacity ) )
+                {
+                    throw new IllegalArgumentException( "Invalid record " + i );
+                }
+
+                long lKeyOffset = lOffset + 2 + ( _buffer.getShort( (int) lOffset ) & MAX_LENGTH );
+
+                if ( ( ( lKeyOffset + 2 ) > nCapacity ) || ( ( lKeyOffset + 2 + ( _buffer.getShort( (int) lKeyOffset ) & MAX_LENGTH ) ) > nCapacity ) )
+                {
+                    throw new IllegalArgumentException( "Invalid record " + i );
+                }
+
+                lPreviousHash = lHash;
+            }
+        }
+
+        /**
+         * Gets the key of a client
+         * 
+         * @param strClientId
+         *            The client ID
+         * @return The key or null if the client is unknown
+         */
+        String getKey( String strClientId )
+        {
+            long lHash = hash( strClientId );
+            int nFrom = 0;
+            int nTo = _nCount;
+
+            // First record with this hash
+            while ( nFrom < nTo )
+            {
+                int nMiddle = ( nFrom + nTo ) >>> 1;
+
+                if ( _buffer.getLong( HEADER_SIZE + ( nMiddle * RECORD_SIZE ) ) < lHash )
+                {
+                    nFrom = nMiddle + 1;
+                }
+                else
+                {
+                    nTo = nMiddle;
+                }
+            }
+
+            byte [ ] id = null;
+
+            for ( int i = nFrom; ( i < _nCount ) && ( _buffer.getLong( HEADER_SIZE + ( i * RECORD_SIZE ) ) == lHash ); i++ )
+            {
+                int nOffset = _buffer.getInt( HEADER_SIZE + ( i * RECORD_SIZE ) + 8 );
+                int nIdLength = _buffer.getShort( nOffset ) & MAX_LENGTH;
+
+                if ( id == null )
+                {
+                    id = strClientId.getBytes( StandardCharsets.UTF_8 );
+                }
+
+                if ( matches( nOffset + 2, nIdLength, id ) )
+                {
+                    int nKeyOffset = nOffset + 2 + nIdLength;
+
+                    return readString( nKeyOffset + 2, _buffer.getShort( nKeyOffset ) & MAX_LENGTH );
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Gets all the client IDs
+         * 
+         * @return The client IDs
+         */
+        List<String> getClientIds( )
+        {
+            List<String> listClientIds = new ArrayList<>( _nCount );
+
+            for ( int i = 0; i < _nCount; i++ )
+            {
+                int nOffset = _buffer.getInt( HEADER_SIZE + ( i * RECORD_SIZE ) + 8 );
+                listClientIds.add( readString( nOffset + 2, _buffer.getShort( nOffset ) & MAX_LENGTH ) );
+            }
+
+            return listClientIds;
+        }
+
+        /**
+         * Compares bytes of the index with a client ID
+         * 
+         * @param nOffset
+         *            The offset of the bytes
+         * @param nLength
+         *            The number of bytes
+         * @param id
+         *            The client ID in UTF-8
+         * @return true if the bytes are the client ID
+         */
+        private boolean matches( int nOffset, int nLength, byte [ ] id )
+        {
+            if ( nLength != id.length )
+            {
+                return false;
+            }
+
+            for ( int i = 0; i < nLength; i++ )
+            {
+                if ( _buffer.get( nOffset + i ) != id [i] )
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Reads an UTF-8 string
+         * 
+         * @param nOffset
+         *            The offset of the bytes
+         * @param nLength
+         *            The number of bytes
+         * @return The string
+         */
+        private String readString( int nOffset, int nLength )
+        {
+            byte [ ] bytes = new byte [ nLength];
+            _buffer.get( nOffset, bytes );
+
+            return new String( bytes, StandardCharsets.UTF_8 );
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Shared scheduler for the background tasks of the library (token refresh, cache maintenance...). Its daemon threads never prevent the JVM from
+ * exiting. Tasks must be short : long running work, such as listing all the clients of a database, should be handed to the worker executor.
+ * <p>
+ * The threads are started on first use and stopped by {@link #shutdown()}, which the web application calls when it is undeployed.
+ * </p>
+ */
+public final class SchedulerService
+{
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+    private static final String THREAD_NAME = "signrequest-scheduler-";
+    private static final String WORKER_THREAD_NAME = "signrequest-worker-";
+    private static final int POOL_SIZE = 2;
+    private static final int WORKER_POOL_SIZE = 4;
+    private static final long WORKER_KEEP_ALIVE = 60L;
+    private static final SchedulerService _singleton = new SchedulerService( );
+
+    private ScheduledThreadPoolExecutor _executor;
+    private ThreadPoolExecutor _workerExecutor;
+
+    /**
+     * Private constructor
+     */
+    private SchedulerService( )
+    {
+    }
+
+    /**
+     * Creates a factory of named daemon threads
+     * 
+     * @param strName
+     *            The prefix of the thread names
+     * @return The factory
+     */
+    private static ThreadFactory newThreadFactory( String strName )
+    {
+        AtomicInteger nThreadCount = new AtomicInteger( );
+
+        return runnable -> {
+            Thread thread = new Thread( runnable, strName + nThreadCount.incrementAndGet( ) );
+            thread.setDaemon( true );
+
+            return thread;
+        };
+    }
+
+    /**
+     * Returns the unique instance
+     * 
+     * @return The instance
+     */
+    public static SchedulerService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * Runs a task once after a delay
+     * 
+     * @param task
+     *            The task
+     * @param lDelay
+     *            The delay in milliseconds
+     * @return The future of the task, to cancel it
+     */
+    public ScheduledFuture<?> schedule( Runnable task, long lDelay )
+    {
+        return getExecutor( ).schedule( guard( task ), Math.max( 0L, lDelay ), TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Runs a task periodically
+     * 
+     * @param task
+     *            The task
+     * @param lPeriod
+     *            The delay between the end of a run and the start of the next one, in milliseconds
+     * @return The future of the task, to cancel it
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay( Runnable task, long lPeriod )
+    {
+        return getExecutor( ).scheduleWithFixedDelay( guard( task ), lPeriod, lPeriod, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Gets the underlying executor
+     * 
+     * @return The executor
+     */
+    public synchronized ScheduledExecutorService getExecutor( )
+    {
+        if ( _executor == null )
+        {
+            _executor = new ScheduledThreadPoolExecutor( POOL_SIZE, newThreadFactory( THREAD_NAME ) );
+            _executor.setRemoveOnCancelPolicy( true );
+        }
+
+        return _executor;
+    }
+
+    /**
+     * Gets the executor of the long running background work, a small pool of daemon threads released when idle
+     * 
+     * @return The executor
+     */
+    public synchronized ExecutorService getWorkerExecutor( )
+    {
+        if ( _workerExecutor == null )
+        {
+            _workerExecutor = new ThreadPoolExecutor( WORKER_POOL_SIZE, WORKER_POOL_SIZE, WORKER_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>( ),
+                    newThreadFactory( WORKER_THREAD_NAME ) );
+            _workerExecutor.allowCoreThreadTimeOut( true );
+        }
+
+        return _workerExecutor;
+    }
+
+    /**
+     * Cancels the pending tasks and stops the threads. They are started again if a task is scheduled afterwards.
+     */
+    public synchronized void shutdown( )
+    {
+        if ( _executor != null )
+        {
+            _executor.shutdownNow( );
+            _executor = null;
+        }
+
+        if ( _workerExecutor != null )
+        {
+            _workerExecutor.shutdownNow( );
+            _workerExecutor = null;
+        }
+
+        _logger.debug( "SignRequest - Scheduler stopped" );
+    }
+
+    /**
+     * Logs the errors of a task so that a periodic task is not silently cancelled
+     * 
+     * @param task
+     *            The task
+     * @return The guarded task
+     */
+    private static Runnable guard( Runnable task )
+    {
+        return ( ) -> {
+            try
+            {
+                task.run( );
+            }
+            catch( RuntimeException e )
+            {
+                _logger.error( "SignRequest - Error in a scheduled task", e );
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import fr.paris.lutece.util.signrequest.security.KeyRing;
+
+/**
+ * Client key service giving several versions of the key of a client, to rotate client keys without downtime. The decorators of client key services
+ * (cache, filter) implement it too, and tell with {@link #isVersioned()} whether the service they decorate versions its keys.
+ */
+public interface VersionedClientKeyService extends ClientKeyService
+{
+    /**
+     * Gets the keys of a client
+     * 
+     * @param strClientId
+     *            The client ID
+     * @return The keys, newest first, or null if the client is unknown
+     */
+    KeyRing getKeyRing( String strClientId );
+
+    /**
+     * Tells if the keys are versioned
+     * 
+     * @return true, unless the service decorates a client key service giving a single key per client
+     */
+    default boolean isVersioned( )
+    {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * The newest key of the client.
+     */
+    @Override
+    default String getKey( String strClientId )
+    {
+        KeyRing keyRing = getKeyRing( strClientId );
+
+        return ( keyRing != null ) ? keyRing.getCurrentKey( ) : null;
+    }
+}
@@ -42,7 +42,20 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.FilterConfig;
@@ -53,14 +66,56 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 /**
- * SimpleHash Sign Request Filter
+ * SimpleHash Sign Request Filter.
+ * <p>
+ * With the async init parameter, the request is verified on an executor instead of the container thread, so that slow key lookups or signature checks
+ * do not hold the container threads. The filter and the servlets behind it must then be async-supported, and the filter mapped with the REQUEST and
+ * ASYNC dispatchers : an authenticated request is dispatched again to go through the chain, a rejected one gets a 401, and a verification not
+ * finished within asyncTimeout milliseconds gets a 503 : the verification then stops reading the body and leaves the request alone. A verified
+ * request stays marked as authenticated by this filter instance, so that none of its ASYNC dispatches, by the filter or by the application, is
+ * verified again by it, while other signrequest filters of the chain still verify it.
+ * </p>
+ * <p>
+ * With the bodyDigest init parameter, the @body signature element covers the request body : stream digests it as the application reads it, against
+ * the digest announced by the client, and spill reads it before the verification, keeping up to bodyMemoryThreshold bytes in memory and the rest in a
+ * temporary file. The body is only read once the signature and its timestamp are present and valid, a body larger than bodyMaxSize bytes is rejected,
+ * and form posts, whose fields are signed as parameters, are not wrapped. A streamed body opened but not verified when the chain returns is rejected
+ * if the response is not committed yet. See {@link DigestingRequestWrapper}.
+ * </p>
  */
 public abstract class AbstractRequestFilter implements Filter
 {
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
     private static final String PARAMETER_PRIVATE_KEY = "privateKey";
     private static final String PARAMETER_ELEMENTS_SIGNATURE = "elementsSignature";
     private static final String PARAMETER_VALIDITY_PERIOD = "validityTimePeriod";
+    private static final String PARAMETER_ASYNC = "async";
+    private static final String PARAMETER_ASYNC_TIMEOUT = "asyncTimeout";
+    private static final String PARAMETER_ASYNC_THREADS = "asyncThreads";
+    private static final String PARAMETER_BODY_DIGEST = "bodyDigest";
+    private static final String PARAMETER_BODY_MEMORY_THRESHOLD = "bodyMemoryThreshold";
+    private static final String PARAMETER_BODY_MAX_SIZE = "bodyMaxSize";
+    private static final String CONTENT_TYPE_FORM = "application/x-www-form-urlencoded";
+    private static final String BODY_DIGEST_STREAM = "stream";
+    private static final String BODY_DIGEST_SPILL = "spill";
+    private static final String ATTRIBUTE_AUTHENTICATED = "signrequest.authenticated.";
+    private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger( );
+    private static final String THREAD_NAME = "signrequest-verifier-";
+    private static final long DEFAULT_ASYNC_TIMEOUT = 30000L;
+    private static final int DEFAULT_ASYNC_THREADS = 32;
+    private static final int DEFAULT_BODY_MEMORY_THRESHOLD = 65536;
+    private static final long DEFAULT_BODY_MAX_SIZE = 10L * 1024L * 1024L;
     private AbstractAuthenticator _authenticator;
+    private boolean _bAsync;
+    private long _lAsyncTimeout = DEFAULT_ASYNC_TIMEOUT;
+    private Executor _executor;
+    private ExecutorService _ownedExecutor;
+    private boolean _bDigestBody;
+    private boolean _bSpillBody;
+    private int _nBodyMemoryThreshold = DEFAULT_BODY_MEMORY_THRESHOLD;
+    private long _lBodyMaxSize = DEFAULT_BODY_MAX_SIZE;
+    // Marks the requests verified by this filter instance
+    private final String _strAuthenticatedAttribute = ATTRIBUTE_AUTHENTICATED + INSTANCE_COUNT.incrementAndGet( );
 
     /**
      * The implementation should provide the authenticator to use
@@ -102,6 +157,78 @@ public abstract class AbstractRequestFilter implements Filter
         // Sets The validity Time Period
         String strValidityTimePeriod = filterConfig.getInitParameter( PARAMETER_VALIDITY_PERIOD );
         _authenticator.setValidityTimePeriod( Long.parseLong( strValidityTimePeriod ) );
+
+        // Sets the body digest
+        String strBodyDigest = filterConfig.getInitParameter( PARAMETER_BODY_DIGEST );
+        _bSpillBody = BODY_DIGEST_SPILL.equals( strBodyDigest );
+        _bDigestBody = _bSpillBody || BODY_DIGEST_STREAM.equals( strBodyDigest );
+
+        String strBodyMemoryThreshold = filterConfig.getInitParameter( PARAMETER_BODY_MEMORY_THRESHOLD );
+
+        if ( strBodyMemoryThreshold != null )
+        {
+            _nBodyMemoryThreshold = Integer.parseInt( strBodyMemoryThreshold );
+        }
+
+        String strBodyMaxSize = filterConfig.getInitParameter( PARAMETER_BODY_MAX_SIZE );
+
+        if ( strBodyMaxSize != null )
+        {
+            _lBodyMaxSize = Long.parseLong( strBodyMaxSize );
+        }
+
+        // Sets the asynchronous verification
+        _bAsync = Boolean.parseBoolean( filterConfig.getInitParameter( PARAMETER_ASYNC ) );
+
+        if ( _bAsync )
+        {
+            String strAsyncTimeout = filterConfig.getInitParameter( PARAMETER_ASYNC_TIMEOUT );
+            _lAsyncTimeout = ( strAsyncTimeout != null ) ? Long.parseLong( strAsyncTimeout ) : DEFAULT_ASYNC_TIMEOUT;
+
+            if ( _executor == null )
+            {
+                String strAsyncThreads = filterConfig.getInitParameter( PARAMETER_ASYNC_THREADS );
+                _ownedExecutor = newDefaultExecutor( ( strAsyncThreads != null ) ? Integer.parseInt( strAsyncThreads ) : DEFAULT_ASYNC_THREADS );
+                _executor = _ownedExecutor;
+            }
+        }
+    }
+
+    /**
+     * Sets the executor running the asynchronous verifications. Must be called before init to replace the default one.
+     * 
+     * @param executor
+     *            The executor
+     */
+    public void setAsyncExecutor( Executor executor )
+    {
+        _executor = executor;
+    }
+
+    /**
+     * Creates the default executor : a virtual thread per verification when the JDK provides them, otherwise a fixed pool of daemon threads
+     * 
+     * @param nThreads
+     *            The number of threads of the pool, without virtual threads
+     * @return The executor
+     */
+    private static ExecutorService newDefaultExecutor( int nThreads )
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" ).invoke( null );
+        }
+        catch( ReflectiveOperationException e )
+        {
+            AtomicInteger nThreadCount = new AtomicInteger( );
+
+            return Executors.newFixedThreadPool( nThreads, runnable -> {
+                Thread thread = new Thread( runnable, THREAD_NAME + nThreadCount.incrementAndGet( ) );
+                thread.setDaemon( true );
+
+                return thread;
+            } );
+        }
     }
 
     /**
@@ -110,13 +237,273 @@ public abstract class AbstractRequestFilter implements Filter
     @Override
     public void doFilter( ServletRequest request, ServletResponse response, FilterChain chain ) throws IOException, ServletException
     {
-        if ( _authenticator.isRequestAuthenticated( (HttpServletRequest) request ) )
+        if ( ( request.getDispatcherType( ) == DispatcherType.ASYNC ) && Boolean.TRUE.equals( request.getAttribute( _strAuthenticatedAttribute ) ) )
         {
+            // Dispatched again after the verification, the request is not checked twice
             chain.doFilter( request, response );
+            checkBodyVerified( ( request instanceof DigestingRequestWrapper ) ? (DigestingRequestWrapper) request : null, (HttpServletResponse) response );
+
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        DigestingRequestWrapper wrapper = ( _bDigestBody && !isFormPost( httpRequest ) ) ? new DigestingRequestWrapper( httpRequest ) : null;
+
+        if ( wrapper != null )
+        {
+            httpRequest = wrapper;
+        }
+
+        if ( _bAsync && request.isAsyncSupported( ) )
+        {
+            startAsyncVerification( httpRequest, (HttpServletResponse) response, wrapper );
+
+            return;
+        }
+
+        try
+        {
+            if ( authenticate( httpRequest, wrapper, null ) )
+            {
+                request.setAttribute( _strAuthenticatedAttribute, Boolean.TRUE );
+                chain.doFilter( httpRequest, response );
+                checkBodyVerified( wrapper, (HttpServletResponse) response );
+            }
+            else
+            {
+                ( (HttpServletResponse) response ).setStatus( HttpServletResponse.SC_UNAUTHORIZED );
+            }
+        }
+        finally
+        {
+            if ( wrapper != null )
+            {
+                wrapper.close( );
+            }
+        }
+    }
+
+    /**
+     * Authenticates a request, reading its body first in spill mode once the cheap checks pass
+     * 
+     * @param request
+     *            The request
+     * @param wrapper
+     *            The body wrapper, or null
+     * @param bDone
+     *            Set once an asynchronous request is ended, or null
+     * @return true if the request is authenticated
+     */
+    private boolean authenticate( HttpServletRequest request, DigestingRequestWrapper wrapper, AtomicBoolean bDone )
+    {
+        if ( ( wrapper != null ) && _bSpillBody )
+        {
+            // No body is read for a request that can't be authenticated
+            if ( !_authenticator.isSignedRequest( request ) )
+            {
+                return false;
+            }
+
+            try
+            {
+                wrapper.spill( _nBodyMemoryThreshold, _lBodyMaxSize );
+            }
+            catch( IOException e )
+            {
+                _logger.info( "SignRequest - Unable to read the request body : " + e.getMessage( ) );
+
+                return false;
+            }
+        }
+
+        if ( ( bDone != null ) && bDone.get( ) )
+        {
+            // Timed out while reading the body
+            return false;
+        }
+
+        return _authenticator.isRequestAuthenticated( request );
+    }
+
+    /**
+     * Rejects a request whose streamed body was read by the application without being verified, if the response is not committed yet
+     * 
+     * @param wrapper
+     *            The body wrapper, or null
+     * @param response
+     *            The response
+     */
+    private static void checkBodyVerified( DigestingRequestWrapper wrapper, HttpServletResponse response )
+    {
+        if ( ( wrapper == null ) || !wrapper.isBodyOpened( ) || wrapper.isBodyVerified( ) )
+        {
+            return;
+        }
+
+        if ( response.isCommitted( ) )
+        {
+            _logger.error( "SignRequest - Request body not read to its end, its signature could not be verified : " + wrapper.getRequestURI( ) );
         }
         else
         {
-            ( (HttpServletResponse) response ).setStatus( HttpServletResponse.SC_UNAUTHORIZED );
+            _logger.info( "SignRequest - Request body not read to its end, its signature could not be verified" );
+            response.reset( );
+            response.setStatus( HttpServletResponse.SC_UNAUTHORIZED );
+        }
+    }
+
+    /**
+     * Tells if a request is a form post, whose fields are parsed by the container
+     * 
+     * @param request
+     *            The request
+     * @return true for a form post
+     */
+    private static boolean isFormPost( HttpServletRequest request )
+    {
+        String strContentType = request.getContentType( );
+
+        return ( strContentType != null ) && strContentType.regionMatches( true, 0, CONTENT_TYPE_FORM, 0, CONTENT_TYPE_FORM.length( ) );
+    }
+
+    /**
+     * Verifies the request on the executor and releases the container thread
+     * 
+     * @param request
+     *            The request
+     * @param response
+     *            The response
+     * @param wrapper
+     *            The body wrapper, or null
+     */
+    private void startAsyncVerification( HttpServletRequest request, HttpServletResponse response, DigestingRequestWrapper wrapper )
+    {
+        AsyncContext asyncContext = request.startAsync( request, response );
+        asyncContext.setTimeout( _lAsyncTimeout );
+
+        // Set by the first of the verification and the timeout to end the request
+        AtomicBoolean bDone = new AtomicBoolean( );
+
+        asyncContext.addListener( new AsyncListener( )
+        {
+            @Override
+            public void onTimeout( AsyncEvent event )
+            {
+                if ( bDone.compareAndSet( false, true ) )
+                {
+                    _logger.warn( "SignRequest - Request verification timed out : " + request.getRequestURI( ) );
+                    response.setStatus( HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+                    closeWrapper( wrapper );
+                    asyncContext.complete( );
+                }
+            }
+
+            @Override
+            public void onComplete( AsyncEvent event )
+            {
+                closeWrapper( wrapper );
+            }
+
+            @Override
+            public void onError( AsyncEvent event )
+            {
+                bDone.set( true );
+            }
+
+            @Override
+            public void onStartAsync( AsyncEvent event )
+            {
+            }
+        } );
+
+        try
+        {
+            _executor.execute( ( ) -> verify( asyncContext, request, response, wrapper, bDone ) );
+        }
+        catch( RejectedExecutionException e )
+        {
+            if ( bDone.compareAndSet( false, true ) )
+            {
+                _logger.warn( "SignRequest - Request verification rejected by the executor" );
+                response.setStatus( HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+                asyncContext.complete( );
+            }
+        }
+    }
+
+    /**
+     * Verifies the request, then dispatches it again through the chain or ends it with a 401
+     * 
+     * @param asyncContext
+     *            The async context
+     * @param request
+     *            The request
+     * @param response
+     *            The response
+     * @param wrapper
+     *            The body wrapper, or null
+     * @param bDone
+     *            Set once the request is ended
+     */
+    private void verify( AsyncContext asyncContext, HttpServletRequest request, HttpServletResponse response, DigestingRequestWrapper wrapper,
+            AtomicBoolean bDone )
+    {
+        if ( bDone.get( ) )
+        {
+            // Timed out before the start : the request may already be recycled
+            return;
+        }
+
+        boolean bAuthenticated;
+
+        try
+        {
+            bAuthenticated = authenticate( request, wrapper, bDone );
+        }
+        catch( RuntimeException e )
+        {
+            _logger.error( "SignRequest - Error while verifying the request", e );
+            bAuthenticated = false;
+        }
+
+        if ( !bDone.compareAndSet( false, true ) )
+        {
+            // Timed out meanwhile
+            return;
+        }
+
+        if ( bAuthenticated )
+        {
+            request.setAttribute( _strAuthenticatedAttribute, Boolean.TRUE );
+            asyncContext.dispatch( );
+        }
+        else
+        {
+            response.setStatus( HttpServletResponse.SC_UNAUTHORIZED );
+            asyncContext.complete( );
+        }
+    }
+
+    /**
+     * Closes a body wrapper, stopping a spill in progress and deleting the spilled body
+     * 
+     * @param wrapper
+     *            The body wrapper, or null
+     */
+    private static void closeWrapper( DigestingRequestWrapper wrapper )
+    {
+        if ( wrapper == null )
+        {
+            return;
+        }
+
+        try
+        {
+            wrapper.close( );
+        }
+        catch( IOException e )
+        {
+            _logger.warn( "SignRequest - Unable to delete the spilled request body : " + e.getMessage( ) );
         }
     }
 
@@ -126,5 +513,11 @@ public abstract class AbstractRequestFilter implements Filter
     @Override
     public void destroy( )
     {
+        if ( _ownedExecutor != null )
+        {
+            _ownedExecutor.shutdown( );
+            _ownedExecutor = null;
+            _executor = null;
+        }
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.servlet;
+
+import java.io.IOException;
+
+import fr.paris.lutece.util.signrequest.RequestAuthenticator;
+import fr.paris.lutece.util.signrequest.path.PathRouteTable;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sign Request Filter routing each request to the authenticator of its path, so that a single filter covers several API areas with different
+ * authentication schemes. Requests matching no route go through unchanged : a /* route protects all the other paths.
+ */
+public abstract class AbstractRoutingRequestFilter implements Filter
+{
+    private PathRouteTable<RequestAuthenticator> _routeTable;
+
+    /**
+     * The implementation should provide the route table, for example from AbstractSignRequestAuthenticatorProducer.produceRouteTable
+     * 
+     * @param filterConfig
+     *            The filter config
+     * @return The authenticators by path, relative to the context
+     */
+    protected abstract PathRouteTable<RequestAuthenticator> getRouteTable( FilterConfig filterConfig );
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void init( FilterConfig filterConfig ) throws ServletException
+    {
+        _routeTable = getRouteTable( filterConfig );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void doFilter( ServletRequest request, ServletResponse response, FilterChain chain ) throws IOException, ServletException
+    {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        RequestAuthenticator authenticator = _routeTable.route( getPath( httpRequest ) );
+
+        if ( ( authenticator == null ) || authenticator.isRequestAuthenticated( httpRequest ) )
+        {
+            chain.doFilter( request, response );
+        }
+        else
+        {
+            ( (HttpServletResponse) response ).setStatus( HttpServletResponse.SC_UNAUTHORIZED );
+        }
+    }
+
+    /**
+     * Gets the path of a request, relative to the context. The servlet path and the path info are decoded and normalized by the container, unlike the
+     * request URI, so that path parameters, encoded chars or dot segments can not route a request around its authenticator.
+     * 
+     * @param request
+     *            The request
+     * @return The path
+     */
+    static String getPath( HttpServletRequest request )
+    {
+        String strServletPath = request.getServletPath( );
+        String strPathInfo = request.getPathInfo( );
+
+        if ( strPathInfo == null )
+        {
+            return ( strServletPath != null ) ? strServletPath : "";
+        }
+
+        return ( strServletPath != null ) ? strServletPath + strPathInfo : strPathInfo;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void destroy( )
+    {
+    }
+}
@@ -0,0 +1,628 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.servlet;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.paris.lutece.util.signrequest.AbstractAuthenticator;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Request wrapper giving the SHA-256 digest of the request body to the {@link AbstractAuthenticator#ELEMENT_BODY} signature element, without keeping
+ * the body in memory.
+ * <p>
+ * In streaming mode, the signature covers the digest announced by the client in the {@link #HEADER_BODY_DIGEST} header, and the body is digested as
+ * the application reads it. The digest is checked once the Content-Length bytes are read, at the end of the stream, or when the stream is closed
+ * (the rest of the body is then read) : a body that does not match the announced digest makes the read fail with an IOException, before its last
+ * bytes are given when the length is known. The application must therefore read the whole body before acting on it, see {@link #isBodyVerified()}.
+ * In spill mode, the body, up to a maximum size, is read and digested before the verification, and kept in memory up to a threshold or else in a
+ * temporary file, deleted by {@link #close()}. Closing the wrapper also stops a spill in progress on another thread.
+ * </p>
+ * <p>
+ * Form bodies are parsed by the container and never reach this wrapper : their fields are signed as parameters.
+ * </p>
+ */
+public class DigestingRequestWrapper extends HttpServletRequestWrapper implements Closeable
+{
+    /** Header giving the hexadecimal SHA-256 digest of the body, in streaming mode */
+    public static final String HEADER_BODY_DIGEST = "Lutece-Request-Body-Digest";
+    private static final Logger _logger = LogManager.getLogger( "lutece.security.signrequest" );
+    private static final String ALGORITHM = "SHA-256";
+    private static final String SPILL_PREFIX = "signrequest-body-";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final MessageDigest _digest;
+    private final byte [ ] _expected;
+    private ServletInputStream _inputStream;
+    private byte [ ] _spilledBytes;
+    private Path _spilledFile;
+    private boolean _bVerified;
+    private volatile boolean _bClosed;
+
+    /**
+     * Constructor, in streaming mode until {@link #spill(int)} is called
+     * 
+     * @param request
+     *            The request
+     */
+    public DigestingRequestWrapper( HttpServletRequest request )
+    {
+        super( request );
+        _digest = newDigest( );
+
+        String strExpected = request.getHeader( HEADER_BODY_DIGEST );
+        _expected = decode( strExpected );
+
+        if ( _expected != null )
+        {
+            request.setAttribute( AbstractAuthenticator.ATTRIBUTE_BODY_DIGEST, strExpected.toLowerCase( ) );
+        }
+    }
+
+    /**
+     * Computes the digest of a body, for the client side
+     * 
+     * @param body
+     *            The body
+     * @return The hexadecimal digest, to give as the value of the body element and of the body digest header
+     */
+    public static String digest( byte [ ] body )
+    {
+        return HexFormat.of( ).formatHex( newDigest( ).digest( body ) );
+    }
+
+    /**
+     * Tells if the body has been read and verified
+     * 
+     * @return true if the body has been spilled, or read in streaming mode and found matching the announced digest
+     */
+    public boolean isBodyVerified( )
+    {
+        return _bVerified;
+    }
+
+    /**
+     * Tells if the body has been opened by the application
+     * 
+     * @return true if the input stream has been requested
+     */
+    public boolean isBodyOpened( )
+    {
+        return _inputStream != null;
+    }
+
+    /**
+     * Reads and digests the whole body before the verification. The body is then served from memory or from a temporary file.
+     * 
+     * @param nMemoryThreshold
+     *            The size up to which the body is kept in memory
+     * @param lMaxSize
+     *            The maximum size of the body
+     * @throws IOException
+     *             If the body can't be read or spilled, if it is too large, or if the wrapper is closed meanwhile
+     */
+    public void spill( int nMemoryThreshold, long lMaxSize ) throws IOException
+    {
+        if ( _inputStream != null )
+        {
+            throw new IllegalStateException( "The body has already been read" );
+        }
+
+        checkClosed( );
+
+        if ( getRequest( ).getContentLengthLong( ) > lMaxSize )
+        {
+            throw new IOException( "SignRequest - Request body too large : " + getRequest( ).getContentLengthLong( ) );
+        }
+
+        long lSize = 0L;
+
+        byte [ ] buffer = new byte [ BUFFER_SIZE];
+        ByteArrayOutputStream memory = new ByteArrayOutputStream( );
+        OutputStream out = memory;
+        Path spilledFile = null;
+
+        try ( InputStream in = getRequest( ).getInputStream( ) )
+        {
+            int nRead;
+
+            while ( ( nRead = in.read( buffer ) ) != -1 )
+            {
+                checkClosed( );
+                lSize += nRead;
+
+                if ( lSize > lMaxSize )
+                {
+                    throw new IOException( "SignRequest - Request body too large" );
+                }
+
+                _digest.update( buffer, 0, nRead );
+
+                if ( ( memory != null ) && ( memory.size( ) + nRead > nMemoryThreshold ) )
+                {
+                    spilledFile = createSpilledFile( );
+                    out = Files.newOutputStream( spilledFile );
+                    memory.writeTo( out );
+                    memory = null;
+                }
+
+                out.write( buffer, 0, nRead );
+            }
+        }
+        finally
+        {
+            if ( out != memory )
+            {
+                out.close( );
+            }
+
+            if ( _bClosed && ( spilledFile != null ) )
+            {
+                // Closed during the spill : the file may have been left open or created again
+                Files.deleteIfExists( spilledFile );
+            }
+        }
+
+        checkClosed( );
+
+        if ( memory != null )
+        {
+            _spilledBytes = memory.toByteArray( );
+        }
+
+        getRequest( ).setAttribute( AbstractAuthenticator.ATTRIBUTE_BODY_DIGEST, HexFormat.of( ).formatHex( _digest.digest( ) ) );
+        _bVerified = true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ServletInputStream getInputStream( ) throws IOException
+    {
+        if ( _inputStream == null )
+        {
+            if ( _spilledBytes != null )
+            {
+                _inputStream = new SpilledInputStream( new ByteArrayInputStream( _spilledBytes ) );
+            }
+            else
+                if ( _spilledFile != null )
+                {
+                    _inputStream = new SpilledInputStream( Files.newInputStream( _spilledFile ) );
+                }
+                else
+                {
+                    _inputStream = new DigestingInputStream( getRequest( ).getInputStream( ), getRequest( ).getContentLengthLong( ) );
+                }
+        }
+
+        return _inputStream;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public BufferedReader getReader( ) throws IOException
+    {
+        String strEncoding = getCharacterEncoding( );
+        Charset charset = ( strEncoding != null ) ? Charset.forName( strEncoding ) : StandardCharsets.ISO_8859_1;
+
+        return new BufferedReader( new InputStreamReader( getInputStream( ), charset ) );
+    }
+
+    /**
+     * Releases the spilled body
+     * 
+     * @throws IOException
+     *             If the temporary file can't be deleted
+     */
+    @Override
+    public synchronized void close( ) throws IOException
+    {
+        _bClosed = true;
+        _spilledBytes = null;
+
+        if ( _spilledFile != null )
+        {
+            if ( _inputStream != null )
+            {
+                _inputStream.close( );
+            }
+
+            Files.deleteIfExists( _spilledFile );
+            _spilledFile = null;
+        }
+    }
+
+    /**
+     * Creates the temporary file of the spilled body, unless the wrapper is closed
+     * 
+     * @return The file
+     * @throws IOException
+     *             If the file can't be created or if the wrapper is closed
+     */
+    private synchronized Path createSpilledFile( ) throws IOException
+    {
+        checkClosed( );
+        _spilledFile = Files.createTempFile( SPILL_PREFIX, null );
+
+        return _spilledFile;
+    }
+
+    /**
+     * Checks that the wrapper is not closed
+     * 
+     * @throws IOException
+     *             If the wrapper is closed
+     */
+    private void checkClosed( ) throws IOException
+    {
+        if ( _bClosed )
+        {
+            throw new IOException( "SignRequest - Request closed while reading its body" );
+        }
+    }
+
+    /**
+     * Creates a digest
+     * 
+     * @return The digest
+     */
+    private static MessageDigest newDigest( )
+    {
+        try
+        {
+            return MessageDigest.getInstance( ALGORITHM );
+        }
+        catch( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Decodes a hexadecimal digest
+     * 
+     * @param strDigest
+     *            The digest
+     * @return The digest bytes or null if it is missing or malformed
+     */
+    private static byte [ ] decode( String strDigest )
+    {
+        if ( strDigest == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return HexFormat.of( ).parseHex( strDigest );
+        }
+        catch( IllegalArgumentException e )
+        {
+            _logger.info( "SignRequest - Malformed body digest" );
+
+            return null;
+        }
+    }
+
+    /**
+     * Input stream digesting the body and checking it against the announced digest once the whole body is read
+     */
+    private final class DigestingInputStream extends ServletInputStream
+    {
+        private final ServletInputStream _in;
+        private final long _lContentLength;
+        private long _lRead;
+        private boolean _bChecked;
+
+        /**
+         * Constructor
+         * 
+         * @param in
+         *            The body stream
+         * @param lContentLength
+         *            The length of the body, or -1 if unknown
+         */
+        DigestingInputStream( ServletInputStream in, long lContentLength )
+        {
+            _in = in;
+            _lContentLength = lContentLength;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public int read( ) throws IOException
+        {
+            checkFailed( );
+
+            int nByte = _in.read( );
+
+            if ( nByte == -1 )
+            {
+                check( );
+            }
+            else
+            {
+                _digest.update( (byte) nByte );
+                checkLength( 1 );
+            }
+
+            return nByte;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public int read( byte [ ] buffer, int nOffset, int nLength ) throws IOException
+        {
+            checkFailed( );
+
+            int nRead = _in.read( buffer, nOffset, nLength );
+
+            if ( nRead == -1 )
+            {
+                check( );
+            }
+            else
+            {
+                _digest.update( buffer, nOffset, nRead );
+                checkLength( nRead );
+            }
+
+            return nRead;
+        }
+
+        /**
+         * Checks the digest once the announced length is read, so that the last bytes of a rejected body are not given to the application
+         * 
+         * @param nRead
+         *            The number of bytes just read
+         * @throws IOException
+         *             If the body does not match the announced digest
+         */
+        private void checkLength( int nRead ) throws IOException
+        {
+            _lRead += nRead;
+
+            if ( ( _lContentLength >= 0 ) && ( _lRead >= _lContentLength ) )
+            {
+                check( );
+            }
+        }
+
+        /**
+         * Fails the reads once the body is rejected
+         * 
+         * @throws IOException
+         *             If the body has been rejected
+         */
+        private void checkFailed( ) throws IOException
+        {
+            if ( _bChecked && !_bVerified )
+            {
+                throw new IOException( "SignRequest - Request body does not match its signed digest" );
+            }
+        }
+
+        /**
+         * Checks the digest of the body once it is fully read
+         * 
+         * @throws IOException
+         *             If the body does not match the announced digest
+         */
+        private void check( ) throws IOException
+        {
+            if ( !_bChecked )
+            {
+                _bChecked = true;
+                _bVerified = ( _expected != null ) && MessageDigest.isEqual( _digest.digest( ), _expected );
+
+                if ( !_bVerified )
+                {
+                    _logger.info( "SignRequest - Request body does not match its signed digest" );
+                }
+            }
+
+            checkFailed( );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public boolean isFinished( )
+        {
+            return _in.isFinished( );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public boolean isReady( )
+        {
+            return _in.isReady( );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void setReadListener( ReadListener readListener )
+        {
+            _in.setReadListener( readListener );
+        }
+
+        /**
+         * Reads the rest of the body to check it, so that a parser stopping after the root value does not skip the check
+         * 
+         * @throws IOException
+         *             If the body does not match the announced digest
+         */
+        @Override
+        public void close( ) throws IOException
+        {
+            try
+            {
+                if ( !_bChecked )
+                {
+                    byte [ ] buffer = new byte [ BUFFER_SIZE];
+
+                    while ( read( buffer, 0, buffer.length ) != -1 )
+                    {
+                        // Digested by read
+                    }
+                }
+            }
+            finally
+            {
+                _in.close( );
+            }
+        }
+    }
+
+    /**
+     * Input stream serving a spilled body
+     */
+    private static final class SpilledInputStream extends ServletInputStream
+    {
+        private final InputStream _in;
+        private boolean _bFinished;
+
+        /**
+         * Constructor
+         * 
+         * @param in
+         *            The spilled body
+         */
+        SpilledInputStream( InputStream in )
+        {
+            _in = in;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public int read( ) throws IOException
+        {
+            int nByte = _in.read( );
+            _bFinished = ( nByte == -1 );
+
+            return nByte;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public int read( byte [ ] buffer, int nOffset, int nLength ) throws IOException
+        {
+            int nRead = _in.read( buffer, nOffset, nLength );
+            _bFinished = ( nRead == -1 );
+
+            return nRead;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public boolean isFinished( )
+        {
+            return _bFinished;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public boolean isReady( )
+        {
+            return true;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void setReadListener( ReadListener readListener )
+        {
+            try
+            {
+                readListener.onDataAvailable( );
+                readListener.onAllDataRead( );
+            }
+            catch( IOException e )
+            {
+                readListener.onError( e );
+            }
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void close( ) throws IOException
+        {
+            _in.close( );
+        }
+    }
+}
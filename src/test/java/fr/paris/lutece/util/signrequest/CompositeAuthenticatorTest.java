@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * CompositeAuthenticatorTest
+ */
+public class CompositeAuthenticatorTest
+{
+    /**
+     * The cheap authenticators run first and the evaluation stops once the result is known
+     */
+    @Test
+    public void testShortCircuit( )
+    {
+        CountingAuthenticator expensive = new CountingAuthenticator( true, 100 );
+        CountingAuthenticator cheapReject = new CountingAuthenticator( false, 1 );
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+
+        CompositeAuthenticator and = new CompositeAuthenticator( CompositeAuthenticator.MODE.AND, false ).add( expensive ).add( cheapReject );
+        Assertions.assertFalse( and.isRequestAuthenticated( request ) );
+        Assertions.assertEquals( 1, cheapReject._nCalls );
+        Assertions.assertEquals( 0, expensive._nCalls );
+        Assertions.assertEquals( 101, and.getCostHint( ) );
+
+        CompositeAuthenticator or = new CompositeAuthenticator( CompositeAuthenticator.MODE.OR, false ).add( expensive ).add( cheapReject );
+        Assertions.assertTrue( or.isRequestAuthenticated( request ) );
+        Assertions.assertEquals( 2, cheapReject._nCalls );
+        Assertions.assertEquals( 1, expensive._nCalls );
+
+        Assertions.assertFalse( new CompositeAuthenticator( CompositeAuthenticator.MODE.AND, false ).isRequestAuthenticated( request ) );
+    }
+
+    /**
+     * In adaptive mode, the authenticator rejecting the most requests per unit of cost runs first
+     */
+    @Test
+    public void testAdaptiveOrder( )
+    {
+        CountingAuthenticator accept = new CountingAuthenticator( true, 5 );
+        CountingAuthenticator reject = new CountingAuthenticator( false, 10 );
+        CompositeAuthenticator and = new CompositeAuthenticator( CompositeAuthenticator.MODE.AND, true ).add( accept ).add( reject );
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+
+        Assertions.assertSame( accept, and.getEvaluationOrder( ).get( 0 ) );
+
+        for ( int i = 0; i < 2048; i++ )
+        {
+            Assertions.assertFalse( and.isRequestAuthenticated( request ) );
+        }
+
+        Assertions.assertSame( reject, and.getEvaluationOrder( ).get( 0 ) );
+
+        int nAcceptCalls = accept._nCalls;
+        and.isRequestAuthenticated( request );
+        Assertions.assertEquals( nAcceptCalls, accept._nCalls );
+    }
+
+    /**
+     * The security informations of the authenticators are merged, without the ones giving none
+     */
+    @Test
+    public void testGetSecurityInformations( )
+    {
+        CompositeAuthenticator and = new CompositeAuthenticator( CompositeAuthenticator.MODE.AND, false ).add( new NoSecurityAuthenticator( ) )
+                .add( new CountingAuthenticator( true, 1 ) );
+
+        AuthenticateRequestInformations infos = and.getSecurityInformations( null );
+        Assertions.assertEquals( "1", infos.getSecurityHeaders( ).get( "Cost" ) );
+
+        Assertions.assertNull( new CompositeAuthenticator( CompositeAuthenticator.MODE.OR, false ).add( new NoSecurityAuthenticator( ) )
+                .getSecurityInformations( null ) );
+    }
+
+    /**
+     * Authenticator with a fixed result, counting its calls
+     */
+    private static final class CountingAuthenticator implements RequestAuthenticator
+    {
+        private final boolean _bResult;
+        private final int _nCost;
+        private int _nCalls;
+
+        /**
+         * Constructor
+         * 
+         * @param bResult
+         *            The result
+         * @param nCost
+         *            The cost hint
+         */
+        CountingAuthenticator( boolean bResult, int nCost )
+        {
+            _bResult = bResult;
+            _nCost = nCost;
+        }
+
+        @Override
+        public boolean isRequestAuthenticated( HttpServletRequest request )
+        {
+            _nCalls++;
+
+            return _bResult;
+        }
+
+        @Override
+        public AuthenticateRequestInformations getSecurityInformations( List<String> elements )
+        {
+            return new AuthenticateRequestInformations( ).addSecurityHeader( "Cost", String.valueOf( _nCost ) );
+        }
+
+        @Override
+        public int getCostHint( )
+        {
+            return _nCost;
+        }
+    }
+}
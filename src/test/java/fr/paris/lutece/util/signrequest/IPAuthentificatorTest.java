@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.signrequest.ip.ClientIPResolver;
+import fr.paris.lutece.util.signrequest.ip.IPRadixTrie;
+
+/**
+ * IPAuthentificatorTest
+ */
+public class IPAuthentificatorTest
+{
+    /**
+     * Test of isRequestAuthenticated method, of class IPAuthentificator.
+     */
+    @Test
+    public void testAllow( )
+    {
+        IPAuthentificator authenticator = new IPAuthentificator( "ALLOW", Arrays.asList( "10.0.0.0/8", "::1" ), Arrays.asList( "/public" ) );
+
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request( "10.2.3.4", "/rest" ) ) );
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request( "0:0:0:0:0:0:0:1", "/rest" ) ) );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request( "192.168.0.1", "/rest" ) ) );
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request( "192.168.0.1", "/public/index.html" ) ) );
+        Assertions.assertEquals( 1, authenticator.getAuthorizedPaths( ).size( ) );
+        Assertions.assertTrue( authenticator.getAuthorizedPaths( ).contains( "/public" ) );
+    }
+
+    /**
+     * Test of isRequestAuthenticated method in BLOCK mode
+     */
+    @Test
+    public void testBlock( )
+    {
+        IPAuthentificator authenticator = new IPAuthentificator( "BLOCK", Arrays.asList( "192.168.0.0/16" ), Arrays.asList( ) );
+
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request( "192.168.10.1", "/rest" ) ) );
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request( "10.2.3.4", "/rest" ) ) );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request( "not-an-address", "/rest" ) ) );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request( "10.0.0.0/8", "/rest" ) ) );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request( null, "/rest" ) ) );
+    }
+
+    /**
+     * Test of isRequestAuthenticated method in BLOCK mode when the resolver can not resolve the client address
+     */
+    @Test
+    public void testBlockUnresolved( )
+    {
+        IPAuthentificator authenticator = new IPAuthentificator( "BLOCK", Arrays.asList( "192.168.0.0/16" ), Arrays.asList( "/public" ) );
+        authenticator.setClientIPResolver( new ClientIPResolver( IPRadixTrie.of( Arrays.asList( "10.0.0.1" ) ) ) );
+
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request( "10.2.3.4", "/rest" ) ) );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request( "192.168.10.1", "/rest" ) ) );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request( "not-an-address", "/rest" ) ) );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request( null, "/rest" ) ) );
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request( null, "/public/index.html" ) ) );
+    }
+
+    /**
+     * Builds a request
+     * 
+     * @param strRemoteAddr
+     *            The client address
+     * @param strServletPath
+     *            The servlet path
+     * @return The request
+     */
+    private static MockHttpServletRequest request( String strRemoteAddr, String strServletPath )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setRemoteAddr( strRemoteAddr );
+        request.setServletPath( strServletPath );
+
+        return request;
+    }
+}
@@ -90,4 +90,19 @@ public class JWTRSAPlainTextAuthenticatorTest
         Assertions.assertTrue( authenticator.isRequestAuthenticated( request ) );
         Assertions.assertTrue( JWTUtil.checkPayloadValues( request, authenticator.getKeyPair( ).getPublic( ), HTTP_HEADER_NAME, mapJWTClaims ) );
     }
+
+    /**
+     * Test that an invalid key is rejected at construction
+     */
+    @Test
+    public void testInvalidKey( )
+    {
+        Map<String, String> mapJWTClaims = new HashMap<>( );
+
+        Assertions.assertThrows( IllegalArgumentException.class,
+                ( ) -> new JWTRSAPlainTextAuthenticator( mapJWTClaims, HTTP_HEADER_NAME, VALIDITY, ALGO, PRIV_KEY, PUB_KEY.substring( 10 ) ) );
+        Assertions.assertThrows( IllegalArgumentException.class,
+                ( ) -> new JWTRSAPlainTextAuthenticator( mapJWTClaims, HTTP_HEADER_NAME, VALIDITY, ALGO, "not a key", PUB_KEY ) );
+        Assertions.assertNull( new JWTRSAPlainTextAuthenticator( mapJWTClaims, HTTP_HEADER_NAME, VALIDITY, ALGO, null, PUB_KEY ).getKeyPair( ).getPrivate( ) );
+    }
 }
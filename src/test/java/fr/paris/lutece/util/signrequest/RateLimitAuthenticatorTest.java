@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.signrequest.ip.ClientIPResolver;
+import fr.paris.lutece.util.signrequest.ip.IPRadixTrie;
+
+/**
+ * RateLimitAuthenticatorTest
+ */
+public class RateLimitAuthenticatorTest
+{
+    private static final String HEADER_CLIENT_ID = "Lutece-Request-ClientID";
+
+    /**
+     * Requests are limited per client ID, and per address without client ID
+     */
+    @Test
+    public void testClientId( )
+    {
+        RateLimitAuthenticator authenticator = new RateLimitAuthenticator( RateLimitAuthenticator.KEY.CLIENT_ID, 1, 2, 100 );
+
+        try
+        {
+            Assertions.assertTrue( authenticator.isRequestAuthenticated( newRequest( "client1", "10.0.0.1" ) ) );
+            Assertions.assertTrue( authenticator.isRequestAuthenticated( newRequest( "client1", "10.0.0.2" ) ) );
+            Assertions.assertFalse( authenticator.isRequestAuthenticated( newRequest( "client1", "10.0.0.3" ) ) );
+
+            Assertions.assertTrue( authenticator.isRequestAuthenticated( newRequest( "client2", "10.0.0.1" ) ) );
+            Assertions.assertTrue( authenticator.isRequestAuthenticated( newRequest( null, "10.0.0.1" ) ) );
+            Assertions.assertEquals( 1, authenticator.getRateLimiter( ).getRejectedCount( ) );
+        }
+        finally
+        {
+            authenticator.close( );
+        }
+    }
+
+    /**
+     * Requests are limited per address, whatever their client ID
+     */
+    @Test
+    public void testIP( )
+    {
+        RateLimitAuthenticator authenticator = new RateLimitAuthenticator( RateLimitAuthenticator.KEY.IP, 1, 1, 100 );
+
+        try
+        {
+            Assertions.assertTrue( authenticator.isRequestAuthenticated( newRequest( "client1", "10.0.0.1" ) ) );
+            Assertions.assertFalse( authenticator.isRequestAuthenticated( newRequest( "client2", "10.0.0.1" ) ) );
+            Assertions.assertTrue( authenticator.isRequestAuthenticated( newRequest( "client1", "10.0.0.2" ) ) );
+        }
+        finally
+        {
+            authenticator.close( );
+        }
+    }
+
+    /**
+     * Requests without a resolvable address share one bucket
+     */
+    @Test
+    public void testUnknownAddress( )
+    {
+        RateLimitAuthenticator authenticator = new RateLimitAuthenticator( RateLimitAuthenticator.KEY.IP, 1, 1, 100 );
+        authenticator.setClientIPResolver( new ClientIPResolver( IPRadixTrie.of( Arrays.asList( "10.0.0.1" ) ) ) );
+
+        try
+        {
+            Assertions.assertTrue( authenticator.isRequestAuthenticated( newRequest( null, "not-an-address" ) ) );
+            Assertions.assertFalse( authenticator.isRequestAuthenticated( newRequest( null, null ) ) );
+            Assertions.assertTrue( authenticator.isRequestAuthenticated( newRequest( null, "10.0.0.2" ) ) );
+        }
+        finally
+        {
+            authenticator.close( );
+        }
+
+        RateLimitAuthenticator noResolver = new RateLimitAuthenticator( RateLimitAuthenticator.KEY.IP, 1, 1, 100 );
+
+        try
+        {
+            Assertions.assertTrue( noResolver.isRequestAuthenticated( newRequest( null, null ) ) );
+            Assertions.assertFalse( noResolver.isRequestAuthenticated( newRequest( null, null ) ) );
+        }
+        finally
+        {
+            noResolver.close( );
+        }
+    }
+
+    /**
+     * New clients are rejected while the limiter is full of limited clients
+     */
+    @Test
+    public void testSaturation( )
+    {
+        RateLimitAuthenticator authenticator = new RateLimitAuthenticator( RateLimitAuthenticator.KEY.IP, 1, 1, 1 );
+
+        try
+        {
+            int nAllowed = 0;
+
+            for ( int i = 0; i < 100; i++ )
+            {
+                if ( authenticator.isRequestAuthenticated( newRequest( null, "10.0.0." + i ) ) )
+                {
+                    nAllowed++;
+                }
+            }
+
+            Assertions.assertEquals( 16, nAllowed );
+            Assertions.assertEquals( 100 - 16, authenticator.getRateLimiter( ).getOverflowCount( ) );
+        }
+        finally
+        {
+            authenticator.close( );
+        }
+    }
+
+    /**
+     * Builds a request
+     * 
+     * @param strClientId
+     *            The client ID, or null
+     * @param strRemoteAddr
+     *            The address of the client
+     * @return The request
+     */
+    private static MockHttpServletRequest newRequest( String strClientId, String strRemoteAddr )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setRemoteAddr( strRemoteAddr );
+
+        if ( strClientId != null )
+        {
+            request.addHeader( HEADER_CLIENT_ID, strClientId );
+        }
+
+        return request;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.util.signrequest.security.HashService;
+import fr.paris.lutece.util.signrequest.security.HmacSha256HashService;
+import fr.paris.lutece.util.signrequest.security.Sha1HashService;
+import fr.paris.lutece.util.signrequest.security.SignatureHashService;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * SignatureAllocationTest
+ */
+public class SignatureAllocationTest
+{
+    private static final String PRIVATE_KEY = "change me";
+    private static final String TIMESTAMP = "1700000000000";
+    private static final String [ ] VALUES = {
+            "id-resource", "name with accents \u00e9\u00e0\u00fc", "description \ud83d\ude00"
+    };
+    private static final int WARMUP_ITERATIONS = 50000;
+    private static final int MEASURED_ITERATIONS = 100000;
+    private static final double MAX_BYTES_PER_VERIFICATION = 8.0;
+
+    /**
+     * The byte oriented path must build the same signature as the string based one
+     */
+    @Test
+    public void testSameSignatureAsStringHash( )
+    {
+        Sha1HashService sha1 = new Sha1HashService( );
+        HashService stringOnly = sha1::getHash;
+
+        Assertions.assertEquals( newAuthenticator( stringOnly ).buildSignature( valueList( ), TIMESTAMP ),
+                newAuthenticator( sha1 ).buildSignature( valueList( ), TIMESTAMP ) );
+    }
+
+    /**
+     * Checking a signature must not allocate once the JIT has warmed up
+     */
+    @Test
+    public void testVerificationAllocations( )
+    {
+        checkAllocations( new Sha1HashService( ) );
+        checkAllocations( new HmacSha256HashService( ) );
+    }
+
+    /**
+     * Measures the allocations of the verification path
+     * 
+     * @param service
+     *            The hash service
+     */
+    private void checkAllocations( SignatureHashService service )
+    {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean( );
+        Assumptions.assumeTrue( bean instanceof com.sun.management.ThreadMXBean );
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue( threadBean.isThreadAllocatedMemorySupported( ) && threadBean.isThreadAllocatedMemoryEnabled( ) );
+
+        ElementsAuthenticator authenticator = newAuthenticator( service );
+        String strSignature = authenticator.buildSignature( valueList( ), TIMESTAMP );
+
+        for ( int i = 0; i < WARMUP_ITERATIONS; i++ )
+        {
+            Assertions.assertTrue( authenticator.isValidSignature( null, TIMESTAMP, strSignature ) );
+        }
+
+        long lThreadId = Thread.currentThread( ).getId( );
+        long lBefore = threadBean.getThreadAllocatedBytes( lThreadId );
+        boolean bValid = true;
+
+        for ( int i = 0; i < MEASURED_ITERATIONS; i++ )
+        {
+            bValid &= authenticator.isValidSignature( null, TIMESTAMP, strSignature );
+        }
+
+        long lAllocated = threadBean.getThreadAllocatedBytes( lThreadId ) - lBefore;
+
+        Assertions.assertTrue( bValid );
+        Assertions.assertTrue( ( (double) lAllocated / MEASURED_ITERATIONS ) < MAX_BYTES_PER_VERIFICATION,
+                "Allocated " + lAllocated + " bytes for " + MEASURED_ITERATIONS + " verifications" );
+    }
+
+    /**
+     * Creates an authenticator whose signature elements are provided without any request
+     * 
+     * @param service
+     *            The hash service
+     * @return The authenticator
+     */
+    private static ElementsAuthenticator newAuthenticator( SignatureHashService service )
+    {
+        List<String> listElements = new ArrayList<>( );
+
+        for ( int i = 0; i < VALUES.length; i++ )
+        {
+            listElements.add( String.valueOf( i ) );
+        }
+
+        return new ElementsAuthenticator( service, listElements );
+    }
+
+    /**
+     * Gets the values of the signature elements
+     * 
+     * @return The values
+     */
+    private static List<String> valueList( )
+    {
+        return List.of( VALUES );
+    }
+
+    /**
+     * Authenticator reading the signature elements from a constant array
+     */
+    private static class ElementsAuthenticator extends HeaderHashAuthenticator
+    {
+        ElementsAuthenticator( SignatureHashService service, List<String> listElements )
+        {
+            super( service, listElements, PRIVATE_KEY );
+        }
+
+        @Override
+        protected String getSignatureElementValue( HttpServletRequest request, String strElement )
+        {
+            return VALUES [strElement.charAt( 0 ) - '0'];
+        }
+    }
+}
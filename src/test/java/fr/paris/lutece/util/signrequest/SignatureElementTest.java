@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.signrequest.security.HmacSha256HashService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * SignatureElementTest
+ */
+public class SignatureElementTest
+{
+    private static final String PRIVATE_KEY = "change me";
+
+    /**
+     * Test of getQueryParameter method, of class SignatureElement.
+     */
+    @Test
+    public void testGetQueryParameter( )
+    {
+        String strQuery = "id=12&name=a+b%26c&flag&idx=3&id=13";
+
+        Assertions.assertEquals( "12", SignatureElement.getQueryParameter( strQuery, "id" ) );
+        Assertions.assertEquals( "a b&c", SignatureElement.getQueryParameter( strQuery, "name" ) );
+        Assertions.assertEquals( "", SignatureElement.getQueryParameter( strQuery, "flag" ) );
+        Assertions.assertEquals( "3", SignatureElement.getQueryParameter( strQuery, "idx" ) );
+        Assertions.assertNull( SignatureElement.getQueryParameter( strQuery, "i" ) );
+        Assertions.assertNull( SignatureElement.getQueryParameter( null, "id" ) );
+    }
+
+    /**
+     * Test of getValue method, of class SignatureElement.
+     */
+    @Test
+    public void testGetValue( )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setRequestURI( "/rest/users/a+b%20c" );
+        request.addHeader( "X-Tenant", "paris" );
+
+        Assertions.assertEquals( "rest", SignatureElement.parse( "path:0" ).getValue( request ) );
+        Assertions.assertEquals( "a+b c", SignatureElement.parse( "path:-1" ).getValue( request ) );
+        Assertions.assertNull( SignatureElement.parse( "path:3" ).getValue( request ) );
+        Assertions.assertEquals( "paris", SignatureElement.parse( "header:X-Tenant" ).getValue( request ) );
+        Assertions.assertEquals( SignatureElement.Source.PARAMETER, SignatureElement.parse( "name" ).getSource( ) );
+        Assertions.assertEquals( "name", SignatureElement.parse( "param:name" ).getName( ) );
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> SignatureElement.parse( "path:last" ) );
+    }
+
+    /**
+     * A request signed with header and query string elements is checked without reading the parameters
+     */
+    @Test
+    public void testNoParameterParsing( )
+    {
+        List<String> listElements = Arrays.asList( "query:id", "header:X-Tenant", "path:-1" );
+        HeaderHashAuthenticator authenticator = new HeaderHashAuthenticator( new HmacSha256HashService( ), listElements, PRIVATE_KEY );
+        AuthenticateRequestInformations infos = authenticator.getSecurityInformations( Arrays.asList( "12", "paris", "users" ) );
+
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setQueryString( "id=12" );
+        request.setRequestURI( "/rest/users" );
+        request.addHeader( "X-Tenant", "paris" );
+        infos.getSecurityHeaders( ).forEach( request::addHeader );
+
+        HttpServletRequest noParameters = new HttpServletRequestWrapper( request )
+        {
+            @Override
+            public String getParameter( String strName )
+            {
+                throw new AssertionError( "The parameters must not be read" );
+            }
+        };
+
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( noParameters ) );
+
+        request.setQueryString( "id=13" );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( noParameters ) );
+    }
+}
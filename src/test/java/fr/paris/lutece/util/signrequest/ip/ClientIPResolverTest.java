@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+
+/**
+ * ClientIPResolverTest
+ */
+public class ClientIPResolverTest
+{
+    private static final IPAddressSet TRUSTED_PROXIES = IPRadixTrie.of( Arrays.asList( "10.0.0.0/8", "2001:db8::/32" ) );
+
+    /**
+     * Test the walk of the X-Forwarded-For header
+     */
+    @Test
+    public void testXForwardedFor( )
+    {
+        ClientIPResolver resolver = new ClientIPResolver( TRUSTED_PROXIES );
+
+        // Peer not trusted : the header is ignored
+        Assertions.assertEquals( "192.0.2.1", resolve( resolver, "192.0.2.1", ClientIPResolver.HEADER_X_FORWARDED_FOR, "198.51.100.7" ) );
+
+        // The client can not forge the hops left of the first untrusted one
+        Assertions.assertEquals( "198.51.100.7",
+                resolve( resolver, "10.0.0.1", ClientIPResolver.HEADER_X_FORWARDED_FOR, "1.2.3.4, 198.51.100.7 , 10.1.1.1" ) );
+
+        // Ports, brackets and several header lines
+        Assertions.assertEquals( "198.51.100.7", resolve( resolver, "10.0.0.1", ClientIPResolver.HEADER_X_FORWARDED_FOR, "198.51.100.7:4711", "10.1.1.1" ) );
+        Assertions.assertEquals( "[2001:db9::1]", resolve( resolver, "10.0.0.1", ClientIPResolver.HEADER_X_FORWARDED_FOR, "[2001:db9::1]:443" ) );
+
+        // An invalid hop keeps the last trusted address
+        Assertions.assertEquals( "10.1.1.1", resolve( resolver, "10.0.0.1", ClientIPResolver.HEADER_X_FORWARDED_FOR, "unknown, 10.1.1.1" ) );
+
+        // Only proxies : the leftmost one
+        Assertions.assertEquals( "10.1.1.1", resolve( resolver, "10.0.0.1", ClientIPResolver.HEADER_X_FORWARDED_FOR, "10.1.1.1" ) );
+    }
+
+    /**
+     * Test the walk of the Forwarded header
+     */
+    @Test
+    public void testForwarded( )
+    {
+        ClientIPResolver resolver = new ClientIPResolver( TRUSTED_PROXIES, "forwarded" );
+
+        Assertions.assertEquals( "[2001:db9:cafe::17]",
+                resolve( resolver, "10.0.0.1", ClientIPResolver.HEADER_FORWARDED, "for=\"[2001:db9:cafe::17]:4711\";proto=https, For=2001:db8::5;by=10.0.0.1" ) );
+        Assertions.assertEquals( "198.51.100.7", resolve( resolver, "10.0.0.1", ClientIPResolver.HEADER_FORWARDED, "proto=http; for=198.51.100.7" ) );
+        Assertions.assertEquals( "10.0.0.1", resolve( resolver, "10.0.0.1", ClientIPResolver.HEADER_FORWARDED, "for=_hidden" ) );
+    }
+
+    /**
+     * Test that only the header written by the trusted proxies is read
+     */
+    @Test
+    public void testInjectedHeader( )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setRemoteAddr( "10.0.0.1" );
+        request.addHeader( ClientIPResolver.HEADER_FORWARDED, "for=192.0.2.99" );
+        request.addHeader( ClientIPResolver.HEADER_X_FORWARDED_FOR, "198.51.100.7" );
+
+        // The proxy appends X-Forwarded-For and passes the Forwarded header sent by the client through
+        Assertions.assertEquals( "198.51.100.7", new ClientIPResolver( TRUSTED_PROXIES ).resolve( request ).toString( ) );
+
+        // Another header on the same request resolves again
+        Assertions.assertEquals( "192.0.2.99", new ClientIPResolver( TRUSTED_PROXIES, ClientIPResolver.HEADER_FORWARDED ).resolve( request ).toString( ) );
+
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> new ClientIPResolver( TRUSTED_PROXIES, "X-Real-IP" ) );
+    }
+
+    /**
+     * Test the cache in the request attribute
+     */
+    @Test
+    public void testCache( )
+    {
+        ClientIPResolver resolver = new ClientIPResolver( TRUSTED_PROXIES );
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setRemoteAddr( "10.0.0.1" );
+        request.addHeader( ClientIPResolver.HEADER_X_FORWARDED_FOR, "198.51.100.7" );
+
+        ClientAddress address = resolver.resolve( request );
+        Assertions.assertSame( address, request.getAttribute( ClientIPResolver.ATTRIBUTE_CLIENT_ADDRESS ) );
+        Assertions.assertSame( address, resolver.resolve( request ) );
+        Assertions.assertSame( address, new ClientIPResolver( TRUSTED_PROXIES ).resolve( request ) );
+        Assertions.assertTrue( address.isIn( IPRadixTrie.of( Arrays.asList( "198.51.100.0/24" ) ) ) );
+
+        // A resolver with other trusted proxies resolves again
+        Assertions.assertEquals( "10.0.0.1", new ClientIPResolver( IPRadixTrie.of( Arrays.asList( "192.0.2.1" ) ) ).resolve( request ).toString( ) );
+    }
+
+    /**
+     * Resolves the client address of a request
+     * 
+     * @param resolver
+     *            The resolver
+     * @param strRemoteAddr
+     *            The peer address
+     * @param strHeader
+     *            The forwarding header
+     * @param values
+     *            The header lines
+     * @return The client address
+     */
+    private static String resolve( ClientIPResolver resolver, String strRemoteAddr, String strHeader, String... values )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setRemoteAddr( strRemoteAddr );
+
+        for ( String strValue : values )
+        {
+            request.addHeader( strHeader, strValue );
+        }
+
+        return resolver.resolve( request ).toString( );
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.util.signrequest.service.FileWatcherService;
+
+/**
+ * IPListFileSourceTest
+ */
+public class IPListFileSourceTest
+{
+    private static final String FILE_NAME = "ips.txt";
+
+    /**
+     * Test the parsing of a file and the fixed entries
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testLoad( ) throws Exception
+    {
+        Path directory = Files.createTempDirectory( "signrequest" );
+        Path file = directory.resolve( FILE_NAME );
+        write( file, "# Allowed networks\r\n10.0.0.0/8\n\n  192.168.1.10   # gateway\nnot an address\n2001:db8::/32" );
+
+        IPListFileSource source = new IPListFileSource( Collections.singletonList( "172.16.0.1" ), Collections.singletonList( file ) );
+
+        try
+        {
+            Assertions.assertTrue( source.contains( "10.20.30.40" ) );
+            Assertions.assertTrue( source.contains( "192.168.1.10" ) );
+            Assertions.assertFalse( source.contains( "192.168.1.11" ) );
+            Assertions.assertTrue( source.contains( "2001:db8::1" ) );
+            Assertions.assertTrue( source.contains( "172.16.0.1" ) );
+            Assertions.assertFalse( source.contains( "11.0.0.1" ) );
+            Assertions.assertEquals( 4, source.size( ) );
+            Assertions.assertEquals( 1, source.getInvalidLineCount( ) );
+            Assertions.assertEquals( 1, source.getReloadCount( ) );
+        }
+        finally
+        {
+            source.close( );
+        }
+    }
+
+    /**
+     * Test that a missing file keeps the previous list and that a changed file is reloaded
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testReload( ) throws Exception
+    {
+        Path directory = Files.createTempDirectory( "signrequest" );
+        Path file = directory.resolve( FILE_NAME );
+        Path other = directory.resolve( "missing.txt" );
+
+        // The missing file fails the first load, only the fixed entries are used
+        IPListFileSource source = new IPListFileSource( Arrays.asList( "127.0.0.1" ), Arrays.asList( file, other ) );
+
+        try
+        {
+            Assertions.assertEquals( 1, source.getReloadFailureCount( ) );
+            Assertions.assertTrue( source.contains( "127.0.0.1" ) );
+            Assertions.assertFalse( source.contains( "10.0.0.1" ) );
+
+            write( other, "10.0.0.0/24" );
+            write( file, "192.168.0.0/16" );
+
+            long lDeadline = System.currentTimeMillis( ) + 10000;
+
+            while ( !source.contains( "10.0.0.1" ) && ( System.currentTimeMillis( ) < lDeadline ) )
+            {
+                Thread.sleep( 50 );
+            }
+
+            Assertions.assertTrue( source.contains( "10.0.0.1" ) );
+            Assertions.assertTrue( source.contains( "192.168.3.4" ) );
+            Assertions.assertTrue( source.contains( "127.0.0.1" ) );
+        }
+        finally
+        {
+            source.close( );
+        }
+    }
+
+    /**
+     * Test that the file watcher is started again by a registration after a shutdown
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testShutdown( ) throws Exception
+    {
+        Path directory = Files.createTempDirectory( "signrequest" );
+        Path file = directory.resolve( FILE_NAME );
+        write( file, "10.0.0.0/24" );
+
+        IPListFileSource stopped = new IPListFileSource( Collections.emptyList( ), Collections.singletonList( file ) );
+        FileWatcherService.getInstance( ).shutdown( );
+
+        // Dropped by the shutdown : closing it does nothing
+        stopped.close( );
+
+        IPListFileSource source = new IPListFileSource( Collections.emptyList( ), Collections.singletonList( file ) );
+
+        try
+        {
+            Assertions.assertTrue( source.contains( "10.0.0.1" ) );
+
+            write( file, "192.168.0.0/16" );
+
+            long lDeadline = System.currentTimeMillis( ) + 10000;
+
+            while ( !source.contains( "192.168.3.4" ) && ( System.currentTimeMillis( ) < lDeadline ) )
+            {
+                Thread.sleep( 50 );
+            }
+
+            Assertions.assertTrue( source.contains( "192.168.3.4" ) );
+            Assertions.assertFalse( source.contains( "10.0.0.1" ) );
+        }
+        finally
+        {
+            source.close( );
+        }
+    }
+
+    /**
+     * Replaces the content of a file
+     * 
+     * @param file
+     *            The file
+     * @param strContent
+     *            The content
+     * @throws Exception
+     *             if an error occurs
+     */
+    private static void write( Path file, String strContent ) throws Exception
+    {
+        Path temp = file.resolveSibling( "ips.tmp" );
+        Files.write( temp, strContent.getBytes( StandardCharsets.UTF_8 ) );
+        Files.move( temp, file, StandardCopyOption.REPLACE_EXISTING );
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * IPRadixTrieTest
+ */
+public class IPRadixTrieTest
+{
+    /**
+     * Test the parsing of addresses
+     */
+    @Test
+    public void testParse( )
+    {
+        long [ ] address = new long [ 2];
+        long [ ] other = new long [ 2];
+
+        Assertions.assertEquals( 128, IPAddressParser.parse( "::1", address ) );
+        Assertions.assertEquals( 128, IPAddressParser.parse( "0:0:0:0:0:0:0:1", other ) );
+        Assertions.assertArrayEquals( address, other );
+
+        Assertions.assertEquals( 128, IPAddressParser.parse( "192.168.1.10", address ) );
+        Assertions.assertEquals( 128, IPAddressParser.parse( "::ffff:192.168.1.10", other ) );
+        Assertions.assertArrayEquals( address, other );
+        Assertions.assertEquals( 128, IPAddressParser.parse( "[::FFFF:C0A8:10A]", other ) );
+        Assertions.assertArrayEquals( address, other );
+
+        Assertions.assertEquals( 104, IPAddressParser.parse( "10.1.2.3/8", address ) );
+        Assertions.assertEquals( 0x0000FFFF0A000000L, address [1] );
+        Assertions.assertEquals( 32, IPAddressParser.parse( "2001:db8::/32", address ) );
+        Assertions.assertEquals( 128, IPAddressParser.parse( "fe80::1%eth0", address ) );
+
+        for ( String strInvalid : Arrays.asList( "", "1.2.3", "1.2.3.4.5", "256.1.1.1", "01.2.3.4", "1.2.3.4/33", "1::2::3", ":1", "1:", "1:2:3:4:5:6:7",
+                "1:2:3:4:5:6:7:8:9", "12345::", "localhost", "1.2.3.4/", "::/129", "\uFF11.2.3.4" ) )
+        {
+            Assertions.assertEquals( -1, IPAddressParser.parse( strInvalid, address ), strInvalid );
+        }
+    }
+
+    /**
+     * Test the lookup of addresses
+     */
+    @Test
+    public void testContains( )
+    {
+        IPRadixTrie trie = IPRadixTrie.of( Arrays.asList( "10.0.0.0/8", "10.1.0.0/16", "192.168.1.1", "::1", "2001:db8::/32", "172.16.0.0/12" ) );
+
+        Assertions.assertEquals( 5, trie.size( ) );
+        Assertions.assertTrue( trie.contains( "10.200.3.4" ) );
+        Assertions.assertTrue( trie.contains( "10.1.2.3" ) );
+        Assertions.assertFalse( trie.contains( "11.0.0.1" ) );
+        Assertions.assertTrue( trie.contains( "192.168.1.1" ) );
+        Assertions.assertFalse( trie.contains( "192.168.1.2" ) );
+        Assertions.assertTrue( trie.contains( "0:0:0:0:0:0:0:1" ) );
+        Assertions.assertTrue( trie.contains( "2001:db8:1234::5" ) );
+        Assertions.assertFalse( trie.contains( "2001:db9::5" ) );
+        Assertions.assertTrue( trie.contains( "172.31.255.255" ) );
+        Assertions.assertFalse( trie.contains( "172.32.0.0" ) );
+        Assertions.assertFalse( trie.contains( "not an address" ) );
+        Assertions.assertFalse( trie.contains( (CharSequence) null ) );
+        Assertions.assertFalse( IPRadixTrie.of( new ArrayList<String>( ) ).contains( "1.2.3.4" ) );
+
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> IPRadixTrie.of( Arrays.asList( "10.0.0.0/40" ) ) );
+    }
+
+    /**
+     * Test the lookup against a linear scan on random blocks
+     */
+    @Test
+    public void testRandomBlocks( )
+    {
+        Random random = new Random( 42 );
+        List<String> listBlocks = new ArrayList<>( );
+
+        for ( int i = 0; i < 20000; i++ )
+        {
+            listBlocks.add( ipv4( random.nextInt( ) ) + "/" + ( 8 + random.nextInt( 25 ) ) );
+        }
+
+        IPRadixTrie trie = IPRadixTrie.of( listBlocks );
+        long [ ] block = new long [ 2];
+        long [ ] address = new long [ 2];
+
+        for ( int i = 0; i < 2000; i++ )
+        {
+            String strAddress = ipv4( ( i % 2 == 0 ) ? random.nextInt( ) : ( random.nextInt( ) & 0xFFFF00FF ) );
+            IPAddressParser.parse( strAddress, address );
+
+            boolean bExpected = false;
+
+            for ( String strBlock : listBlocks )
+            {
+                int nPrefix = IPAddressParser.parse( strBlock, block );
+
+                if ( ( address [1] & IPAddressParser.lowMask( nPrefix ) ) == block [1] )
+                {
+                    bExpected = true;
+
+                    break;
+                }
+            }
+
+            Assertions.assertEquals( bExpected, trie.contains( strAddress ), strAddress );
+        }
+    }
+
+    /**
+     * Formats an IPv4 address
+     * 
+     * @param nAddress
+     *            The address
+     * @return The dotted decimal address
+     */
+    private static String ipv4( int nAddress )
+    {
+        return ( ( nAddress >>> 24 ) & 0xFF ) + "." + ( ( nAddress >>> 16 ) & 0xFF ) + "." + ( ( nAddress >>> 8 ) & 0xFF ) + "." + ( nAddress & 0xFF );
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.ip;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * IPv4BitmapTest
+ */
+public class IPv4BitmapTest
+{
+    /**
+     * Test of contains with addresses and blocks
+     */
+    @Test
+    public void testContains( )
+    {
+        IPv4Bitmap bitmap = IPv4Bitmap.of( Arrays.asList( "10.0.0.1", "10.0.0.3", "192.168.0.0/20", "192.168.0.5", "255.255.255.255", "0.0.0.0" ) );
+
+        Assertions.assertTrue( bitmap.contains( "10.0.0.1" ) );
+        Assertions.assertFalse( bitmap.contains( "10.0.0.2" ) );
+        Assertions.assertTrue( bitmap.contains( "10.0.0.3" ) );
+        Assertions.assertTrue( bitmap.contains( "192.168.15.255" ) );
+        Assertions.assertFalse( bitmap.contains( "192.168.16.0" ) );
+        Assertions.assertTrue( bitmap.contains( "255.255.255.255" ) );
+        Assertions.assertTrue( bitmap.contains( "0.0.0.0" ) );
+        Assertions.assertTrue( bitmap.contains( "::ffff:10.0.0.1" ) );
+        Assertions.assertFalse( bitmap.contains( "::10.0.0.1" ) );
+        Assertions.assertFalse( bitmap.contains( "2001:db8::1" ) );
+        Assertions.assertEquals( 4096 + 4, bitmap.size( ) );
+
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> IPv4Bitmap.of( Arrays.asList( "2001:db8::1" ) ) );
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> IPv4Bitmap.of( Arrays.asList( "10.0.0.0/7" ) ) );
+    }
+
+    /**
+     * Test random addresses against a HashSet, with array and bitmap containers
+     */
+    @Test
+    public void testRandomAddresses( )
+    {
+        Random random = new Random( 42 );
+        Set<Integer> setAddresses = new HashSet<>( );
+        IPv4Bitmap.Builder builder = IPv4Bitmap.builder( );
+
+        for ( int i = 0; i < 20000; i++ )
+        {
+            // A dense high part gets a bitmap container, the others array containers
+            int nAddress = ( ( i % 2 ) == 0 ) ? ( 0x0A000000 | random.nextInt( 0x10000 ) ) : random.nextInt( );
+            setAddresses.add( nAddress );
+            builder.add( nAddress );
+        }
+
+        IPv4Bitmap bitmap = builder.build( );
+        Assertions.assertEquals( setAddresses.size( ), bitmap.size( ) );
+
+        for ( int i = 0; i < 100000; i++ )
+        {
+            int nAddress = ( ( i % 2 ) == 0 ) ? ( 0x0A000000 | random.nextInt( 0x10000 ) ) : random.nextInt( );
+            Assertions.assertEquals( setAddresses.contains( nAddress ), bitmap.contains( nAddress ) );
+        }
+
+        for ( int nAddress : setAddresses )
+        {
+            Assertions.assertTrue( bitmap.contains( nAddress ) );
+        }
+    }
+
+    /**
+     * Test the write and the mapping of a bitmap file
+     * 
+     * @throws IOException
+     *             if an error occurs
+     */
+    @Test
+    public void testWriteAndMap( ) throws IOException
+    {
+        Path file = Files.createTempDirectory( "signrequest" ).resolve( "ips.bin" );
+        IPv4Bitmap bitmap = IPv4Bitmap.of( Arrays.asList( "10.0.0.1", "172.16.0.0/16" ) );
+        bitmap.write( file );
+
+        IPv4Bitmap mapped = IPv4Bitmap.map( file );
+        Assertions.assertEquals( bitmap.size( ), mapped.size( ) );
+        Assertions.assertEquals( bitmap.getSizeInBytes( ), Files.size( file ) );
+        Assertions.assertTrue( mapped.contains( "10.0.0.1" ) );
+        Assertions.assertTrue( mapped.contains( "172.16.200.3" ) );
+        Assertions.assertFalse( mapped.contains( "10.0.0.2" ) );
+
+        // A truncated file is rejected
+        Path truncated = file.resolveSibling( "truncated.bin" );
+        Files.write( truncated, Arrays.copyOf( Files.readAllBytes( file ), 100 ) );
+        Assertions.assertThrows( IOException.class, ( ) -> IPv4Bitmap.map( truncated ) );
+    }
+}
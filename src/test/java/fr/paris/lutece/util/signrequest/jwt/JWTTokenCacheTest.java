@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.jwt;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.util.signrequest.service.SchedulerService;
+
+/**
+ * JWTTokenCacheTest
+ */
+public class JWTTokenCacheTest
+{
+    /**
+     * Test that a token is reused, then refreshed in the background
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted
+     */
+    @Test
+    public void testRefresh( ) throws InterruptedException
+    {
+        AtomicInteger nSigned = new AtomicInteger( );
+        JWTTokenCache cache = new JWTTokenCache( expiration -> "token" + nSigned.incrementAndGet( ), 4000L, 0.1 );
+
+        Assertions.assertEquals( "token1", cache.getToken( ) );
+        Assertions.assertEquals( "token1", cache.getToken( ) );
+        Assertions.assertEquals( 1, nSigned.get( ) );
+
+        // The token has been used : it is refreshed after 400 ms without blocking the callers
+        long lDeadline = System.currentTimeMillis( ) + 5000L;
+
+        while ( ( nSigned.get( ) < 2 ) && ( System.currentTimeMillis( ) < lDeadline ) )
+        {
+            Thread.sleep( 50 );
+        }
+
+        Assertions.assertEquals( "token2", cache.getToken( ) );
+
+        cache.invalidate( );
+        Assertions.assertEquals( "token3", cache.getToken( ) );
+    }
+
+    /**
+     * Test that a closed cache is no longer refreshed, and that the scheduler starts again after a shutdown
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted
+     */
+    @Test
+    public void testClose( ) throws InterruptedException
+    {
+        AtomicInteger nClosedSigned = new AtomicInteger( );
+        JWTTokenCache closed = new JWTTokenCache( expiration -> "closed" + nClosedSigned.incrementAndGet( ), 4000L, 0.05 );
+        Assertions.assertEquals( "closed1", closed.getToken( ) );
+        closed.close( );
+
+        // Cancels the pending refreshes of all the caches
+        AtomicInteger nSigned = new AtomicInteger( );
+        JWTTokenCache stopped = new JWTTokenCache( expiration -> "stopped" + nSigned.incrementAndGet( ), 4000L, 0.05 );
+        Assertions.assertEquals( "stopped1", stopped.getToken( ) );
+        SchedulerService.getInstance( ).shutdown( );
+
+        AtomicInteger nRestartedSigned = new AtomicInteger( );
+        JWTTokenCache cache = new JWTTokenCache( expiration -> "token" + nRestartedSigned.incrementAndGet( ), 4000L, 0.05 );
+        Assertions.assertEquals( "token1", cache.getToken( ) );
+
+        long lDeadline = System.currentTimeMillis( ) + 5000L;
+
+        while ( ( nRestartedSigned.get( ) < 2 ) && ( System.currentTimeMillis( ) < lDeadline ) )
+        {
+            Thread.sleep( 50 );
+        }
+
+        Assertions.assertEquals( "token2", cache.getToken( ) );
+        Assertions.assertEquals( 1, nClosedSigned.get( ) );
+        Assertions.assertEquals( 1, nSigned.get( ) );
+        Assertions.assertEquals( "closed1", closed.getToken( ) );
+        cache.close( );
+    }
+}
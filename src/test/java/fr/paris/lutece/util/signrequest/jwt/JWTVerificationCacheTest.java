@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.jwt;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.jwt.service.JWTUtil;
+import fr.paris.lutece.util.signrequest.AbstractJWTRSAAuthenticator;
+import fr.paris.lutece.util.signrequest.JWTNoEncryptionAuthenticator;
+import fr.paris.lutece.util.signrequest.JWTSecretKeyAuthenticator;
+
+/**
+ * JWTVerificationCacheTest
+ */
+public class JWTVerificationCacheTest
+{
+    private static final String HTTP_HEADER_NAME = "header_name";
+    private static final String SECRET_KEY = "testestestestesttestestestestest";
+    private static final String ALGO = "HS256";
+
+    /**
+     * Test that a verified token is served from the cache
+     */
+    @Test
+    public void testCachedVerification( )
+    {
+        Map<String, String> mapJWTClaims = new HashMap<>( );
+        mapJWTClaims.put( "claim_key", "claim_value" );
+
+        JWTSecretKeyAuthenticator authenticator = new JWTSecretKeyAuthenticator( mapJWTClaims, HTTP_HEADER_NAME, 60000, ALGO, SECRET_KEY );
+        authenticator.enableVerificationCache( 100, JWTVerificationCache.DEFAULT_MAX_TTL );
+
+        Key key = JWTUtil.getKey( SECRET_KEY, ALGO );
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.addHeader( HTTP_HEADER_NAME, JWTUtil.buildBase64JWT( mapJWTClaims, new Date( System.currentTimeMillis( ) + 60000 ), ALGO, key ) );
+
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request ) );
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request ) );
+
+        JWTVerificationCache cache = authenticator.getVerificationCache( );
+        Assertions.assertEquals( 1, cache.getMissCount( ) );
+        Assertions.assertEquals( 1, cache.getHitCount( ) );
+
+        MockHttpServletRequest forged = new MockHttpServletRequest( );
+        forged.addHeader( HTTP_HEADER_NAME, request.getHeader( HTTP_HEADER_NAME ) + "x" );
+
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( forged ) );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( forged ) );
+        Assertions.assertEquals( 2, cache.getHitCount( ) );
+    }
+
+    /**
+     * Test that a result obtained with a replaced key is not served
+     * 
+     * @throws NoSuchAlgorithmException
+     */
+    @Test
+    public void testKeyReload( ) throws NoSuchAlgorithmException
+    {
+        Map<String, String> mapJWTClaims = new HashMap<>( );
+        mapJWTClaims.put( "claim_key", "claim_value" );
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance( "RSA" );
+        generator.initialize( 2048 );
+
+        KeyPair oldKeyPair = generator.generateKeyPair( );
+        AtomicReference<KeyPair> keyPair = new AtomicReference<>( oldKeyPair );
+        AbstractJWTRSAAuthenticator authenticator = new AbstractJWTRSAAuthenticator( mapJWTClaims, HTTP_HEADER_NAME, 60000, "RS256" )
+        {
+            @Override
+            protected KeyPair getKeyPair( )
+            {
+                return keyPair.get( );
+            }
+        };
+        authenticator.enableVerificationCache( 100, JWTVerificationCache.DEFAULT_MAX_TTL );
+
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.addHeader( HTTP_HEADER_NAME,
+                JWTUtil.buildBase64JWT( mapJWTClaims, new Date( System.currentTimeMillis( ) + 60000 ), "RS256", oldKeyPair.getPrivate( ) ) );
+
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request ) );
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request ) );
+
+        // The key is rotated : the token signed with the old key is verified again and rejected
+        keyPair.set( generator.generateKeyPair( ) );
+
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request ) );
+
+        JWTVerificationCache cache = new JWTVerificationCache( 100, JWTVerificationCache.DEFAULT_MAX_TTL );
+        cache.put( "token", true, 0, oldKeyPair.getPublic( ) );
+
+        Assertions.assertEquals( Boolean.TRUE, cache.get( "token", oldKeyPair.getPublic( ) ) );
+        Assertions.assertNull( cache.get( "token", keyPair.get( ).getPublic( ) ) );
+    }
+
+    /**
+     * Test that a valid result never outlives the exp claim
+     */
+    @Test
+    public void testExpiration( )
+    {
+        JWTVerificationCache cache = new JWTVerificationCache( 100, JWTVerificationCache.DEFAULT_MAX_TTL );
+        long lNow = System.currentTimeMillis( );
+
+        cache.put( "expired", true, lNow - 10000 );
+        cache.put( "valid", true, lNow + 60000 );
+        cache.put( "unknown", true, JWTVerificationResult.UNKNOWN_EXPIRATION );
+        cache.put( "rejected", false, JWTVerificationResult.UNKNOWN_EXPIRATION );
+
+        Assertions.assertNull( cache.get( "expired" ) );
+        Assertions.assertEquals( Boolean.TRUE, cache.get( "valid" ) );
+        Assertions.assertNull( cache.get( "unknown" ) );
+        Assertions.assertEquals( Boolean.FALSE, cache.get( "rejected" ) );
+        Assertions.assertEquals( 2, cache.size( ) );
+    }
+
+    /**
+     * Test that the expiration of an unsigned token is read from its claims
+     */
+    @Test
+    public void testUnsecuredExpiration( )
+    {
+        Map<String, String> mapJWTClaims = new HashMap<>( );
+        mapJWTClaims.put( "claim_key", "claim_value" );
+
+        JWTNoEncryptionAuthenticator authenticator = new JWTNoEncryptionAuthenticator( mapJWTClaims, HTTP_HEADER_NAME, 60000 );
+        authenticator.enableVerificationCache( 100, JWTVerificationCache.DEFAULT_MAX_TTL );
+
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.addHeader( HTTP_HEADER_NAME, JWTUtil.buildBase64JWT( mapJWTClaims, new Date( System.currentTimeMillis( ) + 60000 ), null, null ) );
+
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request ) );
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request ) );
+        Assertions.assertEquals( 1, authenticator.getVerificationCache( ).getHitCount( ) );
+    }
+
+    /**
+     * Test that the cache stays within its size
+     */
+    @Test
+    public void testEviction( )
+    {
+        JWTVerificationCache cache = new JWTVerificationCache( 10, JWTVerificationCache.DEFAULT_MAX_TTL );
+
+        for ( int i = 0; i < 50; i++ )
+        {
+            cache.put( "token" + i, false, JWTVerificationResult.UNKNOWN_EXPIRATION );
+        }
+
+        Assertions.assertTrue( cache.size( ) <= 10 );
+        Assertions.assertEquals( 50 - cache.size( ), cache.getEvictionCount( ) );
+    }
+}
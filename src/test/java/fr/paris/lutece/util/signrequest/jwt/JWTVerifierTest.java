@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.jwt;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.util.jwt.service.JWTUtil;
+
+/**
+ * JWTVerifierTest
+ */
+public class JWTVerifierTest
+{
+    private static final String SECRET_KEY = "testestestestesttestestestestest";
+    private static final String OTHER_KEY = "otherotherotherotherotherotherot";
+    private static final String ALGO = "HS256";
+
+    /**
+     * Test the status of the verification
+     */
+    @Test
+    public void testVerify( )
+    {
+        Map<String, String> mapClaims = new HashMap<>( );
+        mapClaims.put( "claim_key", "claim_value" );
+
+        Key key = JWTUtil.getKey( SECRET_KEY, ALGO );
+        JWTVerifier verifier = new JWTVerifier( key, mapClaims );
+        Date expiration = new Date( ( ( System.currentTimeMillis( ) / 1000L ) + 60L ) * 1000L );
+
+        String strToken = JWTUtil.buildBase64JWT( mapClaims, expiration, ALGO, key );
+        JWTVerificationResult result = verifier.verify( strToken );
+        Assertions.assertTrue( result.isValid( ) );
+        Assertions.assertEquals( expiration.getTime( ), result.getExpiration( ) );
+        Assertions.assertEquals( "claim_value", result.getClaims( ).get( "claim_key" ) );
+
+        Map<String, String> mapOtherClaims = new HashMap<>( );
+        mapOtherClaims.put( "claim_key", "other_value" );
+        result = verifier.verify( JWTUtil.buildBase64JWT( mapOtherClaims, expiration, ALGO, key ) );
+        Assertions.assertEquals( JWTVerificationResult.Status.CLAIM_MISMATCH, result.getStatus( ) );
+        Assertions.assertEquals( "claim_key", result.getFailedClaim( ) );
+
+        result = verifier.verify( JWTUtil.buildBase64JWT( mapClaims, expiration, ALGO, JWTUtil.getKey( OTHER_KEY, ALGO ) ) );
+        Assertions.assertEquals( JWTVerificationResult.Status.INVALID_SIGNATURE, result.getStatus( ) );
+
+        result = verifier.verify( JWTUtil.buildBase64JWT( mapClaims, new Date( System.currentTimeMillis( ) - 60000L ), ALGO, key ) );
+        Assertions.assertEquals( JWTVerificationResult.Status.EXPIRED, result.getStatus( ) );
+
+        Assertions.assertEquals( JWTVerificationResult.Status.MALFORMED, verifier.verify( "not.a.token" ).getStatus( ) );
+        Assertions.assertEquals( JWTVerificationResult.Status.MISSING_TOKEN, verifier.verify( null ).getStatus( ) );
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.path;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * PathPrefixMatcherTest
+ */
+public class PathPrefixMatcherTest
+{
+    /**
+     * Test the prefix lookup
+     */
+    @Test
+    public void testMatches( )
+    {
+        PathPrefixMatcher matcher = PathPrefixMatcher.of( Arrays.asList( "/rest/public", "/health", "/rest/public/docs", "/a" ) );
+
+        Assertions.assertTrue( matcher.matches( "/health" ) );
+        Assertions.assertTrue( matcher.matches( "/healthcheck" ) );
+        Assertions.assertTrue( matcher.matches( "/rest/public/x" ) );
+        Assertions.assertTrue( matcher.matches( "/abc" ) );
+        Assertions.assertFalse( matcher.matches( "/rest/private" ) );
+        Assertions.assertFalse( matcher.matches( "/heal" ) );
+        Assertions.assertFalse( matcher.matches( "" ) );
+        Assertions.assertFalse( matcher.matches( null ) );
+
+        Assertions.assertEquals( 2, matcher.longestMatch( "/rest/public/docs/index.html" ) );
+        Assertions.assertEquals( 0, matcher.longestMatch( "/rest/public/api" ) );
+        Assertions.assertEquals( -1, matcher.longestMatch( "/rest" ) );
+
+        Assertions.assertFalse( PathPrefixMatcher.of( Collections.emptyList( ) ).matches( "/health" ) );
+        Assertions.assertTrue( PathPrefixMatcher.of( Arrays.asList( "" ) ).matches( "/anything" ) );
+    }
+}
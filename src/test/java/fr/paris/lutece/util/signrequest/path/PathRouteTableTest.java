@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.path;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * PathRouteTableTest
+ */
+public class PathRouteTableTest
+{
+    /**
+     * Test of route method, of class PathRouteTable.
+     */
+    @Test
+    public void testRoute( )
+    {
+        PathRouteTable<String> table = PathRouteTable.<String> builder( ).add( "/health", "health" ).add( "/rest/api/*", "api" )
+                .add( "/rest/*/admin/*", "admin" ).add( "/rest/*/status", "status" ).add( "/rest/*", "rest" ).add( "/*", "default" ).build( );
+
+        Assertions.assertEquals( "health", table.route( "/health" ) );
+        Assertions.assertEquals( "default", table.route( "/healthcheck" ) );
+        Assertions.assertEquals( "api", table.route( "/rest/api" ) );
+        Assertions.assertEquals( "api", table.route( "/rest/api/users/12" ) );
+        Assertions.assertEquals( "rest", table.route( "/rest/apis" ) );
+        Assertions.assertEquals( "admin", table.route( "/rest/forms/admin" ) );
+        Assertions.assertEquals( "admin", table.route( "/rest/forms/admin/12" ) );
+        Assertions.assertEquals( "status", table.route( "/rest/forms/status" ) );
+        Assertions.assertEquals( "rest", table.route( "/rest/forms/status/12" ) );
+        Assertions.assertEquals( "rest", table.route( "/rest//admin" ) );
+        Assertions.assertEquals( "rest", table.route( "/rest" ) );
+        Assertions.assertEquals( "default", table.route( "/" ) );
+
+        PathRouteTable<String> noDefault = PathRouteTable.<String> builder( ).add( "/rest/*", "rest" ).build( );
+        Assertions.assertNull( noDefault.route( "/restx" ) );
+        Assertions.assertNull( noDefault.route( null ) );
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> PathRouteTable.<String> builder( ).add( "rest/*", "rest" ) );
+    }
+
+    /**
+     * Test of allMatches method, of class PathPrefixMatcher.
+     */
+    @Test
+    public void testAllMatches( )
+    {
+        PathPrefixMatcher matcher = PathPrefixMatcher.of( Arrays.asList( "/rest/", "/", "/rest/api" ) );
+        int [ ] matches = new int [ 3];
+
+        Assertions.assertEquals( 3, matcher.allMatches( "/rest/api/x", matches ) );
+        Assertions.assertArrayEquals( new int [ ] {
+                1, 0, 2
+        }, matches );
+        Assertions.assertEquals( 1, matcher.allMatches( "/other", matches ) );
+        Assertions.assertEquals( 0, matcher.allMatches( null, matches ) );
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * HkdfTest
+ */
+public class HkdfTest
+{
+    private static final HexFormat HEX = HexFormat.of( );
+
+    /**
+     * RFC 5869 - Test Case 1
+     */
+    @Test
+    public void testBasic( )
+    {
+        byte [ ] inputKey = HEX.parseHex( "0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b" );
+        byte [ ] salt = HEX.parseHex( "000102030405060708090a0b0c" );
+        byte [ ] info = HEX.parseHex( "f0f1f2f3f4f5f6f7f8f9" );
+
+        byte [ ] pseudoRandomKey = Hkdf.extract( salt, inputKey );
+        Assertions.assertEquals( "077709362c2e32df0ddc3f0dc47bba6390b6c73bb50f9c3122ec844ad7c2b3e5", HEX.formatHex( pseudoRandomKey ) );
+        Assertions.assertEquals( "3cb25f25faacd57a90434f64d0362f2a2d2d0a90cf1a5a4c5db02d56ecc4c5bf34007208d5b887185865",
+                HEX.formatHex( Hkdf.expand( pseudoRandomKey, info, 42 ) ) );
+    }
+
+    /**
+     * RFC 5869 - Test Case 3 : zero-length salt and info
+     */
+    @Test
+    public void testNoSaltNoInfo( )
+    {
+        byte [ ] inputKey = HEX.parseHex( "0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b" );
+
+        Assertions.assertEquals( "8da4e775a563c18f715f802a063c5a31b8a11f5c5ee1879ec3454e5f3c738d2d9d201395faa4b61a96c8",
+                HEX.formatHex( Hkdf.derive( inputKey, new byte [ 0], new byte [ 0], 42 ) ) );
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> Hkdf.derive( inputKey, null, null, 255 * 32 + 1 ) );
+    }
+}
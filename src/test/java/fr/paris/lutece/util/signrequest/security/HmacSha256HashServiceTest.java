@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.ClientHeaderHashAuthenticator;
+import fr.paris.lutece.util.signrequest.HeaderHashAuthenticator;
+
+/**
+ * HmacSha256HashServiceTest
+ */
+public class HmacSha256HashServiceTest
+{
+    // RFC 4231 - Test Case 2
+    private static final String KEY = "Jefe";
+    private static final String DATA = "what do ya want for nothing?";
+    private static final String EXPECTED_MAC = "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843";
+    private static final String PRIVATE_KEY = "change me";
+    private static final String PARAMETER_NAME = "name";
+    private static final String PARAMETER_VALUE = "value";
+
+    /**
+     * Test of getHash method, of class HmacSha256HashService.
+     */
+    @Test
+    public void testGetHash( )
+    {
+        HmacSha256HashService service = new HmacSha256HashService( );
+
+        Assertions.assertEquals( EXPECTED_MAC, service.getHash( DATA, KEY ) );
+        // The key state is reused by the following calls
+        Assertions.assertEquals( EXPECTED_MAC, service.getHash( DATA, KEY ) );
+        Assertions.assertNotEquals( EXPECTED_MAC, service.getHash( DATA, KEY + "!" ) );
+
+        // An HMAC is never computed without a key, and is not an unkeyed hash service
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> service.getHash( DATA, "" ) );
+        Assertions.assertFalse( HashService.class.isInstance( service ) );
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> new HeaderHashAuthenticator( ).setHashService( new SignatureHashService( )
+        {
+        } ) );
+    }
+
+    /**
+     * A full pad cache evicts some keys, not all of them
+     */
+    @Test
+    public void testMaxKeys( )
+    {
+        HmacSha256HashService service = new HmacSha256HashService( );
+        service.setMaxKeys( 10 );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            service.getHash( DATA, KEY + i );
+            Assertions.assertTrue( service.size( ) <= 10 );
+        }
+
+        Assertions.assertTrue( service.size( ) >= 9 );
+        Assertions.assertEquals( EXPECTED_MAC, service.getHash( DATA, KEY ) );
+    }
+
+    /**
+     * The hash engine must give the same result as the JCA Mac, including for keys longer than the block size
+     * 
+     * @throws GeneralSecurityException
+     */
+    @Test
+    public void testSameHashAsMac( ) throws GeneralSecurityException
+    {
+        HmacSha256HashService service = new HmacSha256HashService( );
+        String strLongKey = KEY.repeat( 40 );
+
+        for ( String strKey : new String [ ] {
+                KEY, strLongKey
+        } )
+        {
+            Mac jcaMac = Mac.getInstance( "HmacSHA256" );
+            jcaMac.init( new SecretKeySpec( strKey.getBytes( StandardCharsets.UTF_8 ), "HmacSHA256" ) );
+
+            byte [ ] mac = jcaMac.doFinal( DATA.getBytes( StandardCharsets.UTF_8 ) );
+            Assertions.assertEquals( HexFormat.of( ).formatHex( mac ), service.getHash( DATA, strKey ) );
+        }
+    }
+
+    /**
+     * Test a request signed and checked with an HMAC hash service
+     */
+    @Test
+    public void testSignRequestAndTestAuth( )
+    {
+        List<String> listElements = new ArrayList<>( );
+        listElements.add( PARAMETER_NAME );
+        HeaderHashAuthenticator authenticator = new HeaderHashAuthenticator( new HmacSha256HashService( ), listElements, PRIVATE_KEY );
+
+        List<String> listValues = new ArrayList<>( );
+        listValues.add( PARAMETER_VALUE );
+        AuthenticateRequestInformations infos = authenticator.getSecurityInformations( listValues );
+
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.addParameter( PARAMETER_NAME, PARAMETER_VALUE );
+        infos.getSecurityHeaders( ).forEach( request::addHeader );
+
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request ) );
+
+        HeaderHashAuthenticator otherKeyAuthenticator = new HeaderHashAuthenticator( new HmacSha256HashService( ), listElements, PRIVATE_KEY + "!" );
+        Assertions.assertFalse( otherKeyAuthenticator.isRequestAuthenticated( request ) );
+
+        // Without a key, requests are neither signed nor accepted
+        HeaderHashAuthenticator noKeyAuthenticator = new HeaderHashAuthenticator( new HmacSha256HashService( ), listElements, null );
+        Assertions.assertThrows( IllegalStateException.class, ( ) -> noKeyAuthenticator.getSecurityInformations( listValues ) );
+        Assertions.assertFalse( noKeyAuthenticator.isRequestAuthenticated( request ) );
+    }
+
+    /**
+     * An unknown client can not sign its requests
+     */
+    @Test
+    public void testUnknownClient( )
+    {
+        ClientHeaderHashAuthenticator authenticator = new ClientHeaderHashAuthenticator( );
+        authenticator.setHashService( new HmacSha256HashService( ) );
+        authenticator.setSignatureElements( new ArrayList<>( ) );
+        authenticator.setClientId( "unknown" );
+        authenticator.setClientKeyService( strClientId -> null );
+
+        Assertions.assertThrows( IllegalStateException.class, ( ) -> authenticator.getSecurityInformations( new ArrayList<>( ) ) );
+    }
+}
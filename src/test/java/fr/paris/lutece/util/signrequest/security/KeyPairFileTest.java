@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyStore;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * KeyPairFileTest
+ */
+public class KeyPairFileTest
+{
+    private static final String KEYSTORE_PATH = "wso2carbon.jks";
+    private static final String KEYSTORE_PASSWORD = "wso2carbon";
+    private static final String ALIAS = "wso2carbon";
+
+    /**
+     * Test the load, a failed reload and the reload on a file change
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testReload( ) throws Exception
+    {
+        Path directory = Files.createTempDirectory( "signrequest" );
+        Path file = directory.resolve( KEYSTORE_PATH );
+        copyKeystore( file );
+
+        KeyPairFile keyPairFile = new KeyPairFile( file, KeyPairFileTest::load );
+
+        try
+        {
+            KeyPair keyPair = keyPairFile.getKeyPair( );
+            Assertions.assertNotNull( keyPair );
+            Assertions.assertEquals( 1, keyPairFile.getReloadCount( ) );
+            Assertions.assertTrue( keyPairFile.getLastReloadDuration( ) > 0 );
+
+            // A corrupted file keeps the last keys
+            Files.write( directory.resolve( "garbage" ), new byte [ ] {
+                    1, 2, 3
+            } );
+            Files.move( directory.resolve( "garbage" ), file, StandardCopyOption.REPLACE_EXISTING );
+            Assertions.assertFalse( keyPairFile.reload( ) );
+            Assertions.assertSame( keyPair, keyPairFile.getKeyPair( ) );
+            Assertions.assertTrue( keyPairFile.getReloadFailureCount( ) >= 1 );
+
+            // The watcher reloads the restored file
+            copyKeystore( file );
+
+            long lDeadline = System.currentTimeMillis( ) + 10000;
+
+            while ( ( keyPairFile.getReloadCount( ) < 2 ) && ( System.currentTimeMillis( ) < lDeadline ) )
+            {
+                Thread.sleep( 50 );
+            }
+
+            Assertions.assertEquals( 2, keyPairFile.getReloadCount( ) );
+            Assertions.assertNotSame( keyPair, keyPairFile.getKeyPair( ) );
+        }
+        finally
+        {
+            keyPairFile.close( );
+        }
+    }
+
+    /**
+     * Copies the test keystore
+     * 
+     * @param file
+     *            The target file
+     * @throws IOException
+     *             if an error occurs
+     */
+    private void copyKeystore( Path file ) throws IOException
+    {
+        try ( InputStream is = getClass( ).getClassLoader( ).getResourceAsStream( KEYSTORE_PATH ) )
+        {
+            Path temp = file.resolveSibling( "keystore.tmp" );
+            Files.copy( is, temp, StandardCopyOption.REPLACE_EXISTING );
+            Files.move( temp, file, StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    /**
+     * Loads the key pair
+     * 
+     * @param is
+     *            The keystore content
+     * @return The key pair
+     * @throws IOException
+     *             if an error occurs
+     * @throws GeneralSecurityException
+     *             if an error occurs
+     */
+    private static KeyPair load( InputStream is ) throws IOException, GeneralSecurityException
+    {
+        KeyStore keystore = KeyStore.getInstance( KeyStore.getDefaultType( ) );
+        keystore.load( is, KEYSTORE_PASSWORD.toCharArray( ) );
+
+        return new KeyPair( keystore.getCertificate( ALIAS ).getPublicKey( ), null );
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.HeaderHashAuthenticator;
+
+/**
+ * KeyRingTest
+ */
+public class KeyRingTest
+{
+    private static final String HEADER_KEY_VERSION = "Lutece-Request-Key-Version";
+    private static final String PARAMETER_NAME = "name";
+    private static final String PARAMETER_VALUE = "value";
+
+    /**
+     * Test of parse method, of class KeyRing.
+     */
+    @Test
+    public void testParse( )
+    {
+        KeyRing keyRing = KeyRing.parse( Arrays.asList( "2:new:key", "1:old key" ) );
+
+        Assertions.assertEquals( 2, keyRing.size( ) );
+        Assertions.assertEquals( "2", keyRing.getCurrentVersion( ) );
+        Assertions.assertEquals( "new:key", keyRing.getCurrentKey( ) );
+        Assertions.assertEquals( 1, keyRing.indexOf( "1" ) );
+        Assertions.assertEquals( -1, keyRing.indexOf( "3" ) );
+        Assertions.assertThrows( IllegalArgumentException.class, ( ) -> KeyRing.parse( Arrays.asList( "nokey" ) ) );
+    }
+
+    /**
+     * A request signed with the previous key is accepted during a rotation, with or without the version hint
+     */
+    @Test
+    public void testRotation( )
+    {
+        List<String> listElements = new ArrayList<>( );
+        listElements.add( PARAMETER_NAME );
+        List<String> listValues = new ArrayList<>( );
+        listValues.add( PARAMETER_VALUE );
+
+        HeaderHashAuthenticator oldClient = new HeaderHashAuthenticator( new HmacSha256HashService( ), listElements, null );
+        oldClient.setPrivateKeys( KeyRing.parse( Arrays.asList( "1:old key" ) ) );
+        HeaderHashAuthenticator server = new HeaderHashAuthenticator( new HmacSha256HashService( ), listElements, null );
+        server.setPrivateKeys( KeyRing.parse( Arrays.asList( "2:new key", "1:old key" ) ) );
+
+        // Hinted : one hash with the key of the version
+        AuthenticateRequestInformations infos = oldClient.getSecurityInformations( listValues );
+        Assertions.assertEquals( "1", infos.getSecurityHeaders( ).get( HEADER_KEY_VERSION ) );
+        Assertions.assertTrue( server.isRequestAuthenticated( buildRequest( infos, null ) ) );
+        Assertions.assertEquals( 0, server.getUnhintedKeyRequestCount( ) );
+
+        // Unknown version
+        Assertions.assertFalse( server.isRequestAuthenticated( buildRequest( infos, "3" ) ) );
+
+        // Unhinted : the keys are tried newest first
+        Assertions.assertTrue( server.isRequestAuthenticated( buildRequest( infos, "" ) ) );
+        Assertions.assertEquals( 1, server.getUnhintedKeyRequestCount( ) );
+        Assertions.assertEquals( 1, server.getKeyFallbackCount( ) );
+
+        // Once the old key is removed
+        server.setPrivateKeys( KeyRing.parse( Arrays.asList( "2:new key" ) ) );
+        Assertions.assertFalse( server.isRequestAuthenticated( buildRequest( infos, null ) ) );
+        Assertions.assertTrue( server.isRequestAuthenticated( buildRequest( server.getSecurityInformations( listValues ), null ) ) );
+    }
+
+    /**
+     * Builds a signed request
+     * 
+     * @param infos
+     *            The security informations
+     * @param strKeyVersion
+     *            The key version to send instead of the signed one, empty for none, or null to keep the signed one
+     * @return The request
+     */
+    private static MockHttpServletRequest buildRequest( AuthenticateRequestInformations infos, String strKeyVersion )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.addParameter( PARAMETER_NAME, PARAMETER_VALUE );
+        infos.getSecurityHeaders( ).forEach( ( strName, strValue ) -> {
+            if ( strKeyVersion == null || !HEADER_KEY_VERSION.equals( strName ) )
+            {
+                request.addHeader( strName, strValue );
+            }
+        } );
+
+        if ( strKeyVersion != null && !strKeyVersion.isEmpty( ) )
+        {
+            request.addHeader( HEADER_KEY_VERSION, strKeyVersion );
+        }
+
+        return request;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * RateLimiterTest
+ */
+public class RateLimiterTest
+{
+    /**
+     * Test the burst, the refill and the independence of the keys
+     * 
+     * @throws InterruptedException
+     *             if interrupted
+     */
+    @Test
+    public void testTryAcquire( ) throws InterruptedException
+    {
+        RateLimiter limiter = new RateLimiter( 20, 3, 100 );
+
+        try
+        {
+            Assertions.assertTrue( limiter.tryAcquire( "client1" ) );
+            Assertions.assertTrue( limiter.tryAcquire( "client1" ) );
+            Assertions.assertTrue( limiter.tryAcquire( "client1" ) );
+            Assertions.assertFalse( limiter.tryAcquire( "client1" ) );
+            Assertions.assertEquals( 1, limiter.getRejectedCount( ) );
+
+            Assertions.assertTrue( limiter.tryAcquire( "client2" ) );
+            Assertions.assertTrue( limiter.tryAcquire( 0L, 0xFFFF0A000001L ) );
+
+            // One token every 50 ms
+            Thread.sleep( 120 );
+            Assertions.assertTrue( limiter.tryAcquire( "client1" ) );
+            Assertions.assertEquals( 3, limiter.size( ) );
+        }
+        finally
+        {
+            limiter.close( );
+        }
+    }
+
+    /**
+     * Test the eviction of the refilled buckets, and the rejection of new keys while the table is full of limited keys
+     * 
+     * @throws InterruptedException
+     *             if interrupted
+     */
+    @Test
+    public void testEvictionAndOverflow( ) throws InterruptedException
+    {
+        RateLimiter limiter = new RateLimiter( 10, 1, 1 );
+
+        try
+        {
+            // 16 slots for a capacity of 1
+            int nAllowed = 0;
+
+            for ( int i = 0; i < 100; i++ )
+            {
+                if ( limiter.tryAcquire( "client" + i ) )
+                {
+                    nAllowed++;
+                }
+            }
+
+            Assertions.assertEquals( 16, nAllowed );
+            Assertions.assertEquals( 16, limiter.size( ) );
+            Assertions.assertEquals( 100 - 16, limiter.getOverflowCount( ) );
+            Assertions.assertEquals( 0, limiter.getRejectedCount( ) );
+
+            // One token every 100 ms : once the buckets have refilled, a new key takes over a slot
+            Thread.sleep( 150 );
+            Assertions.assertTrue( limiter.tryAcquire( "new client" ) );
+            Assertions.assertFalse( limiter.tryAcquire( "new client" ) );
+            Assertions.assertEquals( 16, limiter.size( ) );
+            Assertions.assertEquals( 1, limiter.getRejectedCount( ) );
+
+            limiter.evict( );
+            Assertions.assertEquals( 1, limiter.size( ) );
+        }
+        finally
+        {
+            limiter.close( );
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.HeaderHashAuthenticator;
+
+/**
+ * ReplayGuardTest
+ */
+public class ReplayGuardTest
+{
+    private static final long WINDOW = 60000L;
+
+    /**
+     * Test that a signature is accepted once
+     */
+    @Test
+    public void testRegister( )
+    {
+        ReplayGuard guard = new ReplayGuard( WINDOW, 1000 );
+        long lNow = System.currentTimeMillis( );
+
+        Assertions.assertTrue( guard.register( lNow, new byte [ ] {
+                1, 2, 3
+        } ) );
+        Assertions.assertFalse( guard.register( lNow, new byte [ ] {
+                1, 2, 3
+        } ) );
+        Assertions.assertTrue( guard.register( lNow, new byte [ ] {
+                1, 2, 4
+        } ) );
+        Assertions.assertTrue( guard.register( lNow, "abc" ) );
+        Assertions.assertFalse( guard.register( lNow, "abc" ) );
+        Assertions.assertEquals( 2, guard.getReplayCount( ) );
+
+        // Out of the window
+        Assertions.assertFalse( guard.register( lNow - ( 2 * WINDOW ), "old" ) );
+        Assertions.assertFalse( guard.register( lNow + ( 2 * WINDOW ), "future" ) );
+    }
+
+    /**
+     * Test that the memory is bounded
+     */
+    @Test
+    public void testOverflow( )
+    {
+        ReplayGuard guard = new ReplayGuard( WINDOW, 8 );
+        long lNow = System.currentTimeMillis( );
+        int nAccepted = 0;
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            if ( guard.register( lNow, "signature" + i ) )
+            {
+                nAccepted++;
+            }
+        }
+
+        Assertions.assertTrue( nAccepted <= 16 );
+        Assertions.assertEquals( 1000 - nAccepted, guard.getOverflowCount( ) );
+    }
+
+    /**
+     * Test that concurrent threads accept each signature exactly once
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted
+     */
+    @Test
+    public void testConcurrentRegister( ) throws InterruptedException
+    {
+        ReplayGuard guard = new ReplayGuard( WINDOW, 100000 );
+        long lNow = System.currentTimeMillis( );
+        int nThreads = 8;
+        int nSignatures = 5000;
+        AtomicInteger nAccepted = new AtomicInteger( );
+        CountDownLatch start = new CountDownLatch( 1 );
+        List<Thread> listThreads = new ArrayList<>( );
+
+        for ( int t = 0; t < nThreads; t++ )
+        {
+            Thread thread = new Thread( ( ) -> {
+                try
+                {
+                    start.await( );
+                }
+                catch( InterruptedException e )
+                {
+                    Thread.currentThread( ).interrupt( );
+                }
+
+                for ( int i = 0; i < nSignatures; i++ )
+                {
+                    if ( guard.register( lNow, "signature" + i ) )
+                    {
+                        nAccepted.incrementAndGet( );
+                    }
+                }
+            } );
+            thread.start( );
+            listThreads.add( thread );
+        }
+
+        start.countDown( );
+
+        for ( Thread thread : listThreads )
+        {
+            thread.join( );
+        }
+
+        Assertions.assertEquals( nSignatures, nAccepted.get( ) );
+        Assertions.assertEquals( 0, guard.getOverflowCount( ) );
+    }
+
+    /**
+     * Test that an authenticator with a replay guard accepts a signed request once
+     */
+    @Test
+    public void testAuthenticator( )
+    {
+        List<String> listElements = new ArrayList<>( );
+        listElements.add( "name" );
+        HeaderHashAuthenticator authenticator = new HeaderHashAuthenticator( new HmacSha256HashService( ), listElements, "private_key" );
+        authenticator.setReplayGuard( new ReplayGuard( WINDOW, 1000 ) );
+
+        List<String> listValues = new ArrayList<>( );
+        listValues.add( "value" );
+        AuthenticateRequestInformations infos = authenticator.getSecurityInformations( listValues );
+
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.addParameter( "name", "value" );
+        infos.getSecurityHeaders( ).forEach( request::addHeader );
+
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( request ) );
+        Assertions.assertFalse( authenticator.isRequestAuthenticated( request ) );
+    }
+}
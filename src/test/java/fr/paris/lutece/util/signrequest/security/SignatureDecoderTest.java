@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.security;
+
+import java.util.Base64;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SignatureDecoderTest
+ */
+public class SignatureDecoderTest
+{
+    /**
+     * Test of decode method with the supported encodings
+     */
+    @Test
+    public void testDecode( )
+    {
+        for ( int nLength : new int [ ] {
+                20, 32, 64
+        } )
+        {
+            byte [ ] hash = new byte [ nLength];
+
+            for ( int i = 0; i < nLength; i++ )
+            {
+                hash [i] = (byte) ( ( i * 37 ) + 11 );
+            }
+
+            String strHex = HexFormat.of( ).formatHex( hash );
+            assertDecoded( hash, strHex );
+            assertDecoded( hash, strHex.toUpperCase( ) );
+            assertDecoded( hash, Base64.getUrlEncoder( ).encodeToString( hash ) );
+            assertDecoded( hash, Base64.getUrlEncoder( ).withoutPadding( ).encodeToString( hash ) );
+        }
+    }
+
+    /**
+     * Test of decode method with malformed signatures
+     */
+    @Test
+    public void testMalformed( )
+    {
+        byte [ ] out = new byte [ 20];
+        String strHex = HexFormat.of( ).formatHex( new byte [ 20] );
+        String strBase64 = Base64.getUrlEncoder( ).withoutPadding( ).encodeToString( new byte [ 20] );
+
+        Assertions.assertFalse( SignatureDecoder.decode( strHex.substring( 1 ), out ) );
+        Assertions.assertFalse( SignatureDecoder.decode( strHex + "00", out ) );
+        Assertions.assertFalse( SignatureDecoder.decode( "g" + strHex.substring( 1 ), out ) );
+        Assertions.assertFalse( SignatureDecoder.decode( "\u0663" + strHex.substring( 1 ), out ) );
+        Assertions.assertFalse( SignatureDecoder.decode( "+" + strBase64.substring( 1 ), out ) );
+        Assertions.assertFalse( SignatureDecoder.decode( strBase64 + "A", out ) );
+        // Non zero trailing bits
+        Assertions.assertFalse( SignatureDecoder.decode( strBase64.substring( 0, strBase64.length( ) - 1 ) + "B", out ) );
+    }
+
+    /**
+     * Asserts that a signature is decoded into the expected hash
+     * 
+     * @param expected
+     *            The expected hash
+     * @param strSignature
+     *            The signature
+     */
+    private static void assertDecoded( byte [ ] expected, String strSignature )
+    {
+        byte [ ] out = new byte [ expected.length];
+
+        Assertions.assertTrue( SignatureDecoder.decode( strSignature, out ), strSignature );
+        Assertions.assertArrayEquals( expected, out, strSignature );
+    }
+}
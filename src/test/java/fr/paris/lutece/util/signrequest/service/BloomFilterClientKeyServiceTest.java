@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.util.signrequest.security.BloomFilter;
+
+/**
+ * BloomFilterClientKeyServiceTest
+ */
+public class BloomFilterClientKeyServiceTest
+{
+    /**
+     * Test that known IDs are always found and that unknown IDs are rejected at the configured rate
+     */
+    @Test
+    public void testBloomFilter( )
+    {
+        List<String> listIds = new ArrayList<>( );
+
+        for ( int i = 0; i < 10000; i++ )
+        {
+            listIds.add( "client" + i );
+        }
+
+        BloomFilter filter = new BloomFilter( listIds, 0.01 );
+
+        for ( String strId : listIds )
+        {
+            Assertions.assertTrue( filter.mightContain( strId ) );
+        }
+
+        int nFalsePositives = 0;
+
+        for ( int i = 0; i < 100000; i++ )
+        {
+            if ( filter.mightContain( "unknown" + i ) )
+            {
+                nFalsePositives++;
+            }
+        }
+
+        Assertions.assertTrue( nFalsePositives < 2000, "False positives : " + nFalsePositives );
+        Assertions.assertFalse( new BloomFilter( new ArrayList<String>( ), 0.01 ).mightContain( "client0" ) );
+    }
+
+    /**
+     * Test the rejection of unknown clients and the rebuild
+     */
+    @Test
+    public void testGetKey( )
+    {
+        Map<String, String> mapClients = new HashMap<>( );
+        mapClients.put( "client1", "key1" );
+
+        BasicClientKeyService basicService = new BasicClientKeyService( );
+        basicService.setClientsMap( mapClients );
+
+        BloomFilterClientKeyService service = new BloomFilterClientKeyService( basicService, 0L );
+
+        Assertions.assertEquals( "key1", service.getKey( "client1" ) );
+        Assertions.assertNull( service.getKey( "client2" ) );
+
+        mapClients.put( "client2", "key2" );
+        Assertions.assertTrue( service.rebuild( ) );
+        Assertions.assertEquals( "key2", service.getKey( "client2" ) );
+        Assertions.assertTrue( service.getRejectedCount( ) >= 1 );
+    }
+
+    /**
+     * Test that the periodic rebuilds run on the rebuild executor, not on the scheduler
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void testRebuildExecutor( ) throws InterruptedException
+    {
+        Map<String, String> mapClients = new HashMap<>( );
+        mapClients.put( "client1", "key1" );
+
+        BasicClientKeyService basicService = new BasicClientKeyService( );
+        basicService.setClientsMap( mapClients );
+
+        BlockingQueue<Runnable> queueTasks = new LinkedBlockingQueue<>( );
+        BloomFilterClientKeyService service = new BloomFilterClientKeyService( basicService, basicService,
+                BloomFilterClientKeyService.DEFAULT_FALSE_POSITIVE_RATE, 200L );
+        service.setRebuildExecutor( queueTasks::add );
+
+        try
+        {
+            mapClients.put( "client2", "key2" );
+
+            Runnable task = queueTasks.poll( 5, TimeUnit.SECONDS );
+            Assertions.assertNotNull( task );
+            Assertions.assertNull( service.getKey( "client2" ) );
+
+            task.run( );
+            Assertions.assertEquals( "key2", service.getKey( "client2" ) );
+        }
+        finally
+        {
+            service.close( );
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CachingClientKeyServiceTest
+ */
+public class CachingClientKeyServiceTest
+{
+    private static final String CLIENT_ID = "client";
+    private static final String UNKNOWN_CLIENT_ID = "unknown";
+
+    /**
+     * Test the hits, the negative cache and the refresh ahead of expiration
+     */
+    @Test
+    public void testGetKey( )
+    {
+        AtomicInteger nLoads = new AtomicInteger( );
+        ManualClock clock = new ManualClock( );
+        CachingClientKeyService service = new CachingClientKeyService( strClientId -> {
+            nLoads.incrementAndGet( );
+
+            return CLIENT_ID.equals( strClientId ) ? "key" + nLoads.get( ) : null;
+        }, 10, 200 );
+        service.setClock( clock );
+        service.setRefreshExecutor( Runnable::run );
+
+        Assertions.assertEquals( "key1", service.getKey( CLIENT_ID ) );
+        Assertions.assertEquals( "key1", service.getKey( CLIENT_ID ) );
+        Assertions.assertNull( service.getKey( UNKNOWN_CLIENT_ID ) );
+        Assertions.assertNull( service.getKey( UNKNOWN_CLIENT_ID ) );
+        Assertions.assertEquals( 2, nLoads.get( ) );
+        Assertions.assertEquals( 2, service.getHitCount( ) );
+        Assertions.assertEquals( 2, service.getMissCount( ) );
+
+        // Past three quarters of the TTL, the current key is returned while it is reloaded
+        clock._lMillis += 160;
+        Assertions.assertEquals( "key1", service.getKey( CLIENT_ID ) );
+        Assertions.assertEquals( 1, service.getRefreshCount( ) );
+        Assertions.assertEquals( "key3", service.getKey( CLIENT_ID ) );
+
+        // Past the TTL, the key is loaded again
+        clock._lMillis += 200;
+        Assertions.assertEquals( "key4", service.getKey( CLIENT_ID ) );
+    }
+
+    /**
+     * Test that a load started before an invalidation does not cache the old key
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testInvalidateDuringLoad( ) throws Exception
+    {
+        AtomicInteger nLoads = new AtomicInteger( );
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+        CachingClientKeyService service = new CachingClientKeyService( strClientId -> {
+            if ( nLoads.incrementAndGet( ) == 1 )
+            {
+                started.countDown( );
+
+                try
+                {
+                    release.await( 5, TimeUnit.SECONDS );
+                }
+                catch( InterruptedException e )
+                {
+                    Thread.currentThread( ).interrupt( );
+                }
+
+                return "old";
+            }
+
+            return "new";
+        }, 10, 60000 );
+
+        ExecutorService executor = Executors.newSingleThreadExecutor( );
+
+        try
+        {
+            Future<String> oldKey = executor.submit( ( ) -> service.getKey( CLIENT_ID ) );
+            Assertions.assertTrue( started.await( 5, TimeUnit.SECONDS ) );
+
+            service.invalidate( CLIENT_ID );
+
+            // The next lookup does not join the stale load
+            Assertions.assertEquals( "new", service.getKey( CLIENT_ID ) );
+
+            release.countDown( );
+            Assertions.assertEquals( "old", oldKey.get( 5, TimeUnit.SECONDS ) );
+            Assertions.assertEquals( "new", service.getKey( CLIENT_ID ) );
+            Assertions.assertEquals( 2, nLoads.get( ) );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+    }
+
+    /**
+     * Test that concurrent misses share a single load
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testSingleFlight( ) throws Exception
+    {
+        AtomicInteger nLoads = new AtomicInteger( );
+        CountDownLatch latch = new CountDownLatch( 1 );
+        CachingClientKeyService service = new CachingClientKeyService( strClientId -> {
+            nLoads.incrementAndGet( );
+
+            try
+            {
+                latch.await( 5, TimeUnit.SECONDS );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+
+            return "key";
+        }, 10, 60000 );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+
+        try
+        {
+            @SuppressWarnings( "unchecked" )
+            Future<String> [ ] results = new Future [ 8];
+
+            for ( int i = 0; i < results.length; i++ )
+            {
+                results [i] = executor.submit( ( ) -> service.getKey( CLIENT_ID ) );
+            }
+
+            Thread.sleep( 100 );
+            latch.countDown( );
+
+            for ( Future<String> result : results )
+            {
+                Assertions.assertEquals( "key", result.get( 5, TimeUnit.SECONDS ) );
+            }
+
+            Assertions.assertEquals( 1, nLoads.get( ) );
+            Assertions.assertEquals( 1, service.getLoadCount( ) );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+    }
+
+    /**
+     * Test that refreshes run on the refresh executor, and that a rejected refresh is tried again
+     */
+    @Test
+    public void testRefreshExecutor( )
+    {
+        AtomicInteger nLoads = new AtomicInteger( );
+        AtomicInteger nSubmitted = new AtomicInteger( );
+        ManualClock clock = new ManualClock( );
+        CachingClientKeyService service = new CachingClientKeyService( strClientId -> "key" + nLoads.incrementAndGet( ), 10, 200 );
+        service.setClock( clock );
+        service.setRefreshExecutor( task -> {
+            if ( nSubmitted.incrementAndGet( ) == 1 )
+            {
+                throw new RejectedExecutionException( "Saturated" );
+            }
+
+            task.run( );
+        } );
+
+        Assertions.assertEquals( "key1", service.getKey( CLIENT_ID ) );
+
+        clock._lMillis += 160;
+        Assertions.assertEquals( "key1", service.getKey( CLIENT_ID ) );
+        Assertions.assertEquals( 0, service.getRefreshCount( ) );
+
+        // The rejected refresh did not block the next ones
+        Assertions.assertEquals( "key1", service.getKey( CLIENT_ID ) );
+        Assertions.assertEquals( 1, service.getRefreshCount( ) );
+        Assertions.assertEquals( "key2", service.getKey( CLIENT_ID ) );
+    }
+
+    /**
+     * Clock moved by the tests
+     */
+    private static final class ManualClock extends Clock
+    {
+        private volatile long _lMillis = 1000000L;
+
+        @Override
+        public long millis( )
+        {
+            return _lMillis;
+        }
+
+        @Override
+        public Instant instant( )
+        {
+            return Instant.ofEpochMilli( _lMillis );
+        }
+
+        @Override
+        public ZoneId getZone( )
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone( ZoneId zone )
+        {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.ClientHeaderHashAuthenticator;
+import fr.paris.lutece.util.signrequest.security.HmacSha256HashService;
+import fr.paris.lutece.util.signrequest.security.KeyRing;
+
+/**
+ * DerivedClientKeyServiceTest
+ */
+public class DerivedClientKeyServiceTest
+{
+    private static final String MASTER_SECRET = "master secret";
+    private static final String SALT = "salt";
+    private static final String CLIENT_ID = "client";
+    private static final String PARAMETER_NAME = "name";
+    private static final String PARAMETER_VALUE = "value";
+
+    /**
+     * A key only depends on the master secret, the salt, the client and the version
+     */
+    @Test
+    public void testStability( )
+    {
+        DerivedClientKeyService service = new DerivedClientKeyService( MASTER_SECRET, SALT, 1 );
+        String strKey = service.getKey( CLIENT_ID );
+
+        Assertions.assertEquals( 64, strKey.length( ) );
+        Assertions.assertEquals( strKey, service.getKey( CLIENT_ID ) );
+        Assertions.assertEquals( strKey, new DerivedClientKeyService( MASTER_SECRET, SALT, 1 ).getKey( CLIENT_ID ) );
+        Assertions.assertEquals( strKey, service.deriveKey( CLIENT_ID, 1 ) );
+
+        Assertions.assertNotEquals( strKey, service.getKey( "other" ) );
+        Assertions.assertNotEquals( strKey, new DerivedClientKeyService( MASTER_SECRET, SALT, 2 ).getKey( CLIENT_ID ) );
+        Assertions.assertNotEquals( strKey, new DerivedClientKeyService( MASTER_SECRET, null, 1 ).getKey( CLIENT_ID ) );
+        Assertions.assertNotEquals( strKey, new DerivedClientKeyService( "other secret", SALT, 1 ).getKey( CLIENT_ID ) );
+    }
+
+    /**
+     * The key issued to a client is the current key of its key ring, and the previous versions stay accepted during a rotation
+     */
+    @Test
+    public void testRotation( )
+    {
+        DerivedClientKeyService oldService = new DerivedClientKeyService( MASTER_SECRET, SALT, 1 );
+        DerivedClientKeyService newService = new DerivedClientKeyService( MASTER_SECRET, SALT, 2 );
+        newService.setPreviousVersions( 1 );
+
+        KeyRing keyRing = newService.getKeyRing( CLIENT_ID );
+        Assertions.assertEquals( 2, keyRing.size( ) );
+        Assertions.assertEquals( "2", keyRing.getCurrentVersion( ) );
+        Assertions.assertEquals( newService.getKey( CLIENT_ID ), keyRing.getCurrentKey( ) );
+        Assertions.assertEquals( oldService.getKey( CLIENT_ID ), keyRing.getKey( keyRing.indexOf( "1" ) ) );
+
+        ClientHeaderHashAuthenticator server = newAuthenticator( newService );
+        Assertions.assertTrue( server.isRequestAuthenticated( buildRequest( newAuthenticator( oldService ) ) ) );
+        Assertions.assertTrue( server.isRequestAuthenticated( buildRequest( newAuthenticator( newService ) ) ) );
+
+        // Once the rotation is over, the old key is refused
+        newService.setPreviousVersions( );
+        Assertions.assertFalse( server.isRequestAuthenticated( buildRequest( newAuthenticator( oldService ) ) ) );
+        Assertions.assertTrue( server.isRequestAuthenticated( buildRequest( newAuthenticator( newService ) ) ) );
+    }
+
+    /**
+     * The previous keys stay accepted through a cache and a filter
+     */
+    @Test
+    public void testDecoratedRotation( )
+    {
+        DerivedClientKeyService oldService = new DerivedClientKeyService( MASTER_SECRET, SALT, 1 );
+        DerivedClientKeyService newService = new DerivedClientKeyService( MASTER_SECRET, SALT, 2 );
+        newService.setPreviousVersions( 1 );
+
+        Map<String, String> mapClients = new HashMap<>( );
+        mapClients.put( CLIENT_ID, "unused" );
+        BasicClientKeyService clientIds = new BasicClientKeyService( );
+        clientIds.setClientsMap( mapClients );
+
+        CachingClientKeyService cache = new CachingClientKeyService( newService, 10, 60000L );
+        BloomFilterClientKeyService filter = new BloomFilterClientKeyService( cache, clientIds, BloomFilterClientKeyService.DEFAULT_FALSE_POSITIVE_RATE,
+                0L );
+        Assertions.assertTrue( cache.isVersioned( ) );
+        Assertions.assertTrue( filter.isVersioned( ) );
+
+        for ( ClientKeyService service : new ClientKeyService [ ] {
+                cache, filter
+        } )
+        {
+            ClientHeaderHashAuthenticator server = newAuthenticator( service );
+            Assertions.assertTrue( server.isRequestAuthenticated( buildRequest( newAuthenticator( oldService ) ) ) );
+            Assertions.assertTrue( server.isRequestAuthenticated( buildRequest( newAuthenticator( newService ) ) ) );
+            Assertions.assertTrue( server.isRequestAuthenticated( buildRequest( newAuthenticator( service ) ) ) );
+        }
+
+        Assertions.assertEquals( 1, cache.getLoadCount( ) );
+        Assertions.assertFalse( new CachingClientKeyService( clientIds, 10, 60000L ).isVersioned( ) );
+    }
+
+    /**
+     * A full cache evicts some keys, not all of them
+     */
+    @Test
+    public void testCacheSize( )
+    {
+        DerivedClientKeyService service = new DerivedClientKeyService( MASTER_SECRET, SALT, 1 );
+        service.setMaxKeys( 10 );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            Assertions.assertEquals( service.deriveKey( CLIENT_ID + i, 1 ), service.getKey( CLIENT_ID + i ) );
+            Assertions.assertTrue( service.size( ) <= 10 );
+        }
+
+        Assertions.assertTrue( service.size( ) >= 9 );
+    }
+
+    /**
+     * Creates an authenticator signing the name parameter
+     * 
+     * @param clientKeyService
+     *            The client key service
+     * @return The authenticator
+     */
+    private static ClientHeaderHashAuthenticator newAuthenticator( ClientKeyService clientKeyService )
+    {
+        List<String> listElements = new ArrayList<>( );
+        listElements.add( PARAMETER_NAME );
+
+        ClientHeaderHashAuthenticator authenticator = new ClientHeaderHashAuthenticator( );
+        authenticator.setHashService( new HmacSha256HashService( ) );
+        authenticator.setSignatureElements( listElements );
+        authenticator.setClientId( CLIENT_ID );
+        authenticator.setClientKeyService( clientKeyService );
+
+        return authenticator;
+    }
+
+    /**
+     * Builds a request signed by a client
+     * 
+     * @param client
+     *            The authenticator of the client
+     * @return The request
+     */
+    private static MockHttpServletRequest buildRequest( ClientHeaderHashAuthenticator client )
+    {
+        List<String> listValues = new ArrayList<>( );
+        listValues.add( PARAMETER_VALUE );
+
+        AuthenticateRequestInformations infos = client.getSecurityInformations( listValues );
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.addParameter( PARAMETER_NAME, PARAMETER_VALUE );
+        infos.getSecurityHeaders( ).forEach( request::addHeader );
+
+        return request;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.service;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * MappedClientKeyServiceTest
+ */
+public class MappedClientKeyServiceTest
+{
+    /**
+     * Test the lookup of keys in an index built from a CSV file
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testGetKey( ) throws Exception
+    {
+        Path directory = Files.createTempDirectory( "signrequest" );
+        Path csv = directory.resolve( "clients.csv" );
+        Path index = directory.resolve( "clients.idx" );
+        Files.write( csv, "# Partners\nclient1,key1\n client2 ; key;2 \ncli\u00E9nt3,k\u00E9y3\n".getBytes( StandardCharsets.UTF_8 ) );
+
+        MappedClientKeyService.writeIndex( MappedClientKeyService.readClients( csv ), index );
+
+        MappedClientKeyService service = new MappedClientKeyService( index );
+
+        try
+        {
+            Assertions.assertEquals( 3, service.size( ) );
+            Assertions.assertEquals( "key1", service.getKey( "client1" ) );
+            Assertions.assertEquals( "key;2", service.getKey( "client2" ) );
+            Assertions.assertEquals( "k\u00E9y3", service.getKey( "cli\u00E9nt3" ) );
+            Assertions.assertNull( service.getKey( "client4" ) );
+            Assertions.assertNull( service.getKey( null ) );
+            Assertions.assertTrue( service.getClientIds( ).contains( "client2" ) );
+        }
+        finally
+        {
+            service.close( );
+        }
+    }
+
+    /**
+     * Test the lookup in a large index and the swap of a new index file
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testReload( ) throws Exception
+    {
+        Path index = Files.createTempDirectory( "signrequest" ).resolve( "clients.idx" );
+        Map<String, String> mapClients = new HashMap<>( );
+
+        for ( int i = 0; i < 10000; i++ )
+        {
+            mapClients.put( "client" + i, "key" + i );
+        }
+
+        MappedClientKeyService.writeIndex( mapClients, index );
+
+        MappedClientKeyService service = new MappedClientKeyService( index );
+
+        try
+        {
+            for ( int i = 0; i < 10000; i++ )
+            {
+                Assertions.assertEquals( "key" + i, service.getKey( "client" + i ) );
+            }
+
+            // A corrupted file keeps the current index
+            Files.write( index.resolveSibling( "garbage" ), new byte [ ] {
+                    1, 2, 3
+            } );
+            Files.move( index.resolveSibling( "garbage" ), index, StandardCopyOption.REPLACE_EXISTING );
+            Assertions.assertFalse( service.reload( ) );
+            Assertions.assertEquals( "key1", service.getKey( "client1" ) );
+
+            mapClients.put( "client1", "newKey" );
+            MappedClientKeyService.writeIndex( mapClients, index );
+
+            long lDeadline = System.currentTimeMillis( ) + 10000;
+
+            while ( !"newKey".equals( service.getKey( "client1" ) ) && ( System.currentTimeMillis( ) < lDeadline ) )
+            {
+                Thread.sleep( 50 );
+            }
+
+            Assertions.assertEquals( "newKey", service.getKey( "client1" ) );
+            Assertions.assertEquals( "key2", service.getKey( "client2" ) );
+        }
+        finally
+        {
+            service.close( );
+        }
+    }
+}
@@ -0,0 +1,527 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.servlet;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.HeaderHashAuthenticator;
+import fr.paris.lutece.util.signrequest.security.Sha1HashService;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * AbstractRequestFilterTest
+ */
+public class AbstractRequestFilterTest
+{
+    /**
+     * In spill mode, a signed body is read and verified before the chain
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testSpill( ) throws Exception
+    {
+        AbstractRequestFilter filter = newFilter( "spill", Long.MAX_VALUE );
+        MockResponse response = new MockResponse( );
+        List<ServletRequest> listChained = new ArrayList<>( );
+
+        filter.doFilter( DigestingRequestWrapperTest.newRequest( sign( ), DigestingRequestWrapperTest.BODY, -1L ), response.get( ),
+                ( req, res ) -> listChained.add( req ) );
+
+        Assertions.assertEquals( HttpServletResponse.SC_OK, response.getStatus( ) );
+        Assertions.assertEquals( 1, listChained.size( ) );
+    }
+
+    /**
+     * A body too large gives a 401, not an error
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testSpillTooLarge( ) throws Exception
+    {
+        AbstractRequestFilter filter = newFilter( "spill", 100 );
+        MockResponse response = new MockResponse( );
+        List<ServletRequest> listChained = new ArrayList<>( );
+
+        filter.doFilter( DigestingRequestWrapperTest.newRequest( sign( ), DigestingRequestWrapperTest.BODY, -1L ), response.get( ),
+                ( req, res ) -> listChained.add( req ) );
+
+        Assertions.assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus( ) );
+        Assertions.assertTrue( listChained.isEmpty( ) );
+    }
+
+    /**
+     * The body of an unsigned request is not read
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testUnsignedBodyNotRead( ) throws Exception
+    {
+        AbstractRequestFilter filter = newFilter( "spill", Long.MAX_VALUE );
+        MockResponse response = new MockResponse( );
+        HttpServletRequest request = new HttpServletRequestWrapper(
+                DigestingRequestWrapperTest.newRequest( new AuthenticateRequestInformations( ), DigestingRequestWrapperTest.BODY, -1L ) )
+        {
+            @Override
+            public ServletInputStream getInputStream( )
+            {
+                throw new AssertionError( "The body must not be read" );
+            }
+        };
+
+        filter.doFilter( request, response.get( ), ( req, res ) -> Assertions.fail( "Unsigned request" ) );
+
+        Assertions.assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus( ) );
+    }
+
+    /**
+     * Form posts are not wrapped, their fields stay available as parameters
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testFormPostNotWrapped( ) throws Exception
+    {
+        AbstractRequestFilter filter = newFilter( "spill", Long.MAX_VALUE );
+        HttpServletRequest request = new HttpServletRequestWrapper(
+                DigestingRequestWrapperTest.newRequest( sign( ), DigestingRequestWrapperTest.BODY, -1L ) )
+        {
+            @Override
+            public String getContentType( )
+            {
+                return "application/x-www-form-urlencoded; charset=UTF-8";
+            }
+
+            @Override
+            public ServletInputStream getInputStream( )
+            {
+                throw new AssertionError( "The body must be left to the container" );
+            }
+        };
+
+        // Without body digest, the signature of the body is not valid
+        MockResponse response = new MockResponse( );
+        filter.doFilter( request, response.get( ), ( req, res ) -> Assertions.fail( "Body not verified" ) );
+        Assertions.assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus( ) );
+    }
+
+    /**
+     * In streaming mode, a body opened but not verified when the chain returns is rejected
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testStreamNotVerified( ) throws Exception
+    {
+        AbstractRequestFilter filter = newFilter( "stream", Long.MAX_VALUE );
+        MockResponse response = new MockResponse( );
+
+        filter.doFilter( DigestingRequestWrapperTest.newRequest( sign( ), DigestingRequestWrapperTest.BODY, -1L ), response.get( ),
+                ( req, res ) -> ( (HttpServletRequest) req ).getInputStream( ).readNBytes( 10 ) );
+
+        Assertions.assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus( ) );
+    }
+
+    /**
+     * An authenticated request is dispatched again and goes through the chain without a second verification
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testAsyncDispatch( ) throws Exception
+    {
+        AbstractRequestFilter filter = newAsyncFilter( Runnable::run );
+        AsyncRequest request = new AsyncRequest( sign( ) );
+        MockResponse response = new MockResponse( );
+        List<ServletRequest> listChained = new ArrayList<>( );
+
+        filter.doFilter( request, response.get( ), ( req, res ) -> listChained.add( req ) );
+
+        Assertions.assertTrue( request._bDispatched );
+        Assertions.assertFalse( request._bCompleted );
+        Assertions.assertTrue( listChained.isEmpty( ) );
+
+        // The dispatch of the filter, then one of the application : the signature is not checked again
+        request._dispatcherType = DispatcherType.ASYNC;
+        filter.doFilter( request, response.get( ), ( req, res ) -> listChained.add( req ) );
+        filter.doFilter( request, response.get( ), ( req, res ) -> listChained.add( req ) );
+
+        Assertions.assertEquals( 2, listChained.size( ) );
+        Assertions.assertEquals( HttpServletResponse.SC_OK, response.getStatus( ) );
+    }
+
+    /**
+     * A rejected request gets a 401
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testAsyncUnauthorized( ) throws Exception
+    {
+        AbstractRequestFilter filter = newAsyncFilter( Runnable::run );
+        AsyncRequest request = new AsyncRequest( new AuthenticateRequestInformations( ) );
+        MockResponse response = new MockResponse( );
+
+        filter.doFilter( request, response.get( ), ( req, res ) -> Assertions.fail( "Unsigned request" ) );
+
+        Assertions.assertTrue( request._bCompleted );
+        Assertions.assertFalse( request._bDispatched );
+        Assertions.assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus( ) );
+
+        // An ASYNC dispatch of a request never verified is checked
+        request._dispatcherType = DispatcherType.ASYNC;
+        request._bCompleted = false;
+        filter.doFilter( request, response.get( ), ( req, res ) -> Assertions.fail( "Unsigned request" ) );
+        Assertions.assertTrue( request._bCompleted );
+    }
+
+    /**
+     * A verification not finished in time gets a 503, and its late result is ignored
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testAsyncTimeout( ) throws Exception
+    {
+        List<Runnable> listTasks = new ArrayList<>( );
+        AbstractRequestFilter filter = newAsyncFilter( listTasks::add );
+        AsyncRequest request = new AsyncRequest( sign( ) );
+        MockResponse response = new MockResponse( );
+
+        filter.doFilter( request, response.get( ), ( req, res ) -> Assertions.fail( "Not verified yet" ) );
+
+        Assertions.assertEquals( 1, listTasks.size( ) );
+        Assertions.assertEquals( 1000L, request._lTimeout );
+
+        for ( AsyncListener listener : request._listListeners )
+        {
+            listener.onTimeout( null );
+        }
+
+        Assertions.assertTrue( request._bCompleted );
+        Assertions.assertEquals( HttpServletResponse.SC_SERVICE_UNAVAILABLE, response.getStatus( ) );
+
+        listTasks.get( 0 ).run( );
+
+        // The late verification does not touch the ended request
+        Assertions.assertFalse( request._bBodyRead );
+        Assertions.assertFalse( request._bDispatched );
+        Assertions.assertEquals( HttpServletResponse.SC_SERVICE_UNAVAILABLE, response.getStatus( ) );
+    }
+
+    /**
+     * With two stacked filters, the ASYNC dispatch of the first one is still verified by the second one
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testStackedFilters( ) throws Exception
+    {
+        AbstractRequestFilter first = newAsyncFilter( Runnable::run );
+        Map<String, String> mapParameters = new HashMap<>( );
+        mapParameters.put( "privateKey", "other key" );
+        mapParameters.put( "elementsSignature", "@body" );
+        mapParameters.put( "validityTimePeriod", "0" );
+        AbstractRequestFilter second = newFilter( mapParameters );
+
+        AsyncRequest request = new AsyncRequest( sign( ) );
+        MockResponse response = new MockResponse( );
+        List<ServletRequest> listChained = new ArrayList<>( );
+        FilterChain chain = ( req, res ) -> second.doFilter( req, res, ( req2, res2 ) -> listChained.add( req2 ) );
+
+        first.doFilter( request, response.get( ), chain );
+        Assertions.assertTrue( request._bDispatched );
+
+        request._dispatcherType = DispatcherType.ASYNC;
+        first.doFilter( request, response.get( ), chain );
+
+        Assertions.assertTrue( listChained.isEmpty( ) );
+        Assertions.assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus( ) );
+    }
+
+    /**
+     * A verification rejected by the executor gets a 503
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testAsyncRejected( ) throws Exception
+    {
+        AbstractRequestFilter filter = newAsyncFilter( task -> {
+            throw new RejectedExecutionException( "Saturated" );
+        } );
+        AsyncRequest request = new AsyncRequest( sign( ) );
+        MockResponse response = new MockResponse( );
+
+        filter.doFilter( request, response.get( ), ( req, res ) -> Assertions.fail( "Not verified" ) );
+
+        Assertions.assertTrue( request._bCompleted );
+        Assertions.assertFalse( request._bDispatched );
+        Assertions.assertEquals( HttpServletResponse.SC_SERVICE_UNAVAILABLE, response.getStatus( ) );
+    }
+
+    /**
+     * Signs the body
+     * 
+     * @return The security informations
+     */
+    private static AuthenticateRequestInformations sign( )
+    {
+        List<String> listElements = new ArrayList<>( );
+        listElements.add( "@body" );
+        HeaderHashAuthenticator authenticator = new HeaderHashAuthenticator( new Sha1HashService( ), listElements, DigestingRequestWrapperTest.PRIVATE_KEY );
+        String strDigest = DigestingRequestWrapper.digest( DigestingRequestWrapperTest.BODY );
+
+        return authenticator.getSecurityInformations( Collections.singletonList( strDigest ) )
+                .addSecurityHeader( DigestingRequestWrapper.HEADER_BODY_DIGEST, strDigest );
+    }
+
+    /**
+     * Creates a header hash filter signing the body
+     * 
+     * @param strBodyDigest
+     *            The body digest mode
+     * @param lBodyMaxSize
+     *            The maximum size of the body
+     * @return The filter
+     * @throws ServletException
+     */
+    private static AbstractRequestFilter newFilter( String strBodyDigest, long lBodyMaxSize ) throws ServletException
+    {
+        Map<String, String> mapParameters = new HashMap<>( );
+        mapParameters.put( "privateKey", DigestingRequestWrapperTest.PRIVATE_KEY );
+        mapParameters.put( "elementsSignature", "@body" );
+        mapParameters.put( "validityTimePeriod", "0" );
+        mapParameters.put( "bodyDigest", strBodyDigest );
+        mapParameters.put( "bodyMaxSize", String.valueOf( lBodyMaxSize ) );
+
+        return newFilter( mapParameters );
+    }
+
+    /**
+     * Creates an asynchronous header hash filter signing the body
+     * 
+     * @param executor
+     *            The executor running the verifications
+     * @return The filter
+     * @throws ServletException
+     */
+    private static AbstractRequestFilter newAsyncFilter( Executor executor ) throws ServletException
+    {
+        Map<String, String> mapParameters = new HashMap<>( );
+        mapParameters.put( "privateKey", DigestingRequestWrapperTest.PRIVATE_KEY );
+        mapParameters.put( "elementsSignature", "@body" );
+        mapParameters.put( "validityTimePeriod", "0" );
+        mapParameters.put( "bodyDigest", "spill" );
+        mapParameters.put( "async", "true" );
+        mapParameters.put( "asyncTimeout", "1000" );
+
+        AbstractRequestFilter filter = new HeaderHashRequestFilter( );
+        filter.setAsyncExecutor( executor );
+        filter.init( newFilterConfig( mapParameters ) );
+
+        return filter;
+    }
+
+    /**
+     * Creates a header hash filter
+     * 
+     * @param mapParameters
+     *            The init parameters
+     * @return The filter
+     * @throws ServletException
+     */
+    static AbstractRequestFilter newFilter( Map<String, String> mapParameters ) throws ServletException
+    {
+        AbstractRequestFilter filter = new HeaderHashRequestFilter( );
+        filter.init( newFilterConfig( mapParameters ) );
+
+        return filter;
+    }
+
+    /**
+     * Creates a filter configuration
+     * 
+     * @param mapParameters
+     *            The init parameters
+     * @return The filter configuration
+     */
+    private static FilterConfig newFilterConfig( Map<String, String> mapParameters )
+    {
+        return new FilterConfig( )
+        {
+            @Override
+            public String getFilterName( )
+            {
+                return "signrequest";
+            }
+
+            @Override
+            public ServletContext getServletContext( )
+            {
+                return null;
+            }
+
+            @Override
+            public String getInitParameter( String strName )
+            {
+                return mapParameters.get( strName );
+            }
+
+            @Override
+            public Enumeration<String> getInitParameterNames( )
+            {
+                return Collections.enumeration( mapParameters.keySet( ) );
+            }
+        };
+    }
+
+    /**
+     * Async-supported request recording the calls to its async context
+     */
+    private static final class AsyncRequest extends HttpServletRequestWrapper
+    {
+        private final Map<String, Object> _mapAttributes = new HashMap<>( );
+        private final List<AsyncListener> _listListeners = new ArrayList<>( );
+        private DispatcherType _dispatcherType = DispatcherType.REQUEST;
+        private long _lTimeout;
+        private boolean _bDispatched;
+        private boolean _bCompleted;
+        private boolean _bBodyRead;
+
+        /**
+         * Constructor
+         * 
+         * @param infos
+         *            The security informations
+         */
+        AsyncRequest( AuthenticateRequestInformations infos )
+        {
+            super( DigestingRequestWrapperTest.newRequest( infos, DigestingRequestWrapperTest.BODY, -1L ) );
+        }
+
+        @Override
+        public ServletInputStream getInputStream( ) throws IOException
+        {
+            _bBodyRead = true;
+
+            return super.getInputStream( );
+        }
+
+        @Override
+        public DispatcherType getDispatcherType( )
+        {
+            return _dispatcherType;
+        }
+
+        @Override
+        public Object getAttribute( String strName )
+        {
+            return _mapAttributes.get( strName );
+        }
+
+        @Override
+        public void setAttribute( String strName, Object value )
+        {
+            _mapAttributes.put( strName, value );
+        }
+
+        @Override
+        public void removeAttribute( String strName )
+        {
+            _mapAttributes.remove( strName );
+        }
+
+        @Override
+        public boolean isAsyncSupported( )
+        {
+            return true;
+        }
+
+        @Override
+        public AsyncContext startAsync( ServletRequest request, ServletResponse response )
+        {
+            return (AsyncContext) Proxy.newProxyInstance( getClass( ).getClassLoader( ), new Class<?> [ ] {
+                    AsyncContext.class
+            }, ( proxy, method, args ) -> {
+                switch( method.getName( ) )
+                {
+                    case "addListener":
+                        _listListeners.add( (AsyncListener) args [0] );
+                        break;
+                    case "setTimeout":
+                        _lTimeout = (Long) args [0];
+                        break;
+                    case "dispatch":
+                        _bDispatched = true;
+                        break;
+                    case "complete":
+                        _bCompleted = true;
+                        break;
+                    default:
+                        break;
+                }
+
+                return null;
+            } );
+        }
+    }
+}
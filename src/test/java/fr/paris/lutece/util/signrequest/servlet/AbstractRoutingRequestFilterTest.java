@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.RequestAuthenticator;
+import fr.paris.lutece.util.signrequest.path.PathRouteTable;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * AbstractRoutingRequestFilterTest
+ */
+public class AbstractRoutingRequestFilterTest
+{
+    /**
+     * Requests are routed on the path normalized by the container : a raw URI written to avoid a route does not skip its authenticator
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testNoBypass( ) throws Exception
+    {
+        AbstractRoutingRequestFilter filter = newFilter( );
+
+        // Raw URIs the container maps to /rest/api/secret
+        for ( String strUri : new String [ ] {
+                "/rest/api;x=1/secret", "/rest/%61pi/secret", "//rest/api/secret", "/rest/./api/secret", "/rest/api/secret"
+        } )
+        {
+            MockResponse response = new MockResponse( );
+            List<String> listCalls = new ArrayList<>( );
+            filter.doFilter( request( strUri, "/rest", "/api/secret" ), response.get( ), ( req, res ) -> listCalls.add( "chain" ) );
+
+            Assertions.assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus( ), strUri );
+            Assertions.assertTrue( listCalls.isEmpty( ), strUri );
+        }
+
+        MockResponse response = new MockResponse( );
+        List<String> listCalls = new ArrayList<>( );
+        filter.doFilter( request( "/public/index.html", "/public", "/index.html" ), response.get( ), ( req, res ) -> listCalls.add( "chain" ) );
+        Assertions.assertEquals( HttpServletResponse.SC_OK, response.getStatus( ) );
+        Assertions.assertEquals( 1, listCalls.size( ) );
+    }
+
+    /**
+     * Test of getPath method, of class AbstractRoutingRequestFilter.
+     */
+    @Test
+    public void testGetPath( )
+    {
+        Assertions.assertEquals( "/rest/api/secret", AbstractRoutingRequestFilter.getPath( request( "/ctx/rest/api/secret", "/rest", "/api/secret" ) ) );
+        Assertions.assertEquals( "/index.jsp", AbstractRoutingRequestFilter.getPath( request( "/ctx/index.jsp", "/index.jsp", null ) ) );
+        Assertions.assertEquals( "/api", AbstractRoutingRequestFilter.getPath( request( "/ctx/api", "", "/api" ) ) );
+    }
+
+    /**
+     * Creates a filter rejecting every request under /rest/api
+     * 
+     * @return The filter
+     * @throws ServletException
+     */
+    private static AbstractRoutingRequestFilter newFilter( ) throws ServletException
+    {
+        RequestAuthenticator reject = new RequestAuthenticator( )
+        {
+            @Override
+            public boolean isRequestAuthenticated( HttpServletRequest request )
+            {
+                return false;
+            }
+
+            @Override
+            public AuthenticateRequestInformations getSecurityInformations( List<String> elements )
+            {
+                return null;
+            }
+        };
+
+        AbstractRoutingRequestFilter filter = new AbstractRoutingRequestFilter( )
+        {
+            @Override
+            protected PathRouteTable<RequestAuthenticator> getRouteTable( FilterConfig filterConfig )
+            {
+                return PathRouteTable.<RequestAuthenticator> builder( ).add( "/rest/api/*", reject ).build( );
+            }
+        };
+        filter.init( null );
+
+        return filter;
+    }
+
+    /**
+     * Creates a request as mapped by the container
+     * 
+     * @param strUri
+     *            The raw request URI
+     * @param strServletPath
+     *            The decoded and normalized servlet path
+     * @param strPathInfo
+     *            The decoded and normalized path info
+     * @return The request
+     */
+    private static HttpServletRequest request( String strUri, String strServletPath, String strPathInfo )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setServletPath( strServletPath );
+
+        return new HttpServletRequestWrapper( request )
+        {
+            @Override
+            public String getRequestURI( )
+            {
+                return strUri;
+            }
+
+            @Override
+            public String getPathInfo( )
+            {
+                return strPathInfo;
+            }
+        };
+    }
+}
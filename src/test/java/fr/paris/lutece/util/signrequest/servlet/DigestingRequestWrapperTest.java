@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2002-2026, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.signrequest.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.test.mocks.MockHttpServletRequest;
+import fr.paris.lutece.util.signrequest.AbstractAuthenticator;
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.HeaderHashAuthenticator;
+import fr.paris.lutece.util.signrequest.security.HmacSha256HashService;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * DigestingRequestWrapperTest
+ */
+public class DigestingRequestWrapperTest
+{
+    static final String PRIVATE_KEY = "change me";
+    static final byte [ ] BODY = "{\"name\":\"value\"}".repeat( 1000 ).getBytes( StandardCharsets.UTF_8 );
+
+    /**
+     * In streaming mode, the signature covers the announced digest, and the body is checked at the end of the stream
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testStream( ) throws IOException
+    {
+        HeaderHashAuthenticator authenticator = newAuthenticator( );
+        AuthenticateRequestInformations infos = sign( authenticator );
+
+        DigestingRequestWrapper wrapper = new DigestingRequestWrapper( newRequest( infos, BODY ) );
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( wrapper ) );
+        Assertions.assertArrayEquals( BODY, wrapper.getInputStream( ).readAllBytes( ) );
+
+        byte [ ] tampered = BODY.clone( );
+        tampered [tampered.length - 2] = 'X';
+        DigestingRequestWrapper tamperedWrapper = new DigestingRequestWrapper( newRequest( infos, tampered ) );
+        // The announced digest is signed
+        Assertions.assertTrue( authenticator.isRequestAuthenticated( tamperedWrapper ) );
+        // But the body does not match it
+        Assertions.assertThrows( IOException.class, ( ) -> tamperedWrapper.getInputStream( ).readAllBytes( ) );
+    }
+
+    /**
+     * A body read up to its length, or closed before its end, is checked even if the end of the stream is never reached
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testStreamWithoutEndOfStream( ) throws IOException
+    {
+        AuthenticateRequestInformations infos = sign( newAuthenticator( ) );
+        byte [ ] tampered = BODY.clone( );
+        tampered [tampered.length - 2] = 'X';
+        byte [ ] buffer = new byte [ BODY.length];
+
+        // The last bytes of a tampered body are not given
+        DigestingRequestWrapper wrapper = new DigestingRequestWrapper( newRequest( infos, tampered, tampered.length ) );
+        Assertions.assertThrows( IOException.class, ( ) -> wrapper.getInputStream( ).readNBytes( buffer, 0, buffer.length ) );
+        Assertions.assertFalse( wrapper.isBodyVerified( ) );
+
+        DigestingRequestWrapper validWrapper = new DigestingRequestWrapper( newRequest( infos, BODY, BODY.length ) );
+        Assertions.assertEquals( BODY.length, validWrapper.getInputStream( ).readNBytes( buffer, 0, buffer.length ) );
+        Assertions.assertTrue( validWrapper.isBodyVerified( ) );
+
+        // Without length, closing the stream reads and checks the rest of the body
+        DigestingRequestWrapper closedWrapper = new DigestingRequestWrapper( newRequest( infos, tampered ) );
+        ServletInputStream in = closedWrapper.getInputStream( );
+        in.readNBytes( 10 );
+        Assertions.assertThrows( IOException.class, in::close );
+        Assertions.assertFalse( closedWrapper.isBodyVerified( ) );
+        Assertions.assertTrue( closedWrapper.isBodyOpened( ) );
+    }
+
+    /**
+     * A body larger than the maximum size is not spilled
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testSpillMaxSize( ) throws IOException
+    {
+        AuthenticateRequestInformations infos = sign( newAuthenticator( ) );
+
+        try ( DigestingRequestWrapper wrapper = new DigestingRequestWrapper( newRequest( infos, BODY ) ) )
+        {
+            Assertions.assertThrows( IOException.class, ( ) -> wrapper.spill( 100, BODY.length - 1 ) );
+        }
+
+        try ( DigestingRequestWrapper wrapper = new DigestingRequestWrapper( newRequest( infos, BODY, BODY.length ) ) )
+        {
+            Assertions.assertThrows( IOException.class, ( ) -> wrapper.spill( 100, 10 ) );
+        }
+    }
+
+    /**
+     * In spill mode, the body is digested before the verification and served again, from memory or from a file
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testSpill( ) throws IOException
+    {
+        HeaderHashAuthenticator authenticator = newAuthenticator( );
+        AuthenticateRequestInformations infos = sign( authenticator );
+
+        for ( int nThreshold : new int [ ] {
+                BODY.length, 100
+        } )
+        {
+            try ( DigestingRequestWrapper wrapper = new DigestingRequestWrapper( newRequest( infos, BODY ) ) )
+            {
+                wrapper.spill( nThreshold, Long.MAX_VALUE );
+                Assertions.assertTrue( authenticator.isRequestAuthenticated( wrapper ) );
+                Assertions.assertArrayEquals( BODY, wrapper.getInputStream( ).readAllBytes( ) );
+            }
+
+            byte [ ] tampered = BODY.clone( );
+            tampered [0] = 'X';
+
+            try ( DigestingRequestWrapper wrapper = new DigestingRequestWrapper( newRequest( infos, tampered ) ) )
+            {
+                wrapper.spill( nThreshold, Long.MAX_VALUE );
+                Assertions.assertFalse( authenticator.isRequestAuthenticated( wrapper ) );
+            }
+        }
+    }
+
+    /**
+     * Closing the wrapper, as on an asynchronous timeout, stops a spill in progress and deletes its file
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testCloseDuringSpill( ) throws IOException
+    {
+        AuthenticateRequestInformations infos = sign( newAuthenticator( ) );
+        DigestingRequestWrapper [ ] wrapper = new DigestingRequestWrapper [ 1];
+        int [ ] nReads = new int [ 1];
+
+        wrapper [0] = new DigestingRequestWrapper( newRequest( infos, BODY, -1L, ( ) -> {
+            if ( nReads [0]++ == 1 )
+            {
+                try
+                {
+                    wrapper [0].close( );
+                }
+                catch( IOException e )
+                {
+                    throw new IllegalStateException( e );
+                }
+            }
+        } ) );
+
+        long lSpilledFiles = countSpilledFiles( );
+        Assertions.assertThrows( IOException.class, ( ) -> wrapper [0].spill( 100, Long.MAX_VALUE ) );
+        Assertions.assertEquals( 2, nReads [0] );
+        Assertions.assertFalse( wrapper [0].isBodyVerified( ) );
+        Assertions.assertEquals( lSpilledFiles, countSpilledFiles( ) );
+
+        // Closed before the spill : the body is not read
+        Assertions.assertThrows( IOException.class, ( ) -> wrapper [0].spill( 100, Long.MAX_VALUE ) );
+        Assertions.assertEquals( 2, nReads [0] );
+    }
+
+    /**
+     * Counts the spilled body files in the temporary directory
+     * 
+     * @return The number of files
+     * @throws IOException
+     */
+    private static long countSpilledFiles( ) throws IOException
+    {
+        try ( Stream<Path> files = Files.list( Paths.get( System.getProperty( "java.io.tmpdir" ) ) ) )
+        {
+            return files.filter( file -> file.getFileName( ).toString( ).startsWith( "signrequest-body-" ) ).count( );
+        }
+    }
+
+    /**
+     * Creates an authenticator signing the body
+     * 
+     * @return The authenticator
+     */
+    static HeaderHashAuthenticator newAuthenticator( )
+    {
+        List<String> listElements = new ArrayList<>( );
+        listElements.add( AbstractAuthenticator.ELEMENT_BODY );
+
+        return new HeaderHashAuthenticator( new HmacSha256HashService( ), listElements, PRIVATE_KEY );
+    }
+
+    /**
+     * Signs the body, client side
+     * 
+     * @param authenticator
+     *            The authenticator
+     * @return The security informations
+     */
+    static AuthenticateRequestInformations sign( HeaderHashAuthenticator authenticator )
+    {
+        String strDigest = DigestingRequestWrapper.digest( BODY );
+        List<String> listValues = new ArrayList<>( );
+        listValues.add( strDigest );
+
+        return authenticator.getSecurityInformations( listValues ).addSecurityHeader( DigestingRequestWrapper.HEADER_BODY_DIGEST, strDigest );
+    }
+
+    /**
+     * Creates a request
+     * 
+     * @param infos
+     *            The security informations
+     * @param body
+     *            The body
+     * @return The request
+     */
+    private static HttpServletRequest newRequest( AuthenticateRequestInformations infos, byte [ ] body )
+    {
+        return newRequest( infos, body, -1L );
+    }
+
+    /**
+     * Creates a request
+     * 
+     * @param infos
+     *            The security informations
+     * @param body
+     *            The body
+     * @param lContentLength
+     *            The content length, or -1
+     * @return The request
+     */
+    static HttpServletRequest newRequest( AuthenticateRequestInformations infos, byte [ ] body, long lContentLength )
+    {
+        return newRequest( infos, body, lContentLength, ( ) -> {
+        } );
+    }
+
+    /**
+     * Creates a request
+     * 
+     * @param infos
+     *            The security informations
+     * @param body
+     *            The body
+     * @param lContentLength
+     *            The content length, or -1
+     * @param onRead
+     *            Run before each read of the body
+     * @return The request
+     */
+    private static HttpServletRequest newRequest( AuthenticateRequestInformations infos, byte [ ] body, long lContentLength, Runnable onRead )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        infos.getSecurityHeaders( ).forEach( request::addHeader );
+
+        return new HttpServletRequestWrapper( request )
+        {
+            @Override
+            public long getContentLengthLong( )
+            {
+                return lContentLength;
+            }
+
+            @Override
+            public ServletInputStream getInputStream( )
+            {
+                InputStream in = new ByteArrayInputStream( body );
+
+                return new ServletInputStream( )
+                {
+                    @Override
+                    public int read( ) throws IOException
+                    {
+                        onRead.run( );
+
+                        return in.read( );
+                    }
+
+                    @Override
+                    public int read( byte [ ] buffer, int nOffset, int nLength ) throws IOException
+                    {
+                        onRead.run( );
+
+                        return in.read( buffer, nOffset, nLength );
+                    }
+
+                    @Override
+                    public boolean isFinished( )
+                    {
+                        return false;
+                    }
+
+                    @Override
+                    public boolean isReady( )
+                    {
+                        return true;
+                    }
+
+                    @Override
+                    public void setReadListener( ReadListener readListener )
+                    {
+                    }
+                };
+            }
+        };
+    }
+}